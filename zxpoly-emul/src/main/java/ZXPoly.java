@@ -241,6 +241,13 @@ public class ZXPoly implements Runnable {
   )
   private File snapshotFile = null;
 
+  @CommandLine.Option(
+      names = {"--replay-input"},
+      defaultValue = CommandLine.Option.NULL_VALUE,
+      description = "replay recorded input file after start"
+  )
+  private File replayInputFile = null;
+
   public ZXPoly() {
   }
 
@@ -333,6 +340,7 @@ public class ZXPoly implements Runnable {
             .setShowIndicatorPanel(this.showIndicators)
             .setVirtualKeyboardLook(this.virtualKeyboardLook)
             .setOpenSnapshot(this.snapshotFile)
+            .setReplayInput(this.replayInputFile)
             .setBorderWidth(this.borderWidth)
             .setInterlaceScan(this.interlaceScan)
             .setCovoxFb(this.covoxFb)
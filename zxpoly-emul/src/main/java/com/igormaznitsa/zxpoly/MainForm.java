@@ -33,6 +33,11 @@ import com.igormaznitsa.zxpoly.animeencoders.AGifEncoder;
 import com.igormaznitsa.zxpoly.animeencoders.AnimatedGifTunePanel;
 import com.igormaznitsa.zxpoly.animeencoders.AnimationEncoder;
 import com.igormaznitsa.zxpoly.components.BoardMode;
+import com.igormaznitsa.zxpoly.components.BoardState;
+import com.igormaznitsa.zxpoly.components.InputJournal;
+import com.igormaznitsa.zxpoly.components.MachineMemory;
+import com.igormaznitsa.zxpoly.components.ModuleMemoryDiff;
+import com.igormaznitsa.zxpoly.components.Watchpoints;
 import com.igormaznitsa.zxpoly.components.KempstonMouse;
 import com.igormaznitsa.zxpoly.components.KeyboardKempstonAndTapeIn;
 import com.igormaznitsa.zxpoly.components.Motherboard;
@@ -57,6 +62,9 @@ import com.igormaznitsa.zxpoly.formats.FormatSpec256;
 import com.igormaznitsa.zxpoly.formats.FormatZ80;
 import com.igormaznitsa.zxpoly.formats.FormatZXP;
 import com.igormaznitsa.zxpoly.formats.Snapshot;
+import com.igormaznitsa.zxpoly.metrics.EmulationEvents;
+import com.igormaznitsa.zxpoly.metrics.EmulatorMetrics;
+import com.igormaznitsa.zxpoly.metrics.FrameStatistics;
 import com.igormaznitsa.zxpoly.streamer.ZxVideoStreamer;
 import com.igormaznitsa.zxpoly.tracer.TraceCpuForm;
 import com.igormaznitsa.zxpoly.trainers.AbstractTrainer;
@@ -70,7 +78,11 @@ import com.igormaznitsa.zxpoly.ui.JIndicatorLabel;
 import com.igormaznitsa.zxpoly.ui.OptionsPanel;
 import com.igormaznitsa.zxpoly.ui.SelectTapPosDialog;
 import com.igormaznitsa.zxpoly.utils.AppOptions;
+import com.igormaznitsa.zxpoly.utils.BootStateCache;
 import com.igormaznitsa.zxpoly.utils.JHtmlLabel;
+import com.igormaznitsa.zxpoly.utils.JitWarmUp;
+import com.igormaznitsa.zxpoly.utils.QualityGovernor;
+import com.igormaznitsa.zxpoly.utils.RingLogger;
 import com.igormaznitsa.zxpoly.utils.RomLoader;
 import com.igormaznitsa.zxpoly.utils.RomSource;
 import com.igormaznitsa.zxpoly.utils.Timer;
@@ -83,6 +95,7 @@ import java.awt.Component;
 import java.awt.Desktop;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
+import java.awt.Frame;
 import java.awt.GraphicsDevice;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
@@ -99,6 +112,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
+import java.awt.event.HierarchyEvent;
 import java.awt.event.InputEvent;
 import java.awt.event.ItemEvent;
 import java.awt.event.KeyEvent;
@@ -110,6 +124,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.net.InetAddress;
@@ -125,10 +140,14 @@ import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -161,6 +180,7 @@ import javax.swing.JRadioButtonMenuItem;
 import javax.swing.JScrollPane;
 import javax.swing.JSeparator;
 import javax.swing.JSlider;
+import javax.swing.JTextArea;
 import javax.swing.JToggleButton;
 import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
@@ -202,9 +222,21 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
   private static final String TEXT_START_WAV = "Record WAV";
   private static final String TEXT_STOP_ANIM_GIF = "Stop AGIF";
   private static final String TEXT_STOP_WAV = "Stop WAV";
+  private static final int MAX_LOGGED_DIFF_RANGES = 32;
+  private static final int MAX_SHOWN_WATCHPOINT_HITS = 16;
+  private static final long HIDDEN_PAUSE_NANOS = 100_000_000L;
+  private static final RingLogger.Event LOG_SLOWNESS =
+      RingLogger.event(LOGGER, Level.WARNING, (percents, a, b, c, ref1, ref2) ->
+          String.format("Slowness detected: %.02f%%", percents / 100.0f));
+  private static final String TEXT_START_INPUT_RECORD = "Record input";
+  private static final String TEXT_STOP_INPUT_RECORD = "Stop input record";
+  private static final String TEXT_START_INPUT_REPLAY = "Replay input";
+  private static final String TEXT_STOP_INPUT_REPLAY = "Stop input replay";
   private static final long serialVersionUID = 7309959798344327441L;
   private static final String ROM_BOOTSTRAP_FILE_NAME = "bootstrap.rom";
   private static final WavFileFilter FILTER_FORMAT_WAV = new WavFileFilter();
+  private static final InputJournalFileFilter FILTER_FORMAT_INPUT_JOURNAL =
+      new InputJournalFileFilter();
   private static final TzxFileFilter FILTER_FORMAT_TZX = new TzxFileFilter();
   private static final TapFileFilter FILTER_FORMAT_TAP = new TapFileFilter();
   private static final FileFilter FILTER_FORMAT_ALL_TAPE = new FileFilter() {
@@ -260,6 +292,13 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
   private final boolean tryConsumeLessSystemResources;
   private final AtomicReference<JFrame> currentFullScreen = new AtomicReference<>();
   private final int intTicksBeforeFrameDraw;
+  private final int runAheadFrames;
+  private final BootStateCache bootStateCache;
+  private volatile long timeToFirstFrameMillis = -1L;
+  private final boolean pauseWhenHidden;
+  private volatile boolean screenVisible = true;
+  private final EmulatorMetrics metrics;
+  private final QualityGovernor qualityGovernor;
   private final CpuLoadIndicator indicatorCpu0 =
       new CpuLoadIndicator(48, 14, 4, "CPU0", Color.GREEN, Color.DARK_GRAY, Color.WHITE);
   private final CpuLoadIndicator indicatorCpu1 =
@@ -272,6 +311,7 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
   private final AtomicInteger activeTracerWindowCounter = new AtomicInteger();
   private final AtomicReference<AnimationEncoder> currentAnimationEncoder = new AtomicReference<>();
   private final Motherboard board;
+  private final MachineMemory exportedMemory;
   private final ZxVideoStreamer videoStreamer;
   private final Timer wallClock;
   private final Runnable traceWindowsUpdater = new Runnable() {
@@ -299,6 +339,7 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
   private final ImageIcon sysIcon;
   private final TimingProfile timingProfile;
   private final AtomicBoolean magicButtonTrigger = new AtomicBoolean();
+  private final AtomicBoolean watchpointHitsInProcessing = new AtomicBoolean();
   private volatile long lastFullScreenEventTime = 0L;
   private volatile boolean turboMode = false;
   private volatile boolean zxKeyboardProcessingAllowed = true;
@@ -357,6 +398,8 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
   private JMenuItem menuServiceGameControllers;
   private JMenuItem menuServiceSaveScreen;
   private JMenuItem menuServiceMakeSnapshot;
+  private JMenuItem menuServiceRecordInput;
+  private JMenuItem menuServiceReplayInput;
   private JMenuItem menuServiceStartEditor;
   private JMenu menuTap;
   private JMenu menuTapExportAs;
@@ -374,6 +417,7 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
   private JMenu menuTracer;
   private JCheckBoxMenuItem menuTriggerDiffMem;
   private JCheckBoxMenuItem menuTriggerExeCodeDiff;
+  private JMenuItem menuTriggerWatchpoints;
   private JCheckBoxMenuItem menuTriggerModuleCPUDesync;
   private javax.swing.JPanel panelIndicators;
   private JScrollPane scrollPanel;
@@ -418,6 +462,26 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
 
     LOGGER.log(Level.INFO, "INT ticks between frame render: " + this.intTicksBeforeFrameDraw);
 
+    this.runAheadFrames = AppOptions.getInstance().getRunAheadFrames();
+    LOGGER.log(Level.INFO, "Run-ahead frames: " + this.runAheadFrames);
+
+    this.bootStateCache = AppOptions.getInstance().isBootStateCache()
+        ? new BootStateCache(AppOptions.getInstance().getBootStateCacheFolder()) : null;
+    this.pauseWhenHidden = AppOptions.getInstance().isPauseWhenHidden();
+    this.qualityGovernor = new QualityGovernor(AppOptions.getInstance().isQualityGovernor());
+    LOGGER.log(Level.INFO, "Quality governor: " + this.qualityGovernor.isEnabled());
+
+    // independent resources are loaded concurrently with ROM loading
+    final CompletableFuture<VirtualKeyboardDecoration> vkbdLoading =
+        CompletableFuture.supplyAsync(() -> {
+          try {
+            return parameters.getVirtualKeyboardLook(AppOptions.getInstance().getKeyboardLook())
+                .load();
+          } catch (IOException ex) {
+            throw new CompletionException(ex);
+          }
+        });
+
     byte[] bootstrapRom = null;
     final File bootstrapRomFile = new File(ROM_BOOTSTRAP_FILE_NAME);
     if (bootstrapRomFile.isFile()) {
@@ -485,8 +549,7 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
 
     final VirtualKeyboardDecoration vkbdContainer;
     try {
-      vkbdContainer =
-          parameters.getVirtualKeyboardLook(AppOptions.getInstance().getKeyboardLook()).load();
+      vkbdContainer = vkbdLoading.join();
       LOGGER.info("Virtual keyboard profile: " + vkbdContainer.getId());
     } catch (Exception ex) {
       LOGGER.log(Level.SEVERE, "Can't load virtual keyboard: " + ex.getMessage(), ex);
@@ -499,7 +562,7 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
 
     final Bounds parameterKeyboardBounds = parameters.getKeyboardBounds(null);
 
-    this.board = new Motherboard(
+    final Function<MachineMemory, Motherboard> boardFactory = memory -> new Motherboard(
         parameters.getBorderWidth(AppOptions.getInstance().getBorderWidth()),
         volumeProfile,
         this.timingProfile,
@@ -515,18 +578,37 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
         parameters.isAttributePortFf(AppOptions.getInstance().isAttributePortFf()),
         vkbdContainer,
         parameters.isUlaPlus(AppOptions.getInstance().isUlaPlus()),
-        this.tryConsumeLessSystemResources
+        this.tryConsumeLessSystemResources,
+        memory
     );
+    this.exportedMemory = makeExportedMemory();
+    this.board = boardFactory.apply(
+        this.exportedMemory == null ? MachineMemory.allocate() : this.exportedMemory);
+    if (AppOptions.getInstance().isJitWarmUp()) {
+      // bounded warm-up is made before the first live frame, so scratch board never competes
+      // with the real board for CPU, render bands and logger
+      try {
+        JitWarmUp.run(boardFactory.apply(MachineMemory.allocate()), this.timingProfile,
+            JitWarmUp.FRAMES, JitWarmUp.MAX_DURATION);
+      } catch (RuntimeException ex) {
+        LOGGER.log(Level.WARNING, "Error during JIT warm-up", ex);
+      }
+    }
     this.board.reset();
     this.menuOptionsZX128Mode.setSelected(this.board.getBoardMode() != BoardMode.ZXPOLY);
     this.menuOptionsTurbo.setSelected(this.turboMode);
 
     LOGGER.info("Main form completed");
     this.board.reset();
+    this.requestBootState();
 
     this.scrollPanel.getViewport().add(this.board.getVideoController());
+    this.board.getVideoController().addHierarchyListener(e -> {
+      if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+        this.updateScreenVisibility();
+      }
+    });
     this.keyboardAndTapeModule = this.board.findIoDevice(KeyboardKempstonAndTapeIn.class);
-    this.keyboardAndTapeModule.attachHostWindow(this);
     this.kempstonMouse = this.board.findIoDevice(KempstonMouse.class);
 
     this.menuOptionsOnlyJoystickEvents.setSelected(
@@ -599,8 +681,16 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
         }
     );
 
+    this.metrics = new EmulatorMetrics(this.board, this.videoStreamer,
+        this::getTimeToFirstFrameMillis);
+    this.metrics.register();
+
     if (parameters.isActivateSound(AppOptions.getInstance().isSoundTurnedOn())) {
-      this.activateSoundIfPossible();
+      CompletableFuture.supplyAsync(this::tryFastSpeakerActivation)
+          .thenAccept(activated -> SwingUtilities.invokeLater(() -> {
+            this.menuOptionsEnableSpeaker.setSelected(activated);
+            this.setFastButtonState(FastButton.SOUND_ON_OFF, activated);
+          }));
     }
 
     this.loadFastButtons();
@@ -697,6 +787,17 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
           () -> this.setSnapshotFile(parameters.getOpenSnapshot(), FILTER_FORMAT_ALL_SNAPSHOTS));
     }
 
+    if (parameters.getReplayInput() != null) {
+      SwingUtilities.invokeLater(() -> {
+        this.stepLocker.lock();
+        try {
+          this.startInputReplay(parameters.getReplayInput());
+        } finally {
+          this.stepLocker.unlock();
+        }
+      });
+    }
+
     this.menuBar.setVisible(parameters.isShowMainMenu(true));
 
     final Bounds forceBounds = parameters.getBounds(null);
@@ -742,6 +843,24 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
 
   private void doOnShutdown() {
     this.videoStreamer.stop();
+    if (this.exportedMemory != null) {
+      this.exportedMemory.force();
+    }
+  }
+
+  private static MachineMemory makeExportedMemory() {
+    final String file = System.getProperty("zxpoly.memory.export", "").trim();
+    if (file.isEmpty()) {
+      return null;
+    }
+    try {
+      final MachineMemory result = MachineMemory.map(Path.of(file));
+      LOGGER.info("Machine memory is exported into file: " + file);
+      return result;
+    } catch (IOException | RuntimeException ex) {
+      LOGGER.log(Level.SEVERE, "Can't export machine memory into file: " + file, ex);
+      return null;
+    }
   }
 
   private Optional<SourceSoundPort> showSelectSoundLineDialog(
@@ -1066,12 +1185,21 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
 
   private void mainLoop() {
     final boolean lessResources = this.tryConsumeLessSystemResources;
+    final BoardState runAheadState = this.runAheadFrames > 0 ? new BoardState(this.board) : null;
+    final boolean blinkWholeScreen = lessResources || runAheadState != null;
 
     this.wallClock.next();
     int countdownToNotifyRepaint = this.intTicksBeforeFrameDraw;
     int countdownToAnimationSave = 0;
 
     long sessionIntCounter = 0;
+    boolean screenRendered = true;
+
+    final FrameStatistics frameStatistics = this.metrics.getFrameStatistics();
+    long frameStartNanos = System.nanoTime();
+    long waitStartNanos = -1L;
+    EmulationEvents.FrameEvent frameEvent = new EmulationEvents.FrameEvent();
+    frameEvent.begin();
 
     int nextBlinkLineTiStates =
         this.timingProfile.tstatesStartScreen + this.timingProfile.tstatesPerVideo;
@@ -1081,20 +1209,47 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
       boolean notifyRepaintScreen = false;
       boolean doBlink = false;
 
+      final boolean renderScreen = this.screenVisible
+          || this.videoStreamer.isStarted()
+          || this.currentAnimationEncoder.get() != null;
+
+      if (!renderScreen && this.pauseWhenHidden) {
+        LockSupport.parkNanos(HIDDEN_PAUSE_NANOS);
+        this.wallClock.next();
+        continue;
+      }
+
       int frameTiStates = this.board.getFrameTiStates();
       final boolean inTurboMode = this.turboMode;
       final boolean tiStatesForIntExhausted = frameTiStates >= this.timingProfile.tstatesFrame;
       boolean intTickForWallClockReached = this.wallClock.completed();
 
       if (!inTurboMode && tiStatesForIntExhausted && !intTickForWallClockReached) {
-        this.wallClock.sleep();
+        final long sleepStartNanos = System.nanoTime();
+        if (waitStartNanos < 0L) {
+          waitStartNanos = sleepStartNanos;
+        }
+        if (this.wallClock.sleep()) {
+          frameStatistics.addSleepNanos(System.nanoTime() - sleepStartNanos);
+        }
       }
       intTickForWallClockReached = this.wallClock.completed();
 
       if (stepLocker.tryLock()) {
         try {
           final boolean doCpuIntTick;
-          if (intTickForWallClockReached) {
+          if (inTurboMode) {
+            // emulated frames run flat out, screen is presented on wall clock ticks
+            doCpuIntTick = tiStatesForIntExhausted;
+            if (doCpuIntTick) {
+              sessionIntCounter++;
+              countdownToAnimationSave--;
+            }
+            if (intTickForWallClockReached) {
+              this.wallClock.next();
+              notifyRepaintScreen = true;
+            }
+          } else if (intTickForWallClockReached) {
             if (tiStatesForIntExhausted) {
               sessionIntCounter++;
               doCpuIntTick = true;
@@ -1118,6 +1273,29 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
             doCpuIntTick = false;
           }
 
+          if (doCpuIntTick) {
+            final long nowNanos = System.nanoTime();
+            frameStatistics.onFrame(nowNanos, nowNanos - frameStartNanos, frameTiStates,
+                waitStartNanos < 0L ? 0L : nowNanos - waitStartNanos);
+            if (frameEvent.shouldCommit()) {
+              frameEvent.frame = sessionIntCounter;
+              frameEvent.tiStates = frameTiStates;
+              frameEvent.turbo = inTurboMode;
+              frameEvent.commit();
+            }
+            frameEvent = new EmulationEvents.FrameEvent();
+            frameEvent.begin();
+            frameStartNanos = nowNanos;
+            waitStartNanos = -1L;
+
+            if (!inTurboMode && this.qualityGovernor.onFrame()) {
+              this.applyQualityLevel();
+            }
+            if (this.bootStateCache != null) {
+              this.bootStateCache.onFrame(this.board);
+            }
+          }
+
           final boolean executionEnabled = inTurboMode || !tiStatesForIntExhausted || doCpuIntTick;
 
           final boolean triggeredNmi;
@@ -1129,14 +1307,21 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
 
           final int detectedTriggers = this.board.step(
               tiStatesForIntExhausted,
-              intTickForWallClockReached,
+              inTurboMode ? doCpuIntTick : intTickForWallClockReached,
               triggeredNmi,
               doCpuIntTick,
               executionEnabled);
 
           frameTiStates = this.board.getFrameTiStates();
 
-          if (!tiStatesForIntExhausted && frameTiStates >= nextBlinkLineTiStates) {
+          if (this.exportedMemory != null && !tiStatesForIntExhausted
+              && frameTiStates >= this.timingProfile.tstatesFrame) {
+            // frame just completed, memory is stable until next interrupt tick
+            this.exportedMemory.publish(this.board);
+          }
+
+          if (renderScreen && !inTurboMode && !tiStatesForIntExhausted
+              && frameTiStates >= nextBlinkLineTiStates) {
             doBlink = true;
           }
 
@@ -1144,7 +1329,14 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
             this.videoStreamer.onWallclockInt();
           }
 
-          if (detectedTriggers != Motherboard.TRIGGER_NONE) {
+          if ((detectedTriggers & Motherboard.TRIGGER_WATCHPOINT) != 0
+              && this.watchpointHitsInProcessing.compareAndSet(false, true)) {
+            final int lostHits = this.board.getWatchpoints().getLostHits();
+            final List<Watchpoints.Hit> hits = this.board.getWatchpoints().drainHits();
+            SwingUtilities.invokeLater(() -> onWatchpointHits(hits, lostHits));
+          }
+
+          if ((detectedTriggers & ~Motherboard.TRIGGER_WATCHPOINT) != Motherboard.TRIGGER_NONE) {
             final Z80[] cpuStates = new Z80[4];
             final int lastM1Address = this.board.getModules()[0].getLastM1Address();
             for (int i = 0; i < 4; i++) {
@@ -1158,6 +1350,8 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
             if (theAnimationEncoder == null) {
               countdownToAnimationSave = 0;
             } else {
+              theAnimationEncoder.setFrameRateDivider(this.qualityGovernor
+                  .isReduced(QualityGovernor.Feature.ANIMATION_FRAME_RATE) ? 2 : 1);
               countdownToAnimationSave = theAnimationEncoder.getIntsBetweenFrames();
               try {
                 theAnimationEncoder
@@ -1173,7 +1367,7 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
 
         if (doBlink) {
           if (blinkLineY < 192) {
-            if (!lessResources) {
+            if (!blinkWholeScreen) {
               this.blinkScreen(sessionIntCounter, blinkLineY, blinkLineY + 1);
             }
             blinkLineY++;
@@ -1184,12 +1378,19 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
           }
         }
 
-        if (notifyRepaintScreen) {
-          if (lessResources) {
-            this.blinkWholeScreen();
+        if (notifyRepaintScreen && renderScreen) {
+          if (this.timeToFirstFrameMillis < 0L) {
+            this.timeToFirstFrameMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+            LOGGER.info("Time to first frame: " + this.timeToFirstFrameMillis + " ms");
+          }
+          if (runAheadState == null || inTurboMode || !this.blinkRunAheadScreen(runAheadState)) {
+            if (blinkWholeScreen || inTurboMode || !screenRendered) {
+              this.blinkWholeScreen();
+            }
           }
           this.repaintScreen();
         }
+        screenRendered = renderScreen;
       } else {
         if (this.wallClock.completed()) {
           this.wallClock.next();
@@ -1216,8 +1417,16 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
   }
 
   private void onSlownessDetected(final long remainTstates) {
-    LOGGER.warning(String.format("Slowness detected: %.02f%%",
-        (float) remainTstates / (float) this.timingProfile.tstatesFrame * 100.0f));
+    final float remainPart = (float) remainTstates / (float) this.timingProfile.tstatesFrame;
+    this.metrics.getFrameStatistics().onLateFrame();
+    this.qualityGovernor.onLateFrame();
+    final EmulationEvents.FrameLateEvent event = new EmulationEvents.FrameLateEvent();
+    if (event.isEnabled()) {
+      event.remainTiStates = remainTstates;
+      event.remainPart = remainPart;
+      event.commit();
+    }
+    RingLogger.getInstance().log(LOG_SLOWNESS, Math.round(remainPart * 10000.0f));
   }
 
   private void updateTracerWindowsForStep() {
@@ -1256,6 +1465,17 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
     if ((triggered & Motherboard.TRIGGER_DIFF_MEM_ADDR) != 0) {
       buffer.append("MEMORY CONTENT DIFFERENCE: ").append(toHex(this.board.getMemTriggerAddress()));
       buffer.append('\n').append(getCellContentForAddress(lastAddress)).append('\n');
+
+      final long startNanos = System.nanoTime();
+      final List<ModuleMemoryDiff.Range> diffRanges = this.board.findDiffRangesInModuleMemory();
+      final long spentMicros = (System.nanoTime() - startNanos) / 1000L;
+      buffer.append("DIFFERENT MODULE MEMORY RANGES: ").append(diffRanges.size())
+          .append(" (found in ").append(spentMicros).append(" us)\n");
+      diffRanges.stream().limit(MAX_LOGGED_DIFF_RANGES)
+          .forEach(r -> buffer.append(r).append(" (").append(r.getLength()).append(" bytes)\n"));
+      if (diffRanges.size() > MAX_LOGGED_DIFF_RANGES) {
+        buffer.append("...\n");
+      }
     }
 
     if ((triggered & Motherboard.TRIGGER_DIFF_EXE_CODE) != 0) {
@@ -1344,6 +1564,46 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
     }
   }
 
+  private void onWatchpointHits(final List<Watchpoints.Hit> hits, final int lostHits) {
+    this.stepLocker.lock();
+    try {
+      final StringBuilder buffer = new StringBuilder();
+      for (final Watchpoints.Hit hit : hits) {
+        buffer.append(hit).append('\n');
+        final TraceCpuForm tracer = this.cpuTracers[hit.getModule()];
+        if (tracer != null) {
+          tracer.onWatchpointHit(hit);
+        }
+      }
+      if (lostHits > 0) {
+        buffer.append("...and ").append(lostHits).append(" more\n");
+      }
+      LOGGER.info("WATCHPOINT HITS:\n" + buffer);
+
+      final String[] options = new String[] {"Continue", "Remove watchpoints"};
+      final String shownHits = hits.stream().limit(MAX_SHOWN_WATCHPOINT_HITS)
+          .map(Watchpoints.Hit::toString).collect(Collectors.joining("\n"));
+      if (JOptionPane.showOptionDialog(MainForm.this, "Detected watchpoint hits: "
+              + (hits.size() + lostHits) + '\n' + shownHits,
+          "Triggered", JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null,
+          options, options[0]) == 1) {
+        this.board.getWatchpoints().clear();
+      }
+    } finally {
+      this.watchpointHitsInProcessing.set(false);
+      this.stepLocker.unlock();
+    }
+  }
+
+  /**
+   * Get time since JVM start till the first frame of emulation has been sent to screen.
+   *
+   * @return time in milliseconds or -1 if there was no frame yet
+   */
+  public long getTimeToFirstFrameMillis() {
+    return this.timeToFirstFrameMillis;
+  }
+
   public boolean isTurboMode() {
     return this.turboMode;
   }
@@ -1351,9 +1611,40 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
   public void setTurboMode(final boolean value) {
     this.setFastButtonState(FastButton.TURBO_MODE, value);
     this.turboMode = value;
+    this.updateBorderRendering();
     LOGGER.info("Turbo-mode: " + value);
   }
 
+  private void updateBorderRendering() {
+    final VideoController videoController = this.board.getVideoController();
+    videoController.setBorderRendering(!this.turboMode);
+    videoController.setBorderPerFrame(
+        this.qualityGovernor.isReduced(QualityGovernor.Feature.BORDER_DETAIL));
+  }
+
+  private void applyQualityLevel() {
+    LOGGER.info("Quality governor, reduced features: " + this.qualityGovernor.getReduced());
+    this.board.getVideoController().setTvFiltersSuppressed(
+        this.qualityGovernor.isReduced(QualityGovernor.Feature.TV_FILTERS));
+    this.updateBorderRendering();
+    VideoController.setGfxBackSuppressed(
+        this.qualityGovernor.isReduced(QualityGovernor.Feature.SPEC256_BACKGROUND));
+    this.videoStreamer.setFrameRateDivider(
+        this.qualityGovernor.isReduced(QualityGovernor.Feature.STREAMER_FRAME_RATE) ? 2 : 1);
+  }
+
+  private void updateScreenVisibility() {
+    final VideoController videoController = this.board.getVideoController();
+    final Window window = SwingUtilities.getWindowAncestor(videoController);
+    final boolean visible = videoController.isShowing()
+        && !(window instanceof Frame && (((Frame) window).getExtendedState() & Frame.ICONIFIED) != 0);
+    if (this.screenVisible != visible) {
+      LOGGER.info(visible ? "Screen is visible, rendering resumed"
+          : "Screen is hidden, rendering suspended" + (this.pauseWhenHidden ? " and paused" : ""));
+      this.screenVisible = visible;
+    }
+  }
+
   private void blinkScreen(final long sessionIntCounter, final int lineFrom, final int lineTo) {
     if (this.interlaceScan) {
       this.board.getVideoController().syncUpdateBuffer(lineFrom, lineTo,
@@ -1364,7 +1655,8 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
           .syncUpdateBuffer(lineFrom, lineTo, VideoController.LineRenderMode.ALL);
     }
     this.board.getVideoController()
-        .copyWorkScreenToOutputScreen(0, lineFrom, VideoController.ZXSCREEN_COLS, lineTo);
+        .copyWorkScreenToOutputScreen(0, lineFrom, VideoController.ZXSCREEN_COLS,
+            lineTo - lineFrom);
   }
 
   private void blinkWholeScreen() {
@@ -1375,7 +1667,27 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
             VideoController.ZXSCREEN_ROWS);
   }
 
+  private boolean blinkRunAheadScreen(final BoardState state) {
+    this.stepLocker.lock();
+    try {
+      if (!this.board.isStateRollbackAllowed()) {
+        return false;
+      }
+      this.board.saveState(state);
+      try {
+        this.board.runFramesSilently(this.runAheadFrames);
+        this.blinkWholeScreen();
+      } finally {
+        this.board.restoreState(state);
+      }
+      return true;
+    } finally {
+      this.stepLocker.unlock();
+    }
+  }
+
   private void repaintScreen() {
+    board.getVideoController().publishOutputScreen();
     board.getVideoController().notifyRepaint();
   }
 
@@ -1432,12 +1744,6 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
     }
   }
 
-  private void activateSoundIfPossible() {
-    final boolean activated = tryFastSpeakerActivation();
-    this.menuOptionsEnableSpeaker.setSelected(activated);
-    this.setFastButtonState(FastButton.SOUND_ON_OFF, activated);
-  }
-
   private void setSoundActivate(final boolean activate, final SourceSoundPort... port) {
     boolean activated = false;
     this.suspendSteps();
@@ -1507,6 +1813,13 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
         .setBoardMode(this.menuOptionsZX128Mode.isSelected() ? BoardMode.ZX128 : BoardMode.ZXPOLY,
             false);
     this.board.resetAndRestoreRom(BASE_ROM);
+    this.requestBootState();
+  }
+
+  private void requestBootState() {
+    if (this.bootStateCache != null) {
+      this.bootStateCache.requestBoot(BASE_ROM);
+    }
   }
 
   private void makeMagic() {
@@ -1699,6 +2012,9 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
   private void setSnapshotFile(final File selected, FileFilter theFilter) {
     this.stepLocker.lock();
     try {
+      if (this.bootStateCache != null) {
+        this.bootStateCache.cancel();
+      }
       this.board.forceResetAllCpu();
       this.board.resetIoDevices();
 
@@ -1723,6 +2039,9 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
         }
 
         final Snapshot selectedFilter = (Snapshot) theFilter;
+        final EmulationEvents.SnapshotLoadEvent snapshotLoadEvent =
+            new EmulationEvents.SnapshotLoadEvent();
+        snapshotLoadEvent.begin();
         final Path selectedFile = selected.toPath();
         LOGGER.log(Level.INFO, "Loading snapshot " + selectedFile.getFileName() + " for filter " +
             selectedFilter.getName());
@@ -1735,6 +2054,12 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
             "Read " + readSnapshot.length + " byte(s) from " + selectedFilter.getName());
         selectedFilter.loadFromArray(selected, this.board, this.board.getVideoController(),
             readSnapshot);
+        if (snapshotLoadEvent.shouldCommit()) {
+          snapshotLoadEvent.file = selected.getAbsolutePath();
+          snapshotLoadEvent.format = selectedFilter.getName();
+          snapshotLoadEvent.size = readSnapshot.length;
+          snapshotLoadEvent.commit();
+        }
         this.menuOptionsZX128Mode.setState(this.board.getBoardMode() != BoardMode.ZXPOLY);
       } catch (Exception ex) {
         ex.printStackTrace();
@@ -1947,12 +2272,15 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
     menuActionAnimatedGIF = new JMenuItem();
     menuActionRecordWav = new JMenuItem();
     menuServiceMakeSnapshot = new JMenuItem();
+    menuServiceRecordInput = new JMenuItem();
+    menuServiceReplayInput = new JMenuItem();
     menuTapExportAs = new JMenu();
     menuTapExportAsWav = new JMenuItem();
     menuCatcher = new JMenu();
     menuTriggerDiffMem = new JCheckBoxMenuItem();
     menuTriggerModuleCPUDesync = new JCheckBoxMenuItem();
     menuTriggerExeCodeDiff = new JCheckBoxMenuItem();
+    menuTriggerWatchpoints = new JMenuItem();
     menuTracer = new JMenu();
     menuTraceCpu0 = new JCheckBoxMenuItem();
     menuTraceCpu1 = new JCheckBoxMenuItem();
@@ -2006,6 +2334,16 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
     });
 
     this.addWindowListener(new WindowAdapter() {
+      @Override
+      public void windowOpened(final WindowEvent e) {
+        // game controllers are attached only to completely constructed and shown window
+        CompletableFuture.runAsync(() -> keyboardAndTapeModule.attachHostWindow(MainForm.this))
+            .exceptionally(ex -> {
+              LOGGER.log(Level.SEVERE, "Can't attach game controllers to main window", ex);
+              return null;
+            });
+      }
+
       @Override
       public void windowActivated(WindowEvent e) {
         final Window virtualKeyboard = board.getVideoController().getVirtualKeboardWindow();
@@ -2014,6 +2352,16 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
         }
       }
 
+      @Override
+      public void windowIconified(final WindowEvent e) {
+        updateScreenVisibility();
+      }
+
+      @Override
+      public void windowDeiconified(final WindowEvent e) {
+        updateScreenVisibility();
+      }
+
       public void windowClosed(WindowEvent evt) {
         formWindowClosed(evt);
       }
@@ -2381,6 +2729,16 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
     menuServiceMakeSnapshot.addActionListener(this::menuServiceMakeSnapshotActionPerformed);
     menuService.add(menuServiceMakeSnapshot);
 
+    menuServiceRecordInput.setText(TEXT_START_INPUT_RECORD);
+    menuServiceRecordInput.setToolTipText("Record keyboard, joystick and mouse input into file");
+    menuServiceRecordInput.addActionListener(this::menuServiceRecordInputActionPerformed);
+    menuService.add(menuServiceRecordInput);
+
+    menuServiceReplayInput.setText(TEXT_START_INPUT_REPLAY);
+    menuServiceReplayInput.setToolTipText("Replay recorded input from file");
+    menuServiceReplayInput.addActionListener(this::menuServiceReplayInputActionPerformed);
+    menuService.add(menuServiceReplayInput);
+
     menuTapExportAs.setIcon(new ImageIcon(
         Objects.requireNonNull(
             getClass().getResource("/com/igormaznitsa/zxpoly/icons/tape_record.png")))); // NOI18N
@@ -2419,6 +2777,10 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
     menuTriggerExeCodeDiff.addActionListener(this::menuTriggerExeCodeDiffActionPerformed);
     menuCatcher.add(menuTriggerExeCodeDiff);
 
+    menuTriggerWatchpoints.setText("Watchpoints");
+    menuTriggerWatchpoints.addActionListener(this::menuTriggerWatchpointsActionPerformed);
+    menuCatcher.add(menuTriggerWatchpoints);
+
     menuService.add(menuCatcher);
 
     menuTracer.setText("Trace");
@@ -2587,6 +2949,14 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
       this.menuActionAnimatedGIF.setText(TEXT_STOP_ANIM_GIF);
     }
 
+    final InputJournal inputJournal = this.board.getInputJournal();
+    this.menuServiceRecordInput.setText(inputJournal == null || inputJournal.isReplay()
+        ? TEXT_START_INPUT_RECORD : TEXT_STOP_INPUT_RECORD);
+    this.menuServiceRecordInput.setEnabled(inputJournal == null || !inputJournal.isReplay());
+    this.menuServiceReplayInput.setText(inputJournal == null || !inputJournal.isReplay()
+        ? TEXT_START_INPUT_REPLAY : TEXT_STOP_INPUT_REPLAY);
+    this.menuServiceReplayInput.setEnabled(inputJournal == null || inputJournal.isReplay());
+
   }
 
   private void setWavRecordForSound(final boolean enable) {
@@ -2635,6 +3005,75 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
     this.setWavRecordForSound(!this.board.getBeeper().hasActiveWavFile());
   }
 
+  private void menuServiceRecordInputActionPerformed(final ActionEvent actionEvent) {
+    this.suspendSteps();
+    try {
+      final InputJournal inputJournal = this.board.getInputJournal();
+      if (inputJournal == null) {
+        this.board.setInputJournal(InputJournal.makeRecorder());
+      } else {
+        this.board.setInputJournal(null);
+        File file = chooseFileForSave("Save input record",
+            AppOptions.getInstance().getLastSnapshotFolder(), null, false,
+            FILTER_FORMAT_INPUT_JOURNAL);
+        if (file != null) {
+          if (!file.getName().contains(".")) {
+            file = new File(file.getParentFile(), file.getName() + ".zxij");
+          }
+          if (file.isFile() && showConfirmDialog(this,
+              String.format("Do you want override file '%s'?", file.getName()),
+              "Found existing file",
+              JOptionPane.OK_CANCEL_OPTION) == JOptionPane.CANCEL_OPTION) {
+            return;
+          }
+          try {
+            inputJournal.save(file);
+            LOGGER.info("Saved input record as file " + file.getName());
+          } catch (IOException ex) {
+            LOGGER.log(Level.SEVERE, "Can't save input record", ex);
+            showMessageDialog(this, "Can't save input record [" + ex.getMessage() + ']',
+                "Error", JOptionPane.ERROR_MESSAGE);
+          }
+        }
+      }
+    } finally {
+      this.refreshServiceMenuState();
+      this.resumeSteps();
+    }
+  }
+
+  private void menuServiceReplayInputActionPerformed(final ActionEvent actionEvent) {
+    this.suspendSteps();
+    try {
+      if (this.board.getInputJournal() == null) {
+        final File file = chooseFileForOpen("Replay input record",
+            AppOptions.getInstance().getLastSnapshotFolder(), null, FILTER_FORMAT_INPUT_JOURNAL);
+        if (file != null) {
+          this.startInputReplay(file);
+        }
+      } else {
+        this.board.setInputJournal(null);
+      }
+    } finally {
+      this.refreshServiceMenuState();
+      this.resumeSteps();
+    }
+  }
+
+  private void startInputReplay(final File file) {
+    try {
+      if (this.bootStateCache != null) {
+        this.bootStateCache.cancel();
+      }
+      this.board.setInputJournal(InputJournal.load(file));
+      LOGGER.info("Started replay of input record " + file.getName());
+    } catch (IOException ex) {
+      LOGGER.log(Level.SEVERE, "Can't load input record", ex);
+      showMessageDialog(this, "Can't load input record [" + ex.getMessage() + ']',
+          "Error", JOptionPane.ERROR_MESSAGE);
+    }
+  }
+
   private void menuFileCreateEmptyDiskFileActionPerformed(final ActionEvent actionEvent) {
     File file = chooseFileForSave("Create empty TRD disk file",
         AppOptions.getInstance().getLastDiskFolder(), null, false,
@@ -2782,6 +3221,7 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
       this.board
           .setBoardMode(this.menuOptionsZX128Mode.isSelected() ? BoardMode.ZX128 : BoardMode.ZXPOLY,
               true);
+      this.requestBootState();
     } finally {
       this.stepLocker.unlock();
     }
@@ -3165,6 +3605,32 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
     }
   }
 
+  private void menuTriggerWatchpointsActionPerformed(final ActionEvent evt) {
+    this.suspendSteps();
+    try {
+      final Watchpoints watchpoints = this.board.getWatchpoints();
+      final JTextArea textArea = new JTextArea(watchpoints.getText(), 12, 32);
+      final JPanel panel = new JPanel(new BorderLayout(0, 4));
+      panel.add(new JLabel("<html>One per line: &lt;X|R|W|P&gt; [module:]address[-address]<br>"
+          + "X - execute, R - read, W - write, P - port, example: <b>RW 0:#4000-#5AFF</b></html>"),
+          BorderLayout.NORTH);
+      panel.add(new JScrollPane(textArea), BorderLayout.CENTER);
+
+      while (showConfirmDialog(MainForm.this, panel, "Watchpoints",
+          JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) == JOptionPane.OK_OPTION) {
+        try {
+          watchpoints.setFromText(textArea.getText());
+          break;
+        } catch (IllegalArgumentException ex) {
+          showMessageDialog(MainForm.this, ex.getMessage(), "Error watchpoint",
+              JOptionPane.ERROR_MESSAGE);
+        }
+      }
+    } finally {
+      this.resumeSteps();
+    }
+  }
+
   private void menuTriggerExeCodeDiffActionPerformed(ActionEvent evt) {
     this.suspendSteps();
     try {
@@ -3534,6 +4000,19 @@ public final class MainForm extends JFrame implements ActionListener, TapeContex
 
   }
 
+  private static class InputJournalFileFilter extends FileFilter {
+
+    @Override
+    public boolean accept(final File f) {
+      return f.isDirectory() || f.getName().toLowerCase(Locale.ENGLISH).endsWith(".zxij");
+    }
+
+    @Override
+    public String getDescription() {
+      return "Input record (*.zxij)";
+    }
+  }
+
   private static class WavFileFilter extends FileFilter {
 
     @Override
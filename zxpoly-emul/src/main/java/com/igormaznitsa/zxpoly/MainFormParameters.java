@@ -13,6 +13,7 @@ public final class MainFormParameters {
   private String romPath;
 
   private File openSnapshot;
+  private File replayInput;
   private File preferencesFile;
   private TimingProfile timingProfile;
 
@@ -196,6 +197,15 @@ public final class MainFormParameters {
     return this;
   }
 
+  public File getReplayInput() {
+    return this.replayInput;
+  }
+
+  public MainFormParameters setReplayInput(final File file) {
+    this.replayInput = file;
+    return this;
+  }
+
   public boolean isShowMainMenu(final boolean defaultValue) {
     return requireNonNullElseEvenNull(this.showMainMenu, defaultValue);
   }
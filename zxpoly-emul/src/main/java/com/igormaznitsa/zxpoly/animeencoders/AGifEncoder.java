@@ -34,6 +34,7 @@ public final class AGifEncoder implements AnimationEncoder {
   private final AdaptedAnimatedGifEncoder gifEncoder;
 
   private final OutputStream outputStream;
+  private int frameRateDivider = 1;
 
   public AGifEncoder(final File targetFile, final int[] globalRgbPalette, final int frameRate, final boolean makeLoop) throws IOException {
     this.gifEncoder = new AdaptedAnimatedGifEncoder(VideoController.SCREEN_WIDTH, VideoController.SCREEN_HEIGHT, globalRgbPalette);
@@ -47,7 +48,17 @@ public final class AGifEncoder implements AnimationEncoder {
 
   @Override
   public int getIntsBetweenFrames() {
-    return this.intsBetweenFrames;
+    return this.intsBetweenFrames * this.frameRateDivider;
+  }
+
+  @Override
+  public void setFrameRateDivider(final int divider) {
+    final int normalized = Math.max(1, divider);
+    if (this.frameRateDivider != normalized) {
+      this.frameRateDivider = normalized;
+      this.gifEncoder.setDelay(Duration.ofMillis(
+          (long) this.intsBetweenFrames * normalized * MainForm.TIMER_INT_DELAY_MILLISECONDS.toMillis()));
+    }
   }
 
   @Override
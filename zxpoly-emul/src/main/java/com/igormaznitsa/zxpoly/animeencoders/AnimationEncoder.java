@@ -25,5 +25,12 @@ public interface AnimationEncoder {
 
   int getIntsBetweenFrames();
 
+  /**
+   * Set divider of frame rate, delay of next saved frames is changed to keep animation speed.
+   *
+   * @param divider divider of frame rate, 1 for configured frame rate
+   */
+  void setFrameRateDivider(int divider);
+
   void close() throws IOException;
 }
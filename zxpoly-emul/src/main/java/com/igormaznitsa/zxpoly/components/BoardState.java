@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.components;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * In-memory state of motherboard, modules and IO devices for fast rollback of emulation.
+ * The container is reusable, after the first save only changed RAM pages are copied.
+ *
+ * @see Motherboard#saveState(BoardState)
+ * @see Motherboard#restoreState(BoardState)
+ */
+public final class BoardState {
+
+  final MemorySegment ram;
+  final float[] cpuLoad = new float[4];
+  Object[] deviceStates;
+  int[] beeperChannels;
+  int ramEpoch = -1;
+  int triggers;
+  int port3D00;
+  boolean totalReset;
+  int resetCounter;
+  int intCounter;
+  boolean videoFlashState;
+  boolean localResetForAllModules;
+  int statisticCounter;
+  int frameTiStatesCounter;
+  boolean frameIntTriggered;
+  long frameCounter;
+
+  public BoardState(final Motherboard board) {
+    this.ram = MemorySegment.ofArray(new byte[(int) board.getHeapRam().byteSize()]);
+  }
+
+  public boolean isSaved() {
+    return this.ramEpoch >= 0;
+  }
+}
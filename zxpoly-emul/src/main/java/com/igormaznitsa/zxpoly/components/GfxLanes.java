@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.components;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * SWAR helpers to process bytes of all eight Spec256 GFX cores for one address as lanes of
+ * single long value. GFX memory keeps bytes of cores for an address in sequence, so lane index
+ * is the same as index of GFX core.
+ */
+final class GfxLanes {
+
+  static final long ALL_LANES = 0xFFFF_FFFF_FFFF_FFFFL;
+  private static final long LANE_ONES = 0x0101_0101_0101_0101L;
+  private static final ValueLayout.OfLong LANES =
+      ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final long[] LANE_MASKS = new long[256];
+
+  static {
+    for (int i = 0; i < LANE_MASKS.length; i++) {
+      long mask = 0L;
+      for (int lane = 0; lane < 8; lane++) {
+        if ((i & (1 << lane)) != 0) {
+          mask |= 0xFFL << (lane << 3);
+        }
+      }
+      LANE_MASKS[i] = mask;
+    }
+  }
+
+  private GfxLanes() {
+  }
+
+  /**
+   * Make lane mask for bit mask of GFX cores.
+   *
+   * @param coreMask bit mask of GFX cores, bit 0 is core 0
+   * @return mask where lane of every core in the mask is 0xFF
+   */
+  static long laneMask(final int coreMask) {
+    return LANE_MASKS[coreMask & 0xFF];
+  }
+
+  static long broadcast(final int value) {
+    return (value & 0xFFL) * LANE_ONES;
+  }
+
+  static long read(final MemorySegment memory, final long offset) {
+    return memory.get(LANES, offset);
+  }
+
+  static void write(final MemorySegment memory, final long offset, final long lanes) {
+    memory.set(LANES, offset, lanes);
+  }
+
+  /**
+   * Check that all masked lanes contain the same value.
+   *
+   * @param lanes    lanes to be checked
+   * @param value    expected byte value
+   * @param laneMask mask of lanes to be checked
+   * @return true if all masked lanes contain the value
+   */
+  static boolean isSame(final long lanes, final int value, final long laneMask) {
+    return ((lanes ^ broadcast(value)) & laneMask) == 0L;
+  }
+
+  static long replace(final long lanes, final int value, final long laneMask) {
+    return (lanes & ~laneMask) | (broadcast(value) & laneMask);
+  }
+
+  /**
+   * Transpose lanes as 8x8 bit matrix, bit N of lane M becomes bit M of lane N.
+   * Lane of every GFX core keeps one plane of eight pixels, after transposition lane N
+   * contains color index of pixel placed in bit N of the planes.
+   *
+   * @param lanes lanes to be transposed
+   * @return transposed bit matrix
+   */
+  static long transposeBits(long lanes) {
+    long t = (lanes ^ (lanes >>> 7)) & 0x00AA_00AA_00AA_00AAL;
+    lanes ^= t ^ (t << 7);
+    t = (lanes ^ (lanes >>> 14)) & 0x0000_CCCC_0000_CCCCL;
+    lanes ^= t ^ (t << 14);
+    t = (lanes ^ (lanes >>> 28)) & 0x0000_0000_F0F0_F0F0L;
+    lanes ^= t ^ (t << 28);
+    return lanes;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.components;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free queue of input events stamped by emulated time.
+ * Events are posted by any thread (AWT, game controllers) and consumed only by emulation thread
+ * which applies them when emulation reaches their frame and T-state, so input doesn't depend on
+ * thread scheduling.
+ */
+public final class InputEventQueue {
+
+  private final ConcurrentLinkedQueue<Event> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pending = new AtomicInteger();
+
+  /**
+   * Post new event.
+   *
+   * @param frame    frame when event should be applied
+   * @param tiStates T-state inside frame when event should be applied
+   * @param source   input source id
+   * @param value    new value of input source
+   */
+  public void post(final long frame, final int tiStates, final int source, final long value) {
+    this.queue.add(new Event(frame, tiStates, source, value));
+    this.pending.incrementAndGet();
+  }
+
+  /**
+   * Fast check that there are events in the queue, makes only single volatile read.
+   *
+   * @return true if there is any event in queue
+   */
+  public boolean hasPending() {
+    return this.pending.get() != 0;
+  }
+
+  /**
+   * Get next event which time has come, must be called only from emulation thread.
+   *
+   * @param frame    current frame
+   * @param tiStates current T-state inside frame
+   * @return event to be applied or null if there is no such one
+   */
+  public Event poll(final long frame, final int tiStates) {
+    final Event head = this.queue.peek();
+    if (head != null && head.isDue(frame, tiStates)) {
+      this.queue.poll();
+      this.pending.decrementAndGet();
+      return head;
+    }
+    return null;
+  }
+
+  public void clear() {
+    while (this.queue.poll() != null) {
+      this.pending.decrementAndGet();
+    }
+  }
+
+  public static final class Event {
+    private final long frame;
+    private final int tiStates;
+    private final int source;
+    private final long value;
+
+    private Event(final long frame, final int tiStates, final int source, final long value) {
+      this.frame = frame;
+      this.tiStates = tiStates;
+      this.source = source;
+      this.value = value;
+    }
+
+    public long getFrame() {
+      return this.frame;
+    }
+
+    public int getTiStates() {
+      return this.tiStates;
+    }
+
+    public int getSource() {
+      return this.source;
+    }
+
+    public long getValue() {
+      return this.value;
+    }
+
+    boolean isDue(final long frame, final int tiStates) {
+      return this.frame < frame || (this.frame == frame && this.tiStates <= tiStates);
+    }
+  }
+}
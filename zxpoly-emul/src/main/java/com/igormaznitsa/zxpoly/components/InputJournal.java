@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.components;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Journal of input changes stamped by frame and frame T-state, it allows to record input of
+ * keyboard, joysticks and mouse and replay it exactly.
+ * Journal is accessed only from emulation thread.
+ * Binary format: magic, version, starting values of all sources as varints and sequence of
+ * records [frame delta varint][t-state varint][source byte][value varint].
+ * Starting values are snapshot of input state made when recording starts, replay returns
+ * them for sources which don't have records yet, so live input never leaks into replay.
+ */
+public final class InputJournal {
+
+  public static final int SOURCE_KEYBOARD = 0;
+  public static final int SOURCE_KEMPSTON = 1;
+  public static final int SOURCE_MOUSE_X = 2;
+  public static final int SOURCE_MOUSE_Y = 3;
+  public static final int SOURCE_MOUSE_BUTTONS = 4;
+
+  private static final int SOURCES = 5;
+  private static final byte[] MAGIC = new byte[] {'Z', 'X', 'I', 'J'};
+  private static final int VERSION = 2;
+
+  private final boolean replay;
+  private final long[] startValues = new long[SOURCES];
+  private final long[] values = new long[SOURCES];
+  private final boolean[] defined = new boolean[SOURCES];
+  private byte[] data;
+  private int length;
+  private int position;
+  private long startFrame = -1L;
+  private long lastFrame;
+
+  private boolean nextPresent;
+  private long nextFrame;
+  private int nextTiStates;
+  private int nextSource;
+  private long nextValue;
+
+  private InputJournal(final boolean replay, final byte[] data, final int length) {
+    this.replay = replay;
+    this.data = data;
+    this.length = length;
+    if (replay) {
+      this.position = MAGIC.length + 1;
+      for (int i = 0; i < SOURCES; i++) {
+        this.startValues[i] = this.readVarLong();
+      }
+      this.readNext();
+    } else {
+      this.position = length;
+    }
+  }
+
+  public static InputJournal makeRecorder() {
+    return new InputJournal(false, new byte[0x10000], 0);
+  }
+
+  public static InputJournal makeReplay(final byte[] data) throws IOException {
+    if (data.length < MAGIC.length + 1
+        || !Arrays.equals(MAGIC, 0, MAGIC.length, data, 0, MAGIC.length)) {
+      throw new IOException("Not input journal");
+    }
+    if (data[MAGIC.length] != VERSION) {
+      throw new IOException("Unsupported input journal version: " + data[MAGIC.length]);
+    }
+    try {
+      final InputJournal probe = new InputJournal(true, data, data.length);
+      while (probe.nextPresent) {
+        probe.readNext();
+      }
+    } catch (IllegalStateException ex) {
+      throw new IOException("Broken input journal", ex);
+    }
+    return new InputJournal(true, data, data.length);
+  }
+
+  public static InputJournal load(final File file) throws IOException {
+    return makeReplay(Files.readAllBytes(file.toPath()));
+  }
+
+  public boolean isReplay() {
+    return this.replay;
+  }
+
+  /**
+   * Check that all records have been replayed.
+   *
+   * @return true if replay journal is completed, false otherwise, always false for recorder
+   */
+  public boolean isCompleted() {
+    return this.replay && !this.nextPresent;
+  }
+
+  /**
+   * Set starting value of input source, it must be called before the first record.
+   *
+   * @param source input source id
+   * @param value  value of the source at start of recording
+   */
+  public void setStartValue(final int source, final long value) {
+    if (this.replay) {
+      throw new IllegalStateException("Journal in replay mode");
+    }
+    if (this.length > 0) {
+      throw new IllegalStateException("Journal already contains records");
+    }
+    this.startValues[source] = value;
+    this.values[source] = value;
+    this.defined[source] = true;
+  }
+
+  /**
+   * Record value of input source, value is recorded only if it differs from previous one.
+   *
+   * @param frame    frame counter of motherboard
+   * @param tiStates t-states from frame start
+   * @param source   input source id
+   * @param value    current value
+   */
+  public void record(final long frame, final int tiStates, final int source, final long value) {
+    if (this.replay) {
+      throw new IllegalStateException("Journal in replay mode");
+    }
+    if (this.defined[source] && this.values[source] == value) {
+      return;
+    }
+    this.defined[source] = true;
+    this.values[source] = value;
+
+    final long relativeFrame = this.toRelativeFrame(frame);
+    this.ensureCapacity(32);
+    this.writeVarLong(relativeFrame - this.lastFrame);
+    this.writeVarLong(Math.max(0, tiStates));
+    this.data[this.length++] = (byte) source;
+    this.writeVarLong(value);
+    this.lastFrame = relativeFrame;
+  }
+
+  /**
+   * Apply all records stamped before or at provided time and get value of input source.
+   *
+   * @param frame      frame counter of motherboard
+   * @param tiStates   t-states from frame start
+   * @param source     input source id
+   * @return recorded value of source for the time, starting value if there is no record yet
+   */
+  public long replay(final long frame, final int tiStates, final int source) {
+    if (!this.replay) {
+      throw new IllegalStateException("Journal in record mode");
+    }
+    final long relativeFrame = this.toRelativeFrame(frame);
+    while (this.nextPresent
+        && (this.nextFrame < relativeFrame
+        || (this.nextFrame == relativeFrame && this.nextTiStates <= tiStates))) {
+      this.values[this.nextSource] = this.nextValue;
+      this.defined[this.nextSource] = true;
+      this.readNext();
+    }
+    return this.defined[source] ? this.values[source] : this.startValues[source];
+  }
+
+  public byte[] toByteArray() {
+    if (this.replay) {
+      return Arrays.copyOf(this.data, this.length);
+    }
+    final InputJournal header = new InputJournal(false, new byte[64], 0);
+    header.writeBytes(MAGIC);
+    header.data[header.length++] = VERSION;
+    for (final long value : this.startValues) {
+      header.writeVarLong(value);
+    }
+    final byte[] result = Arrays.copyOf(header.data, header.length + this.length);
+    System.arraycopy(this.data, 0, result, header.length, this.length);
+    return result;
+  }
+
+  public void save(final File file) throws IOException {
+    Files.write(file.toPath(), this.toByteArray());
+  }
+
+  private long toRelativeFrame(final long frame) {
+    if (this.startFrame < 0L) {
+      this.startFrame = frame;
+    }
+    return frame - this.startFrame;
+  }
+
+  private void readNext() {
+    if (this.position >= this.length) {
+      this.nextPresent = false;
+    } else {
+      this.nextFrame = this.lastFrame + this.readVarLong();
+      this.nextTiStates = (int) this.readVarLong();
+      this.nextSource = this.data[this.position++] & 0xFF;
+      this.nextValue = this.readVarLong();
+      if (this.nextSource >= SOURCES) {
+        throw new IllegalStateException("Unexpected input source: " + this.nextSource);
+      }
+      this.lastFrame = this.nextFrame;
+      this.nextPresent = true;
+    }
+  }
+
+  private void ensureCapacity(final int bytes) {
+    if (this.length + bytes > this.data.length) {
+      this.data = Arrays.copyOf(this.data, this.data.length * 2);
+    }
+  }
+
+  private void writeBytes(final byte[] bytes) {
+    System.arraycopy(bytes, 0, this.data, this.length, bytes.length);
+    this.length += bytes.length;
+  }
+
+  private void writeVarLong(long value) {
+    while ((value & ~0x7FL) != 0L) {
+      this.data[this.length++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    this.data[this.length++] = (byte) value;
+  }
+
+  private long readVarLong() {
+    long result = 0L;
+    int shift = 0;
+    while (true) {
+      if (this.position >= this.length) {
+        throw new IllegalStateException("Unexpected end of input journal");
+      }
+      final int value = this.data[this.position++] & 0xFF;
+      result |= (long) (value & 0x7F) << shift;
+      if ((value & 0x80) == 0) {
+        break;
+      }
+      shift += 7;
+    }
+    return result;
+  }
+}
@@ -48,4 +48,25 @@ public interface IoDevice extends ZxPolyConstants {
   void doReset();
 
   int getNotificationFlags();
+
+  /**
+   * Make in-memory copy of internal emulated state, it is used for fast rollback of emulation and
+   * it is not intended for persistence.
+   *
+   * @param container object returned by previous call for the same device, the device should
+   *                  refill and return it to avoid allocation, can be null
+   * @return object contains the state, null if device doesn't have emulated state
+   * @see #restoreState(Object)
+   */
+  default Object saveState(Object container) {
+    return null;
+  }
+
+  /**
+   * Restore internal emulated state from object made by {@link #saveState(Object)}.
+   *
+   * @param state object made by the same device, can be null
+   */
+  default void restoreState(Object state) {
+  }
 }
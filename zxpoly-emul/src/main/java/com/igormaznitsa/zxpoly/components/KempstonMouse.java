@@ -45,10 +45,15 @@ public final class KempstonMouse extends MouseAdapter implements IoDevice {
   private int pcMouseY;
 
   public KempstonMouse(final Motherboard board) {
-    try {
-      this.robot = new Robot();
-    } catch (AWTException ex) {
-      throw new Error("Can't create robot", ex);
+    if (GraphicsEnvironment.isHeadless()) {
+      // there is no host mouse to be trapped, for instance scratch board of JIT warm-up
+      this.robot = null;
+    } else {
+      try {
+        this.robot = new Robot();
+      } catch (AWTException ex) {
+        throw new Error("Can't create robot", ex);
+      }
     }
 
     this.board = board;
@@ -69,17 +74,17 @@ public final class KempstonMouse extends MouseAdapter implements IoDevice {
       switch (port) {
         case 0xFBDF: {
           // coord X
-          result = this.coordX.get();
+          result = this.passJournal(InputJournal.SOURCE_MOUSE_X, this.coordX.get());
         }
         break;
         case 0xFFDF: {
           // coord Y
-          result = this.coordY.get();
+          result = this.passJournal(InputJournal.SOURCE_MOUSE_Y, this.coordY.get());
         }
         break;
         case 0xFADF: {
           // buttons
-          result = this.buttons.get();
+          result = this.passJournal(InputJournal.SOURCE_MOUSE_BUTTONS, this.buttons.get());
         }
         break;
       }
@@ -87,6 +92,32 @@ public final class KempstonMouse extends MouseAdapter implements IoDevice {
     return result;
   }
 
+  /**
+   * Write current mouse state into journal as starting snapshot of recording.
+   *
+   * @param journal recording journal, must not be null
+   */
+  void writeJournalStart(final InputJournal journal) {
+    journal.setStartValue(InputJournal.SOURCE_MOUSE_X, this.coordX.get());
+    journal.setStartValue(InputJournal.SOURCE_MOUSE_Y, this.coordY.get());
+    journal.setStartValue(InputJournal.SOURCE_MOUSE_BUTTONS, this.buttons.get());
+  }
+
+  private int passJournal(final int source, final int value) {
+    final InputJournal journal = this.board.getInputJournal();
+    if (journal == null) {
+      return value;
+    }
+    final long frame = this.board.getFrameCounter();
+    final int tiStates = this.board.getFrameTiStates();
+    if (journal.isReplay()) {
+      return (int) journal.replay(frame, tiStates, source);
+    } else {
+      journal.record(frame, tiStates, source, value);
+      return value;
+    }
+  }
+
   @Override
   public void writeIo(final ZxPolyModule module, final int port, final int value) {
   }
@@ -129,7 +160,9 @@ public final class KempstonMouse extends MouseAdapter implements IoDevice {
 
       final Point thepoint = new Point(x, y);
       SwingUtilities.convertPointToScreen(thepoint, this.videoController);
-      this.robot.mouseMove(thepoint.x, thepoint.y);
+      if (this.robot != null) {
+        this.robot.mouseMove(thepoint.x, thepoint.y);
+      }
     } else {
       this.buttons.set(MOUSE_BUTTONS_NON_ACTIVE);
     }
@@ -18,6 +18,7 @@
 package com.igormaznitsa.zxpoly.components;
 
 import com.igormaznitsa.zxpoly.components.gadapter.GameControllerAdapter;
+import com.igormaznitsa.zxpoly.components.gadapter.GameControllerService;
 import com.igormaznitsa.zxpoly.components.gadapter.GameControllerAdapterInterface2;
 import com.igormaznitsa.zxpoly.components.gadapter.GameControllerAdapterKempston;
 import com.igormaznitsa.zxpoly.components.gadapter.GameControllerAdapterType;
@@ -161,8 +162,12 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
   private final long cursorCsMask = AppOptions.getInstance().getAutoCsForCursorKeys() ? ZXKEY_CS : 0L;
   private final TimingProfile timingProfile;
   private final List<TapeStateChangeListener> tapeStateChangeListeners = new CopyOnWriteArrayList<>();
+  private final InputEventQueue inputEvents = new InputEventQueue();
   private volatile long keyboardLines = ZXKEY_NONE;
-  private volatile long bufferKeyboardLines = 0L;
+  private volatile long bufferKeyboardLines = ZXKEY_NONE;
+  private final byte[] keyboardMatrix = new byte[0x100];
+  private long keyboardMatrixState = ~ZXKEY_NONE;
+  private long vkbKeyState = ZXKEY_NONE;
   private volatile int kempstonSignals = 0;
   private volatile int kempstonBuffer = 0;
   private volatile boolean onlyJoystickEvents = false;
@@ -185,6 +190,7 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
     this.cursorJoystickVkRight = AppOptions.getInstance().getProtekJoystickRight();
     this.cursorJoystickVkUp = AppOptions.getInstance().getProtekJoystickUp();
 
+    this.updateKeyboardMatrix();
   }
 
   private static boolean isLikelyGameController(final InputDevice device) {
@@ -354,7 +360,7 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
   public void setKempstonJoystickActivated(final boolean activated) {
     LOGGER.info("Activated joystick: " + (activated ? "KEMPSTON" : "CURSOR"));
     this.activatedKempstonJoystick = activated;
-    this.kempstonSignals = 0;
+    this.setKempstonSignals(0);
   }
 
   public boolean isOnlyJoystickEvents() {
@@ -363,7 +369,7 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
 
   public void setOnlyJoystickEvents(final boolean flag) {
     this.onlyJoystickEvents = flag;
-    this.keyboardLines = ZXKEY_NONE;
+    this.setKeyboardLines(ZXKEY_NONE);
   }
 
   public void disposeAllActiveGameControllerAdapters() {
@@ -372,7 +378,7 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
   }
 
   /**
-   * Stops polling threads for adapters bound to a device that was unplugged or removed by the input backend.
+   * Stops polling of adapters bound to a device that was unplugged or removed by the input backend.
    */
   private void disposeAdaptersForDisconnectedDevice(final InputDevice device) {
     final String id = device.getID();
@@ -423,29 +429,38 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
     return this.inputHost != null;
   }
 
-  private int getKbdValueForLines(int scanLinePort) {
-    final long vkbKeyState = this.board.getVideoController().getVkbState();
-    final long state = vkbKeyState & this.bufferKeyboardLines;
-
-    scanLinePort ^= 0xFF;
-
-    int result = 0x1F;
-    int shift = 0;
-    while (scanLinePort != 0) {
-      if ((scanLinePort & 1) != 0) {
-        result &= (int) (state >>> shift);
+  /**
+   * Rebuild table of port #FE values for all high address bytes if state of key lines changed.
+   *
+   * @param state state of key lines, 8 bits per half-row
+   */
+  private void updateKeyboardMatrix(final long state) {
+    if (state == this.keyboardMatrixState) {
+      return;
+    }
+    this.keyboardMatrixState = state;
+    final int[] halfRows = new int[8];
+    for (int i = 0; i < halfRows.length; i++) {
+      halfRows[i] = (int) (state >>> (i << 3)) & 0x1F;
+    }
+    for (int scanLines = 0; scanLines < 0x100; scanLines++) {
+      int result = 0x1F;
+      for (int i = 0; i < halfRows.length; i++) {
+        if ((scanLines & (1 << i)) == 0) {
+          result &= halfRows[i];
+        }
       }
-      shift += 8;
-      scanLinePort >>= 1;
+      this.keyboardMatrix[scanLines] = (byte) (result | 0b101_00000);
     }
-    return result & 0x1F;
   }
 
-  private int readKeyboardAndTap(final int scanLinePort, final TapeSource tapeFileReader) {
-    int result = 0xFF;
-    result &= getKbdValueForLines((scanLinePort >>> 8) & 0xFF);
-    if (this.isTapeIn()) result ^= MIC_BIT;
-    return result | 0b101_00000;
+  private void updateKeyboardMatrix() {
+    this.updateKeyboardMatrix(this.vkbKeyState & this.bufferKeyboardLines);
+  }
+
+  private int readKeyboardAndTap(final int scanLinePort) {
+    final int result = this.keyboardMatrix[(scanLinePort >>> 8) & 0xFF] & 0xFF;
+    return this.isTapeIn() ? result | MIC_BIT : result;
   }
 
   @Override
@@ -458,7 +473,7 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
 
       if ((lowPortAddress & 1) == 0) {
         if (!inZxPolyMode || lowPortAddress == 0xFE) {
-          result = readKeyboardAndTap(port, this.getTap());
+          result = readKeyboardAndTap(port);
         }
       } else {
         // KEMPSTON JOYSTICK
@@ -493,8 +508,60 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
 
   @Override
   public void doReset() {
+    this.inputEvents.clear();
     this.keyboardLines = ZXKEY_NONE;
     this.kempstonSignals = 0;
+    this.bufferKeyboardLines = ZXKEY_NONE;
+    this.kempstonBuffer = 0;
+    this.updateKeyboardMatrix();
+  }
+
+  /**
+   * Change state of keyboard lines by host input, the change is queued and applied by emulation
+   * thread at the next step of live emulation.
+   *
+   * @param lines new state of keyboard lines
+   */
+  private void setKeyboardLines(final long lines) {
+    this.keyboardLines = lines;
+    this.postInputEvent(InputJournal.SOURCE_KEYBOARD, lines);
+  }
+
+  private void setKempstonSignals(final int signals) {
+    this.kempstonSignals = signals;
+    this.postInputEvent(InputJournal.SOURCE_KEMPSTON, signals);
+  }
+
+  private void postInputEvent(final int source, final long value) {
+    // stamped by current position of live emulation so it is applied inside running frame,
+    // journal records the moment of real application so replay is deterministic
+    final long position = this.board.getLivePosition();
+    this.inputEvents.post(Motherboard.extractLiveFrame(position),
+        Motherboard.extractLiveTiStates(position), source, value);
+  }
+
+  /**
+   * Write current keyboard and kempston state into journal as starting snapshot of recording.
+   *
+   * @param journal recording journal, must not be null
+   */
+  void writeJournalStart(final InputJournal journal) {
+    journal.setStartValue(InputJournal.SOURCE_KEYBOARD,
+        this.bufferKeyboardLines & this.vkbKeyState);
+    journal.setStartValue(InputJournal.SOURCE_KEMPSTON, this.kempstonBuffer);
+  }
+
+  private void applyInputEvents(final int frameTiStates) {
+    final long frame = this.board.getFrameCounter();
+    InputEventQueue.Event event;
+    while ((event = this.inputEvents.poll(frame, frameTiStates)) != null) {
+      if (event.getSource() == InputJournal.SOURCE_KEYBOARD) {
+        this.bufferKeyboardLines = event.getValue();
+      } else {
+        this.kempstonBuffer = (int) event.getValue();
+      }
+    }
+    this.updateKeyboardMatrix();
   }
 
   @Override
@@ -508,8 +575,51 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
     if (signalReset) {
       doReset();
     }
-    this.bufferKeyboardLines = this.keyboardLines;
-    this.kempstonBuffer = this.kempstonSignals;
+    final InputJournal journal = this.board.getInputJournal();
+    if (journal != null && journal.isReplay()) {
+      this.replayInput(journal, frameTiStates);
+      return;
+    }
+    // speculative frames use current input, queued events are kept for live frames
+    if (frameTiStates == 0) {
+      // virtual keyboard is sampled once per frame
+      this.vkbKeyState = this.board.getVideoController().getVkbState();
+      this.updateKeyboardMatrix();
+      if (!this.board.isSilentRun()) {
+        GameControllerService.getInstance().onFrame();
+      }
+    }
+    if (this.inputEvents.hasPending() && !this.board.isSilentRun()) {
+      this.applyInputEvents(frameTiStates);
+    }
+    if (journal != null) {
+      final long frame = this.board.getFrameCounter();
+      final long lines = this.bufferKeyboardLines & this.vkbKeyState;
+      journal.record(frame, frameTiStates, InputJournal.SOURCE_KEYBOARD, lines);
+      journal.record(frame, frameTiStates, InputJournal.SOURCE_KEMPSTON, this.kempstonBuffer);
+    }
+  }
+
+  /**
+   * Set keyboard and kempston state only from replayed journal, live host input and virtual
+   * keyboard are ignored during replay because journal contains their combined value.
+   *
+   * @param journal       replayed journal, must not be null
+   * @param frameTiStates t-states from frame start
+   */
+  private void replayInput(final InputJournal journal, final int frameTiStates) {
+    if (this.inputEvents.hasPending()) {
+      this.inputEvents.clear();
+    }
+    final long frame = this.board.getFrameCounter();
+    this.vkbKeyState = ZXKEY_NONE;
+    this.bufferKeyboardLines = journal.replay(frame, frameTiStates, InputJournal.SOURCE_KEYBOARD);
+    this.kempstonBuffer =
+        (int) journal.replay(frame, frameTiStates, InputJournal.SOURCE_KEMPSTON);
+    this.updateKeyboardMatrix();
+    if (journal.isCompleted()) {
+      this.board.setInputJournal(null);
+    }
   }
 
   @Override
@@ -517,6 +627,16 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
     return "Keyboard";
   }
 
+  /**
+   * Check that there is no pressed key and no activated joystick direction or button.
+   *
+   * @return true if there is no any input
+   */
+  public boolean isInputIdle() {
+    return (this.keyboardLines & this.board.getVideoController().getVkbState()) == ZXKEY_NONE
+        && this.kempstonBuffer == 0;
+  }
+
   public TapeSource getTap() {
     return this.tap.get();
   }
@@ -828,7 +948,7 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
       } else {
         theLinesState |= ZXKEY_NONE & zxKeyCode;
       }
-      this.keyboardLines = theLinesState;
+      this.setKeyboardLines(theLinesState);
       consumed = true;
     }
 
@@ -839,7 +959,7 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
       } else {
         theSignal = (~kempstonCode & theSignal) & 0xFF;
       }
-      this.kempstonSignals = theSignal;
+      this.setKempstonSignals(theSignal);
       consumed = true;
     }
     return consumed;
@@ -863,42 +983,42 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
     int state = this.kempstonSignals;
     state = state
             & ~(KeyboardKempstonAndTapeIn.KEMPSTON_RIGHT | KeyboardKempstonAndTapeIn.KEMPSTON_LEFT);
-    this.kempstonSignals = state;
+    this.setKempstonSignals(state);
   }
 
   public void doKempstonCenterY() {
     int state = this.kempstonSignals;
     state =
             state & ~(KeyboardKempstonAndTapeIn.KEMPSTON_UP | KeyboardKempstonAndTapeIn.KEMPSTON_DOWN);
-    this.kempstonSignals = state;
+    this.setKempstonSignals(state);
   }
 
   public void doKempstonLeft() {
     int state = this.kempstonSignals;
     state = KeyboardKempstonAndTapeIn.KEMPSTON_LEFT |
             (state & ~KeyboardKempstonAndTapeIn.KEMPSTON_RIGHT);
-    this.kempstonSignals = state;
+    this.setKempstonSignals(state);
   }
 
   public void doKempstonUp() {
     int state = this.kempstonSignals;
     state =
             KeyboardKempstonAndTapeIn.KEMPSTON_UP | (state & ~KeyboardKempstonAndTapeIn.KEMPSTON_DOWN);
-    this.kempstonSignals = state;
+    this.setKempstonSignals(state);
   }
 
   public void doKempstonRight() {
     int state = this.kempstonSignals;
     state = KeyboardKempstonAndTapeIn.KEMPSTON_RIGHT |
             (state & ~KeyboardKempstonAndTapeIn.KEMPSTON_LEFT);
-    this.kempstonSignals = state;
+    this.setKempstonSignals(state);
   }
 
   public void doKempstonDown() {
     int state = this.kempstonSignals;
     state =
             KeyboardKempstonAndTapeIn.KEMPSTON_DOWN | (state & ~KeyboardKempstonAndTapeIn.KEMPSTON_UP);
-    this.kempstonSignals = state;
+    this.setKempstonSignals(state);
   }
 
   public void doKempstonFire(final boolean pressed) {
@@ -908,7 +1028,7 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
     } else {
       state = state & ~KeyboardKempstonAndTapeIn.KEMPSTON_FIRE;
     }
-    this.kempstonSignals = state;
+    this.setKempstonSignals(state);
   }
 
   public void doInterface2Fire(final int player, final boolean pressed) {
@@ -926,7 +1046,7 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
         state |= ZXKEY_NONE & ZXKEY_0;
       }
     }
-    this.keyboardLines = state;
+    this.setKeyboardLines(state);
   }
 
   public void doInterface2Down(final int player) {
@@ -936,7 +1056,7 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
     } else {
       state = (state | (ZXKEY_NONE & ZXKEY_9)) & (ZXKEY_NONE ^ ZXKEY_8);
     }
-    this.keyboardLines = state;
+    this.setKeyboardLines(state);
   }
 
   public void doInterface2Up(final int player) {
@@ -946,7 +1066,7 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
     } else {
       state = (state | (ZXKEY_NONE & ZXKEY_8)) & (ZXKEY_NONE ^ ZXKEY_9);
     }
-    this.keyboardLines = state;
+    this.setKeyboardLines(state);
   }
 
   public void doInterface2Left(final int player) {
@@ -956,7 +1076,7 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
     } else {
       state = (state | (ZXKEY_NONE & ZXKEY_7)) & (ZXKEY_NONE ^ ZXKEY_6);
     }
-    this.keyboardLines = state;
+    this.setKeyboardLines(state);
   }
 
   public void doInterface2Right(final int player) {
@@ -966,7 +1086,7 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
     } else {
       state = (state | (ZXKEY_NONE & ZXKEY_6)) & (ZXKEY_NONE ^ ZXKEY_7);
     }
-    this.keyboardLines = state;
+    this.setKeyboardLines(state);
   }
 
   public void doInterface2CenterX(final int player) {
@@ -976,7 +1096,7 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
     } else {
       state |= ZXKEY_NONE & (ZXKEY_6 | ZXKEY_7);
     }
-    this.keyboardLines = state;
+    this.setKeyboardLines(state);
   }
 
   public void doInterface2CenterY(final int player) {
@@ -986,7 +1106,7 @@ public final class KeyboardKempstonAndTapeIn implements IoDevice {
     } else {
       state |= ZXKEY_NONE & (ZXKEY_8 | ZXKEY_9);
     }
-    this.keyboardLines = state;
+    this.setKeyboardLines(state);
   }
 
   public void notifyUnregisterGadapter(final GameControllerAdapter adapter) {
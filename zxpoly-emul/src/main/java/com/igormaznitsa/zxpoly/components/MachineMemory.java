@@ -0,0 +1,296 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.components;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Machine memory placed in off-heap memory segments, the segments are the real storage of
+ * RAM heap of modules, Spec256 GFX memory and ROM, so they are shared without copying. Segments
+ * can be mapped to files to share memory with external tools. Spec256 GFX memory is needed only
+ * in Spec256 mode, so it is placed in separate segment which is created on the first request,
+ * if memory is mapped then GFX segment is mapped to file with the same name and extension
+ * '.gfx'.
+ * Emulation thread marks memory as updating before execution of instructions and publishes it at
+ * the end of frame, the publication writes header and bitmaps of pages changed since the previous
+ * one.
+ * <p>
+ * Layout, all numbers are little-endian:
+ * <pre>
+ * +0x0000 int   magic 'ZXPM'
+ * +0x0004 int   layout version
+ * +0x0008 long  sequence, odd while memory is updating, even when stable
+ * +0x0010 long  frame counter
+ * +0x0018 int   board mode ordinal
+ * +0x001C int[4] value of port #7FFD for modules 0..3
+ * +0x002C int   RAM offset, int RAM length
+ * +0x0034 int   GFX RAM offset in GFX segment, int GFX RAM length, zero length if not created
+ * +0x003C int   GFX ROM offset in GFX segment, int GFX ROM length, zero length if not created
+ * +0x0044 int   ROM offset, int ROM length
+ * +0x004C int   size of page in bitmaps
+ * +0x0100 long[32] bitmap of RAM pages changed since previous publication
+ * +0x0200 long[64] bitmap of GFX RAM pages changed since previous publication
+ * +0x1000       RAM heap of all modules, 128 KB per module
+ *               ROM of module 0, 64 KB
+ * </pre>
+ * Layout of GFX segment:
+ * <pre>
+ * +0x000000     GFX RAM of Spec256, 8 bytes (one per GFX core) for every address
+ *               GFX ROM of Spec256, 8 bytes (one per GFX core) for every address
+ * </pre>
+ * Reader should read sequence before and after data copy and repeat if it is odd or changed.
+ */
+public final class MachineMemory {
+
+  public static final int MAGIC = 0x4D50585A;
+  public static final int VERSION = 3;
+  public static final int RAM_SIZE = 512 * 1024;
+  public static final int ROM_SIZE = 0x10000;
+
+  static final long OFFSET_SEQUENCE = 0x08;
+  static final long OFFSET_FRAME = 0x10;
+  static final long OFFSET_BOARD_MODE = 0x18;
+  static final long OFFSET_7FFD = 0x1C;
+  static final long OFFSET_REGIONS = 0x2C;
+  static final long OFFSET_PAGE_SIZE = 0x4C;
+  static final long OFFSET_RAM_PAGES = 0x100;
+  static final long OFFSET_GFX_RAM_PAGES = 0x200;
+  static final long HEADER_SIZE = 0x1000;
+  static final long SIZE = HEADER_SIZE + RAM_SIZE + ROM_SIZE;
+  static final long GFX_SIZE = (long) ZxPolyModule.GFX_RAM_SIZE + ZxPolyModule.GFX_ROM_SIZE;
+
+  private static final Logger LOGGER = Logger.getLogger(MachineMemory.class.getName());
+
+  private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+  private final MemorySegment segment;
+  private final Path file;
+  private final MemorySegment ram;
+  private final MemorySegment rom;
+  private MemorySegment gfxSegment;
+  private MemorySegment gfxRam;
+  private MemorySegment gfxRom;
+  private final long[] ramPages = new long[RAM_SIZE >>> RamDirtyPages.PAGE_SIZE_SHIFT >>> 6];
+  private final long[] gfxRamPages =
+      new long[ZxPolyModule.GFX_RAM_SIZE >>> RamDirtyPages.PAGE_SIZE_SHIFT >>> 6];
+  private int ramEpoch = RamDirtyPages.EPOCH_INITIAL;
+  private int gfxRamEpoch = RamDirtyPages.EPOCH_INITIAL;
+  private long sequence;
+
+  private MachineMemory(final MemorySegment segment, final Path file) {
+    this.segment = segment;
+    this.file = file;
+
+    final long ramOffset = HEADER_SIZE;
+    final long romOffset = ramOffset + RAM_SIZE;
+    this.ram = segment.asSlice(ramOffset, RAM_SIZE);
+    this.rom = segment.asSlice(romOffset, ROM_SIZE);
+
+    segment.fill((byte) 0);
+    segment.set(INT, 0, MAGIC);
+    segment.set(INT, 4, VERSION);
+    segment.set(INT, OFFSET_REGIONS, (int) ramOffset);
+    segment.set(INT, OFFSET_REGIONS + 4, RAM_SIZE);
+    segment.set(INT, OFFSET_REGIONS + 24, (int) romOffset);
+    segment.set(INT, OFFSET_REGIONS + 28, ROM_SIZE);
+    segment.set(INT, OFFSET_PAGE_SIZE, RamDirtyPages.PAGE_SIZE);
+  }
+
+  /**
+   * Allocate machine memory in native memory of the process.
+   *
+   * @return created memory
+   */
+  public static MachineMemory allocate() {
+    return new MachineMemory(Arena.ofAuto().allocate(SIZE, 8), null);
+  }
+
+  /**
+   * Make machine memory mapped to file, the file is created if not exists.
+   *
+   * @param file file to be mapped, must not be null
+   * @return created memory
+   * @throws IOException if file can't be mapped
+   */
+  public static MachineMemory map(final Path file) throws IOException {
+    return new MachineMemory(mapFile(file, SIZE), file);
+  }
+
+  private static MemorySegment mapFile(final Path file, final long size) throws IOException {
+    try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0L, size, Arena.ofAuto());
+    }
+  }
+
+  /**
+   * Get path of file which contains mapped GFX segment.
+   *
+   * @param file file of mapped machine memory, must not be null
+   * @return path of GFX segment file
+   */
+  public static Path makeGfxFilePath(final Path file) {
+    return file.resolveSibling(file.getFileName() + ".gfx");
+  }
+
+  MemorySegment getRam() {
+    return this.ram;
+  }
+
+  /**
+   * Check that GFX segment has been created.
+   *
+   * @return true if GFX memory is created, false otherwise
+   */
+  synchronized boolean isGfxCreated() {
+    return this.gfxSegment != null;
+  }
+
+  /**
+   * Get Spec256 GFX RAM, GFX segment is created if not created yet.
+   *
+   * @return GFX RAM segment
+   */
+  synchronized MemorySegment getGfxRam() {
+    this.ensureGfxSegment();
+    return this.gfxRam;
+  }
+
+  /**
+   * Get Spec256 GFX ROM, GFX segment is created if not created yet.
+   *
+   * @return GFX ROM segment
+   */
+  synchronized MemorySegment getGfxRom() {
+    this.ensureGfxSegment();
+    return this.gfxRom;
+  }
+
+  private void ensureGfxSegment() {
+    if (this.gfxSegment != null) {
+      return;
+    }
+    MemorySegment created = null;
+    if (this.file != null) {
+      final Path gfxFile = makeGfxFilePath(this.file);
+      try {
+        created = mapFile(gfxFile, GFX_SIZE);
+        created.fill((byte) 0);
+      } catch (IOException ex) {
+        LOGGER.log(Level.SEVERE, "Can't map GFX memory into file: " + gfxFile, ex);
+      }
+    }
+    if (created == null) {
+      created = Arena.ofAuto().allocate(GFX_SIZE, 8);
+    } else {
+      this.segment.set(INT, OFFSET_REGIONS + 8, 0);
+      this.segment.set(INT, OFFSET_REGIONS + 12, ZxPolyModule.GFX_RAM_SIZE);
+      this.segment.set(INT, OFFSET_REGIONS + 16, ZxPolyModule.GFX_RAM_SIZE);
+      this.segment.set(INT, OFFSET_REGIONS + 20, ZxPolyModule.GFX_ROM_SIZE);
+    }
+    this.gfxRam = created.asSlice(0L, ZxPolyModule.GFX_RAM_SIZE);
+    this.gfxRom = created.asSlice(ZxPolyModule.GFX_RAM_SIZE, ZxPolyModule.GFX_ROM_SIZE);
+    this.gfxSegment = created;
+  }
+
+  long getSequence() {
+    return this.segment.get(LONG, OFFSET_SEQUENCE);
+  }
+
+  /**
+   * Place ROM into memory, the rest of ROM area is cleared.
+   *
+   * @param romData ROM to be placed, must not be null
+   */
+  void setRom(final RomData romData) {
+    final byte[] data = romData.getAsArray();
+    this.rom.fill((byte) 0);
+    MemorySegment.copy(MemorySegment.ofArray(data), 0L, this.rom, 0L,
+        Math.min(data.length, ROM_SIZE));
+  }
+
+  /**
+   * Mark memory as updating, must be called by emulation thread before change of memory.
+   * Does nothing if memory is already marked.
+   */
+  void beginUpdate() {
+    if ((this.sequence & 1L) == 0L) {
+      this.segment.set(LONG, OFFSET_SEQUENCE, ++this.sequence);
+      VarHandle.storeStoreFence();
+    }
+  }
+
+  /**
+   * Publish memory as stable at the end of frame, must be called from emulation thread.
+   * Memory itself is not copied, only header and bitmaps of changed pages are written.
+   *
+   * @param board board which memory should be published, must not be null
+   */
+  public void publish(final Motherboard board) {
+    final MemorySegment target = this.segment;
+    this.beginUpdate();
+
+    final RamDirtyPages ramDirtyPages = board.getRamDirtyPages();
+    ramDirtyPages.fillDirtyBitmap(this.ramEpoch, this.ramPages);
+    this.ramEpoch = ramDirtyPages.nextEpoch();
+    MemorySegment.copy(this.ramPages, 0, target, LONG, OFFSET_RAM_PAGES, this.ramPages.length);
+
+    final RamDirtyPages gfxDirtyPages = board.getGfxDirtyPages();
+    gfxDirtyPages.fillDirtyBitmap(this.gfxRamEpoch, this.gfxRamPages);
+    this.gfxRamEpoch = gfxDirtyPages.nextEpoch();
+    MemorySegment.copy(this.gfxRamPages, 0, target, LONG, OFFSET_GFX_RAM_PAGES,
+        this.gfxRamPages.length);
+
+    final ZxPolyModule[] modules = board.getModules();
+    target.set(LONG, OFFSET_FRAME, board.getFrameCounter());
+    target.set(INT, OFFSET_BOARD_MODE, board.getBoardMode().ordinal());
+    for (int i = 0; i < modules.length; i++) {
+      target.set(INT, OFFSET_7FFD + i * 4L, modules[i].read7FFD());
+    }
+
+    VarHandle.storeStoreFence();
+    target.set(LONG, OFFSET_SEQUENCE, ++this.sequence);
+  }
+
+  /**
+   * Write content of mapped memory to storage device.
+   */
+  public void force() {
+    if (this.file != null) {
+      this.segment.force();
+      final MemorySegment gfx;
+      synchronized (this) {
+        gfx = this.gfxSegment;
+      }
+      if (gfx != null && gfx.isMapped()) {
+        gfx.force();
+      }
+    }
+  }
+}
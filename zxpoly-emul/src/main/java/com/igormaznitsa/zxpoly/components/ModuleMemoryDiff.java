@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.components;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Comparator of memory regions of modules placed in the same heap.
+ * Comparison is made through {@link MemorySegment#mismatch(MemorySegment)} which is
+ * vectorized by JVM, so scan of whole module memory takes microseconds.
+ * The class doesn't depend on motherboard and can be used for headless analysis of heap dumps.
+ */
+public final class ModuleMemoryDiff {
+
+  private ModuleMemoryDiff() {
+  }
+
+  /**
+   * Find first offset where regions have different content.
+   *
+   * @param heap          heap contains regions, must not be null
+   * @param regionOffsets start offsets of regions in the heap, must not be null
+   * @param regionLength  length of every region, will be truncated by heap length
+   * @return offset inside region or -1 if all regions are equal
+   */
+  public static int findFirstDiff(final byte[] heap, final int[] regionOffsets,
+                                  final int regionLength) {
+    return findFirstDiff(MemorySegment.ofArray(heap), regionOffsets, regionLength);
+  }
+
+  /**
+   * Find first offset where regions have different content.
+   *
+   * @param heap          heap contains regions, must not be null
+   * @param regionOffsets start offsets of regions in the heap, must not be null
+   * @param regionLength  length of every region, will be truncated by heap length
+   * @return offset inside region or -1 if all regions are equal
+   */
+  public static int findFirstDiff(final MemorySegment heap, final int[] regionOffsets,
+                                  final int regionLength) {
+    final int length = normalizeLength(heap, regionOffsets, regionLength);
+    int result = -1;
+    for (int i = 1; i < regionOffsets.length; i++) {
+      final int limit = result < 0 ? length : result;
+      final int mismatch = mismatch(heap, regionOffsets[0], regionOffsets[i], 0, limit);
+      if (mismatch >= 0) {
+        result = mismatch;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Find all ranges where content of regions is not the same.
+   *
+   * @param heap          heap contains regions, must not be null
+   * @param regionOffsets start offsets of regions in the heap, must not be null
+   * @param regionLength  length of every region, will be truncated by heap length
+   * @return list of ranges with offsets inside region, ordered by offset, can't be null
+   */
+  public static List<Range> findDiffRanges(final byte[] heap, final int[] regionOffsets,
+                                           final int regionLength) {
+    return findDiffRanges(MemorySegment.ofArray(heap), regionOffsets, regionLength);
+  }
+
+  /**
+   * Find all ranges where content of regions is not the same.
+   *
+   * @param heap          heap contains regions, must not be null
+   * @param regionOffsets start offsets of regions in the heap, must not be null
+   * @param regionLength  length of every region, will be truncated by heap length
+   * @return list of ranges with offsets inside region, ordered by offset, can't be null
+   */
+  public static List<Range> findDiffRanges(final MemorySegment heap, final int[] regionOffsets,
+                                           final int regionLength) {
+    final int length = normalizeLength(heap, regionOffsets, regionLength);
+    if (regionOffsets.length < 2) {
+      return Collections.emptyList();
+    }
+
+    final int[] nextDiff = new int[regionOffsets.length];
+    Arrays.fill(nextDiff, -1);
+
+    final List<Range> result = new ArrayList<>();
+    final int base = regionOffsets[0];
+    int position = 0;
+    while (position < length) {
+      int start = length;
+      for (int i = 1; i < regionOffsets.length; i++) {
+        if (nextDiff[i] < position) {
+          final int mismatch = mismatch(heap, base, regionOffsets[i], position, length);
+          nextDiff[i] = mismatch < 0 ? length : position + mismatch;
+        }
+        start = Math.min(start, nextDiff[i]);
+      }
+      if (start >= length) {
+        break;
+      }
+      int end = start + 1;
+      while (end < length && isDifferent(heap, regionOffsets, end)) {
+        end++;
+      }
+      result.add(new Range(start, end - start));
+      position = end;
+    }
+    return result;
+  }
+
+  private static int mismatch(final MemorySegment heap, final int firstRegion,
+                              final int secondRegion, final int from, final int to) {
+    return (int) heap.asSlice(firstRegion + from, to - from)
+        .mismatch(heap.asSlice(secondRegion + from, to - from));
+  }
+
+  private static boolean isDifferent(final MemorySegment heap, final int[] regionOffsets,
+                                     final int offset) {
+    final byte value = heap.get(ValueLayout.JAVA_BYTE, regionOffsets[0] + offset);
+    for (int i = 1; i < regionOffsets.length; i++) {
+      if (heap.get(ValueLayout.JAVA_BYTE, regionOffsets[i] + offset) != value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int normalizeLength(final MemorySegment heap, final int[] regionOffsets,
+                                     final int regionLength) {
+    final long heapLength = heap.byteSize();
+    int result = regionLength;
+    for (final int offset : regionOffsets) {
+      if (offset < 0 || offset >= heapLength) {
+        throw new IllegalArgumentException("Region offset out of heap: " + offset);
+      }
+      result = (int) Math.min(result, heapLength - offset);
+    }
+    return Math.max(0, result);
+  }
+
+  /**
+   * Range of offsets where content of regions is different.
+   */
+  public static final class Range {
+
+    private final int start;
+    private final int length;
+
+    public Range(final int start, final int length) {
+      this.start = start;
+      this.length = length;
+    }
+
+    public int getStart() {
+      return this.start;
+    }
+
+    public int getLength() {
+      return this.length;
+    }
+
+    public int getEnd() {
+      return this.start + this.length - 1;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj instanceof Range) {
+        final Range that = (Range) obj;
+        return this.start == that.start && this.length == that.length;
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.start * 31 + this.length;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("#%05X-#%05X", this.start, this.getEnd());
+    }
+  }
+}
@@ -26,7 +26,6 @@ import static com.igormaznitsa.zxpoly.components.video.timings.TimingProfile.Ula
 import static com.igormaznitsa.zxpoly.components.video.timings.TimingProfile.UlaTact.TYPE_SHIFT2_AND_FETCH_B1;
 import static java.lang.Math.min;
 
-import com.igormaznitsa.z80.Utils;
 import com.igormaznitsa.z80.Z80;
 import com.igormaznitsa.zxpoly.Bounds;
 import com.igormaznitsa.zxpoly.components.betadisk.BetaDiscInterface;
@@ -36,17 +35,23 @@ import com.igormaznitsa.zxpoly.components.sound.SoundChannelLowPassFilter;
 import com.igormaznitsa.zxpoly.components.sound.TurboSoundNedoPc;
 import com.igormaznitsa.zxpoly.components.sound.VolumeProfile;
 import com.igormaznitsa.zxpoly.components.sound.Zx128Ay8910;
+import com.igormaznitsa.zxpoly.components.tapereader.TapeSource;
 import com.igormaznitsa.zxpoly.components.video.BorderWidth;
+import com.igormaznitsa.zxpoly.components.video.ScreenDirtyCells;
 import com.igormaznitsa.zxpoly.components.video.VideoController;
 import com.igormaznitsa.zxpoly.components.video.VirtualKeyboardDecoration;
 import com.igormaznitsa.zxpoly.components.video.timings.TimingProfile;
 import com.igormaznitsa.zxpoly.utils.AppOptions;
+import com.igormaznitsa.zxpoly.utils.RingLogger;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -57,19 +62,51 @@ public final class Motherboard implements ZxPolyConstants {
   public static final int TRIGGER_DIFF_MODULESTATES = 1;
   public static final int TRIGGER_DIFF_MEM_ADDR = 2;
   public static final int TRIGGER_DIFF_EXE_CODE = 4;
+  public static final int TRIGGER_WATCHPOINT = 8;
+  private static final int LIVE_POSITION_FRAME_SHIFT = 24;
   private static final int NUMBER_OF_INT_BETWEEN_STATISTIC_UPDATE = 4;
   private static final Logger LOGGER = Logger.getLogger(Motherboard.class.getName());
+  private static final RingLogger.Event LOG_SET_3D00 =
+      RingLogger.event(LOGGER, Level.INFO, "set #3D00 to #%04X");
+  private static final RingLogger.Event LOG_REJECTED_3D00 =
+      RingLogger.event(LOGGER, Level.INFO, "Rejected new value for #3D00 because it is locked");
+  private static final RingLogger.Event LOG_COMMON_NMI =
+      RingLogger.event(LOGGER, Level.INFO, "Incoming common NNI signal");
+  private static final RingLogger.Event LOG_IO_READ_COLLISION =
+      RingLogger.event(LOGGER, Level.WARNING, (port, a, b, c, first, second) ->
+          "Detected IO collision during read: " + first + ", "
+              + ((IoDevice) second).getName() + " port #"
+              + Long.toHexString(port).toUpperCase(Locale.ENGLISH));
 
   private static final int SPEC256_GFX_CORES = 8;
+  private static final int SPEC256_ALL_GFX_CORES = (1 << SPEC256_GFX_CORES) - 1;
+  private static final int SPEC256_MERGE_DELAY_STEPS = 16;
+  private static final int LOCKSTEP_SAMPLE_MASK = 0x3F;
   private static final int NUMBER_OF_MODULES = 4;
   private final ZxPolyModule[] modules;
   private final Z80[] spec256GfxCores;
+  /**
+   * GFX cores with the same state are executed as a group by single leader core, the array
+   * contains bit mask of group members for leader cores and zero for other ones.
+   */
+  private final int[] spec256GfxGroups = new int[SPEC256_GFX_CORES];
+  private final Z80 spec256GfxStepOrigin;
+  private int spec256GfxMergeDelay;
+  private int lockstepSampleCounter;
+  private volatile long lockstepSamples;
+  private volatile long lockstepHits;
   private final IoDevice[] ioDevices;
   private final IoDevice[] ioDevicesPreStep;
   private final IoDevice[] ioDevicesPostStep;
-  private final byte[] ram = new byte[512 * 1024];
+  private final MachineMemory memory;
+  private final MemorySegment ram;
+  private final RamDirtyPages ramDirtyPages = new RamDirtyPages(MachineMemory.RAM_SIZE);
+  private final RamDirtyPages gfxDirtyPages = new RamDirtyPages(ZxPolyModule.GFX_RAM_SIZE);
+  private final ScreenDirtyCells screenDirtyCells = new ScreenDirtyCells();
+  private final Watchpoints watchpoints = new Watchpoints(NUMBER_OF_MODULES);
   private final VideoController video;
   private final KeyboardKempstonAndTapeIn keyboard;
+  private final KempstonMouse kempstonMouse;
   private final BetaDiscInterface betaDisk;
   private final float[] cpuLoad = new float[4];
   private final Beeper beeper;
@@ -94,6 +131,13 @@ public final class Motherboard implements ZxPolyConstants {
   private volatile boolean gfxLeveledAnd = false;
   private int frameTiStatesCounter = 0;
   private boolean frameIntTriggered;
+  private long frameCounter;
+  /**
+   * Packed position of live emulation, frame counter in high bits and frame T-state in low bits.
+   */
+  private final AtomicLong livePosition = new AtomicLong();
+  private boolean silentRun;
+  private volatile InputJournal inputJournal;
 
   public Motherboard(
       final BorderWidth borderWidth,
@@ -110,8 +154,11 @@ public final class Motherboard implements ZxPolyConstants {
       final boolean attributePortFf,
       final VirtualKeyboardDecoration virtualKeyboardDecoration,
       final boolean ulaPlus,
-      final boolean tryConsumeLessSystemResources
+      final boolean tryConsumeLessSystemResources,
+      final MachineMemory memory
   ) {
+    this.memory = Objects.requireNonNull(memory, "Memory must not be null");
+    this.ram = memory.getRam();
     this.attributePortFf = attributePortFf;
     this.soundLevels = soundLevels;
     this.audioLevels = this.soundLevels.getLevels();
@@ -126,6 +173,9 @@ public final class Motherboard implements ZxPolyConstants {
 
     this.memoryTimings = timingProfile.makeUlaFrame();
 
+    if (boardMode == BoardMode.SPEC256) {
+      this.modules[0].prepareGfxMemory();
+    }
     this.boardMode = boardMode;
 
     final float lowPassFilter = AppOptions.getInstance().isLpfActive() ? AppOptions.getInstance()
@@ -155,7 +205,8 @@ public final class Motherboard implements ZxPolyConstants {
             virtualKeyboardDecoration,
             ulaPlus);
     ioDevices.add(video);
-    ioDevices.add(new KempstonMouse(this));
+    this.kempstonMouse = new KempstonMouse(this);
+    ioDevices.add(this.kempstonMouse);
 
     if (useTurboSound) {
       LOGGER.info("TurboSound activated as AY");
@@ -178,15 +229,18 @@ public final class Motherboard implements ZxPolyConstants {
             .toArray(IoDevice[]::new);
 
     // simulation of garbage in memory after power on
-    for (int i = 0; i < this.ram.length; i++) {
-      Random rnd = new Random();
-      this._writeRam(i, rnd.nextInt());
-    }
+    final byte[] garbage = new byte[MachineMemory.RAM_SIZE];
+    ThreadLocalRandom.current().nextBytes(garbage);
+    this.memory.beginUpdate();
+    MemorySegment.copy(MemorySegment.ofArray(garbage), 0L, this.ram, 0L, garbage.length);
+    this.ramDirtyPages.markAll();
 
     this.spec256GfxCores = new Z80[SPEC256_GFX_CORES];
     for (int i = 0; i < SPEC256_GFX_CORES; i++) {
       this.spec256GfxCores[i] = new Z80(this.modules[0].getCpu());
     }
+    this.spec256GfxStepOrigin = new Z80(this.modules[0].getCpu());
+    this.resetSpec256GfxGroups();
   }
 
   private static boolean isContended(final int address, final int port7FFD) {
@@ -236,11 +290,13 @@ public final class Motherboard implements ZxPolyConstants {
   }
 
   private void _writeRam(final int address, final int value) {
-    this.ram[address] = (byte) value;
+    this.ram.set(ValueLayout.JAVA_BYTE, address, (byte) value);
+    this.ramDirtyPages.markWritten(address);
+    this.screenDirtyCells.markHeapWrite(address);
   }
 
   private int _readRam(final int address) {
-    return this.ram[address] & 0xFF;
+    return this.ram.get(ValueLayout.JAVA_BYTE, address) & 0xFF;
   }
 
   public void reset() {
@@ -251,6 +307,10 @@ public final class Motherboard implements ZxPolyConstants {
     this.setGfxLeveledLogicalOps(false, false, false);
   }
 
+  public boolean isResetInProgress() {
+    return this.totalReset || this.resetCounter > 0;
+  }
+
   public void resetAndRestoreRom(final RomData rom) {
     LOGGER.info("Restoring ROM");
     for (final ZxPolyModule module : this.modules) {
@@ -264,7 +324,7 @@ public final class Motherboard implements ZxPolyConstants {
   public void set3D00(final int value, final boolean force) {
     if (isNotLockedPort3D00() || force) {
       this.port3D00 = value;
-      LOGGER.log(Level.INFO, "set #3D00 to " + Utils.toHex(value));
+      RingLogger.getInstance().log(LOG_SET_3D00, value);
 
       if ((value & PORTw_ZXPOLY_RESET) != 0) {
         for (final ZxPolyModule m : this.modules) {
@@ -275,25 +335,29 @@ public final class Motherboard implements ZxPolyConstants {
 
       this.video.setVideoMode((this.port3D00 >> 2) & 0x7);
     } else {
-      LOGGER.info("Rejected new value for #3D00 because it is locked");
+      RingLogger.getInstance().log(LOG_REJECTED_3D00);
     }
   }
 
-  public int findFirstDiffAddrInModuleMemory() {
-    int addr = -1;
-    for (int i = 0; i < 0x20000; i++) {
-      final int m0 = this.modules[0].readHeap(i);
-      final int m1 = this.modules[1].readHeap(i);
-      final int m2 = this.modules[2].readHeap(i);
-      final int m3 = this.modules[3].readHeap(i);
-
-      final int summ = m0 + m1 + m2 + m3;
-      if ((m0 << 2) != summ) {
-        addr = i;
-        break;
-      }
+  private int[] getModuleHeapOffsets() {
+    final int[] result = new int[this.modules.length];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = this.modules[i].getHeapOffset();
     }
-    return addr;
+    return result;
+  }
+
+  public int findFirstDiffAddrInModuleMemory() {
+    return ModuleMemoryDiff.findFirstDiff(this.ram, this.getModuleHeapOffsets(), 0x20000);
+  }
+
+  /**
+   * Find all ranges of module memory where modules have different content.
+   *
+   * @return list of ranges with offsets inside module memory, can't be null
+   */
+  public List<ModuleMemoryDiff.Range> findDiffRangesInModuleMemory() {
+    return ModuleMemoryDiff.findDiffRanges(this.ram, this.getModuleHeapOffsets(), 0x20000);
   }
 
   public float getCpuActivity(final int cpuIndex) {
@@ -369,6 +433,138 @@ public final class Motherboard implements ZxPolyConstants {
     for (final Z80 spec256GfxCore : this.spec256GfxCores) {
       spec256GfxCore.fillByState(sourceCpu);
     }
+    this.resetSpec256GfxGroups();
+  }
+
+  /**
+   * Decode instruction once for all ZX-Poly modules if they are in lockstep, i.e. they have the
+   * same PC and don't process prefix. Only opcode of module 0 is read, every module checks that
+   * it fetches the same opcode and decodes fetched instruction itself if it differs.
+   *
+   * @return decoded instruction or {@link Z80#DECODED_NONE} if modules are not in lockstep or
+   * instruction can't be shared
+   */
+  private int decodeLockstep() {
+    final Z80 cpu0 = this.modules[0].getCpu();
+    final int pc = cpu0.getPC();
+    if (cpu0.getPrefixInProcessing() != 0) {
+      return Z80.DECODED_NONE;
+    }
+    for (int i = 1; i < NUMBER_OF_MODULES; i++) {
+      final Z80 cpu = this.modules[i].getCpu();
+      if (cpu.getPC() != pc || cpu.getPrefixInProcessing() != 0) {
+        return Z80.DECODED_NONE;
+      }
+    }
+    return Z80.decodeShared(this.modules[0].readAddress(pc));
+  }
+
+  /**
+   * Get part of sampled ZX-Poly mode steps where modules execute instruction decoded once.
+   *
+   * @return percent of shared decode steps, 0 if there is no any sample
+   */
+  public int getZxPolyLockstepPercent() {
+    final long samples = this.lockstepSamples;
+    return samples == 0L ? 0 : (int) (this.lockstepHits * 100L / samples);
+  }
+
+  private void resetSpec256GfxGroups() {
+    Arrays.fill(this.spec256GfxGroups, 0);
+    this.spec256GfxGroups[0] = SPEC256_ALL_GFX_CORES;
+    this.spec256GfxMergeDelay = 0;
+  }
+
+  /**
+   * Get number of GFX cores which are really executed on step in Spec256 mode.
+   *
+   * @return number of GFX core groups
+   */
+  public int getSpec256ActiveGfxCores() {
+    int result = 0;
+    for (final int group : this.spec256GfxGroups) {
+      if (group != 0) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  private void stepSpec256GfxCores(final ZxPolyModule masterModule, final Z80 mainCpu) {
+    final int syncRegRecord = this.gfxSyncRegsRecord;
+    final int[] groups = this.spec256GfxGroups;
+    final Z80[] cores = this.spec256GfxCores;
+
+    // leaders are collected before step because split of a group makes new leaders
+    int leaders = 0;
+    for (int i = 0; i < SPEC256_GFX_CORES; i++) {
+      if (groups[i] != 0) {
+        cores[i].alignRegisterValuesWith(mainCpu, syncRegRecord);
+        leaders |= 1 << i;
+      }
+    }
+
+    final int firstLeader = Integer.numberOfTrailingZeros(leaders);
+    final boolean lanes = Integer.bitCount(leaders) > 1
+        && Z80.isLaneStepAllowed(cores, leaders, masterModule.getGfxCpuSignals());
+    this.stepSpec256GfxLeader(masterModule, firstLeader);
+
+    int rest = leaders & ~(1 << firstLeader);
+    if (lanes && Z80.applyLaneStep(cores, rest, cores[firstLeader],
+        !(this.isGfxLeveledAnd() || this.isGfxLeveledOr() || this.isGfxLeveledXor()))) {
+      rest = 0;
+    }
+    while (rest != 0) {
+      final int i = Integer.numberOfTrailingZeros(rest);
+      rest &= rest - 1;
+      this.stepSpec256GfxLeader(masterModule, i);
+    }
+
+    if (this.spec256GfxMergeDelay > 0) {
+      this.spec256GfxMergeDelay--;
+    } else {
+      this.mergeSpec256GfxGroups();
+    }
+  }
+
+  private void stepSpec256GfxLeader(final ZxPolyModule masterModule, final int leader) {
+    final int[] groups = this.spec256GfxGroups;
+    final int group = groups[leader];
+    final Z80 gfxCore = this.spec256GfxCores[leader];
+    if (group == 1 << leader) {
+      masterModule.gfxGpuStep(leader + 1, gfxCore);
+    } else {
+      final Z80 origin = this.spec256GfxStepOrigin.fillByState(gfxCore);
+      if (!masterModule.gfxGpuGroupStep(leader + 1, gfxCore, group)) {
+        // data of group cores has diverged, split the group and repeat step for each core
+        int mask = group;
+        while (mask != 0) {
+          final int coreIndex = Integer.numberOfTrailingZeros(mask);
+          mask &= mask - 1;
+          groups[coreIndex] = 1 << coreIndex;
+          final Z80 core = this.spec256GfxCores[coreIndex].fillByState(origin);
+          masterModule.gfxGpuStep(coreIndex + 1, core);
+        }
+        this.spec256GfxMergeDelay = SPEC256_MERGE_DELAY_STEPS;
+      }
+    }
+  }
+
+  private void mergeSpec256GfxGroups() {
+    final int[] groups = this.spec256GfxGroups;
+    for (int i = 1; i < SPEC256_GFX_CORES; i++) {
+      if (groups[i] == 0) {
+        continue;
+      }
+      final Z80 core = this.spec256GfxCores[i];
+      for (int leader = 0; leader < i; leader++) {
+        if (groups[leader] != 0 && this.spec256GfxCores[leader].isSameState(core)) {
+          groups[leader] |= groups[i];
+          groups[i] = 0;
+          break;
+        }
+      }
+    }
   }
 
   public int step(final boolean tiStatesIntReached,
@@ -380,6 +576,9 @@ public final class Motherboard implements ZxPolyConstants {
     if (startNewFrame) {
       this.startNewFrame();
     }
+    if (executionEnabled) {
+      this.memory.beginUpdate();
+    }
 
     this.localResetForAllModules = false;
 
@@ -390,7 +589,7 @@ public final class Motherboard implements ZxPolyConstants {
     int result = TRIGGER_NONE;
 
     if (commonNmi) {
-      LOGGER.info("Incoming common NNI signal");
+      RingLogger.getInstance().log(LOG_COMMON_NMI);
     }
 
     final boolean intTriggered;
@@ -446,6 +645,8 @@ public final class Motherboard implements ZxPolyConstants {
 
       switch (this.boardMode) {
         case ZXPOLY: {
+          // modules in lockstep execute instruction decoded once
+          final int decoded = this.decodeLockstep();
           final boolean zx0halt;
           final boolean zx1halt;
           final boolean zx2halt;
@@ -453,40 +654,40 @@ public final class Motherboard implements ZxPolyConstants {
 
           switch (tiStates & 0x3) {
             case 0: {
-              zx0halt = modules[0].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
+              zx0halt = modules[0].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
               if (localResetForAllModules) {
                 return result;
               }
-              zx3halt = modules[3].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
-              zx2halt = modules[2].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
-              zx1halt = modules[1].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
+              zx3halt = modules[3].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
+              zx2halt = modules[2].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
+              zx1halt = modules[1].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
             }
             break;
             case 1: {
-              zx1halt = modules[1].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
-              zx2halt = modules[2].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
-              zx0halt = modules[0].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
+              zx1halt = modules[1].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
+              zx2halt = modules[2].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
+              zx0halt = modules[0].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
               if (this.localResetForAllModules) {
                 return result;
               }
-              zx3halt = modules[3].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
+              zx3halt = modules[3].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
             }
             break;
             case 2: {
-              zx3halt = modules[3].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
-              zx0halt = modules[0].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
+              zx3halt = modules[3].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
+              zx0halt = modules[0].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
               if (this.localResetForAllModules) {
                 return result;
               }
-              zx1halt = modules[1].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
-              zx2halt = modules[2].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
+              zx1halt = modules[1].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
+              zx2halt = modules[2].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
             }
             break;
             case 3: {
-              zx2halt = modules[2].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
-              zx3halt = modules[3].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
-              zx1halt = modules[1].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
-              zx0halt = modules[0].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
+              zx2halt = modules[2].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
+              zx3halt = modules[3].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
+              zx1halt = modules[1].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
+              zx0halt = modules[0].step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules, decoded);
               if (this.localResetForAllModules) {
                 return result;
               }
@@ -511,6 +712,13 @@ public final class Motherboard implements ZxPolyConstants {
               doModuleHaltNotification(3);
             }
           }
+
+          if ((++this.lockstepSampleCounter & LOCKSTEP_SAMPLE_MASK) == 0) {
+            this.lockstepSamples++;
+            if (decoded != Z80.DECODED_NONE) {
+              this.lockstepHits++;
+            }
+          }
         }
         break;
         case ZX128: {
@@ -521,12 +729,7 @@ public final class Motherboard implements ZxPolyConstants {
           final ZxPolyModule masterModule = modules[0];
           final Z80 mainCpu = masterModule.getCpu();
           masterModule.saveInternalCopyForGfx();
-          final int syncRegRecord = this.gfxSyncRegsRecord;
-          for (int i = 0; i < SPEC256_GFX_CORES; i++) {
-            final Z80 gfxCore = this.spec256GfxCores[i];
-            gfxCore.alignRegisterValuesWith(mainCpu, syncRegRecord);
-            masterModule.gfxGpuStep(i + 1, gfxCore);
-          }
+          this.stepSpec256GfxCores(masterModule, mainCpu);
           masterModule.step(currentMode, signalReset, intTriggered, commonNmi, resetStatisticsAtModules);
         }
         break;
@@ -536,6 +739,9 @@ public final class Motherboard implements ZxPolyConstants {
 
       final int spentTiStates = this.modules[0].getCpu().getStepTstates();
       this.frameTiStatesCounter += spentTiStates;
+      if (!this.silentRun) {
+        this.publishLivePosition();
+      }
 
       final int feValue = this.video.getPortFE();
       final int levelTapeOut = this.audioLevels[((feValue >> 3) & 1) == 0 ? 0 : 14];
@@ -552,6 +758,10 @@ public final class Motherboard implements ZxPolyConstants {
 
       this.beeper.updateState(tiStatesIntReached, wallClockIntReached, spentTiStates);
 
+      if (this.watchpoints.hasHits()) {
+        result |= TRIGGER_WATCHPOINT;
+      }
+
       final int curTriggers = this.triggers;
 
       if (curTriggers != TRIGGER_NONE) {
@@ -631,6 +841,9 @@ public final class Motherboard implements ZxPolyConstants {
   public void setBoardMode(final BoardMode newMode, final boolean doReset) {
     if (this.boardMode != newMode) {
       LOGGER.log(Level.INFO, "Motherboard mode changed to " + newMode);
+      if (newMode == BoardMode.SPEC256) {
+        this.modules[0].prepareGfxMemory();
+      }
       this.boardMode = newMode;
       if (doReset) {
         this.reset();
@@ -739,10 +952,8 @@ public final class Motherboard implements ZxPolyConstants {
           final int prevResult = result;
           result |= data;
           if (prevResult != result) {
-            LOGGER.log(Level.WARNING,
-                    "Detected IO collision during read: " + firstDetectedActiveDevice + ", "
-                            + device.getName() + " port #"
-                            + Integer.toHexString(port).toUpperCase(Locale.ENGLISH));
+            RingLogger.getInstance().log(LOG_IO_READ_COLLISION, port, 0L, 0L, 0L,
+                firstDetectedActiveDevice, device);
           }
         }
       }
@@ -822,10 +1033,176 @@ public final class Motherboard implements ZxPolyConstants {
     this.beeper.dispose();
   }
 
-  public byte[] getHeapRam() {
+  /**
+   * Get RAM heap of all modules, it is view of machine memory so changes are visible directly.
+   *
+   * @return RAM heap segment
+   */
+  public MemorySegment getHeapRam() {
     return this.ram;
   }
 
+  public MachineMemory getMachineMemory() {
+    return this.memory;
+  }
+
+  public Watchpoints getWatchpoints() {
+    return this.watchpoints;
+  }
+
+  public RamDirtyPages getRamDirtyPages() {
+    return this.ramDirtyPages;
+  }
+
+  public RamDirtyPages getGfxDirtyPages() {
+    return this.gfxDirtyPages;
+  }
+
+  public ScreenDirtyCells getScreenDirtyCells() {
+    return this.screenDirtyCells;
+  }
+
+  /**
+   * Check that current state of the board can be saved and restored without side effects.
+   * GFX memory of Spec256 is not part of the state, also rollback is not allowed during tape
+   * playing, active disk operations and input journal work.
+   *
+   * @return true if state rollback allowed, false otherwise
+   */
+  public boolean isStateRollbackAllowed() {
+    if (this.boardMode == BoardMode.SPEC256 || this.inputJournal != null
+        || this.watchpoints.isActive()) {
+      return false;
+    }
+    if (this.betaDisk != null && this.betaDisk.isActive()) {
+      return false;
+    }
+    final TapeSource<?> tape = this.keyboard.getTap();
+    return tape == null || !tape.isPlaying();
+  }
+
+  /**
+   * Save current state of the board into container. Only RAM pages changed since previous save
+   * into the same container are copied.
+   *
+   * @param state container to keep state, must not be null
+   */
+  public void saveState(final BoardState state) {
+    if (state.ramEpoch < 0) {
+      MemorySegment.copy(this.ram, 0L, state.ram, 0L, this.ram.byteSize());
+    } else {
+      this.copyDirtyRamPages(this.ram, state.ram, state.ramEpoch, false);
+    }
+    state.ramEpoch = this.ramDirtyPages.nextEpoch();
+
+    final IoDevice[] devices = this.ioDevices;
+    if (state.deviceStates == null) {
+      state.deviceStates = new Object[devices.length];
+    }
+    for (int i = 0; i < devices.length; i++) {
+      state.deviceStates[i] = devices[i].saveState(state.deviceStates[i]);
+    }
+    if (state.beeperChannels == null) {
+      state.beeperChannels = new int[this.beeper.getChannelNumber()];
+    }
+    this.beeper.fillChannelValues(state.beeperChannels);
+    System.arraycopy(this.cpuLoad, 0, state.cpuLoad, 0, this.cpuLoad.length);
+
+    state.triggers = this.triggers;
+    state.port3D00 = this.port3D00;
+    state.totalReset = this.totalReset;
+    state.resetCounter = this.resetCounter;
+    state.intCounter = this.intCounter;
+    state.videoFlashState = this.videoFlashState;
+    state.localResetForAllModules = this.localResetForAllModules;
+    state.statisticCounter = this.statisticCounter;
+    state.frameTiStatesCounter = this.frameTiStatesCounter;
+    state.frameIntTriggered = this.frameIntTriggered;
+    state.frameCounter = this.frameCounter;
+  }
+
+  /**
+   * Restore state of the board saved in container. Only RAM pages changed after save are copied.
+   *
+   * @param state container with saved state, must not be null
+   */
+  public void restoreState(final BoardState state) {
+    if (!state.isSaved()) {
+      throw new IllegalStateException("State is not saved");
+    }
+    this.memory.beginUpdate();
+    this.copyDirtyRamPages(state.ram, this.ram, state.ramEpoch, true);
+
+    final IoDevice[] devices = this.ioDevices;
+    for (int i = 0; i < devices.length; i++) {
+      devices[i].restoreState(state.deviceStates[i]);
+    }
+    this.beeper.setChannelValues(state.beeperChannels);
+    System.arraycopy(state.cpuLoad, 0, this.cpuLoad, 0, this.cpuLoad.length);
+
+    this.triggers = state.triggers;
+    this.port3D00 = state.port3D00;
+    this.totalReset = state.totalReset;
+    this.resetCounter = state.resetCounter;
+    this.intCounter = state.intCounter;
+    this.videoFlashState = state.videoFlashState;
+    this.localResetForAllModules = state.localResetForAllModules;
+    this.statisticCounter = state.statisticCounter;
+    this.frameTiStatesCounter = state.frameTiStatesCounter;
+    this.frameIntTriggered = state.frameIntTriggered;
+    this.frameCounter = state.frameCounter;
+    this.publishLivePosition();
+  }
+
+  private void copyDirtyRamPages(final MemorySegment from, final MemorySegment to,
+                                 final int sinceEpoch, final boolean markRestored) {
+    final RamDirtyPages dirtyPages = this.ramDirtyPages;
+    final int pages = dirtyPages.getPageNumber();
+    for (int page = 0; page < pages; page++) {
+      if (dirtyPages.isPageDirty(page, sinceEpoch)) {
+        final long offset = (long) page << RamDirtyPages.PAGE_SIZE_SHIFT;
+        MemorySegment.copy(from, offset, to, offset, RamDirtyPages.PAGE_SIZE);
+        if (markRestored) {
+          // restored pages must be visible as changed for machine memory readers
+          dirtyPages.markWritten((int) offset);
+        }
+      }
+    }
+  }
+
+  /**
+   * Execute emulation till end of current frame and then some whole frames without sound output.
+   * Wall clock is not used, every frame is started by INT.
+   *
+   * @param frames number of frames to be executed, current non-completed frame is counted
+   */
+  public void runFramesSilently(final int frames) {
+    final int tstatesFrame = this.timingProfile.tstatesFrame;
+    this.beeper.setMuted(true);
+    this.silentRun = true;
+    try {
+      for (int i = 0; i < frames; i++) {
+        boolean newFrame = i > 0 || this.frameTiStatesCounter >= tstatesFrame;
+        do {
+          this.step(newFrame, newFrame, false, newFrame, true);
+          newFrame = false;
+        } while (this.frameTiStatesCounter < tstatesFrame);
+      }
+    } finally {
+      this.silentRun = false;
+      this.beeper.setMuted(false);
+    }
+  }
+
+  /**
+   * Check that board is emulating speculative frames which will be rolled back.
+   *
+   * @return true if frames are emulated by {@link #runFramesSilently(int)}
+   */
+  public boolean isSilentRun() {
+    return this.silentRun;
+  }
+
   public List<IoDevice> findIoDevices() {
     return Arrays.asList(this.ioDevices);
   }
@@ -833,6 +1210,61 @@ public final class Motherboard implements ZxPolyConstants {
   public void startNewFrame() {
     this.frameTiStatesCounter = 0;
     this.frameIntTriggered = false;
+    this.frameCounter++;
+    if (!this.silentRun) {
+      this.publishLivePosition();
+    }
+  }
+
+  private void publishLivePosition() {
+    // lazy set is plain store on common platforms, readers need only eventual visibility
+    this.livePosition.lazySet(
+        (this.frameCounter << LIVE_POSITION_FRAME_SHIFT) | this.frameTiStatesCounter);
+  }
+
+  public long getFrameCounter() {
+    return this.frameCounter;
+  }
+
+  /**
+   * Get position of emulation shown to user, it can be read from any thread and it is not
+   * affected by speculative frames. The position is the earliest time not emulated yet or
+   * a bit older one, so host events stamped by it are applied inside running frame.
+   *
+   * @return packed position, use {@link #extractLiveFrame(long)} and
+   * {@link #extractLiveTiStates(long)} to unpack
+   */
+  public long getLivePosition() {
+    return this.livePosition.get();
+  }
+
+  public static long extractLiveFrame(final long livePosition) {
+    return livePosition >>> LIVE_POSITION_FRAME_SHIFT;
+  }
+
+  public static int extractLiveTiStates(final long livePosition) {
+    return (int) (livePosition & ((1L << LIVE_POSITION_FRAME_SHIFT) - 1));
+  }
+
+  public InputJournal getInputJournal() {
+    return this.inputJournal;
+  }
+
+  /**
+   * Set journal to record or replay input, must be called when emulation is suspended.
+   *
+   * @param journal journal to be used, null to stop recording or replay
+   * @return previous journal, can be null
+   */
+  public InputJournal setInputJournal(final InputJournal journal) {
+    final InputJournal prev = this.inputJournal;
+    if (journal != null && !journal.isReplay()) {
+      this.keyboard.writeJournalStart(journal);
+      this.kempstonMouse.writeJournalStart(journal);
+    }
+    this.inputJournal = journal;
+    LOGGER.info("Input journal: " + (journal == null ? "NONE" : journal.isReplay() ? "REPLAY" : "RECORD"));
+    return prev;
   }
 
   public void doNop() {
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.components;
+
+import java.util.Arrays;
+
+/**
+ * Tracker of changed pages in the shared RAM heap.
+ * Every page keeps number of the epoch of its last write, so any number of consumers can
+ * work independently, each consumer keeps the epoch returned by {@link #nextEpoch()} and asks
+ * for pages changed since that epoch. Write path makes only single array store.
+ * The tracker is not thread safe, all methods must be called by emulation thread, consumers
+ * working in other threads must get epochs and page flags through their own handoff.
+ */
+public final class RamDirtyPages {
+
+  public static final int PAGE_SIZE_SHIFT = 8;
+  public static final int PAGE_SIZE = 1 << PAGE_SIZE_SHIFT;
+
+  /**
+   * Epoch which is older than any write, consumer with the epoch sees all pages as dirty.
+   */
+  public static final int EPOCH_INITIAL = 0;
+
+  private final int[] pageEpochs;
+  // written and read only by emulation thread, so the write path doesn't pay for volatile read
+  private int epoch = EPOCH_INITIAL + 1;
+
+  public RamDirtyPages(final int heapSize) {
+    if (heapSize <= 0 || (heapSize & (PAGE_SIZE - 1)) != 0) {
+      throw new IllegalArgumentException("Heap size must be positive and aligned to page size: " + heapSize);
+    }
+    this.pageEpochs = new int[heapSize >>> PAGE_SIZE_SHIFT];
+  }
+
+  public int getPageNumber() {
+    return this.pageEpochs.length;
+  }
+
+  public void markWritten(final int heapAddress) {
+    this.pageEpochs[heapAddress >>> PAGE_SIZE_SHIFT] = this.epoch;
+  }
+
+  public void markAll() {
+    Arrays.fill(this.pageEpochs, this.epoch);
+  }
+
+  /**
+   * Close current epoch and start new one.
+   *
+   * @return number of the closed epoch, consumer should keep it and provide in next requests
+   */
+  public int nextEpoch() {
+    final int result = this.epoch;
+    this.epoch = result + 1;
+    return result;
+  }
+
+  public boolean isPageDirty(final int pageIndex, final int sinceEpoch) {
+    return this.pageEpochs[pageIndex] > sinceEpoch;
+  }
+
+  public boolean isDirty(final int heapAddressStart, final int length, final int sinceEpoch) {
+    if (length <= 0) {
+      return false;
+    }
+    final int lastPage = (heapAddressStart + length - 1) >>> PAGE_SIZE_SHIFT;
+    for (int page = heapAddressStart >>> PAGE_SIZE_SHIFT; page <= lastPage; page++) {
+      if (this.pageEpochs[page] > sinceEpoch) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Fill bitmap by flags of pages changed since epoch.
+   *
+   * @param sinceEpoch epoch of consumer
+   * @param bitmap     bitmap to be filled, bit N of element N/64 set for dirty page N, must not be null
+   * @return number of dirty pages
+   */
+  public int fillDirtyBitmap(final int sinceEpoch, final long[] bitmap) {
+    Arrays.fill(bitmap, 0L);
+    int counter = 0;
+    for (int page = 0; page < this.pageEpochs.length; page++) {
+      if (this.pageEpochs[page] > sinceEpoch) {
+        bitmap[page >>> 6] |= 1L << page;
+        counter++;
+      }
+    }
+    return counter;
+  }
+
+  public long[] makeBitmap() {
+    return new long[(this.pageEpochs.length + 63) >>> 6];
+  }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.components;
+
+import static com.igormaznitsa.z80.Utils.toHex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Watchpoint engine based on bitmaps, every module has 64K bitmaps for execute, read and write
+ * access and there is common bitmap for 64K ports, so that check of any number of watchpoints is
+ * single bit test. Detected hits are collected in emulation thread and should be drained
+ * by the thread after step.
+ * <p>
+ * Text format, one watchpoint per line, // starts comment:
+ * <pre>
+ * &lt;X|R|W|P&gt;+ [module:]address[-address]
+ * </pre>
+ * where X is execute, R is memory read, W is memory write, P is port read and write,
+ * module is index of module, all modules if not defined, addresses in hex with # or $ or 0x prefix,
+ * decimal otherwise.
+ */
+public final class Watchpoints {
+
+  public static final int KIND_EXECUTE = 0;
+  public static final int KIND_READ = 1;
+  public static final int KIND_WRITE = 2;
+  public static final int KIND_PORT_READ = 3;
+  public static final int KIND_PORT_WRITE = 4;
+
+  private static final int BITMAP_LENGTH = 0x10000 >>> 6;
+  private static final int MAX_HITS = 256;
+
+  private final long[][] executeBitmaps;
+  private final long[][] readBitmaps;
+  private final long[][] writeBitmaps;
+  private final long[] portBitmap = new long[BITMAP_LENGTH];
+  private final List<Hit> hits = new ArrayList<>();
+  private boolean active;
+  private int lostHits;
+  private String text = "";
+
+  public Watchpoints(final int modules) {
+    this.executeBitmaps = new long[modules][BITMAP_LENGTH];
+    this.readBitmaps = new long[modules][BITMAP_LENGTH];
+    this.writeBitmaps = new long[modules][BITMAP_LENGTH];
+  }
+
+  private static void setBits(final long[] bitmap, final int from, final int to) {
+    for (int i = from; i <= to; i++) {
+      bitmap[i >>> 6] |= 1L << i;
+    }
+  }
+
+  private static boolean isSet(final long[] bitmap, final int address) {
+    return (bitmap[(address & 0xFFFF) >>> 6] & (1L << address)) != 0L;
+  }
+
+  private static int parseNumber(final String text) {
+    final String normalized = text.trim().toUpperCase(Locale.ENGLISH);
+    final int result;
+    if (normalized.startsWith("0X")) {
+      result = Integer.parseInt(normalized.substring(2), 16);
+    } else if (normalized.startsWith("#") || normalized.startsWith("$")) {
+      result = Integer.parseInt(normalized.substring(1), 16);
+    } else {
+      result = Integer.parseInt(normalized);
+    }
+    if (result < 0 || result > 0xFFFF) {
+      throw new NumberFormatException("Address must be in #0000...#FFFF: " + text);
+    }
+    return result;
+  }
+
+  /**
+   * Check that there is at least one watchpoint.
+   * Must be called from emulation thread or under step lock.
+   *
+   * @return true if there are watchpoints
+   */
+  public boolean isActive() {
+    return this.active;
+  }
+
+  public String getText() {
+    return this.text;
+  }
+
+  public void clear() {
+    for (int i = 0; i < this.executeBitmaps.length; i++) {
+      Arrays.fill(this.executeBitmaps[i], 0L);
+      Arrays.fill(this.readBitmaps[i], 0L);
+      Arrays.fill(this.writeBitmaps[i], 0L);
+    }
+    Arrays.fill(this.portBitmap, 0L);
+    this.hits.clear();
+    this.lostHits = 0;
+    this.active = false;
+    this.text = "";
+  }
+
+  /**
+   * Replace all watchpoints by watchpoints described by text.
+   * Current watchpoints are not changed if text contains error.
+   *
+   * @param text text description of watchpoints, must not be null
+   * @throws IllegalArgumentException if text contains error
+   */
+  public void setFromText(final String text) {
+    final List<int[]> parsed = new ArrayList<>();
+    final String[] lines = text.split("\\R");
+    for (int i = 0; i < lines.length; i++) {
+      String line = lines[i];
+      final int commentStart = line.indexOf("//");
+      if (commentStart >= 0) {
+        line = line.substring(0, commentStart);
+      }
+      line = line.trim();
+      if (line.isEmpty()) {
+        continue;
+      }
+      try {
+        parsed.add(parseLine(line));
+      } catch (IllegalArgumentException ex) {
+        throw new IllegalArgumentException("Line " + (i + 1) + ": " + ex.getMessage(), ex);
+      }
+    }
+
+    this.clear();
+    for (final int[] record : parsed) {
+      final int kinds = record[0];
+      final int from = record[2];
+      final int to = record[3];
+      if ((kinds & (1 << KIND_PORT_READ)) != 0) {
+        setBits(this.portBitmap, from, to);
+      }
+      for (int m = 0; m < this.executeBitmaps.length; m++) {
+        if (record[1] < 0 || record[1] == m) {
+          if ((kinds & (1 << KIND_EXECUTE)) != 0) {
+            setBits(this.executeBitmaps[m], from, to);
+          }
+          if ((kinds & (1 << KIND_READ)) != 0) {
+            setBits(this.readBitmaps[m], from, to);
+          }
+          if ((kinds & (1 << KIND_WRITE)) != 0) {
+            setBits(this.writeBitmaps[m], from, to);
+          }
+        }
+      }
+    }
+    this.active = !parsed.isEmpty();
+    this.text = text;
+  }
+
+  private int[] parseLine(final String line) {
+    final String[] parts = line.split("\\s+");
+    if (parts.length != 2) {
+      throw new IllegalArgumentException("Expected kinds and address: " + line);
+    }
+    int kinds = 0;
+    for (final char c : parts[0].toUpperCase(Locale.ENGLISH).toCharArray()) {
+      switch (c) {
+        case 'X':
+          kinds |= 1 << KIND_EXECUTE;
+          break;
+        case 'R':
+          kinds |= 1 << KIND_READ;
+          break;
+        case 'W':
+          kinds |= 1 << KIND_WRITE;
+          break;
+        case 'P':
+          kinds |= 1 << KIND_PORT_READ;
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown watchpoint kind: " + c);
+      }
+    }
+
+    String address = parts[1];
+    int module = -1;
+    final int moduleSeparator = address.indexOf(':');
+    if (moduleSeparator >= 0) {
+      module = Integer.parseInt(address.substring(0, moduleSeparator).trim());
+      if (module < 0 || module >= this.executeBitmaps.length) {
+        throw new IllegalArgumentException("Wrong module index: " + module);
+      }
+      address = address.substring(moduleSeparator + 1);
+    }
+
+    final int rangeSeparator = address.indexOf('-');
+    final int from;
+    final int to;
+    if (rangeSeparator >= 0) {
+      from = parseNumber(address.substring(0, rangeSeparator));
+      to = parseNumber(address.substring(rangeSeparator + 1));
+    } else {
+      from = parseNumber(address);
+      to = from;
+    }
+    if (to < from) {
+      throw new IllegalArgumentException("Wrong address range: " + address);
+    }
+    return new int[] {kinds, module, from, to};
+  }
+
+  public void checkMemoryRead(final int module, final int address, final boolean m1,
+                              final int value, final int instructionAddress) {
+    if (isSet(m1 ? this.executeBitmaps[module] : this.readBitmaps[module], address)) {
+      this.addHit(m1 ? KIND_EXECUTE : KIND_READ, module, address, value, instructionAddress);
+    }
+  }
+
+  public void checkMemoryWrite(final int module, final int address, final int value,
+                               final int instructionAddress) {
+    if (isSet(this.writeBitmaps[module], address)) {
+      this.addHit(KIND_WRITE, module, address, value, instructionAddress);
+    }
+  }
+
+  public void checkPort(final int module, final int port, final boolean write, final int value,
+                        final int instructionAddress) {
+    if (isSet(this.portBitmap, port)) {
+      this.addHit(write ? KIND_PORT_WRITE : KIND_PORT_READ, module, port, value,
+          instructionAddress);
+    }
+  }
+
+  private void addHit(final int kind, final int module, final int address, final int value,
+                      final int instructionAddress) {
+    if (this.hits.size() < MAX_HITS) {
+      this.hits.add(new Hit(kind, module, address & 0xFFFF, value & 0xFF,
+          instructionAddress & 0xFFFF));
+    } else {
+      this.lostHits++;
+    }
+  }
+
+  public boolean hasHits() {
+    return !this.hits.isEmpty();
+  }
+
+  public int getLostHits() {
+    return this.lostHits;
+  }
+
+  /**
+   * Get all collected hits and reset internal buffer.
+   *
+   * @return list of hits in order of detection, can't be null
+   */
+  public List<Hit> drainHits() {
+    if (this.hits.isEmpty()) {
+      return Collections.emptyList();
+    }
+    final List<Hit> result = new ArrayList<>(this.hits);
+    this.hits.clear();
+    this.lostHits = 0;
+    return result;
+  }
+
+  /**
+   * Detected access to watched address.
+   */
+  public static final class Hit {
+
+    private final int kind;
+    private final int module;
+    private final int address;
+    private final int value;
+    private final int instructionAddress;
+
+    public Hit(final int kind, final int module, final int address, final int value,
+               final int instructionAddress) {
+      this.kind = kind;
+      this.module = module;
+      this.address = address;
+      this.value = value;
+      this.instructionAddress = instructionAddress;
+    }
+
+    public int getKind() {
+      return this.kind;
+    }
+
+    public int getModule() {
+      return this.module;
+    }
+
+    public int getAddress() {
+      return this.address;
+    }
+
+    public int getValue() {
+      return this.value;
+    }
+
+    public int getInstructionAddress() {
+      return this.instructionAddress;
+    }
+
+    @Override
+    public String toString() {
+      final String kindName;
+      switch (this.kind) {
+        case KIND_EXECUTE:
+          kindName = "EXECUTE";
+          break;
+        case KIND_READ:
+          kindName = "READ";
+          break;
+        case KIND_WRITE:
+          kindName = "WRITE";
+          break;
+        case KIND_PORT_READ:
+          kindName = "PORT IN";
+          break;
+        case KIND_PORT_WRITE:
+          kindName = "PORT OUT";
+          break;
+        default:
+          throw new Error("Unexpected kind: " + this.kind);
+      }
+      return "CPU#" + this.module + ' ' + kindName + ' ' + toHex(this.address)
+          + '=' + toHex(this.value) + " at " + toHex(this.instructionAddress);
+    }
+  }
+}
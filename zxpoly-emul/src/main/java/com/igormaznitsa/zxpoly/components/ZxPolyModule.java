@@ -27,7 +27,10 @@ import com.igormaznitsa.z80.Z80Instruction;
 import com.igormaznitsa.z80.disasm.Z80Disasm;
 import com.igormaznitsa.zxpoly.components.video.timings.TimingProfile;
 import com.igormaznitsa.zxpoly.formats.Spec256Arch;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
@@ -42,8 +45,11 @@ import java.util.logging.Logger;
 public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProvider {
 
   private static final int GFX_PAGE_SIZE = 0x4000 * 8;
+  static final int GFX_ROM_SIZE = 32 * 8 * 1024;
+  static final int GFX_RAM_SIZE = 128 * 8 * 1024;
   private final Logger logger;
   private final Motherboard board;
+  private final Watchpoints watchpoints;
   private final int moduleIndex;
   private final Z80 cpu;
   private final int PORT_REG0;
@@ -53,8 +59,9 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
   private final AtomicIntegerArray zxPolyRegsWritten = new AtomicIntegerArray(4);
   private final AtomicInteger port7FFD = new AtomicInteger();
   private final AtomicReference<RomData> romData = new AtomicReference<>();
-  private final byte[] gfxRam;
-  private final byte[] gfxRom;
+  private MemorySegment gfxRam;
+  private MemorySegment gfxRom;
+  private RamDirtyPages gfxDirtyPages;
   private final boolean trdosEnabled;
   private final TimingProfile timingProfile;
   private int intTiStatesCounter = -1;
@@ -69,10 +76,17 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
   private boolean stopAddressWait;
   private int localResetCounter;
   private long mcyclesOfActivityBetweenInt;
+  private long instructionCounter;
   private volatile boolean trdosRomActive;
   private boolean gfxWaitSignal;
   private int gfxIntCounter;
   private int gfxNmiCounter;
+  private int gfxGroupMask;
+  private long gfxGroupLanes;
+  private boolean gfxGroupDiverged;
+  private int gfxUndoLength;
+  private int[] gfxUndoAddress = new int[16];
+  private long[] gfxUndoLanes = new long[16];
 
 
   public ZxPolyModule(final TimingProfile timingProfile, final Motherboard board, final RomData romData, final int index) {
@@ -80,7 +94,9 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
     this.romData.set(Objects.requireNonNull(romData));
     this.trdosEnabled = romData.isTrdosPresented();
     this.board = Objects.requireNonNull(board);
+    this.watchpoints = board.getWatchpoints();
     this.moduleIndex = index;
+    this.placeRomIntoMachineMemory(romData);
 
     this.PORT_REG0 = calcPortForRegister(index, 0);
     this.PORT_REG1 = calcPortForRegister(index, 1);
@@ -91,14 +107,6 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
 
     this.logger = Logger.getLogger(ZxPolyModule.class.getName() + "_" + index);
 
-    if (index == 0) {
-      this.gfxRam = new byte[128 * 8 * 1024];
-      this.gfxRom = new byte[32 * 8 * 1024];
-    } else {
-      this.gfxRam = null;
-      this.gfxRom = null;
-    }
-
     logger.info("Inited");
   }
 
@@ -135,6 +143,14 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
 
   public void setRomData(final RomData romData) {
     this.romData.set(Objects.requireNonNull(romData));
+    this.placeRomIntoMachineMemory(romData);
+  }
+
+  private void placeRomIntoMachineMemory(final RomData romData) {
+    // machine memory keeps ROM of the master module
+    if (this.moduleIndex == 0) {
+      this.board.getMachineMemory().setRom(romData);
+    }
   }
 
   public int getHeapOffset() {
@@ -253,6 +269,16 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
     }
   }
 
+  /**
+   * Get number of completed instructions since module creation, it is updated by emulation thread
+   * without synchronization so value read from other threads can be a bit stale.
+   *
+   * @return number of completed CPU instructions
+   */
+  public long getInstructionCounter() {
+    return this.instructionCounter;
+  }
+
   public long getActiveMCyclesBetweenInt() {
     return Math.max(0L, this.mcyclesOfActivityBetweenInt);
   }
@@ -282,6 +308,30 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
           final boolean commonInt,
           final boolean commonNmi,
           final boolean resetStatistic
+  ) {
+    return this.step(boardMode, signalReset, commonInt, commonNmi, resetStatistic,
+        Z80.DECODED_NONE);
+  }
+
+  /**
+   * Make step of module CPU.
+   *
+   * @param boardMode          current board mode
+   * @param signalReset        reset signal for all modules
+   * @param commonInt          common INT signal
+   * @param commonNmi          common NMI signal
+   * @param resetStatistic     reset activity statistics
+   * @param decodedInstruction instruction decoded once for all modules in lockstep, or
+   *                           {@link Z80#DECODED_NONE} if CPU must decode it itself
+   * @return true if CPU has met HALT
+   */
+  public boolean step(
+          final BoardMode boardMode,
+          final boolean signalReset,
+          final boolean commonInt,
+          final boolean commonNmi,
+          final boolean resetStatistic,
+          final int decodedInstruction
   ) {
     final boolean doInt;
     final boolean doNmi;
@@ -334,7 +384,9 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
                     | (this.intTiStatesCounter >= 0 && this.intTiStatesCounter <= this.timingProfile.tstatesInt ? 0 : Z80.SIGNAL_IN_nINT)
                     | (this.nmiTiStatesCounter >= 0 && this.nmiTiStatesCounter <= this.timingProfile.tstatesNmi ? 0 : Z80.SIGNAL_IN_nNMI);
 
-    this.cpu.step(this.moduleIndex, cpuBusSignals);
+    if (!this.cpu.step(this.moduleIndex, cpuBusSignals, decodedInstruction) && sigReset != 0 && sigWait != 0) {
+      this.instructionCounter++;
+    }
     final int spentTiStates = this.cpu.getStepTstates();
 
     if (this.nmiTiStatesCounter >= 0) {
@@ -357,11 +409,51 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
     return isHaltDetected;
   }
 
+  /**
+   * Make step of GFX CPU which represents group of GFX cores with the same state. Memory reads
+   * are checked against GFX memory of all group cores and memory writes are mirrored into all
+   * of them. If data read for some core differs then all writes made during the step are
+   * rolled back and the step must be repeated for every core separately.
+   *
+   * @param ctx       context of leader core (index of GFX core + 1)
+   * @param gfxCpu    CPU of leader core
+   * @param groupMask bit mask of all GFX cores in the group including leader
+   * @return true if step is valid for all group cores, false if data diverged and the step has
+   * been rolled back in memory
+   */
+  public boolean gfxGpuGroupStep(final int ctx, final Z80 gfxCpu, final int groupMask) {
+    this.gfxGroupMask = groupMask;
+    this.gfxGroupLanes = GfxLanes.laneMask(groupMask);
+    this.gfxGroupDiverged = false;
+    this.gfxUndoLength = 0;
+    try {
+      this.gfxGpuStep(ctx, gfxCpu);
+    } finally {
+      this.gfxGroupMask = 0;
+    }
+    if (this.gfxGroupDiverged) {
+      for (int i = this.gfxUndoLength - 1; i >= 0; i--) {
+        GfxLanes.write(this.gfxRam, this.gfxUndoAddress[i], this.gfxUndoLanes[i]);
+        this.gfxDirtyPages.markWritten(this.gfxUndoAddress[i]);
+      }
+      return false;
+    }
+    return true;
+  }
+
   public void gfxGpuStep(final int ctx, final Z80 gfxCpu) {
+    gfxCpu.step(ctx, this.getGfxCpuSignals());
+  }
+
+  /**
+   * Get input signals provided for GFX cores on step.
+   *
+   * @return Z80 input signals of GFX cores
+   */
+  int getGfxCpuSignals() {
     int sigWait = this.gfxWaitSignal ? 0 : Z80.SIGNAL_IN_nWAIT;
-    gfxCpu.step(ctx,
-            Z80.SIGNAL_IN_nRESET | (this.gfxIntCounter >= 0 ? 0 : Z80.SIGNAL_IN_nINT)
-                    | sigWait | (this.gfxNmiCounter >= 0 ? 0 : Z80.SIGNAL_IN_nNMI));
+    return Z80.SIGNAL_IN_nRESET | (this.gfxIntCounter >= 0 ? 0 : Z80.SIGNAL_IN_nINT)
+        | sigWait | (this.gfxNmiCounter >= 0 ? 0 : Z80.SIGNAL_IN_nNMI);
   }
 
   public boolean is7FFDLocked() {
@@ -373,6 +465,10 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
   }
 
   public long readGfxVideo(final int videoOffset) {
+    final MemorySegment gfxRam = this.gfxRam;
+    if (gfxRam == null) {
+      return 0L;
+    }
     int offset;
     if ((this.port7FFD.get() & PORTw_ZX128_SCREEN) == 0) {
       // RAM 5
@@ -382,22 +478,15 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
       offset = 7 * GFX_PAGE_SIZE + (videoOffset << 3);
     }
 
-    long result = 0L;
-    for (int pixIndex = 0; pixIndex < 8; pixIndex++) {
-      result <<= 8;
-      int acc = 0;
-      final int msk = 1 << (7 - pixIndex);
-      for (int bitIndex = 0; bitIndex < 8; bitIndex++) {
-        if ((this.gfxRam[offset + bitIndex] & msk) != 0) {
-          acc |= (1 << bitIndex);
-        }
-      }
-      result |= acc;
-    }
-    return result;
+    // the left pixel is in bit 7 of planes so it becomes the highest lane
+    return GfxLanes.transposeBits(GfxLanes.read(gfxRam, offset));
   }
 
   public long readGfxVideo16(final int videoOffset) {
+    final MemorySegment gfxRam = this.gfxRam;
+    if (gfxRam == null) {
+      return 0L;
+    }
     int offset;
     if ((this.port7FFD.get() & PORTw_ZX128_SCREEN) == 0) {
       // RAM 5
@@ -407,17 +496,10 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
       offset = 7 * GFX_PAGE_SIZE + (videoOffset << 3);
     }
 
+    final long pixels = GfxLanes.transposeBits(GfxLanes.read(gfxRam, offset));
     long result = 0L;
-    for (int pixIndex = 0; pixIndex < 8; pixIndex++) {
-      result <<= 5;
-      int acc = 0;
-      final int msk = 1 << (7 - pixIndex);
-      for (int bitIndex = 0; bitIndex < 5; bitIndex++) {
-        if ((this.gfxRam[offset + bitIndex] & msk) != 0) {
-          acc |= (1 << bitIndex);
-        }
-      }
-      result |= acc;
+    for (int pixIndex = 7; pixIndex >= 0; pixIndex--) {
+      result = (result << 5) | ((pixels >>> (pixIndex << 3)) & 0x1F);
     }
     return result;
   }
@@ -534,6 +616,9 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
           result = readMemoryAddress(valueAt7ffd, this.trdosRomActive, address);
         } else {
           result = readGfxMemory(ctx - 1, valueAt7ffd, this.trdosRomActive, address);
+          if (this.gfxGroupMask != 0 && !this.gfxGroupDiverged) {
+            this.checkGfxGroupRead(valueAt7ffd, address, result);
+          }
         }
       }
       break;
@@ -543,6 +628,10 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
 
     this.cpu.addTstates(this.board.getContendedDelay(this.port7FFD.get(), address));
 
+    if (ctx == 0 && this.watchpoints.isActive()) {
+      this.watchpoints.checkMemoryRead(this.moduleIndex, address, m1, result, this.lastM1Address);
+    }
+
     return result;
   }
 
@@ -557,33 +646,75 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
       } else {
         final int addrAtGfxRomArea =
                 gfxCoreIndex + (address << 3) + ((valueAt7ffd >> 4) & 1) * GFX_PAGE_SIZE;
-        result = this.gfxRom[addrAtGfxRomArea];
+        result = this.gfxRom.get(ValueLayout.JAVA_BYTE, addrAtGfxRomArea);
       }
     } else {
-      final int page;
-      final int offsetInPage;
-      if (address < 0x8000) {
-        page = 5;
-        offsetInPage = address - 0x4000;
-      } else if (address < 0xC000) {
-        page = 2;
-        offsetInPage = address - 0x8000;
-      } else {
-        page = valueAt7ffd & 7;
-        offsetInPage = address - 0xC000;
-      }
-      result = this.gfxRam[page * GFX_PAGE_SIZE + (offsetInPage << 3) + gfxCoreIndex];
+      result = this.gfxRam.get(ValueLayout.JAVA_BYTE,
+          gfxRamLanesOffset(valueAt7ffd, address) + gfxCoreIndex);
     }
     return result;
   }
 
+  /**
+   * Get offset of bytes of all GFX cores for RAM address in GFX RAM.
+   *
+   * @param valueAt7FFD value of port #7FFD
+   * @param address     address in RAM area, must be greater or equal #4000
+   * @return offset of the first GFX core byte, bytes of other cores follow it
+   */
+  private static int gfxRamLanesOffset(final int valueAt7FFD, final int address) {
+    final int page;
+    final int offsetInPage;
+    if (address < 0x8000) {
+      page = 5;
+      offsetInPage = address - 0x4000;
+    } else if (address < 0xC000) {
+      page = 2;
+      offsetInPage = address - 0x8000;
+    } else {
+      page = valueAt7FFD & 7;
+      offsetInPage = address - 0xC000;
+    }
+    return page * GFX_PAGE_SIZE + (offsetInPage << 3);
+  }
+
+  private void checkGfxGroupRead(final int valueAt7ffd, final int address, final byte value) {
+    final long lanes;
+    if (address < 0x4000) {
+      if (this.trdosRomActive) {
+        return;
+      }
+      lanes = GfxLanes.read(this.gfxRom,
+              (address << 3) + ((valueAt7ffd >> 4) & 1) * GFX_PAGE_SIZE);
+    } else {
+      lanes = GfxLanes.read(this.gfxRam, gfxRamLanesOffset(valueAt7ffd, address));
+    }
+    this.gfxGroupDiverged = !GfxLanes.isSame(lanes, value, this.gfxGroupLanes);
+  }
+
+  /**
+   * Attach Spec256 GFX memory of machine memory if it is not attached yet, the memory is needed
+   * only for module 0 in Spec256 mode so it is not attached at start and GFX segment of machine
+   * memory is created on the first attach.
+   */
+  void prepareGfxMemory() {
+    if (this.gfxRam == null) {
+      this.logger.info("Attaching Spec256 GFX memory");
+      final MachineMemory memory = this.board.getMachineMemory();
+      this.gfxRom = memory.getGfxRom();
+      this.gfxRam = memory.getGfxRam();
+      this.gfxDirtyPages = this.board.getGfxDirtyPages();
+    }
+  }
+
   public void makeCopyOfRomToGfxRom() {
+    this.prepareGfxMemory();
     final byte[] data = this.romData.get().getAsArray();
     int offst = 0;
     for (int i = 0; i < 0x8000 && i < data.length; i++) {
       final int value = data[i] & 0xFF;
       for (int j = 0; j < 8; j++) {
-        this.gfxRom[offst++] = (byte) value;
+        this.gfxRom.set(ValueLayout.JAVA_BYTE, offst++, (byte) value);
       }
     }
   }
@@ -594,6 +725,7 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
       throw new IllegalArgumentException("Page size must be 0x4000:" + data.length);
     }
     final int pageOffset = heapPageIndex * 0x4000;
+    this.board.getMachineMemory().beginUpdate();
     for (int i = 0; i < data.length; i++) {
       this.board.writeRam(this, this.getHeapOffset() + pageOffset + i, data[i]);
     }
@@ -602,9 +734,11 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
   public void writeGfxRomPage(final Spec256Arch.Spec256GfxOrigPage page) {
     this.gfxRomLock.lock();
     try {
+      this.prepareGfxMemory();
       int startOffset = page.getPageIndex() * GFX_PAGE_SIZE;
       final byte[] data = page.getGfxData();
-      System.arraycopy(data, 0, this.gfxRom, startOffset, data.length);
+      this.board.getMachineMemory().beginUpdate();
+      MemorySegment.copy(MemorySegment.ofArray(data), 0L, this.gfxRom, startOffset, data.length);
     } finally {
       this.gfxRomLock.unlock();
     }
@@ -613,8 +747,10 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
   public Spec256Arch.Spec256GfxPage getGfxRamPage(final int page) {
     this.gfxRamLock.lock();
     try {
+      this.prepareGfxMemory();
       final byte[] data = new byte[GFX_PAGE_SIZE];
-      System.arraycopy(this.gfxRam, page * GFX_PAGE_SIZE, data, 0, GFX_PAGE_SIZE);
+      MemorySegment.copy(this.gfxRam, (long) page * GFX_PAGE_SIZE, MemorySegment.ofArray(data),
+          0L, GFX_PAGE_SIZE);
       return new Spec256Arch.Spec256GfxPage(page, data);
     } finally {
       this.gfxRamLock.unlock();
@@ -624,9 +760,13 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
   public void writeGfxRamPage(final Spec256Arch.Spec256GfxOrigPage page) {
     this.gfxRamLock.lock();
     try {
-      int startOffset = page.getPageIndex() * GFX_PAGE_SIZE;
-      for (final byte gfxPageDatum : page.getGfxData()) {
-        this.gfxRam[startOffset++] = gfxPageDatum;
+      this.prepareGfxMemory();
+      final int startOffset = page.getPageIndex() * GFX_PAGE_SIZE;
+      final byte[] data = page.getGfxData();
+      this.board.getMachineMemory().beginUpdate();
+      MemorySegment.copy(MemorySegment.ofArray(data), 0L, this.gfxRam, startOffset, data.length);
+      for (int i = 0; i < data.length; i += RamDirtyPages.PAGE_SIZE) {
+        this.gfxDirtyPages.markWritten(startOffset + i);
       }
     } finally {
       this.gfxRamLock.unlock();
@@ -638,23 +778,29 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
                              final int address,
                              final int value) {
     if (address >= 0x4000) {
-      final int page;
-      final int offsetInPage;
-      if (address < 0x8000) {
-        page = 5;
-        offsetInPage = address - 0x4000;
-      } else if (address < 0xC000) {
-        page = 2;
-        offsetInPage = address - 0x8000;
+      final int lanesOffset = gfxRamLanesOffset(valueAt7FFD, address);
+      this.gfxDirtyPages.markWritten(lanesOffset);
+      if (this.gfxGroupMask == 0) {
+        this.gfxRam.set(ValueLayout.JAVA_BYTE, lanesOffset + gfxCoreIndex, (byte) value);
       } else {
-        page = valueAt7FFD & 7;
-        offsetInPage = address - 0xC000;
+        // write value into lanes of all group cores by single operation
+        final long lanes = GfxLanes.read(this.gfxRam, lanesOffset);
+        this.addGfxUndo(lanesOffset, lanes);
+        GfxLanes.write(this.gfxRam, lanesOffset,
+                GfxLanes.replace(lanes, value, this.gfxGroupLanes));
       }
-      final int ramHeapAddr = page * GFX_PAGE_SIZE + (offsetInPage << 3) + gfxCoreIndex;
-      this.gfxRam[ramHeapAddr] = (byte) value;
     }
   }
 
+  private void addGfxUndo(final int lanesOffset, final long lanes) {
+    if (this.gfxUndoLength == this.gfxUndoAddress.length) {
+      this.gfxUndoAddress = Arrays.copyOf(this.gfxUndoAddress, this.gfxUndoLength * 2);
+      this.gfxUndoLanes = Arrays.copyOf(this.gfxUndoLanes, this.gfxUndoLength * 2);
+    }
+    this.gfxUndoAddress[this.gfxUndoLength] = lanesOffset;
+    this.gfxUndoLanes[this.gfxUndoLength++] = lanes;
+  }
+
   private byte readMemoryAddress(
           final int valueAt7FFD,
           final boolean trDosActive,
@@ -758,6 +904,10 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
   public void writeMemory(final Z80 cpu, final int ctx, final int address, final byte data) {
     final int val = data & 0xFF;
 
+    if (ctx == 0 && this.watchpoints.isActive()) {
+      this.watchpoints.checkMemoryWrite(this.moduleIndex, address, val, this.lastM1Address);
+    }
+
     final int value7FFD = this.port7FFD.get();
 
     switch (this.board.getBoardMode()) {
@@ -887,7 +1037,13 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
         }
       }
     }
-    return readFromBus ? (byte) this.board.readBusIo(this, port) : result;
+    if (readFromBus) {
+      result = (byte) this.board.readBusIo(this, port);
+    }
+    if (ctx == 0 && this.watchpoints.isActive()) {
+      this.watchpoints.checkPort(this.moduleIndex, port, false, result, this.lastM1Address);
+    }
+    return result;
   }
 
   public int read7FFD() {
@@ -948,6 +1104,9 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
     cpu.addTstates(this.board.getContendedDelay(port, value7ffd));
 
     final int val = data & 0xFF;
+    if (ctx == 0 && this.watchpoints.isActive()) {
+      this.watchpoints.checkPort(this.moduleIndex, port, true, val, this.lastM1Address);
+    }
     if (this.board.getBoardMode() == BoardMode.ZXPOLY) {
       final int reg0 = this.zxPolyRegsWritten.get(0);
       if ((reg0 & ZXPOLY_wREG0_OUT_DISABLED) == 0 || port == PORTw_ZX128) {
@@ -1068,4 +1227,82 @@ public final class ZxPolyModule implements IoDevice, Z80CPUBus, MemoryAccessProv
     this.localResetCounter = 0;
     this.cpu.doReset();
   }
+
+  @Override
+  public Object saveState(final Object container) {
+    final ModuleState state;
+    if (container == null) {
+      state = new ModuleState();
+      state.cpu = new Z80(this.cpu);
+    } else {
+      state = (ModuleState) container;
+      state.cpu.fillByState(this.cpu);
+    }
+    for (int i = 0; i < state.zxPolyRegsWritten.length; i++) {
+      state.zxPolyRegsWritten[i] = this.zxPolyRegsWritten.get(i);
+    }
+    state.port7FFD = this.port7FFD.get();
+    state.intTiStatesCounter = this.intTiStatesCounter;
+    state.nmiTiStatesCounter = this.nmiTiStatesCounter;
+    state.lastM1Address = this.lastM1Address;
+    state.activeRegisterReading = this.activeRegisterReading;
+    state.registerReadingCounter = this.registerReadingCounter;
+    state.localInt = this.localInt;
+    state.localNmi = this.localNmi;
+    state.waitSignal = this.waitSignal;
+    state.stopAddressWait = this.stopAddressWait;
+    state.localResetCounter = this.localResetCounter;
+    state.mcyclesOfActivityBetweenInt = this.mcyclesOfActivityBetweenInt;
+    state.trdosRomActive = this.trdosRomActive;
+    state.gfxWaitSignal = this.gfxWaitSignal;
+    state.gfxIntCounter = this.gfxIntCounter;
+    state.gfxNmiCounter = this.gfxNmiCounter;
+    return state;
+  }
+
+  @Override
+  public void restoreState(final Object state) {
+    final ModuleState moduleState = (ModuleState) state;
+    this.cpu.fillByState(moduleState.cpu);
+    for (int i = 0; i < moduleState.zxPolyRegsWritten.length; i++) {
+      this.zxPolyRegsWritten.set(i, moduleState.zxPolyRegsWritten[i]);
+    }
+    this.port7FFD.set(moduleState.port7FFD);
+    this.intTiStatesCounter = moduleState.intTiStatesCounter;
+    this.nmiTiStatesCounter = moduleState.nmiTiStatesCounter;
+    this.lastM1Address = moduleState.lastM1Address;
+    this.activeRegisterReading = moduleState.activeRegisterReading;
+    this.registerReadingCounter = moduleState.registerReadingCounter;
+    this.localInt = moduleState.localInt;
+    this.localNmi = moduleState.localNmi;
+    this.waitSignal = moduleState.waitSignal;
+    this.stopAddressWait = moduleState.stopAddressWait;
+    this.localResetCounter = moduleState.localResetCounter;
+    this.mcyclesOfActivityBetweenInt = moduleState.mcyclesOfActivityBetweenInt;
+    this.trdosRomActive = moduleState.trdosRomActive;
+    this.gfxWaitSignal = moduleState.gfxWaitSignal;
+    this.gfxIntCounter = moduleState.gfxIntCounter;
+    this.gfxNmiCounter = moduleState.gfxNmiCounter;
+  }
+
+  private static final class ModuleState {
+    private final int[] zxPolyRegsWritten = new int[4];
+    private Z80 cpu;
+    private int port7FFD;
+    private int intTiStatesCounter;
+    private int nmiTiStatesCounter;
+    private int lastM1Address;
+    private boolean activeRegisterReading;
+    private int registerReadingCounter;
+    private boolean localInt;
+    private boolean localNmi;
+    private boolean waitSignal;
+    private boolean stopAddressWait;
+    private int localResetCounter;
+    private long mcyclesOfActivityBetweenInt;
+    private boolean trdosRomActive;
+    private boolean gfxWaitSignal;
+    private int gfxIntCounter;
+    private int gfxNmiCounter;
+  }
 }
@@ -167,9 +167,32 @@ public class BetaDiscInterface implements IoDevice {
     this.vg93.reset();
   }
 
+  @Override
+  public Object saveState(final Object container) {
+    final InterfaceState state =
+        container == null ? new InterfaceState() : (InterfaceState) container;
+    state.totalTstates = this.totalTstates;
+    state.ffPort = this.ffPort;
+    state.controllerState = this.vg93.saveState(state.controllerState);
+    return state;
+  }
+
+  @Override
+  public void restoreState(final Object state) {
+    final InterfaceState interfaceState = (InterfaceState) state;
+    this.totalTstates = interfaceState.totalTstates;
+    this.ffPort = interfaceState.ffPort;
+    this.vg93.restoreState(interfaceState.controllerState);
+  }
+
   @Override
   public String toString() {
     return this.getName();
   }
 
+  private static final class InterfaceState {
+    private long totalTstates;
+    private int ffPort;
+    private Object controllerState;
+  }
 }
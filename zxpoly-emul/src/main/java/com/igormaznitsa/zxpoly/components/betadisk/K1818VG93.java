@@ -19,6 +19,8 @@ package com.igormaznitsa.zxpoly.components.betadisk;
 
 import com.igormaznitsa.zxpoly.components.betadisk.TrDosDisk.Sector;
 import com.igormaznitsa.zxpoly.components.video.timings.TimingProfile;
+import com.igormaznitsa.zxpoly.metrics.EmulationEvents;
+import com.igormaznitsa.zxpoly.utils.RingLogger;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
@@ -55,7 +57,14 @@ public final class K1818VG93 {
   private final long tstatesIndexMarkLength;
   private final int[] registers = new int[6];
   private final AtomicReference<TrDosDisk> trdosDisk = new AtomicReference<>();
-  private final Logger logger;
+  private final RingLogger ringLogger = RingLogger.getInstance();
+  private final RingLogger.Event logCommand;
+  private final RingLogger.Event logInterrupt;
+  private final RingLogger.Event logHeadMoved;
+  private final RingLogger.Event logSeekCompleted;
+  private final RingLogger.Event logFoundAddress;
+  private final RingLogger.Event logReadSectorNext;
+  private final RingLogger.Event logReadSectorCompleted;
   private TrDosDisk.Sector sector;
   private int counter;
   private int extraCounter;
@@ -76,7 +85,19 @@ public final class K1818VG93 {
   private static final Level LOG_LEVEL = Level.FINE;
 
   public K1818VG93(final TimingProfile profile, final Logger logger) {
-    this.logger = logger;
+    this.logCommand = RingLogger.event(logger, LOG_LEVEL,
+        (command, trackNumber, sectorNumber, headAndData, ref1, ref2) -> "FDD cmd ("
+            + toBinByte((int) command) + "): "
+            + commandAsText((int) command, (int) trackNumber, (int) (headAndData >> 8),
+            (int) sectorNumber, (int) (headAndData & 0xFF)));
+    this.logInterrupt = RingLogger.event(logger, LOG_LEVEL, "INTERRUPT (counter=%d)");
+    this.logHeadMoved =
+        RingLogger.event(logger, LOG_LEVEL, "FDD head moved to track %d, target track is %d");
+    this.logSeekCompleted = RingLogger.event(logger, LOG_LEVEL, "SEEK completed on track=%d");
+    this.logFoundAddress = RingLogger.event(logger, LOG_LEVEL, "FOUND.ADDR t=%d;h=%d:s=%d");
+    this.logReadSectorNext =
+        RingLogger.event(logger, LOG_LEVEL, "RD.SECTOR completed, start next sector in multi-sec");
+    this.logReadSectorCompleted = RingLogger.event(logger, LOG_LEVEL, "RD.SECTOR completed");
 
     this.tstatesDiskTurn = profile.tstatesFrame * 4L;
     this.tstatesPerTrackChange = new long[]{
@@ -230,8 +251,11 @@ public final class K1818VG93 {
         }
 
         if (this.firstCommandStep) {
-          logger.log(LOG_LEVEL,
-                  "FDD cmd (" + toBinByte(normValue) + "): " + commandAsText(normValue));
+          final TrDosDisk disk = this.trdosDisk.get();
+          this.ringLogger.log(this.logCommand, normValue, this.registers[REG_TRACK],
+              this.registers[REG_SECTOR],
+              ((long) (disk == null ? -1 : disk.getHeadIndex()) << 8)
+                  | this.registers[REG_DATA_WR], null, null);
         }
       }
       break;
@@ -260,7 +284,7 @@ public final class K1818VG93 {
     }
   }
 
-  private String toBinByte(int value) {
+  private static String toBinByte(int value) {
     final StringBuilder buffer = new StringBuilder(8);
     for (int i = 0; i < 8; i++) {
       buffer.append((value & 0x80) == 0 ? '0' : '1');
@@ -269,17 +293,17 @@ public final class K1818VG93 {
     return buffer.toString();
   }
 
-  private String commandAsText(final int command) {
-    final int addressTrack = this.registers[REG_TRACK];
-    final int addressSector = this.registers[REG_SECTOR];
-
-    final TrDosDisk disk = this.trdosDisk.get();
-
+  private static String commandAsText(
+      final int command,
+      final int addressTrack,
+      final int headIndex,
+      final int addressSector,
+      final int dataRegister) {
     final String address = String.format("current(track=%d, head=%d, sector=%d, dataReg=%d)",
             addressTrack,
-            (disk == null ? -1 : disk.getHeadIndex()),
+            headIndex,
             addressSector,
-            this.registers[REG_DATA_WR]
+            dataRegister
     );
 
     final int high = command >>> 4;
@@ -417,7 +441,7 @@ public final class K1818VG93 {
 
   private void cmdForceInterrupt(final long tstatesCounter, final int command,
                                  final boolean start) {
-    logger.log(LOG_LEVEL, "INTERRUPT (counter=" + this.counter + ')');
+    this.ringLogger.log(this.logInterrupt, this.counter);
     this.operationTimeOutCycles = -1L;
     resetInternalFlag(STATUS_BUSY);
   }
@@ -491,9 +515,8 @@ public final class K1818VG93 {
           }
           this.registers[REG_SECTOR] = 1;
           loadSector(this.registers[REG_TRACK], this.registers[REG_SECTOR]);
-          logger.log(LOG_LEVEL,
-              "FDD head moved to track " + this.registers[REG_TRACK] + ", target track is "
-                  + this.registers[REG_DATA_WR]);
+          this.ringLogger.log(this.logHeadMoved, this.registers[REG_TRACK],
+              this.registers[REG_DATA_WR]);
           this.operationTimeOutCycles = Math.abs(tstatesCounter + tstatesPerTrackChange[command & 2]);
         }
 
@@ -511,7 +534,7 @@ public final class K1818VG93 {
       }
 
       if (completed) {
-        this.logger.log(LOG_LEVEL, "SEEK completed on track=" + this.registers[REG_TRACK]);
+        this.ringLogger.log(this.logSeekCompleted, this.registers[REG_TRACK]);
       } else {
         setInternalFlag(STATUS_BUSY);
       }
@@ -620,7 +643,7 @@ public final class K1818VG93 {
                   final int track = (this.extraCounter >> 16) & 0xFF;
                   final int side = (this.extraCounter >> 8) & 0xFF;
                   final int sector = this.extraCounter & 0xFF;
-                  logger.log(LOG_LEVEL, "FOUND.ADDR t=" + track + ";h=" + side + ":s=" + sector);
+                  this.ringLogger.log(this.logFoundAddress, track, side, sector);
                 }
               }
             } else {
@@ -691,6 +714,17 @@ public final class K1818VG93 {
     cmdStep(tstatesCounter, command, start);
   }
 
+  private void commitDiskIoEvent(final boolean write, final Sector transferred) {
+    final EmulationEvents.DiskIoEvent event = new EmulationEvents.DiskIoEvent();
+    if (event.isEnabled()) {
+      event.write = write;
+      event.track = transferred.getTrackNumber();
+      event.sector = transferred.getPhysicalIndex();
+      event.size = transferred.size();
+      event.commit();
+    }
+  }
+
   private void cmdReadSector(final long tstatesCounter, final int command, final boolean start) {
     final boolean multiSectors = (command & COMMAND_FLAG_MULTIPLE_RECORDS) != 0;
     final int sideNumber = (command >>> 3) & 1;
@@ -737,10 +771,10 @@ public final class K1818VG93 {
             if (this.counter >= this.sector.size()) {
               // sector reading end
               this.sectorPositioningCycles = Math.abs(tstatesCounter + tstatesPerSector);
+              this.commitDiskIoEvent(false, this.sector);
               if (multiSectors) {
                 if (!this.sector.isLastOnTrack()) {
-                  this.logger.log(LOG_LEVEL,
-                      "RD.SECTOR completed, start next sector in multi-sec");
+                  this.ringLogger.log(this.logReadSectorNext);
                   this.registers[REG_SECTOR] = (this.registers[REG_SECTOR] + 1) & 0xFF;
                   loadSector(this.registers[REG_TRACK], this.registers[REG_SECTOR]);
                   this.counter = 0;
@@ -748,7 +782,7 @@ public final class K1818VG93 {
                   resetInternalFlag(STATUS_INDEXMARK_DRQ);
                 }
               } else {
-                this.logger.log(LOG_LEVEL, "RD.SECTOR completed");
+                this.ringLogger.log(this.logReadSectorCompleted);
               }
             } else {
               final int data = this.sector.readByte(this.counter++);
@@ -817,6 +851,7 @@ public final class K1818VG93 {
         if (!this.flagWaitDataWr) {
           this.flagWaitDataWr = true;
           if (this.counter >= this.sector.size()) {
+            this.commitDiskIoEvent(true, this.sector);
             this.registers[REG_SECTOR] = (this.registers[REG_SECTOR] + 1) & 0xFF;
             this.operationTimeOutCycles = Math.abs(tstatesCounter + tstatesPerSectorBe);
             if (multiOp) {
@@ -933,6 +968,74 @@ public final class K1818VG93 {
     return (System.currentTimeMillis() - this.lastBusyOnTime) < DELAY_FDD_MOTOR_ON_MS;
   }
 
+  /**
+   * Make copy of controller state for fast rollback. Sector data already written on disk is not
+   * part of the state and can't be rolled back.
+   *
+   * @param container object returned by previous call to be refilled, can be null
+   * @return object contains the state, must not be null
+   */
+  Object saveState(final Object container) {
+    final ControllerState state =
+        container == null ? new ControllerState() : (ControllerState) container;
+    System.arraycopy(this.registers, 0, state.registers, 0, this.registers.length);
+    state.sector = this.sector;
+    state.counter = this.counter;
+    state.extraCounter = this.extraCounter;
+    state.flagWaitDataRd = this.flagWaitDataRd;
+    state.flagWaitDataWr = this.flagWaitDataWr;
+    state.resetIn = this.resetIn;
+    state.firstCommandStep = this.firstCommandStep;
+    state.outwardStepDirection = this.outwardStepDirection;
+    state.trackIndexMarkerActive = this.trackIndexMarkerActive;
+    state.mfmModulation = this.mfmModulation;
+    state.sectorPositioningCycles = this.sectorPositioningCycles;
+    state.operationTimeOutCycles = this.operationTimeOutCycles;
+    state.lastBusyOnTime = this.lastBusyOnTime;
+    state.tempAuxiliaryObject = this.tempAuxiliaryObject;
+    state.timeIndexMarkChange = this.timeIndexMarkChange;
+    return state;
+  }
+
+  void restoreState(final Object state) {
+    final ControllerState controllerState = (ControllerState) state;
+    System.arraycopy(controllerState.registers, 0, this.registers, 0, this.registers.length);
+    this.sector = controllerState.sector;
+    this.counter = controllerState.counter;
+    this.extraCounter = controllerState.extraCounter;
+    this.flagWaitDataRd = controllerState.flagWaitDataRd;
+    this.flagWaitDataWr = controllerState.flagWaitDataWr;
+    this.resetIn = controllerState.resetIn;
+    this.firstCommandStep = controllerState.firstCommandStep;
+    this.outwardStepDirection = controllerState.outwardStepDirection;
+    this.trackIndexMarkerActive = controllerState.trackIndexMarkerActive;
+    this.mfmModulation = controllerState.mfmModulation;
+    this.sectorPositioningCycles = controllerState.sectorPositioningCycles;
+    this.operationTimeOutCycles = controllerState.operationTimeOutCycles;
+    this.lastBusyOnTime = controllerState.lastBusyOnTime;
+    this.tempAuxiliaryObject = controllerState.tempAuxiliaryObject;
+    this.timeIndexMarkChange = controllerState.timeIndexMarkChange;
+  }
+
+  private static final class ControllerState {
+    private final int[] registers = new int[6];
+    private TrDosDisk.Sector sector;
+    private int counter;
+    private int extraCounter;
+    private boolean flagWaitDataRd;
+    private boolean flagWaitDataWr;
+    private boolean resetIn;
+    private boolean firstCommandStep;
+    private boolean outwardStepDirection;
+    private boolean trackIndexMarkerActive;
+    private boolean mfmModulation;
+    private long sectorPositioningCycles;
+    private long operationTimeOutCycles;
+    private long lastBusyOnTime;
+    private Object tempAuxiliaryObject;
+    private long timeIndexMarkChange;
+  }
+
   private static abstract class TrackHelper {
 
     final boolean mfm;
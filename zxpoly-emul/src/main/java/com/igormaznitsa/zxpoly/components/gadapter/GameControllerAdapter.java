@@ -7,9 +7,9 @@ import de.gurkenlabs.input4j.components.Axis;
 import de.gurkenlabs.input4j.components.XInput;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public abstract class GameControllerAdapter implements Runnable {
+public abstract class GameControllerAdapter {
 
   private static final float STICK_THRESHOLD = 0.4f;
   private static final float DPAD_THRESHOLD = 0.5f;
@@ -17,7 +17,9 @@ public abstract class GameControllerAdapter implements Runnable {
   protected final KeyboardKempstonAndTapeIn parent;
   private final InputDevice inputDevice;
   private final GameControllerAdapterType destination;
-  private final AtomicReference<Thread> controllerThread = new AtomicReference<>();
+  private final AtomicBoolean started = new AtomicBoolean();
+  // accessed only by polling thread of GameControllerService
+  private GameControllerState state = GameControllerState.IDLE;
 
   GameControllerAdapter(final KeyboardKempstonAndTapeIn keyboardModule,
                         final InputDevice inputDevice,
@@ -64,128 +66,132 @@ public abstract class GameControllerAdapter implements Runnable {
   protected abstract void doFire(boolean pressed);
 
   public final void dispose() {
-    final Thread thread = this.controllerThread.getAndSet(null);
-    if (thread != null) {
-      thread.interrupt();
-      try {
-        thread.join();
-      } catch (final InterruptedException ex) {
-        Thread.currentThread().interrupt();
-      }
+    if (this.started.compareAndSet(true, false)) {
+      GameControllerService.getInstance().unregister(this);
+      this.parent.notifyUnregisterGadapter(this);
     }
   }
 
   public final void start() {
-    final Thread thread =
-        Thread.ofVirtual()
-            .name("zxp-gamepad-" + Integer.toHexString(System.identityHashCode(this.inputDevice)))
-            .unstarted(this);
-    if (!this.controllerThread.compareAndSet(null, thread)) {
+    if (!this.started.compareAndSet(false, true)) {
       throw new Error("Detected attempt to restart already started controller!");
     }
-    thread.start();
+    GameControllerService.getInstance().register(this);
   }
 
   /**
    * Linux evdev device ids are paths such as {@code /dev/input/eventN}. input4j's Linux plugin does not yet refresh
-   * on hot-unplug, so polling keeps hitting a dead fd and logs SEVERE on every {@code read} until this thread stops.
+   * on hot-unplug, so polling keeps hitting a dead fd and logs SEVERE on every {@code read} until the adapter is disposed.
    */
   private static boolean isLinuxEvdevDevicePath(final String deviceId) {
     return deviceId != null && deviceId.startsWith("/dev/input/event");
   }
 
   private void clearEmulatedOutputs() {
+    this.state = GameControllerState.IDLE;
     this.doCenterX();
     this.doCenterY();
     this.doFire(false);
   }
 
-  private void applyStickXY(float x, float y) {
-    if (x < -STICK_THRESHOLD) {
-      this.doLeft();
-    } else if (x > STICK_THRESHOLD) {
-      this.doRight();
-    } else {
-      this.doCenterX();
-    }
-    if (y < -STICK_THRESHOLD) {
-      this.doUp();
-    } else if (y > STICK_THRESHOLD) {
-      this.doDown();
+  private static int toDirection(final float value) {
+    if (value < -STICK_THRESHOLD) {
+      return -1;
+    } else if (value > STICK_THRESHOLD) {
+      return 1;
     } else {
-      this.doCenterY();
+      return 0;
     }
   }
 
-  private void applyDpad(final InputDevice device) {
-    final boolean up =
-        device.getComponent(XInput.DPAD_UP).map(c -> c.getData() > DPAD_THRESHOLD).orElse(false);
-    final boolean down =
-        device.getComponent(XInput.DPAD_DOWN).map(c -> c.getData() > DPAD_THRESHOLD).orElse(false);
-    final boolean left =
-        device.getComponent(XInput.DPAD_LEFT).map(c -> c.getData() > DPAD_THRESHOLD).orElse(false);
-    final boolean right =
-        device.getComponent(XInput.DPAD_RIGHT).map(c -> c.getData() > DPAD_THRESHOLD).orElse(false);
-    if (left) {
-      this.doLeft();
-    } else if (right) {
-      this.doRight();
+  private static GameControllerState readState(final InputDevice device) {
+    final float x = readPrimaryX(device);
+    final float y = readPrimaryY(device);
+    final int directionX;
+    final int directionY;
+    if (Math.abs(x) < STICK_THRESHOLD && Math.abs(y) < STICK_THRESHOLD) {
+      final boolean up =
+          device.getComponent(XInput.DPAD_UP).map(c -> c.getData() > DPAD_THRESHOLD).orElse(false);
+      final boolean down =
+          device.getComponent(XInput.DPAD_DOWN).map(c -> c.getData() > DPAD_THRESHOLD).orElse(false);
+      final boolean left =
+          device.getComponent(XInput.DPAD_LEFT).map(c -> c.getData() > DPAD_THRESHOLD).orElse(false);
+      final boolean right =
+          device.getComponent(XInput.DPAD_RIGHT).map(c -> c.getData() > DPAD_THRESHOLD).orElse(false);
+      directionX = left ? -1 : right ? 1 : 0;
+      directionY = up ? -1 : down ? 1 : 0;
     } else {
-      this.doCenterX();
+      directionX = toDirection(x);
+      directionY = toDirection(y);
     }
-    if (up) {
-      this.doUp();
-    } else if (down) {
-      this.doDown();
-    } else {
-      this.doCenterY();
+    float buttonAccum = 0.0f;
+    for (final InputComponent c : device.getComponents()) {
+      if (c.isButton()) {
+        buttonAccum += Math.abs(c.getData());
+      }
     }
+    return new GameControllerState(directionX, directionY, buttonAccum != 0.0f);
   }
 
-  @Override
-  public final void run() {
-    try {
-      while (!Thread.currentThread().isInterrupted() && this.controllerThread.get() != null) {
-        if (isLinuxEvdevDevicePath(this.inputDevice.getID())
-            && !Files.exists(Path.of(this.inputDevice.getID()))) {
-          this.clearEmulatedOutputs();
+  private void applyState(final GameControllerState newState) {
+    final GameControllerState oldState = this.state;
+    if (newState.equals(oldState)) {
+      return;
+    }
+    if (newState.getX() != oldState.getX()) {
+      switch (newState.getX()) {
+        case -1:
+          this.doLeft();
+          break;
+        case 1:
+          this.doRight();
           break;
-        }
-        try {
-          this.inputDevice.poll();
-        } catch (final RuntimeException ex) {
-          this.clearEmulatedOutputs();
+        default:
+          this.doCenterX();
           break;
-        }
-        final float x = readPrimaryX(this.inputDevice);
-        final float y = readPrimaryY(this.inputDevice);
-        if (Math.abs(x) < STICK_THRESHOLD && Math.abs(y) < STICK_THRESHOLD) {
-          this.applyDpad(this.inputDevice);
-        } else {
-          this.applyStickXY(x, y);
-        }
-        float buttonAccum = 0.0f;
-        boolean buttonDetected = false;
-        for (final InputComponent c : this.inputDevice.getComponents()) {
-          if (c.isButton()) {
-            buttonAccum += Math.abs(c.getData());
-            buttonDetected = true;
-          }
-        }
-        if (buttonDetected) {
-          this.doFire(buttonAccum != 0.0f);
-        } else {
-          this.doFire(false);
-        }
-        try {
-          Thread.sleep(10);
-        } catch (final InterruptedException ex) {
-          Thread.currentThread().interrupt();
-        }
       }
-    } finally {
-      this.parent.notifyUnregisterGadapter(this);
     }
+    if (newState.getY() != oldState.getY()) {
+      switch (newState.getY()) {
+        case -1:
+          this.doUp();
+          break;
+        case 1:
+          this.doDown();
+          break;
+        default:
+          this.doCenterY();
+          break;
+      }
+    }
+    if (newState.isFire() != oldState.isFire()) {
+      this.doFire(newState.isFire());
+    }
+    this.state = newState;
+  }
+
+  /**
+   * Poll device and apply its changed state to emulated device, called by polling service.
+   *
+   * @return false if device is not available anymore and adapter should be disposed
+   */
+  final boolean poll() {
+    if (!this.started.get()) {
+      return true;
+    }
+    if (isLinuxEvdevDevicePath(this.inputDevice.getID())
+        && !Files.exists(Path.of(this.inputDevice.getID()))) {
+      this.clearEmulatedOutputs();
+      return false;
+    }
+    try {
+      this.inputDevice.poll();
+    } catch (final RuntimeException ex) {
+      this.clearEmulatedOutputs();
+      return false;
+    }
+    this.applyState(readState(this.inputDevice));
+    return true;
   }
 
   @Override
@@ -0,0 +1,86 @@
+package com.igormaznitsa.zxpoly.components.gadapter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shared service polling all active game controller adapters in single thread.
+ * Polling is triggered by start of emulated frame but not more often than wall clock frame
+ * rate, so flat out emulation in turbo mode doesn't increase polling rate. If emulation doesn't
+ * run then devices are polled by timeout.
+ */
+public final class GameControllerService {
+
+  private static final Logger LOGGER = Logger.getLogger(GameControllerService.class.getName());
+  private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(40);
+  private static final long MIN_FRAME_WAKE_NANOS = TimeUnit.MILLISECONDS.toNanos(15);
+  private static final GameControllerService INSTANCE = new GameControllerService();
+
+  private final List<GameControllerAdapter> adapters = new CopyOnWriteArrayList<>();
+  private volatile Thread pollingThread;
+  private long lastFrameWake;
+
+  private GameControllerService() {
+  }
+
+  public static GameControllerService getInstance() {
+    return INSTANCE;
+  }
+
+  synchronized void register(final GameControllerAdapter adapter) {
+    this.adapters.add(adapter);
+    if (this.pollingThread == null) {
+      this.pollingThread = Thread.ofPlatform()
+          .name("zxp-gamepad-poller")
+          .daemon(true)
+          .start(this::doPolling);
+    }
+    LockSupport.unpark(this.pollingThread);
+  }
+
+  void unregister(final GameControllerAdapter adapter) {
+    this.adapters.remove(adapter);
+  }
+
+  /**
+   * Notify about start of emulated frame, wakes polling thread if there are active adapters and
+   * the previous wake was at least wall clock frame ago. Must be called only from emulation
+   * thread.
+   */
+  public void onFrame() {
+    if (!this.adapters.isEmpty()) {
+      final long now = System.nanoTime();
+      final Thread thread = this.pollingThread;
+      if (thread != null && now - this.lastFrameWake >= MIN_FRAME_WAKE_NANOS) {
+        this.lastFrameWake = now;
+        LockSupport.unpark(thread);
+      }
+    }
+  }
+
+  private void doPolling() {
+    LOGGER.info("Game controller polling started");
+    while (true) {
+      for (final GameControllerAdapter adapter : this.adapters) {
+        try {
+          if (!adapter.poll()) {
+            LOGGER.info("Game controller is not available anymore: " + adapter);
+            adapter.dispose();
+          }
+        } catch (final RuntimeException ex) {
+          LOGGER.log(Level.SEVERE, "Error during game controller poll: " + adapter, ex);
+          adapter.dispose();
+        }
+      }
+      if (this.adapters.isEmpty()) {
+        LockSupport.park(this);
+      } else {
+        LockSupport.parkNanos(this, IDLE_POLL_NANOS);
+      }
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.igormaznitsa.zxpoly.components.gadapter;
+
+/**
+ * Immutable snapshot of game controller state made by single poll.
+ */
+public final class GameControllerState {
+
+  public static final GameControllerState IDLE = new GameControllerState(0, 0, false);
+
+  private final int x;
+  private final int y;
+  private final boolean fire;
+
+  /**
+   * Constructor.
+   *
+   * @param x    horizontal direction, -1 left, 0 center, 1 right
+   * @param y    vertical direction, -1 up, 0 center, 1 down
+   * @param fire true if any button is pressed
+   */
+  public GameControllerState(final int x, final int y, final boolean fire) {
+    this.x = Integer.signum(x);
+    this.y = Integer.signum(y);
+    this.fire = fire;
+  }
+
+  public int getX() {
+    return this.x;
+  }
+
+  public int getY() {
+    return this.y;
+  }
+
+  public boolean isFire() {
+    return this.fire;
+  }
+
+  @Override
+  public boolean equals(final Object that) {
+    if (this == that) {
+      return true;
+    }
+    if (!(that instanceof GameControllerState)) {
+      return false;
+    }
+    final GameControllerState other = (GameControllerState) that;
+    return this.x == other.x && this.y == other.y && this.fire == other.fire;
+  }
+
+  @Override
+  public int hashCode() {
+    return ((this.x + 1) * 3 + this.y + 1) * 2 + (this.fire ? 1 : 0);
+  }
+
+  @Override
+  public String toString() {
+    return "GameControllerState(x=" + this.x + ", y=" + this.y + ", fire=" + this.fire + ')';
+  }
+}
@@ -72,6 +72,47 @@ public final class Ay8910Chip {
     this.signalConsumer = Objects.requireNonNull(signalConsumer);
   }
 
+  /**
+   * Make full copy of state of the source chip. NB! signal consumer will be copied!
+   *
+   * @param chip source chip which state should be copied, must not be null
+   */
+  public Ay8910Chip(final Ay8910Chip chip) {
+    this.signalConsumer = chip.signalConsumer;
+    this.fillByState(chip);
+  }
+
+  public Ay8910Chip fillByState(final Ay8910Chip chip) {
+    this.enfAttack = chip.enfAttack;
+    this.enfAlter = chip.enfAlter;
+    this.enfCont = chip.enfCont;
+    this.enfHold = chip.enfHold;
+    this.addressLatch = chip.addressLatch;
+    this.tonePeriodA = chip.tonePeriodA;
+    this.amplitudeA = chip.amplitudeA;
+    this.tonePeriodB = chip.tonePeriodB;
+    this.amplitudeB = chip.amplitudeB;
+    this.tonePeriodC = chip.tonePeriodC;
+    this.amplitudeC = chip.amplitudeC;
+    this.noisePeriod = chip.noisePeriod;
+    this.mixerControl = chip.mixerControl;
+    this.envelopePeriod = chip.envelopePeriod;
+    this.envelopeMode = chip.envelopeMode;
+    this.ioPortA = chip.ioPortA;
+    this.ioPortB = chip.ioPortB;
+    this.counterA = chip.counterA;
+    this.counterB = chip.counterB;
+    this.counterC = chip.counterC;
+    this.counterN = chip.counterN;
+    this.signalNcba = chip.signalNcba;
+    this.machineCycleCounter = chip.machineCycleCounter;
+    this.counterE = chip.counterE;
+    this.envIndexCounter = chip.envIndexCounter;
+    this.envelopeVolume = chip.envelopeVolume;
+    this.rngReg = chip.rngReg;
+    return this;
+  }
+
   public int readAddress() {
     return this.addressLatch;
   }
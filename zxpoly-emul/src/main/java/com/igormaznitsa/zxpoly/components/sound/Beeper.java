@@ -23,6 +23,7 @@ import static java.util.Objects.requireNonNull;
 
 import com.igormaznitsa.zxpoly.components.tapereader.WriterWav;
 import com.igormaznitsa.zxpoly.components.video.timings.TimingProfile;
+import com.igormaznitsa.zxpoly.metrics.EmulationEvents;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
@@ -84,6 +85,16 @@ public final class Beeper {
     public void start() {
 
     }
+
+    @Override
+    public int getBufferFillPercent() {
+      return -1;
+    }
+
+    @Override
+    public long getUnderrunCounter() {
+      return 0L;
+    }
   };
   private final boolean tryConsumeLessSystemResources;
   private final AtomicReference<IBeeper> activeInternalBeeper = new AtomicReference<>(NULL_BEEPER);
@@ -94,6 +105,7 @@ public final class Beeper {
   private final TimingProfile timingProfile;
   private final AtomicReference<IWavWriter> activeWavWriter = new AtomicReference<>(NULL_WAV);
   private final AtomicReference<IWavWriter> suspendedWavWriter = new AtomicReference<>();
+  private volatile boolean muted;
 
   public Beeper(
       final TimingProfile timingProfile,
@@ -142,6 +154,27 @@ public final class Beeper {
     this.channels[channel] = level256 & 0xFF;
   }
 
+  public void fillChannelValues(final int[] target) {
+    System.arraycopy(this.channels, 0, target, 0, this.channels.length);
+  }
+
+  public int getChannelNumber() {
+    return this.channels.length;
+  }
+
+  public void setChannelValues(final int[] values) {
+    System.arraycopy(values, 0, this.channels, 0, this.channels.length);
+  }
+
+  /**
+   * Muted beeper doesn't mix channels and doesn't send any data into sound line and WAV writer.
+   *
+   * @param value true to mute, false to unmute
+   */
+  public void setMuted(final boolean value) {
+    this.muted = value;
+  }
+
   public boolean hasActiveWavFile() {
     return this.activeWavWriter.get() != NULL_WAV;
   }
@@ -210,12 +243,28 @@ public final class Beeper {
     return prevBeeper.getSoundPort();
   }
 
+  /**
+   * Get fill level of sound line buffer.
+   *
+   * @return fill level in percents, -1 if unknown
+   */
+  public int getSoundBufferFillPercent() {
+    return this.activeInternalBeeper.get().getBufferFillPercent();
+  }
+
+  public long getSoundUnderrunCounter() {
+    return this.activeInternalBeeper.get().getUnderrunCounter();
+  }
+
   public boolean isNullBeeper() {
     return this.activeInternalBeeper.get() == NULL_BEEPER;
   }
 
   public void updateState(final boolean tiStatesInt, final boolean wallClockInt,
                           final int spentTiStates) {
+    if (this.muted) {
+      return;
+    }
     final int leftChannel =
         this.mixerLeft.mix(this.channels, this.soundChannelLowPassFilters, spentTiStates);
     final int rightChannel =
@@ -287,6 +336,10 @@ public final class Beeper {
     void dispose();
 
     void reset();
+
+    int getBufferFillPercent();
+
+    long getUnderrunCounter();
   }
 
   private static final class WavWriterImpl implements IWavWriter {
@@ -379,6 +432,8 @@ public final class Beeper {
     private final SndBufferContainer sndBuffer;
     private final Optional<SourceSoundPort> optionalSourceSoundPort;
     private volatile boolean working = true;
+    private volatile int bufferFillPercent = -1;
+    private volatile long underrunCounter;
 
     private InternalBeeper(
         final TimingProfile timingProfile,
@@ -435,7 +490,30 @@ public final class Beeper {
     }
 
     private void writeToLine(final byte[] data) {
-      this.sourceDataLine.write(data, 0, Math.min(this.sourceDataLine.available(), data.length));
+      final int bufferSize = this.sourceDataLine.getBufferSize();
+      final int available = this.sourceDataLine.available();
+      if (bufferSize > 0) {
+        if (available >= bufferSize) {
+          this.underrunCounter = this.underrunCounter + 1;
+          final EmulationEvents.SoundUnderrunEvent event = new EmulationEvents.SoundUnderrunEvent();
+          if (event.isEnabled()) {
+            event.bufferSize = bufferSize;
+            event.commit();
+          }
+        }
+        this.bufferFillPercent = (bufferSize - available) * 100 / bufferSize;
+      }
+      this.sourceDataLine.write(data, 0, Math.min(available, data.length));
+    }
+
+    @Override
+    public int getBufferFillPercent() {
+      return this.bufferFillPercent;
+    }
+
+    @Override
+    public long getUnderrunCounter() {
+      return this.underrunCounter;
     }
 
     @Override
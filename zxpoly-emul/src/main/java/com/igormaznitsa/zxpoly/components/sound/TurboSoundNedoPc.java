@@ -121,4 +121,30 @@ public final class TurboSoundNedoPc implements IoDevice, AyBasedSoundDevice {
   public int getNotificationFlags() {
     return NOTIFICATION_POSTSTEP | NOTIFICATION_PRESTEP;
   }
+
+  @Override
+  public Object saveState(final Object container) {
+    final Ay8910Chip[] chips;
+    if (container == null) {
+      chips = new Ay8910Chip[] {
+          new Ay8910Chip(this.chipAy0),
+          new Ay8910Chip(this.chipAy1),
+          null
+      };
+    } else {
+      chips = (Ay8910Chip[]) container;
+      chips[0].fillByState(this.chipAy0);
+      chips[1].fillByState(this.chipAy1);
+    }
+    chips[2] = this.selectedChip == this.chipAy0 ? this.chipAy0 : this.chipAy1;
+    return chips;
+  }
+
+  @Override
+  public void restoreState(final Object state) {
+    final Ay8910Chip[] chips = (Ay8910Chip[]) state;
+    this.chipAy0.fillByState(chips[0]);
+    this.chipAy1.fillByState(chips[1]);
+    this.selectedChip = chips[2];
+  }
 }
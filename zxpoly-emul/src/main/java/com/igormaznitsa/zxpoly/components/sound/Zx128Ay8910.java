@@ -96,4 +96,15 @@ public final class Zx128Ay8910 implements IoDevice, AyBasedSoundDevice {
   public int getNotificationFlags() {
     return NOTIFICATION_POSTSTEP | NOTIFICATION_PRESTEP;
   }
+
+  @Override
+  public Object saveState(final Object container) {
+    return container == null ? new Ay8910Chip(this.ay8910)
+        : ((Ay8910Chip) container).fillByState(this.ay8910);
+  }
+
+  @Override
+  public void restoreState(final Object state) {
+    this.ay8910.fillByState((Ay8910Chip) state);
+  }
 }
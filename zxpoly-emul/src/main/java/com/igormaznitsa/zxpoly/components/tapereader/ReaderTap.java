@@ -23,6 +23,7 @@ import static java.lang.Integer.toHexString;
 import com.igormaznitsa.jbbp.io.JBBPBitInputStream;
 import com.igormaznitsa.jbbp.io.JBBPByteOrder;
 import com.igormaznitsa.jbbp.io.JBBPOut;
+import com.igormaznitsa.zxpoly.metrics.EmulationEvents;
 import com.igormaznitsa.zxpoly.utils.SpectrumUtils;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -230,7 +231,13 @@ final class ReaderTap implements ListModel<ReaderTap.TapBlock>, TapeSource<Reade
         return false;
       } else {
         this.current = this.current.next;
-        LOGGER.log(Level.INFO, "Pointer to " + makeDescription(this.current));
+        final String description = makeDescription(this.current);
+        LOGGER.log(Level.INFO, "Pointer to " + description);
+        final EmulationEvents.TapeBlockEvent event = new EmulationEvents.TapeBlockEvent();
+        if (event.isEnabled()) {
+          event.block = description;
+          event.commit();
+        }
         return true;
       }
     }
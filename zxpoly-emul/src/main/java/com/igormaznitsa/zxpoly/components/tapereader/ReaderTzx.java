@@ -5,6 +5,7 @@ import com.igormaznitsa.zxpoly.components.tapereader.tzx.TzxWavRenderer;
 import com.igormaznitsa.zxpoly.components.tapereader.wave.ByteArraySeekableContainer;
 import com.igormaznitsa.zxpoly.components.tapereader.wave.InMemoryWavFile;
 import com.igormaznitsa.zxpoly.components.video.timings.TimingProfile;
+import com.igormaznitsa.zxpoly.utils.RingLogger;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
@@ -25,6 +26,10 @@ public class ReaderTzx implements TapeSource<TzxWavRenderer.RenderResult.NamedOf
     ListModel<TzxWavRenderer.RenderResult.NamedOffsets> {
 
   private static final Logger LOGGER = Logger.getLogger(ReaderTzx.class.getName());
+  private static final RingLogger.Event LOG_SIGNAL_STOP_TAPE =
+      RingLogger.event(LOGGER, Level.INFO, "Sending signal 'stop tape'");
+  private static final RingLogger.Event LOG_SIGNAL_STOP_TAPE_IF_ZX48 =
+      RingLogger.event(LOGGER, Level.INFO, "Sending signal 'stop tape if zx48'");
 
   private final List<ActionListener> actionListeners = new CopyOnWriteArrayList<>();
   private final AtomicLong tStateCounter = new AtomicLong(0L);
@@ -130,11 +135,11 @@ public class ReaderTzx implements TapeSource<TzxWavRenderer.RenderResult.NamedOf
           boolean rewindUntilControlChange = false;
 
           if (controlCode == SIGNAL_STOP_TAPE.ordinal()) {
-            LOGGER.info("Sending signal 'stop tape'");
+            RingLogger.getInstance().log(LOG_SIGNAL_STOP_TAPE);
             this.tapeContext.onTapeSignal(this, TapeContext.ControlSignal.STOP_TAPE);
             rewindUntilControlChange = true;
           } else if (controlCode == SIGNAL_STOP_TAPE_IF_ZX48.ordinal()) {
-            LOGGER.info("Sending signal 'stop tape if zx48'");
+            RingLogger.getInstance().log(LOG_SIGNAL_STOP_TAPE_IF_ZX48);
             this.tapeContext.onTapeSignal(this, TapeContext.ControlSignal.STOP_TAPE_IF_ZX48);
             rewindUntilControlChange = true;
           }
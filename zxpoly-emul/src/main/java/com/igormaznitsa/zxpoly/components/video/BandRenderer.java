@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.components.video;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Splits rendering of screen lines into horizontal bands processed by small fixed pool of
+ * threads, the calling thread renders the first band itself and waits for the rest.
+ * Bands never overlap so result doesn't depend on order of processing. Number of bands is
+ * defined by system property {@value #PROPERTY_BANDS}, by default it depends on number of
+ * available processors, value 1 turns off parallel rendering.
+ */
+final class BandRenderer {
+
+  static final String PROPERTY_BANDS = "zxpoly.render.bands";
+  private static final Logger LOGGER = Logger.getLogger(BandRenderer.class.getName());
+  private static final int MAX_DEFAULT_BANDS = 4;
+  private static final int MIN_BAND_LINES = 8;
+  private static final BandRenderer INSTANCE = new BandRenderer(findBandNumber());
+
+  private final int bands;
+  private final ExecutorService executor;
+
+  BandRenderer(final int bands) {
+    this.bands = Math.max(1, bands);
+    this.executor = this.bands < 2 ? null : Executors.newFixedThreadPool(this.bands - 1,
+        Thread.ofPlatform().name("zxp-render-band-", 1).daemon(true).factory());
+  }
+
+  static BandRenderer getInstance() {
+    return INSTANCE;
+  }
+
+  private static int findBandNumber() {
+    final int defaultBands =
+        Math.min(MAX_DEFAULT_BANDS, Runtime.getRuntime().availableProcessors() / 2);
+    final String bands = System.getProperty(PROPERTY_BANDS, "").trim();
+    int result = defaultBands;
+    try {
+      result = bands.isEmpty() ? defaultBands : Integer.parseInt(bands);
+    } catch (NumberFormatException ex) {
+      LOGGER.warning("Can't parse render bands: " + bands);
+    }
+    result = Math.max(1, result);
+    LOGGER.info("Render bands: " + result);
+    return result;
+  }
+
+  int getBands() {
+    return this.bands;
+  }
+
+  /**
+   * Render lines, the range is split into bands if it is big enough.
+   *
+   * @param lineFrom the first line, inclusive
+   * @param lineTo   the last line, exclusive
+   * @param task     renderer of a band, called concurrently for different bands
+   */
+  void render(final int lineFrom, final int lineTo, final BandTask task) {
+    final int lines = lineTo - lineFrom;
+    final int bandNumber = Math.min(this.bands, lines / MIN_BAND_LINES);
+    if (bandNumber < 2) {
+      task.render(lineFrom, lineTo);
+      return;
+    }
+
+    final int bandLines = (lines + bandNumber - 1) / bandNumber;
+    final Future<?>[] futures = new Future<?>[bandNumber - 1];
+    int from = lineFrom + bandLines;
+    for (int i = 0; i < futures.length; i++) {
+      final int bandFrom = from;
+      final int bandTo = Math.min(lineTo, from + bandLines);
+      futures[i] = this.executor.submit(() -> task.render(bandFrom, bandTo));
+      from = bandTo;
+    }
+
+    Throwable error = null;
+    try {
+      task.render(lineFrom, lineFrom + bandLines);
+    } catch (RuntimeException | Error ex) {
+      error = ex;
+    }
+
+    // all bands must be completed before return because they write into shared buffer
+    boolean interrupted = false;
+    for (final Future<?> future : futures) {
+      while (true) {
+        try {
+          future.get();
+          break;
+        } catch (InterruptedException ex) {
+          interrupted = true;
+        } catch (ExecutionException ex) {
+          if (error == null) {
+            error = ex.getCause();
+          }
+          break;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (error != null) {
+      throw new IllegalStateException("Error during band rendering", error);
+    }
+  }
+
+  @FunctionalInterface
+  interface BandTask {
+    void render(int lineFrom, int lineTo);
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.components.video;
+
+import java.util.Arrays;
+
+/**
+ * Tracker of changed cells of ZX-Spectrum screen, fed by writes into screen RAM pages.
+ * Every screen line keeps 32 bit mask of changed columns, pixel write marks single byte of
+ * a line and attribute write marks whole 8x8 cell. Masks are kept separately for even and
+ * odd output rows because interlaced rendering refreshes them in different passes.
+ * Not thread safe, all methods must be called from emulation thread except
+ * {@link #takeLine(int, VideoController.LineRenderMode)} which is also called by band workers of
+ * {@link BandRenderer} while the emulation thread waits for them. It is safe because every band
+ * touches only elements of its own disjoint line range, band tasks are published to workers by
+ * executor submit and their writes are visible to emulation thread after completion of the
+ * futures, so marks and takes never overlap.
+ */
+public final class ScreenDirtyCells {
+
+  public static final int SCREEN_LINES = 192;
+  public static final int ALL_COLUMNS = 0xFFFFFFFF;
+
+  private static final int SCREEN_PAGE_MASK = 0x14000;
+  private static final int ATTRIBUTES_OFFSET = 0x1800;
+  private static final int ATTRIBUTES_END = 0x1B00;
+
+  private final int[] evenRows = new int[SCREEN_LINES];
+  private final int[] oddRows = new int[SCREEN_LINES];
+
+  public ScreenDirtyCells() {
+    this.markAll();
+  }
+
+  /**
+   * Notify about write into RAM heap, only writes into screen areas of RAM pages 5 and 7 are
+   * taken into account.
+   *
+   * @param heapAddress address in the RAM heap
+   */
+  public void markHeapWrite(final int heapAddress) {
+    if ((heapAddress & SCREEN_PAGE_MASK) == SCREEN_PAGE_MASK) {
+      final int offset = heapAddress & 0x3FFF;
+      if (offset < ATTRIBUTES_OFFSET) {
+        final int bit = 1 << (offset & 0x1F);
+        final int line = VideoController.extractYFromAddress(offset);
+        this.evenRows[line] |= bit;
+        this.oddRows[line] |= bit;
+      } else if (offset < ATTRIBUTES_END) {
+        final int cell = offset - ATTRIBUTES_OFFSET;
+        this.markCell(cell >>> 5, cell & 0x1F);
+      }
+    }
+  }
+
+  /**
+   * Mark 8x8 cell as changed.
+   *
+   * @param row    row of the cell, 0..23
+   * @param column column of the cell, 0..31
+   */
+  public void markCell(final int row, final int column) {
+    final int bit = 1 << column;
+    final int lineFrom = row << 3;
+    for (int i = 0; i < 8; i++) {
+      this.evenRows[lineFrom + i] |= bit;
+      this.oddRows[lineFrom + i] |= bit;
+    }
+  }
+
+  public void markAll() {
+    Arrays.fill(this.evenRows, ALL_COLUMNS);
+    Arrays.fill(this.oddRows, ALL_COLUMNS);
+  }
+
+  /**
+   * Check that screen line contains changed columns for rows to be rendered, state is not
+   * changed.
+   *
+   * @param line        screen line, 0..191
+   * @param renderLines rows which will be rendered
+   * @return true if line contains changed columns
+   */
+  public boolean isLineDirty(final int line, final VideoController.LineRenderMode renderLines) {
+    switch (renderLines) {
+      case EVEN:
+        return this.evenRows[line] != 0;
+      case ODD:
+        return this.oddRows[line] != 0;
+      default:
+        return (this.evenRows[line] | this.oddRows[line]) != 0;
+    }
+  }
+
+  /**
+   * Get mask of changed columns for screen line and reset it for rendered rows.
+   * Can be called from band worker thread, see class description.
+   *
+   * @param line        screen line, 0..191
+   * @param renderLines rows which will be rendered
+   * @return mask of columns to be rendered, bit N for column N
+   */
+  public int takeLine(final int line, final VideoController.LineRenderMode renderLines) {
+    final int result;
+    switch (renderLines) {
+      case EVEN: {
+        result = this.evenRows[line];
+        this.evenRows[line] = 0;
+      }
+      break;
+      case ODD: {
+        result = this.oddRows[line];
+        this.oddRows[line] = 0;
+      }
+      break;
+      default: {
+        result = this.evenRows[line] | this.oddRows[line];
+        this.evenRows[line] = 0;
+        this.oddRows[line] = 0;
+      }
+      break;
+    }
+    return result;
+  }
+}
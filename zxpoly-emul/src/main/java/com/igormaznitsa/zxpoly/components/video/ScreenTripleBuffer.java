@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.components.video;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Three images exchanged between single producer and painter without locks.
+ * Producer owns back image and painter owns front image, the third one is kept in atomic
+ * exchange cell together with flag that it contains a frame not seen by painter yet.
+ * Producer publishes back image by swapping it with the exchange cell, painter takes
+ * the newest frame by swapping its front image with the cell only if the flag is set.
+ * Images are split into lines and every image keeps version of source content for every line,
+ * so producer copies into back image only lines changed since the image was filled last time.
+ */
+final class ScreenTripleBuffer {
+
+  private static final int INDEX_MASK = 0x03;
+  private static final int FLAG_FRESH = 0x04;
+
+  private final BufferedImage[] images = new BufferedImage[3];
+  private final int[][] imageData = new int[3][];
+  private final long[][] lineVersions = new long[3][];
+  private final int lineLength;
+  private final AtomicInteger exchange = new AtomicInteger(1);
+  private int backIndex = 0;
+  private int frontIndex = 2;
+
+  /**
+   * Create buffer.
+   *
+   * @param width  width of images in pixels
+   * @param height height of images in pixels
+   * @param lines  number of lines of source content, height must be divisible by it
+   */
+  ScreenTripleBuffer(final int width, final int height, final int lines) {
+    this.lineLength = width * (height / lines);
+    for (int i = 0; i < this.images.length; i++) {
+      this.lineVersions[i] = new long[lines];
+      final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+      image.setAccelerationPriority(1.0f);
+      this.images[i] = image;
+      this.imageData[i] = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+  }
+
+  /**
+   * Get pixel data of back image, must be called only by producer.
+   *
+   * @return pixel data of the image to be filled by producer
+   */
+  int[] getBackData() {
+    return this.imageData[this.backIndex];
+  }
+
+  /**
+   * Copy lines of source into back image if version of line in back image differs from source
+   * one, must be called only by producer.
+   *
+   * @param source         source pixel data with the same layout as images
+   * @param sourceVersions version of every source line, changed on every change of line content
+   * @param lineFrom       the first line
+   * @param lineTo         line after the last one
+   * @return number of copied lines
+   */
+  int syncBack(final int[] source, final long[] sourceVersions, final int lineFrom,
+               final int lineTo) {
+    final int[] backData = this.imageData[this.backIndex];
+    final long[] backVersions = this.lineVersions[this.backIndex];
+    final int length = this.lineLength;
+    int copied = 0;
+    for (int line = lineFrom; line < lineTo; line++) {
+      final long version = sourceVersions[line];
+      if (backVersions[line] != version) {
+        System.arraycopy(source, line * length, backData, line * length, length);
+        backVersions[line] = version;
+        copied++;
+      }
+    }
+    return copied;
+  }
+
+  /**
+   * Publish back image as the newest frame and take free image as new back one, must be called
+   * only by producer.
+   */
+  void publish() {
+    this.backIndex = this.exchange.getAndSet(this.backIndex | FLAG_FRESH) & INDEX_MASK;
+  }
+
+  /**
+   * Get image to be painted, the newest published frame replaces current front image if
+   * presented. Must be called only by painter.
+   *
+   * @return front image, painter owns it till the next call
+   */
+  BufferedImage takeFront() {
+    if ((this.exchange.get() & FLAG_FRESH) != 0) {
+      this.frontIndex = this.exchange.getAndSet(this.frontIndex) & INDEX_MASK;
+    }
+    return this.images[this.frontIndex];
+  }
+}
@@ -24,6 +24,28 @@ public final class UlaPlusContainer {
     this.reset();
   }
 
+  /**
+   * Make full copy of state of the source container.
+   *
+   * @param container source container which state should be copied, must not be null
+   */
+  public UlaPlusContainer(final UlaPlusContainer container) {
+    this.enabled = container.enabled;
+    this.fillByState(container);
+  }
+
+  public UlaPlusContainer fillByState(final UlaPlusContainer container) {
+    System.arraycopy(container.palette, 0, this.palette, 0, this.palette.length);
+    System.arraycopy(container.paletteColor, 0, this.paletteColor, 0, this.paletteColor.length);
+    for (int i = 0; i < this.paletteRgb.length(); i++) {
+      this.paletteRgb.set(i, container.paletteRgb.get(i));
+    }
+    this.register = container.register;
+    this.mode = container.mode;
+    this.portFF = container.portFF;
+    return this;
+  }
+
   private static int extendColorTo8bits(final int triple) {
     return (triple << 5) | (triple << 2) | (triple >> 1);
   }
@@ -53,7 +53,10 @@ import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.awt.image.RenderedImage;
 import java.io.Serial;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.locks.Lock;
@@ -126,13 +129,23 @@ public final class VideoController extends JComponent
   private static volatile boolean gfxBackOverFF = false;
   private static volatile boolean gfxPaper00InkFF = false;
   private static volatile boolean gfxHideSameInkPaper = true;
+  private static volatile boolean gfxBackSuppressed = false;
   private static volatile int gfxUpColorsMixed = 64;
   private static volatile int gfxDownColorsMixed = 0;
   private static volatile int[] gfxPrerenderedBack = null;
+  private static final int GFX_INDEX_MIXED = 1;
+  private static final int GFX_INDEX_TRANSPARENT = 2;
+  private static final int[] GFX_MIX_INK = makeGfxMixTable(PALETTE_ALIGNED_ZXPOLY);
+  private static final int[] GFX_MIX_PAPER = makeGfxMixTable(PALETTE_ZXPOLY);
+  private static volatile byte[] gfxColorIndexFlags =
+      makeGfxColorIndexFlags(gfxDownColorsMixed, gfxUpColorsMixed, gfxBackOverFF);
   private final VirtualKeyboardDecoration vkbdContainer;
   private final Motherboard board;
   private final BufferedImage workZxScreenImage;
-  private final BufferedImage outputZxScreenImage;
+  private final ScreenTripleBuffer outputScreen =
+      new ScreenTripleBuffer(SCREEN_WIDTH, SCREEN_HEIGHT, ZXSCREEN_ROWS);
+  private final long[] workLineVersions = new long[ZXSCREEN_ROWS];
+  private long workVersion;
   private final int[] workZxScreenImageRgbData;
   private final ZxPolyModule[] modules;
   private final boolean showVkbdApart;
@@ -152,14 +165,21 @@ public final class VideoController extends JComponent
   private volatile boolean showVkb = false;
   private volatile TvFilterChain tvFilterChain = TvFilterChain.NONE;
   private volatile boolean enableMouseTrapIndicator = false;
+  private volatile boolean borderRendering = true;
+  private volatile boolean borderPerFrame;
+  private volatile boolean tvFiltersSuppressed;
   private Window vkbdWindow = null;
   private boolean fullScreenMode;
   private VirtualKeyboardRender vkbdRender;
   private int stepStartTiStates = 0;
   private int preStepBorderColor;
   private Rectangle lastVirtualKeyboardWindowPosition = null;
+  private int lastRenderedVideoMode = -1;
+  private int zx48LastScreenHeapOffset = -1;
+  private boolean zx48LastFlashActive;
 
   private final UlaPlusContainer ulaPlus;
+  private final BandRenderer bandRenderer = BandRenderer.getInstance();
 
   public VideoController(
       final BorderWidth borderWidth,
@@ -220,9 +240,6 @@ public final class VideoController extends JComponent
 
     this.workZxScreenImage =
         new BufferedImage(SCREEN_WIDTH, SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
-    this.outputZxScreenImage =
-        new BufferedImage(SCREEN_WIDTH, SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
-    this.outputZxScreenImage.setAccelerationPriority(1.0f);
     this.workZxScreenImage.setAccelerationPriority(1.0f);
     this.workZxScreenImageRgbData =
         ((DataBufferInt) this.workZxScreenImage.getRaster().getDataBuffer()).getData();
@@ -265,65 +282,66 @@ public final class VideoController extends JComponent
       final boolean flashActive,
       final int lineFrom,
       final int lineTo,
-      final UlaPlusContainer ulaPlus
+      final UlaPlusContainer ulaPlus,
+      final ScreenDirtyCells dirtyCells
   ) {
     final ZxPolyModule mainModule = modules[0];
-    final byte[] heap = mainModule.getMotherboard().getHeapRam();
-
-    final int videoRamHeapOffset;
-    if ((mainModule.read7FFD() & PORTw_ZX128_SCREEN) == 0) {
-      // RAM 5
-      videoRamHeapOffset = mainModule.getHeapOffset() + 0x14000;
-    } else {
-      // RAM 7
-      videoRamHeapOffset = mainModule.getHeapOffset() + 0x1C000;
-    }
+    final MemorySegment heap = mainModule.getMotherboard().getHeapRam();
+    final int videoRamHeapOffset = findZxScreenHeapOffset(mainModule);
 
     final boolean useUlaPlus = ulaPlus.isActive();
-
-    int offset = 0;
-    int attributeOffset = 0;
+    final int[] row = ZxPixelTables.scratchRows()[0];
 
     for (int yy = lineFrom; yy < lineTo; yy++) {
-      final int addressFrom = ZX_SCREEN_ROW_OFFSETS[yy];
-      final int addressTo = addressFrom + 32;
-      for (int i = addressFrom; i < addressTo; i++) {
-        if ((i & 0x1F) == 0) {
-          // the first byte in the line
-          final int y = extractYFromAddress(i);
-          offset = y << 10;
-          attributeOffset = calcAttributeAddressZxMode(i);
-        }
+      // only changed columns of the line are rendered
+      int columns = dirtyCells.takeLine(yy, renderLines);
+      if (columns == 0) {
+        continue;
+      }
+      final int pixelRowOffset = videoRamHeapOffset + ZX_SCREEN_ROW_OFFSETS[yy];
+      final int attributeRowOffset = videoRamHeapOffset + 0x1800 + ((yy >>> 3) << 5);
+      final int lineOffset = yy << 10;
 
-        int currentPixels = heap[videoRamHeapOffset + i] & 0xFF;
+      while (columns != 0) {
+        final int column = Integer.numberOfTrailingZeros(columns);
+        columns &= columns - 1;
 
-        final int attrOffset = attributeOffset++;
+        final int currentPixels = heap.get(ValueLayout.JAVA_BYTE, pixelRowOffset + column) & 0xFF;
 
         final int argbInkColor;
         final int argbPaperColor;
 
+        final int attribute = heap.get(ValueLayout.JAVA_BYTE, attributeRowOffset + column) & 0xFF;
         if (useUlaPlus) {
-          final int attribute = heap[videoRamHeapOffset + attrOffset] & 0xFF;
           argbInkColor = ulaPlus.findInkRgbForAttribute(attribute);
           argbPaperColor = ulaPlus.findPaperRgbForAttribute(attribute);
         } else {
-          int effectiveAttribute = heap[videoRamHeapOffset + attrOffset];
-          effectiveAttribute =
-              flashActive && ((effectiveAttribute & 0x80) != 0) ?
-                  (effectiveAttribute & 0b01_000_000)
-                      | ((effectiveAttribute >> 3) & 7)
-                      | ((effectiveAttribute & 7) << 3) : effectiveAttribute;
-          argbInkColor = extractInkPaletteColor(effectiveAttribute);
-          argbPaperColor = extractPaperPaletteColor(effectiveAttribute);
+          argbInkColor = ZxPixelTables.inkColor(attribute, flashActive);
+          argbPaperColor = ZxPixelTables.paperColor(attribute, flashActive);
         }
 
-        int x = 8;
+        ZxPixelTables.expandPixels(row, currentPixels, argbPaperColor, argbInkColor);
+        renderLines.writeRows(pixelRgbBuffer, lineOffset + (column << 4), row, row);
+      }
+    }
+  }
 
-        while (x-- > 0) {
-          final int color = (currentPixels & 0x80) == 0 ? argbPaperColor : argbInkColor;
-          currentPixels <<= 1;
-          offset = renderLines.apply(pixelRgbBuffer, offset, color);
-        }
+  private static int findZxScreenHeapOffset(final ZxPolyModule module) {
+    if ((module.read7FFD() & PORTw_ZX128_SCREEN) == 0) {
+      // RAM 5
+      return module.getHeapOffset() + 0x14000;
+    } else {
+      // RAM 7
+      return module.getHeapOffset() + 0x1C000;
+    }
+  }
+
+  private static void markFlashingCells(final MemorySegment heap, final int screenHeapOffset,
+                                        final ScreenDirtyCells dirtyCells) {
+    final int attributesOffset = screenHeapOffset + 0x1800;
+    for (int i = 0; i < 768; i++) {
+      if ((heap.get(ValueLayout.JAVA_BYTE, attributesOffset + i) & 0x80) != 0) {
+        dirtyCells.markCell(i >>> 5, i & 0x1F);
       }
     }
   }
@@ -403,13 +421,12 @@ public final class VideoController extends JComponent
       final int[] pixelRgbBuffer,
       final boolean flashActive,
       int lineFrom, int lineTo) {
-    final int[] preRenderedBack = gfxPrerenderedBack;
-    final boolean bkOverFF = gfxBackOverFF;
+    final int[] preRenderedBack = gfxBackSuppressed ? null : gfxPrerenderedBack;
     final boolean paper00inkFF = gfxPaper00InkFF;
     final boolean hideSameInkPaper = gfxHideSameInkPaper;
+    final byte[] colorIndexFlags = gfxColorIndexFlags;
 
-    final int downAttrMixedIndex = gfxDownColorsMixed;
-    final int upAttrMixedIndex = 0xFF - gfxUpColorsMixed;
+    final int[] row = ZxPixelTables.scratchRows()[0];
 
     final ZxPolyModule sourceModule = modules[0];
     int offset = 0;
@@ -428,87 +445,114 @@ public final class VideoController extends JComponent
         }
 
         final int attrOffset = aoffset++;
-        long pixelData = sourceModule.readGfxVideo(i);
-        int origData = sourceModule.readVideo(i);
+        final long pixelData = sourceModule.readGfxVideo(i);
+        final int origData = sourceModule.readVideo(i);
 
         final int attrData = sourceModule.readVideo(attrOffset);
-        final int inkColor = extractInkColorSpec256(attrData, flashActive);
-        final int paperColor = extractPaperColor(attrData, flashActive);
-
-        int x = 8;
-        while (x-- > 0) {
-          final int colorIndex = (int) ((pixelData >>> 56) & 0xFF);
-          final boolean origPixelSet = (origData & 0x80) != 0;
+        final int bright = (attrData & 0x40) == 0 ? 0 : 0x08;
+        final boolean flashSwap = (attrData & 0x80) != 0 && flashActive;
+        final int inkIndex = (flashSwap ? (attrData >> 3) & 0x07 : attrData & 0x07) | bright;
+        final int paperIndex = (flashSwap ? attrData & 0x07 : (attrData >> 3) & 0x07) | bright;
+        final int inkColor = PALETTE_ALIGNED_ZXPOLY[inkIndex];
+        final int paperColor = PALETTE_ZXPOLY[paperIndex];
+        final int inkMixBase = inkIndex << 8;
+        final int paperMixBase = paperIndex << 8;
+
+        final boolean sameInkPaper = hideSameInkPaper && inkColor == paperColor;
+        final boolean backShouldBeShown = flashSwap || sameInkPaper;
+
+        for (int x = 0; x < 8; x++) {
+          final int colorIndex = (int) (pixelData >>> (56 - (x << 3))) & 0xFF;
+          final boolean origPixelSet = (origData & (0x80 >>> x)) != 0;
+          final int flags = colorIndexFlags[colorIndex];
 
           int color = PALETTE_SPEC256[colorIndex];
+          boolean paletteColor = true;
           boolean draw = true;
 
-          final boolean mixWithAttributes =
-              colorIndex < downAttrMixedIndex || colorIndex > upAttrMixedIndex;
-
           if (preRenderedBack == null) {
             // No GFX Background
-            if (hideSameInkPaper && inkColor == paperColor) {
+            if (sameInkPaper) {
               color = inkColor;
+              paletteColor = false;
             } else if (paper00inkFF) {
               if (colorIndex == 0) {
                 color = paperColor;
+                paletteColor = false;
               } else if (colorIndex == 0xFF) {
                 color = inkColor;
+                paletteColor = false;
               }
             }
           } else {
             // GFX Background is presented
-            final boolean backShouldBeShown = ((attrData & 0x80) != 0 && flashActive)
-                || (hideSameInkPaper && inkColor == paperColor);
-
             if (paper00inkFF) {
               if (colorIndex == 0) {
                 color = paperColor;
+                paletteColor = false;
               } else if (colorIndex == 0xFF) {
                 color = inkColor;
+                paletteColor = false;
               } else {
                 draw = !backShouldBeShown;
               }
             } else {
-              draw = !(backShouldBeShown || (colorIndex == 0 || (bkOverFF && colorIndex == 0xFF)));
+              draw = !(backShouldBeShown || (flags & GFX_INDEX_TRANSPARENT) != 0);
             }
           }
 
-          if (draw && mixWithAttributes) {
-            color = mixRgb(origPixelSet ? inkColor : paperColor, color);
-          }
-
-          pixelData <<= 8;
-          origData <<= 1;
-
-          final int theColor = draw ? color : preRenderedBack[offset];
-          switch (renderLines) {
-            case ALL: {
-              pixelRgbBuffer[offset++] = theColor;
-              pixelRgbBuffer[offset] = theColor;
-              offset += SCREEN_WIDTH;
-              pixelRgbBuffer[offset--] = theColor;
-              pixelRgbBuffer[offset] = theColor;
-              offset -= SCREEN_WIDTH - 2;
-            }
-            break;
-            case EVEN: {
-              pixelRgbBuffer[offset++] = theColor;
-              pixelRgbBuffer[offset++] = theColor;
-            }
-            break;
-            case ODD: {
-              pixelRgbBuffer[SCREEN_WIDTH + offset++] = theColor;
-              pixelRgbBuffer[SCREEN_WIDTH + offset++] = theColor;
+          if (draw && (flags & GFX_INDEX_MIXED) != 0) {
+            if (paletteColor) {
+              color = origPixelSet ? GFX_MIX_INK[inkMixBase | colorIndex]
+                  : GFX_MIX_PAPER[paperMixBase | colorIndex];
+            } else {
+              color = mixRgb(origPixelSet ? inkColor : paperColor, color);
             }
-            break;
-            default:
-              throw new Error("Unexpected mode");
           }
+
+          final int theColor = draw ? color : preRenderedBack[offset + (x << 1)];
+          row[x << 1] = theColor;
+          row[(x << 1) + 1] = theColor;
         }
+        renderLines.writeRows(pixelRgbBuffer, offset, row, row);
+        offset += ZxPixelTables.ROW_LENGTH;
+      }
+    }
+  }
+
+  private static int[] makeGfxMixTable(final int[] attributePalette) {
+    final int[] result = new int[16 * 256];
+    for (int i = 0; i < 16; i++) {
+      for (int c = 0; c < 256; c++) {
+        result[(i << 8) | c] = mixRgb(attributePalette[i], PALETTE_SPEC256[c]);
       }
     }
+    return result;
+  }
+
+  private static byte[] makeGfxColorIndexFlags(
+      final int downColorsMixed,
+      final int upColorsMixed,
+      final boolean backOverFF
+  ) {
+    final byte[] result = new byte[256];
+    final int upAttrMixedIndex = 0xFF - upColorsMixed;
+    for (int i = 0; i < 256; i++) {
+      int flags = 0;
+      if (i < downColorsMixed || i > upAttrMixedIndex) {
+        flags |= GFX_INDEX_MIXED;
+      }
+      if (i == 0 || (backOverFF && i == 0xFF)) {
+        flags |= GFX_INDEX_TRANSPARENT;
+      }
+      result[i] = (byte) flags;
+    }
+    return result;
+  }
+
+  private static void updateGfxColorIndexFlags() {
+    gfxColorIndexFlags =
+        makeGfxColorIndexFlags(gfxDownColorsMixed, gfxUpColorsMixed, gfxBackOverFF);
   }
 
   public UlaPlusContainer getUlaPlus() {
@@ -524,6 +568,10 @@ public final class VideoController extends JComponent
       final int lineFrom,
       final int lineTo
   ) {
+    final int[][] rows = ZxPixelTables.scratchRows();
+    final int[] evenRow = rows[0];
+    final int[] oddRow = rows[1];
+
     switch (zxPolyVideoMode) {
       case VIDEOMODE_ZX48_CPU0:
       case VIDEOMODE_ZX48_CPU1:
@@ -545,49 +593,14 @@ public final class VideoController extends JComponent
               attributeOffset = calcAttributeAddressZxMode(i);
             }
 
-            final int attrOffset = attributeOffset++;
-
-            int effectiveAttribute = sourceModule.readVideo(attrOffset);
-            effectiveAttribute = flashActive && ((effectiveAttribute & 0x80) != 0)
-                ? (effectiveAttribute & 0b01_000_000)
-                | ((effectiveAttribute >> 3) & 7)
-                | ((effectiveAttribute & 7) << 3) : effectiveAttribute;
-
-            int videoPixels = sourceModule.readVideo(i);
-
-            final int inkColor = extractInkPaletteColor(effectiveAttribute);
-            final int paperColor = extractPaperPaletteColor(effectiveAttribute);
-
-            int x = 8;
-            while (x-- > 0) {
-              final int color = (videoPixels & 0x80) == 0 ? paperColor : inkColor;
-              videoPixels <<= 1;
+            final int attribute = sourceModule.readVideo(attributeOffset++);
+            final int videoPixels = sourceModule.readVideo(i);
 
-              switch (renderLines) {
-                case ALL: {
-                  pixelRgbBuffer[offset++] = color;
-                  pixelRgbBuffer[offset] = color;
-                  offset += SCREEN_WIDTH;
-
-                  pixelRgbBuffer[offset--] = color;
-                  pixelRgbBuffer[offset] = color;
-                  offset -= SCREEN_WIDTH - 2;
-                }
-                break;
-                case EVEN: {
-                  pixelRgbBuffer[offset++] = color;
-                  pixelRgbBuffer[offset++] = color;
-                }
-                break;
-                case ODD: {
-                  pixelRgbBuffer[SCREEN_WIDTH + (offset++)] = color;
-                  pixelRgbBuffer[SCREEN_WIDTH + (offset++)] = color;
-                }
-                break;
-                default:
-                  throw new Error("Unexpected mode");
-              }
-            }
+            ZxPixelTables.expandPixels(evenRow, videoPixels,
+                ZxPixelTables.paperColor(attribute, flashActive),
+                ZxPixelTables.inkColor(attribute, flashActive));
+            renderLines.writeRows(pixelRgbBuffer, offset, evenRow, evenRow);
+            offset += ZxPixelTables.ROW_LENGTH;
           }
         }
       }
@@ -615,250 +628,61 @@ public final class VideoController extends JComponent
               attributeoffset = calcAttributeAddressZxMode(i);
             }
 
-            int videoValue0 = module0.readVideo(i);
-            int videoValue1 = module1.readVideo(i);
-            int videoValue2 = module2.readVideo(i);
-            int videoValue3 = module3.readVideo(i);
+            final int videoValue0 = module0.readVideo(i);
+            final int videoValue1 = module1.readVideo(i);
+            final int videoValue2 = module2.readVideo(i);
+            final int videoValue3 = module3.readVideo(i);
+
+            int[] oddRowToWrite = evenRow;
 
             switch (zxPolyVideoMode) {
               case VIDEOMODE_ZXPOLY_256x192_INKPAPER_MASK: {
                 final int attrModule0 = module0.readVideo(attributeoffset++);
 
-                final int inkColor = extractInkColor(attrModule0, flashActive);
-                final int paperColor = extractPaperColor(attrModule0, flashActive);
+                final int inkColor = ZxPixelTables.inkColor(attrModule0, flashActive);
+                final int paperColor = ZxPixelTables.paperColor(attrModule0, flashActive);
 
-                int x = 8;
                 if (inkColor == paperColor) {
-                  while (x-- > 0) {
-
-                    switch (renderLines) {
-                      case ALL: {
-                        pixelRgbBuffer[offset++] = inkColor;
-                        pixelRgbBuffer[offset] = inkColor;
-                        offset += SCREEN_WIDTH;
-
-                        pixelRgbBuffer[offset--] = inkColor;
-                        pixelRgbBuffer[offset] = inkColor;
-                        offset -= SCREEN_WIDTH - 2;
-                      }
-                      break;
-                      case EVEN: {
-                        pixelRgbBuffer[offset++] = inkColor;
-                        pixelRgbBuffer[offset++] = inkColor;
-                      }
-                      break;
-                      case ODD: {
-                        pixelRgbBuffer[SCREEN_WIDTH + offset++] = inkColor;
-                        pixelRgbBuffer[SCREEN_WIDTH + offset++] = inkColor;
-                      }
-                      break;
-                      default:
-                        throw new Error("Unexpected mode");
-                    }
-                  }
+                  Arrays.fill(evenRow, inkColor);
                 } else {
-                  while (x-- > 0) {
-                    final int value = ((videoValue3 & 0x80) == 0 ? 0 : 0x08)
-                        | ((videoValue0 & 0x80) == 0 ? 0 : 0x04)
-                        | ((videoValue1 & 0x80) == 0 ? 0 : 0x02)
-                        | ((videoValue2 & 0x80) == 0 ? 0 : 0x01);
-
-                    videoValue0 <<= 1;
-                    videoValue1 <<= 1;
-                    videoValue2 <<= 1;
-                    videoValue3 <<= 1;
-
-                    final int color = PALETTE_ZXPOLY[value];
-
-                    switch (renderLines) {
-                      case ALL: {
-                        pixelRgbBuffer[offset++] = color;
-                        pixelRgbBuffer[offset] = color;
-                        offset += SCREEN_WIDTH;
-
-                        pixelRgbBuffer[offset--] = color;
-                        pixelRgbBuffer[offset] = color;
-                        offset -= SCREEN_WIDTH - 2;
-                      }
-                      break;
-                      case EVEN: {
-                        pixelRgbBuffer[offset++] = color;
-                        pixelRgbBuffer[offset++] = color;
-                      }
-                      break;
-                      case ODD: {
-                        pixelRgbBuffer[SCREEN_WIDTH + (offset++)] = color;
-                        pixelRgbBuffer[SCREEN_WIDTH + (offset++)] = color;
-                      }
-                      break;
-                      default:
-                        throw new Error("Unexpected mode");
-                    }
-                  }
+                  ZxPixelTables.expandPlanes(evenRow,
+                      ZxPixelTables.combinePlanes(videoValue0, videoValue1, videoValue2,
+                          videoValue3));
                 }
               }
               break;
               case VIDEOMODE_ZXPOLY_256x192_FLASH_MASK: {
                 final int attrModule0 = module0.readVideo(attributeoffset++);
 
-                final int inkColorMod0 = extractInkColor(attrModule0, false);
-                final int paperColorMod0 = extractPaperColor(attrModule0, false);
+                final int inkColorMod0 = ZxPixelTables.inkColor(attrModule0, false);
+                final int paperColorMod0 = ZxPixelTables.paperColor(attrModule0, false);
 
-                int x = 8;
                 if ((attrModule0 & 0b1000_0000) == 0) {
-                  while (x-- > 0) {
-                    switch (renderLines) {
-                      case ALL: {
-                        pixelRgbBuffer[offset] =
-                            (videoValue0 & 0x80) == 0 ? paperColorMod0 : inkColorMod0;
-
-                        pixelRgbBuffer[offset + SCREEN_WIDTH] =
-                            (videoValue2 & 0x80) == 0 ? paperColorMod0 : inkColorMod0;
-
-                        pixelRgbBuffer[++offset] =
-                            (videoValue1 & 0x80) == 0 ? paperColorMod0 : inkColorMod0;
-
-                        pixelRgbBuffer[offset++ + SCREEN_WIDTH] =
-                            (videoValue3 & 0x80) == 0 ? paperColorMod0 : inkColorMod0;
-
-                      }
-                      break;
-                      case EVEN: {
-                        pixelRgbBuffer[offset++] =
-                            (videoValue0 & 0x80) == 0 ? paperColorMod0 : inkColorMod0;
-                        pixelRgbBuffer[offset++] =
-                            (videoValue1 & 0x80) == 0 ? paperColorMod0 : inkColorMod0;
-                      }
-                      break;
-                      case ODD: {
-                        pixelRgbBuffer[offset++ + SCREEN_WIDTH] =
-                            (videoValue2 & 0x80) == 0 ? paperColorMod0 : inkColorMod0;
-                        pixelRgbBuffer[offset++ + SCREEN_WIDTH] =
-                            (videoValue3 & 0x80) == 0 ? paperColorMod0 : inkColorMod0;
-                      }
-                      break;
-                      default:
-                        throw new Error("Unexpected mode");
-                    }
-                    videoValue0 <<= 1;
-                    videoValue2 <<= 1;
-                    videoValue1 <<= 1;
-                    videoValue3 <<= 1;
-                  }
+                  ZxPixelTables.expandInterleaved(evenRow,
+                      videoValue0, paperColorMod0, inkColorMod0,
+                      videoValue1, paperColorMod0, inkColorMod0);
+                  ZxPixelTables.expandInterleaved(oddRow,
+                      videoValue2, paperColorMod0, inkColorMod0,
+                      videoValue3, paperColorMod0, inkColorMod0);
+                  oddRowToWrite = oddRow;
+                } else if (inkColorMod0 == paperColorMod0) {
+                  Arrays.fill(evenRow, inkColorMod0);
                 } else {
-                  if (inkColorMod0 == paperColorMod0) {
-                    while (x-- > 0) {
-                      switch (renderLines) {
-                        case ALL: {
-                          pixelRgbBuffer[offset++] = inkColorMod0;
-                          pixelRgbBuffer[offset] = inkColorMod0;
-                          offset += SCREEN_WIDTH;
-
-                          pixelRgbBuffer[offset--] = inkColorMod0;
-                          pixelRgbBuffer[offset] = inkColorMod0;
-                          offset -= SCREEN_WIDTH - 2;
-                        }
-                        break;
-                        case EVEN: {
-                          pixelRgbBuffer[offset++] = inkColorMod0;
-                          pixelRgbBuffer[offset++] = inkColorMod0;
-                        }
-                        break;
-                        case ODD: {
-                          pixelRgbBuffer[SCREEN_WIDTH + (offset++)] = inkColorMod0;
-                          pixelRgbBuffer[SCREEN_WIDTH + (offset++)] = inkColorMod0;
-                        }
-                        break;
-                        default:
-                          throw new Error("Unexpected mode");
-                      }
-                    }
-                  } else {
-                    while (x-- > 0) {
-                      final int value = ((videoValue3 & 0x80) == 0 ? 0 : 0x08)
-                          | ((videoValue0 & 0x80) == 0 ? 0 : 0x04)
-                          | ((videoValue1 & 0x80) == 0 ? 0 : 0x02)
-                          | ((videoValue2 & 0x80) == 0 ? 0 : 0x01);
-
-                      videoValue0 <<= 1;
-                      videoValue1 <<= 1;
-                      videoValue2 <<= 1;
-                      videoValue3 <<= 1;
-
-                      final int color = PALETTE_ZXPOLY[value];
-
-                      switch (renderLines) {
-                        case ALL: {
-                          pixelRgbBuffer[offset++] = color;
-                          pixelRgbBuffer[offset] = color;
-                          offset += SCREEN_WIDTH;
-
-                          pixelRgbBuffer[offset--] = color;
-                          pixelRgbBuffer[offset] = color;
-                          offset -= SCREEN_WIDTH - 2;
-                        }
-                        break;
-                        case EVEN: {
-                          pixelRgbBuffer[offset++] = color;
-                          pixelRgbBuffer[offset++] = color;
-                        }
-                        break;
-                        case ODD: {
-                          pixelRgbBuffer[SCREEN_WIDTH + offset++] = color;
-                          pixelRgbBuffer[SCREEN_WIDTH + offset++] = color;
-                        }
-                        break;
-                        default:
-                          throw new Error("Unexpected mode");
-                      }
-                    }
-                  }
+                  ZxPixelTables.expandPlanes(evenRow,
+                      ZxPixelTables.combinePlanes(videoValue0, videoValue1, videoValue2,
+                          videoValue3));
                 }
               }
               break;
               default: {
-                int x = 8;
-                while (x-- > 0) {
-                  final int value = ((videoValue3 & 0x80) == 0 ? 0 : 0x08)
-                      | ((videoValue0 & 0x80) == 0 ? 0 : 0x04)
-                      | ((videoValue1 & 0x80) == 0 ? 0 : 0x02)
-                      | ((videoValue2 & 0x80) == 0 ? 0 : 0x01);
-
-                  videoValue0 <<= 1;
-                  videoValue1 <<= 1;
-                  videoValue2 <<= 1;
-                  videoValue3 <<= 1;
-
-                  final int color = PALETTE_ZXPOLY[value];
-
-                  switch (renderLines) {
-                    case ALL: {
-                      pixelRgbBuffer[offset++] = color;
-                      pixelRgbBuffer[offset] = color;
-                      offset += SCREEN_WIDTH;
-
-                      pixelRgbBuffer[offset--] = color;
-                      pixelRgbBuffer[offset] = color;
-                      offset -= SCREEN_WIDTH - 2;
-                    }
-                    break;
-                    case EVEN: {
-                      pixelRgbBuffer[offset++] = color;
-                      pixelRgbBuffer[offset++] = color;
-                    }
-                    break;
-                    case ODD: {
-                      pixelRgbBuffer[SCREEN_WIDTH + offset++] = color;
-                      pixelRgbBuffer[SCREEN_WIDTH + offset++] = color;
-                    }
-                    break;
-                    default:
-                      throw new Error("Unexpected mode");
-                  }
-                }
+                ZxPixelTables.expandPlanes(evenRow,
+                    ZxPixelTables.combinePlanes(videoValue0, videoValue1, videoValue2,
+                        videoValue3));
               }
               break;
             }
+            renderLines.writeRows(pixelRgbBuffer, offset, evenRow, oddRowToWrite);
+            offset += ZxPixelTables.ROW_LENGTH;
           }
         }
       }
@@ -884,65 +708,34 @@ public final class VideoController extends JComponent
               attributeOffset = calcAttributeAddressZxMode(i);
             }
 
-            int videoValue0 = module0.readVideo(i);
+            final int videoValue0 = module0.readVideo(i);
             final int attribute0 = module0.readVideo(attributeOffset);
 
-            int videoValue1 = module1.readVideo(i);
+            final int videoValue1 = module1.readVideo(i);
             final int attribute1 = module1.readVideo(attributeOffset);
 
-            int videoValue2 = module2.readVideo(i);
+            final int videoValue2 = module2.readVideo(i);
             final int attribute2 = module2.readVideo(attributeOffset);
 
-            int videoValue3 = module3.readVideo(i);
+            final int videoValue3 = module3.readVideo(i);
             final int attribute3 = module3.readVideo(attributeOffset++);
 
-            int x = 8;
-            while (x-- > 0) {
-              switch (renderLines) {
-                case ALL: {
-                  pixelRgbBuffer[offset] =
-                      (videoValue0 & 0x80) == 0 ? extractPaperColor(attribute0, flashActive) :
-                          extractInkColor(attribute0, flashActive);
-
-                  pixelRgbBuffer[offset + SCREEN_WIDTH] =
-                      (videoValue2 & 0x80) == 0 ? extractPaperColor(attribute2, flashActive) :
-                          extractInkColor(attribute2, flashActive);
-                  pixelRgbBuffer[++offset] =
-                      (videoValue1 & 0x80) == 0 ? extractPaperColor(attribute1, flashActive) :
-                          extractInkColor(attribute1, flashActive);
-
-                  pixelRgbBuffer[offset++ + SCREEN_WIDTH] =
-                      (videoValue3 & 0x80) == 0 ? extractPaperColor(attribute3, flashActive) :
-                          extractInkColor(attribute3, flashActive);
-                }
-                break;
-                case EVEN: {
-                  pixelRgbBuffer[offset++] =
-                      (videoValue0 & 0x80) == 0 ? extractPaperColor(attribute0, flashActive) :
-                          extractInkColor(attribute0, flashActive);
-                  pixelRgbBuffer[offset++] =
-                      (videoValue1 & 0x80) == 0 ? extractPaperColor(attribute1, flashActive) :
-                          extractInkColor(attribute1, flashActive);
-                }
-                break;
-                case ODD: {
-                  pixelRgbBuffer[offset++ + SCREEN_WIDTH] =
-                      (videoValue2 & 0x80) == 0 ? extractPaperColor(attribute2, flashActive) :
-                          extractInkColor(attribute2, flashActive);
-                  pixelRgbBuffer[offset++ + SCREEN_WIDTH] =
-                      (videoValue3 & 0x80) == 0 ? extractPaperColor(attribute3, flashActive) :
-                          extractInkColor(attribute3, flashActive);
-                }
-                break;
-                default:
-                  throw new Error("Unexpected mode");
-              }
-
-              videoValue0 <<= 1;
-              videoValue2 <<= 1;
-              videoValue1 <<= 1;
-              videoValue3 <<= 1;
-            }
+            ZxPixelTables.expandInterleaved(evenRow,
+                videoValue0,
+                ZxPixelTables.paperColor(attribute0, flashActive),
+                ZxPixelTables.inkColor(attribute0, flashActive),
+                videoValue1,
+                ZxPixelTables.paperColor(attribute1, flashActive),
+                ZxPixelTables.inkColor(attribute1, flashActive));
+            ZxPixelTables.expandInterleaved(oddRow,
+                videoValue2,
+                ZxPixelTables.paperColor(attribute2, flashActive),
+                ZxPixelTables.inkColor(attribute2, flashActive),
+                videoValue3,
+                ZxPixelTables.paperColor(attribute3, flashActive),
+                ZxPixelTables.inkColor(attribute3, flashActive));
+            renderLines.writeRows(pixelRgbBuffer, offset, evenRow, oddRow);
+            offset += ZxPixelTables.ROW_LENGTH;
           }
         }
       }
@@ -984,86 +777,19 @@ public final class VideoController extends JComponent
     return 0x1800 + off;
   }
 
-  private static int extractInkColor(final int attribute, final boolean flashActive) {
-    final int bright = (attribute & 0x40) == 0 ? 0 : 0x08;
-    final int inkColor = PALETTE_ZXPOLY[(attribute & 0x07) | bright];
-    final int paperColor = PALETTE_ZXPOLY[((attribute >> 3) & 0x07) | bright];
-    final boolean flash = (attribute & 0x80) != 0;
-
-    final int result;
-
-    if (flash) {
-      if (flashActive) {
-        result = paperColor;
-      } else {
-        result = inkColor;
-      }
-    } else {
-      result = inkColor;
-    }
-    return result;
-  }
-
-  private static int extractPaperPaletteColor(final int attribute) {
-    final int bright = (attribute & 0x40) == 0 ? 0 : 0x08;
-    return PALETTE_ZXPOLY[((attribute >> 3) & 0x07) | bright];
-  }
-
-  private static int extractInkPaletteColor(final int attribute) {
-    final int bright = (attribute & 0x40) == 0 ? 0 : 0x08;
-    return PALETTE_ZXPOLY[(attribute & 0x07) | bright];
-  }
-
-  private static int extractInkColorSpec256(final int attribute, final boolean flashActive) {
-    final int bright = (attribute & 0x40) == 0 ? 0 : 0x08;
-    final int inkColor = PALETTE_ALIGNED_ZXPOLY[(attribute & 0x07) | bright];
-    final int paperColor = PALETTE_ALIGNED_ZXPOLY[((attribute >> 3) & 0x07) | bright];
-    final boolean flash = (attribute & 0x80) != 0;
-
-    final int result;
-
-    if (flash) {
-      if (flashActive) {
-        result = paperColor;
-      } else {
-        result = inkColor;
-      }
-    } else {
-      result = inkColor;
-    }
-    return result;
-  }
-
-  private static int extractPaperColor(final int attribute, final boolean flashActive) {
-    final int bright = (attribute & 0x40) == 0 ? 0 : 0x08;
-    final int inkColor = PALETTE_ZXPOLY[(attribute & 0x07) | bright];
-    final int paperColor = PALETTE_ZXPOLY[((attribute >> 3) & 0x07) | bright];
-    final boolean flash = (attribute & 0x80) != 0;
-
-    final int result;
-
-    if (flash) {
-      if (flashActive) {
-        result = inkColor;
-      } else {
-        result = paperColor;
-      }
-    } else {
-      result = paperColor;
-    }
-    return result;
-  }
-
   public static void setGfxUpColorsMixed(final int value) {
     gfxUpColorsMixed = value;
+    updateGfxColorIndexFlags();
   }
 
   public static void setGfxDownColorsMixed(final int value) {
     gfxDownColorsMixed = value;
+    updateGfxColorIndexFlags();
   }
 
   public static void setGfxBackOverFF(final boolean flag) {
     gfxBackOverFF = flag;
+    updateGfxColorIndexFlags();
   }
 
   public static void setGfxPaper00InkFF(final boolean flag) {
@@ -1074,6 +800,10 @@ public final class VideoController extends JComponent
     gfxHideSameInkPaper = flag;
   }
 
+  public static void setGfxBackSuppressed(final boolean flag) {
+    gfxBackSuppressed = flag;
+  }
+
   private static String decodeVideoModeCode(final int code) {
     return switch (code) {
       case 0 -> "ZX-Spectrum 0";
@@ -1102,6 +832,19 @@ public final class VideoController extends JComponent
     this.tvFilterChain = chain == null ? TvFilterChain.NONE : chain;
   }
 
+  /**
+   * Suppress TV filters for screen painting and streaming, selected chain is kept.
+   *
+   * @param suppressed true to paint screen without filters
+   */
+  public void setTvFiltersSuppressed(final boolean suppressed) {
+    this.tvFiltersSuppressed = suppressed;
+  }
+
+  private TvFilterChain getActiveTvFilterChain() {
+    return this.tvFiltersSuppressed ? TvFilterChain.NONE : this.tvFilterChain;
+  }
+
   public boolean isVkbShow() {
     return this.showVkb;
   }
@@ -1315,72 +1058,137 @@ public final class VideoController extends JComponent
   }
 
   private final Lock lockWorkImage = new ReentrantLock();
+  // only painters are synchronized by the lock, producer never waits for it
   private final Lock lockOutputImage = new ReentrantLock();
 
+  /**
+   * Copy area of work screen into back output image, must be called by emulation thread.
+   * Whole lines touched by the area are copied and only if they have been changed since the
+   * back image was filled last time.
+   *
+   * @param x      the first column, in ZX screen pixels
+   * @param y      the first line, in ZX screen pixels
+   * @param width  width of area, in ZX screen pixels
+   * @param height height of area, in ZX screen pixels
+   */
   public void copyWorkScreenToOutputScreen(final int x, final int y, final int width,
                                            final int height) {
+    final int lineFrom = Math.max(0, y);
+    final int lineTo = Math.min(ZXSCREEN_ROWS, y + height);
+    if (Math.max(0, x) >= Math.min(ZXSCREEN_COLS, x + width) || lineFrom >= lineTo) {
+      return;
+    }
     this.lockWorkImage.lock();
     try {
-      this.lockOutputImage.lock();
-      try {
-        final Graphics2D g = this.outputZxScreenImage.createGraphics();
-        try {
-          g.setClip(x << 1, y << 1, width << 1, height << 1);
-          g.drawImage(this.workZxScreenImage, 0, 0, null);
-        } finally {
-          g.dispose();
-        }
-      } finally {
-        this.lockOutputImage.unlock();
-      }
+      this.outputScreen.syncBack(this.workZxScreenImageRgbData, this.workLineVersions, lineFrom,
+          lineTo);
+    } finally {
+      this.lockWorkImage.unlock();
+    }
+  }
+
+  /**
+   * Publish back output image as completed frame for painting. Back image contains some older
+   * frame, so lines changed in work screen since that frame are copied before publishing.
+   * Lines which have not been rendered since then are not copied. Must be called by emulation
+   * thread.
+   */
+  public void publishOutputScreen() {
+    this.lockWorkImage.lock();
+    try {
+      this.outputScreen.syncBack(this.workZxScreenImageRgbData, this.workLineVersions, 0,
+          ZXSCREEN_ROWS);
+      this.outputScreen.publish();
     } finally {
       this.lockWorkImage.unlock();
     }
   }
 
+  /**
+   * Mark cells which can't be detected through RAM writes: the whole screen after switch of the
+   * shown RAM page or rendering in other mode, flashing cells after change of FLASH phase.
+   * ULA+ palette changes are not tracked so the whole screen is redrawn while ULA+ is active.
+   *
+   * @param flashActive current FLASH phase
+   */
+  private void prepareZx48DirtyCells(final boolean flashActive) {
+    final ScreenDirtyCells dirtyCells = this.board.getScreenDirtyCells();
+    final int screenHeapOffset = findZxScreenHeapOffset(this.modules[0]);
+    if (this.zx48LastScreenHeapOffset != screenHeapOffset
+        || this.lastRenderedVideoMode != VIDEOMODE_ZX48_CPU0
+        || this.ulaPlus.isActive()) {
+      dirtyCells.markAll();
+    } else if (this.zx48LastFlashActive != flashActive) {
+      markFlashingCells(this.board.getHeapRam(), screenHeapOffset, dirtyCells);
+    }
+    this.zx48LastScreenHeapOffset = screenHeapOffset;
+    this.zx48LastFlashActive = flashActive;
+  }
+
   private void refreshBufferData(
       final LineRenderMode renderLines,
       final int lineFrom,
       final int lineTo,
       final int videoMode
   ) {
+    final int[] pixelRgbBuffer = this.workZxScreenImageRgbData;
+    final ZxPolyModule[] modules = this.modules;
+    final boolean flashActive = this.board.isFlashActive();
+    final long version = ++this.workVersion;
     switch (videoMode) {
       case VIDEOMODE_ZX48_CPU0: {
-        fillDataBufferForZxSpectrum128Mode(
-            renderLines,
-            this.modules,
-            this.workZxScreenImageRgbData,
-            this.board.isFlashActive(),
-            lineFrom,
-            lineTo,
-            this.ulaPlus
-        );
+        this.prepareZx48DirtyCells(flashActive);
+        final UlaPlusContainer ulaPlus = this.ulaPlus;
+        final ScreenDirtyCells dirtyCells = this.board.getScreenDirtyCells();
+        // only lines with changed cells are rendered
+        for (int line = lineFrom; line < lineTo; line++) {
+          if (dirtyCells.isLineDirty(line, renderLines)) {
+            this.workLineVersions[line] = version;
+          }
+        }
+        this.bandRenderer.render(lineFrom, lineTo,
+            (bandFrom, bandTo) -> fillDataBufferForZxSpectrum128Mode(
+                renderLines,
+                modules,
+                pixelRgbBuffer,
+                flashActive,
+                bandFrom,
+                bandTo,
+                ulaPlus,
+                dirtyCells
+            ));
       }
       break;
       case VIDEOMODE_SPEC256: {
-        fillDataBufferForSpec256VideoMode(
-            renderLines,
-            this.modules,
-            this.workZxScreenImageRgbData,
-            this.board.isFlashActive(),
-            lineFrom,
-            lineTo
-        );
+        Arrays.fill(this.workLineVersions, lineFrom, lineTo, version);
+        this.bandRenderer.render(lineFrom, lineTo,
+            (bandFrom, bandTo) -> fillDataBufferForSpec256VideoMode(
+                renderLines,
+                modules,
+                pixelRgbBuffer,
+                flashActive,
+                bandFrom,
+                bandTo
+            ));
       }
       break;
       default: {
-        fillDataBufferForZxPolyVideoMode(
-            renderLines,
-            this.currentVideoMode,
-            this.modules,
-            this.workZxScreenImageRgbData,
-            this.board.isFlashActive(),
-            lineFrom,
-            lineTo
-        );
+        Arrays.fill(this.workLineVersions, lineFrom, lineTo, version);
+        final int zxPolyVideoMode = this.currentVideoMode;
+        this.bandRenderer.render(lineFrom, lineTo,
+            (bandFrom, bandTo) -> fillDataBufferForZxPolyVideoMode(
+                renderLines,
+                zxPolyVideoMode,
+                modules,
+                pixelRgbBuffer,
+                flashActive,
+                bandFrom,
+                bandTo
+            ));
       }
       break;
     }
+    this.lastRenderedVideoMode = videoMode;
   }
 
   public byte[] grabRgb(final byte[] array) {
@@ -1399,9 +1207,10 @@ public final class VideoController extends JComponent
     } finally {
       this.lockWorkImage.unlock();
     }
-    if (this.tvFilterChain != null) {
+    final TvFilterChain activeChain = this.getActiveTvFilterChain();
+    if (activeChain != null) {
       final int argbBorderColor = PALETTE_ZXPOLY[this.portFEw & 7];
-      for (final TvFilter f : this.tvFilterChain.getFilterChain()) {
+      for (final TvFilter f : activeChain.getFilterChain()) {
         result = f.apply(false, result, argbBorderColor);
       }
     }
@@ -1444,7 +1253,7 @@ public final class VideoController extends JComponent
     if (screenOffsetX > 0 || screenOffsetY > 0) {
       this.drawBorder(g2, visibleWidth, visibleHeight);
     }
-    this.drawBuffer(g2, screenOffsetX, screenOffsetY, this.zoom, this.tvFilterChain);
+    this.drawBuffer(g2, screenOffsetX, screenOffsetY, this.zoom, this.getActiveTvFilterChain());
 
     if (this.mouseTrapActive && this.enableMouseTrapIndicator) {
       g2.drawImage(MOUSE_TRAPPED, 2, 2, null);
@@ -1650,6 +1459,34 @@ public final class VideoController extends JComponent
     return NOTIFICATION_PRESTEP | NOTIFICATION_POSTSTEP;
   }
 
+  @Override
+  public Object saveState(final Object container) {
+    final VideoState state;
+    if (container == null) {
+      state = new VideoState();
+      state.ulaPlus = new UlaPlusContainer(this.ulaPlus);
+    } else {
+      state = (VideoState) container;
+      state.ulaPlus.fillByState(this.ulaPlus);
+    }
+    state.portFEw = this.portFEw;
+    state.videoMode = this.currentVideoMode;
+    state.stepStartTiStates = this.stepStartTiStates;
+    state.preStepBorderColor = this.preStepBorderColor;
+    return state;
+  }
+
+  @Override
+  public void restoreState(final Object state) {
+    final VideoState videoState = (VideoState) state;
+    this.portFEw = videoState.portFEw;
+    this.currentVideoMode = videoState.videoMode;
+    this.stepStartTiStates = videoState.stepStartTiStates;
+    this.preStepBorderColor = videoState.preStepBorderColor;
+    this.ulaPlus.fillByState(videoState.ulaPlus);
+    this.board.getScreenDirtyCells().markAll();
+  }
+
   public void drawBuffer(
       final Graphics2D gfx,
       final int x,
@@ -1657,65 +1494,63 @@ public final class VideoController extends JComponent
       final float zoom,
       final TvFilterChain filterChain
   ) {
-    if (filterChain.isEmpty()) {
-      this.lockOutputImage.lock();
-      try {
+    this.lockOutputImage.lock();
+    try {
+      final BufferedImage outputImage = this.outputScreen.takeFront();
+      if (filterChain.isEmpty()) {
         final float normalZoom = Math.max(1.0f, zoom);
         if (normalZoom == 1.0f) {
-          gfx.drawImage(this.outputZxScreenImage, null, x, y);
+          gfx.drawImage(outputImage, null, x, y);
         } else {
-          gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+          gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+              RenderingHints.VALUE_ANTIALIAS_OFF);
           gfx.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
 
-          gfx.drawImage(this.outputZxScreenImage, x, y, Math.round(SCREEN_WIDTH * normalZoom),
+          gfx.drawImage(outputImage, x, y, Math.round(SCREEN_WIDTH * normalZoom),
               Math.round(SCREEN_HEIGHT * normalZoom), null);
         }
-      } finally {
-        this.lockOutputImage.unlock();
-      }
-    } else {
-      final int borderArgbColor = this.borderImageRgbData[this.borderImageRgbData.length / 2];
-      final Rectangle area;
-      final TvFilter[] tvFilters = filterChain.getFilterChain();
-      BufferedImage postProcessedImage;
-
-      this.lockOutputImage.lock();
-      try {
-        postProcessedImage =
-            tvFilters[0].apply(this.outputZxScreenImage, zoom, borderArgbColor, true);
-      } finally {
-        this.lockOutputImage.unlock();
-      }
-
-      for (int i = 1; i < tvFilters.length; i++) {
-        postProcessedImage = tvFilters[i].apply(postProcessedImage, zoom, borderArgbColor, false);
-      }
-      if (zoom == 1.0f) {
-        area = new Rectangle(x, y, 512, 384);
-        gfx.drawImage(postProcessedImage, null, x, y);
       } else {
-        final boolean sizeChangedDuringPostprocessing =
-            postProcessedImage.getWidth() != this.outputZxScreenImage.getWidth();
-
-        if (sizeChangedDuringPostprocessing) {
-          gfx.drawImage(postProcessedImage, null, x, y);
+        final int borderArgbColor = this.borderImageRgbData[this.borderImageRgbData.length / 2];
+        final Rectangle area;
+        final TvFilter[] tvFilters = filterChain.getFilterChain();
+        BufferedImage postProcessedImage =
+            tvFilters[0].apply(outputImage, zoom, borderArgbColor, true);
+
+        for (int i = 1; i < tvFilters.length; i++) {
+          postProcessedImage =
+              tvFilters[i].apply(postProcessedImage, zoom, borderArgbColor, false);
+        }
+        if (zoom == 1.0f) {
           area = new Rectangle(x, y, 512, 384);
+          gfx.drawImage(postProcessedImage, null, x, y);
         } else {
-          final float normalizedZoom = Math.max(1.0f, zoom);
-          gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
-          gfx.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+          final boolean sizeChangedDuringPostprocessing =
+              postProcessedImage.getWidth() != outputImage.getWidth();
 
-          area = new Rectangle(x, y, Math.round(SCREEN_WIDTH * normalizedZoom),
-              Math.round(SCREEN_HEIGHT * normalizedZoom));
+          if (sizeChangedDuringPostprocessing) {
+            gfx.drawImage(postProcessedImage, null, x, y);
+            area = new Rectangle(x, y, 512, 384);
+          } else {
+            final float normalizedZoom = Math.max(1.0f, zoom);
+            gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_OFF);
+            gfx.setRenderingHint(RenderingHints.KEY_RENDERING,
+                RenderingHints.VALUE_RENDER_SPEED);
 
-          gfx.drawImage(postProcessedImage, x, y, area.width,
-              area.height, null);
+            area = new Rectangle(x, y, Math.round(SCREEN_WIDTH * normalizedZoom),
+                Math.round(SCREEN_HEIGHT * normalizedZoom));
+
+            gfx.drawImage(postProcessedImage, x, y, area.width,
+                area.height, null);
+          }
         }
-      }
 
-      for (final TvFilter filter : tvFilters) {
-        filter.apply(gfx, area, zoom);
+        for (final TvFilter filter : tvFilters) {
+          filter.apply(gfx, area, zoom);
+        }
       }
+    } finally {
+      this.lockOutputImage.unlock();
     }
   }
 
@@ -1726,7 +1561,9 @@ public final class VideoController extends JComponent
       final boolean tiStatesIntReached,
       boolean wallClockInt
   ) {
-    this.stepStartTiStates = tiStatesIntReached ? -1 : frameTiStates;
+    final boolean perFrame = this.borderPerFrame;
+    this.stepStartTiStates =
+        tiStatesIntReached || perFrame || !this.borderRendering ? -1 : frameTiStates;
     final UlaPlusContainer ulaPlusContainer = this.ulaPlus;
 
     if (signalReset) {
@@ -1737,20 +1574,32 @@ public final class VideoController extends JComponent
     }
     this.vkbdRender.preState(signalReset, tiStatesIntReached, wallClockInt);
 
+    if (this.stepStartTiStates < 0) {
+      if (perFrame && tiStatesIntReached && this.borderRendering) {
+        // whole border gets color which is active at frame end
+        Arrays.fill(this.borderImageRgbData, this.makeBorderColor(ulaPlusContainer));
+      }
+      return;
+    }
+
+    this.preStepBorderColor = this.makeBorderColor(ulaPlusContainer);
+  }
+
+  private int makeBorderColor(final UlaPlusContainer ulaPlusContainer) {
     if (ulaPlusContainer == null || !ulaPlusContainer.isActive()) {
-      this.preStepBorderColor =
-          this.tvFilterChain.applyBorderColor(PALETTE_ZXPOLY_COLORS[this.portFEw & 7]).getRGB();
+      return this.tvFilterChain.applyBorderColor(PALETTE_ZXPOLY_COLORS[this.portFEw & 7])
+          .getRGB();
     } else {
-      this.preStepBorderColor =
-          this.tvFilterChain.applyBorderColor(
-                  this.ulaPlus.findColorForIndex((this.portFEw & 7) | 8))
-              .getRGB();
+      return this.tvFilterChain.applyBorderColor(
+              ulaPlusContainer.findColorForIndex((this.portFEw & 7) | 8))
+          .getRGB();
     }
   }
 
   @Override
   public void doReset() {
     this.vkbdRender.doReset();
+    this.board.getScreenDirtyCells().markAll();
   }
 
   @Override
@@ -1766,6 +1615,26 @@ public final class VideoController extends JComponent
     }
   }
 
+  /**
+   * Enable or disable border rendering by emulation steps, disabled rendering keeps the last
+   * border image. It is used in turbo mode where border changes are not visible.
+   *
+   * @param enable true to render border, false to skip rendering
+   */
+  public void setBorderRendering(final boolean enable) {
+    this.borderRendering = enable;
+  }
+
+  /**
+   * Render border once per frame by single color instead of rendering by emulation steps. It
+   * decreases load but border effects made by changes of color during frame are not visible.
+   *
+   * @param perFrame true to fill border once per frame, false to render by emulation steps
+   */
+  public void setBorderPerFrame(final boolean perFrame) {
+    this.borderPerFrame = perFrame;
+  }
+
   public float getZoom() {
     return this.zoom;
   }
@@ -1860,10 +1729,47 @@ public final class VideoController extends JComponent
       return this.processor.apply(buffer, offset, color);
     }
 
+    /**
+     * Write expanded rows of a screen byte into buffer.
+     *
+     * @param buffer    target buffer
+     * @param offset    offset of the even row in the buffer
+     * @param evenRow   expanded pixels for the even row
+     * @param oddRow    expanded pixels for the odd row
+     */
+    public void writeRows(final int[] buffer, final int offset, final int[] evenRow,
+                          final int[] oddRow) {
+      switch (this) {
+        case ALL: {
+          System.arraycopy(evenRow, 0, buffer, offset, ZxPixelTables.ROW_LENGTH);
+          System.arraycopy(oddRow, 0, buffer, offset + SCREEN_WIDTH, ZxPixelTables.ROW_LENGTH);
+        }
+        break;
+        case EVEN: {
+          System.arraycopy(evenRow, 0, buffer, offset, ZxPixelTables.ROW_LENGTH);
+        }
+        break;
+        case ODD: {
+          System.arraycopy(oddRow, 0, buffer, offset + SCREEN_WIDTH, ZxPixelTables.ROW_LENGTH);
+        }
+        break;
+        default:
+          throw new Error("Unexpected mode");
+      }
+    }
+
   }
 
   @FunctionalInterface
   public interface LineRenderModeFunction {
     int apply(int[] buffer, int offset, int color);
   }
+
+  private static final class VideoState {
+    private int portFEw;
+    private int videoMode;
+    private int stepStartTiStates;
+    private int preStepBorderColor;
+    private UlaPlusContainer ulaPlus;
+  }
 }
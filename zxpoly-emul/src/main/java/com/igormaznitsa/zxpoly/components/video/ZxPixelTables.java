@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.components.video;
+
+import static com.igormaznitsa.zxpoly.components.video.VideoController.PALETTE_ZXPOLY;
+
+/**
+ * Precalculated tables to expand screen bytes into rows of ARGB pixels.
+ * Attribute table keeps paper and ink colors for every attribute and FLASH phase, plane
+ * table spreads bits of a byte into nibbles so that four ZX-Poly planes are combined into
+ * palette indexes of eight pixels by three shifts, mask table keeps -1 for ink and 0 for paper
+ * pixels of every byte to select colors without branches. Expanded rows contain 16 ints, every
+ * pixel of ZX screen is doubled horizontally.
+ */
+final class ZxPixelTables {
+
+  /**
+   * Length of expanded row for single screen byte.
+   */
+  static final int ROW_LENGTH = 16;
+
+  private static final int[] ATTRIBUTE_COLORS = makeAttributeColors();
+  private static final int[] PLANE_NIBBLES = makePlaneNibbles();
+  private static final int[] PIXEL_MASKS = makePixelMasks();
+  private static final ThreadLocal<int[][]> SCRATCH_ROWS =
+      ThreadLocal.withInitial(() -> new int[2][ROW_LENGTH]);
+
+  private ZxPixelTables() {
+  }
+
+  private static int[] makeAttributeColors() {
+    final int[] result = new int[512 * 2];
+    for (int i = 0; i < 512; i++) {
+      final int attribute = i & 0xFF;
+      final int bright = (attribute & 0x40) == 0 ? 0 : 0x08;
+      final int ink = PALETTE_ZXPOLY[(attribute & 0x07) | bright];
+      final int paper = PALETTE_ZXPOLY[((attribute >> 3) & 0x07) | bright];
+      final boolean swap = i >= 256 && (attribute & 0x80) != 0;
+      result[i << 1] = swap ? ink : paper;
+      result[(i << 1) + 1] = swap ? paper : ink;
+    }
+    return result;
+  }
+
+  private static int[] makePlaneNibbles() {
+    final int[] result = new int[256];
+    for (int i = 0; i < 256; i++) {
+      int value = 0;
+      for (int x = 0; x < 8; x++) {
+        if ((i & (0x80 >>> x)) != 0) {
+          value |= 1 << (x << 2);
+        }
+      }
+      result[i] = value;
+    }
+    return result;
+  }
+
+  private static int[] makePixelMasks() {
+    final int[] result = new int[256 * 8];
+    for (int i = 0; i < 256; i++) {
+      for (int x = 0; x < 8; x++) {
+        result[(i << 3) + x] = (i & (0x80 >>> x)) == 0 ? 0 : -1;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Get two rows to be used as scratch by fill of screen buffer. Fill is made by band threads
+   * concurrently so every thread has its own rows, they are reused between calls.
+   *
+   * @return array of two rows of {@link #ROW_LENGTH} ints
+   */
+  static int[][] scratchRows() {
+    return SCRATCH_ROWS.get();
+  }
+
+  /**
+   * Get paper color for attribute.
+   *
+   * @param attribute   attribute byte
+   * @param flashActive current FLASH phase
+   * @return ARGB paper color with FLASH applied
+   */
+  static int paperColor(final int attribute, final boolean flashActive) {
+    return ATTRIBUTE_COLORS[((flashActive ? 0x100 : 0) | (attribute & 0xFF)) << 1];
+  }
+
+  /**
+   * Get ink color for attribute.
+   *
+   * @param attribute   attribute byte
+   * @param flashActive current FLASH phase
+   * @return ARGB ink color with FLASH applied
+   */
+  static int inkColor(final int attribute, final boolean flashActive) {
+    return ATTRIBUTE_COLORS[(((flashActive ? 0x100 : 0) | (attribute & 0xFF)) << 1) + 1];
+  }
+
+  /**
+   * Combine four ZX-Poly planes into eight palette indexes, index of pixel N is in nibble N.
+   *
+   * @param plane0 byte of module 0, bit 2 of index
+   * @param plane1 byte of module 1, bit 1 of index
+   * @param plane2 byte of module 2, bit 0 of index
+   * @param plane3 byte of module 3, bit 3 of index
+   * @return packed palette indexes
+   */
+  static int combinePlanes(final int plane0, final int plane1, final int plane2,
+                           final int plane3) {
+    return (PLANE_NIBBLES[plane3 & 0xFF] << 3)
+        | (PLANE_NIBBLES[plane0 & 0xFF] << 2)
+        | (PLANE_NIBBLES[plane1 & 0xFF] << 1)
+        | PLANE_NIBBLES[plane2 & 0xFF];
+  }
+
+  static void expandPixels(final int[] row, final int pixels, final int paper, final int ink) {
+    final int base = (pixels & 0xFF) << 3;
+    for (int x = 0; x < 8; x++) {
+      final int mask = PIXEL_MASKS[base + x];
+      final int color = (paper & ~mask) | (ink & mask);
+      row[x << 1] = color;
+      row[(x << 1) + 1] = color;
+    }
+  }
+
+  static void expandPlanes(final int[] row, final int combinedPlanes) {
+    for (int x = 0; x < 8; x++) {
+      final int color = PALETTE_ZXPOLY[(combinedPlanes >>> (x << 2)) & 0xF];
+      row[x << 1] = color;
+      row[(x << 1) + 1] = color;
+    }
+  }
+
+  /**
+   * Expand two screen bytes into row where their pixels are interleaved, it is used by modes
+   * which show different modules in neighbour pixels.
+   */
+  static void expandInterleaved(
+      final int[] row,
+      final int leftPixels, final int leftPaper, final int leftInk,
+      final int rightPixels, final int rightPaper, final int rightInk
+  ) {
+    final int leftBase = (leftPixels & 0xFF) << 3;
+    final int rightBase = (rightPixels & 0xFF) << 3;
+    for (int x = 0; x < 8; x++) {
+      final int leftMask = PIXEL_MASKS[leftBase + x];
+      final int rightMask = PIXEL_MASKS[rightBase + x];
+      row[x << 1] = (leftPaper & ~leftMask) | (leftInk & leftMask);
+      row[(x << 1) + 1] = (rightPaper & ~rightMask) | (rightInk & rightMask);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.StackTrace;
+
+/**
+ * Custom JFR events of emulator, they are recorded only if JFR recording is active and
+ * the event is enabled, so they can be committed from emulation thread without checks.
+ */
+public final class EmulationEvents {
+
+  private static final String CATEGORY = "ZX-Poly";
+
+  private EmulationEvents() {
+  }
+
+  @Name("com.igormaznitsa.zxpoly.Frame")
+  @Label("Frame")
+  @Description("Emulated frame between two INT signals")
+  @Category({CATEGORY, "Emulation"})
+  @StackTrace(false)
+  public static final class FrameEvent extends Event {
+    @Label("Frame Number")
+    public long frame;
+
+    @Label("T-states")
+    public int tiStates;
+
+    @Label("Turbo Mode")
+    public boolean turbo;
+  }
+
+  @Name("com.igormaznitsa.zxpoly.FrameLate")
+  @Label("Frame Late")
+  @Description("Wall clock interrupt reached before emulated frame completion")
+  @Category({CATEGORY, "Emulation"})
+  @StackTrace(false)
+  public static final class FrameLateEvent extends Event {
+    @Label("Remaining T-states")
+    public long remainTiStates;
+
+    @Label("Remaining Part")
+    @Percentage
+    public float remainPart;
+  }
+
+  @Name("com.igormaznitsa.zxpoly.SoundUnderrun")
+  @Label("Sound Underrun")
+  @Description("Sound line buffer was drained before new data arrived")
+  @Category({CATEGORY, "Sound"})
+  @StackTrace(false)
+  public static final class SoundUnderrunEvent extends Event {
+    @Label("Line Buffer Size")
+    @DataAmount
+    public int bufferSize;
+  }
+
+  @Name("com.igormaznitsa.zxpoly.TapeBlock")
+  @Label("Tape Block")
+  @Description("Tape reader moved to next block")
+  @Category({CATEGORY, "Tape"})
+  @StackTrace(false)
+  public static final class TapeBlockEvent extends Event {
+    @Label("Block")
+    public String block;
+  }
+
+  @Name("com.igormaznitsa.zxpoly.DiskIo")
+  @Label("Disk IO")
+  @Description("Sector transfer completed by disk controller")
+  @Category({CATEGORY, "Disk"})
+  @StackTrace(false)
+  public static final class DiskIoEvent extends Event {
+    @Label("Write")
+    public boolean write;
+
+    @Label("Track")
+    public int track;
+
+    @Label("Sector")
+    public int sector;
+
+    @Label("Size")
+    @DataAmount
+    public int size;
+  }
+
+  @Name("com.igormaznitsa.zxpoly.SnapshotLoad")
+  @Label("Snapshot Load")
+  @Description("Snapshot file read and applied to motherboard")
+  @Category({CATEGORY, "Snapshot"})
+  @StackTrace(false)
+  public static final class SnapshotLoadEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("Format")
+    public String format;
+
+    @Label("Size")
+    @DataAmount
+    public int size;
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.metrics;
+
+import com.igormaznitsa.zxpoly.components.Motherboard;
+import com.igormaznitsa.zxpoly.components.ZxPolyModule;
+import com.igormaznitsa.zxpoly.streamer.ZxVideoStreamer;
+import java.lang.management.ManagementFactory;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics of emulation exposed through platform MBean server, so they can be observed by
+ * standard JDK tools like JConsole or JMC.
+ */
+public final class EmulatorMetrics implements EmulatorMetricsMBean {
+
+  public static final String OBJECT_NAME = "com.igormaznitsa.zxpoly:type=EmulatorMetrics";
+  private static final Logger LOGGER = Logger.getLogger(EmulatorMetrics.class.getName());
+  private static final double NANOS_IN_MILLISECOND = 1_000_000.0d;
+
+  private final FrameStatistics frameStatistics = new FrameStatistics();
+  private final Motherboard board;
+  private final ZxVideoStreamer videoStreamer;
+  private final LongSupplier timeToFirstFrameMillis;
+
+  public EmulatorMetrics(
+      final Motherboard board,
+      final ZxVideoStreamer videoStreamer,
+      final LongSupplier timeToFirstFrameMillis
+  ) {
+    this.board = board;
+    this.videoStreamer = videoStreamer;
+    this.timeToFirstFrameMillis = timeToFirstFrameMillis;
+  }
+
+  public void register() {
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      final ObjectName name = new ObjectName(OBJECT_NAME);
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+      server.registerMBean(this, name);
+      LOGGER.info("Registered MBean " + OBJECT_NAME);
+    } catch (JMException ex) {
+      LOGGER.log(Level.WARNING, "Can't register metrics MBean: " + ex.getMessage(), ex);
+    }
+  }
+
+  public FrameStatistics getFrameStatistics() {
+    return this.frameStatistics;
+  }
+
+  @Override
+  public long getEmulatedTiStatesPerSecond() {
+    return this.frameStatistics.getTiStatesPerSecond();
+  }
+
+  @Override
+  public long getFrameCounter() {
+    return this.frameStatistics.getFrameCounter();
+  }
+
+  @Override
+  public long getLateFrameCounter() {
+    return this.frameStatistics.getLateFrameCounter();
+  }
+
+  @Override
+  public double getFrameTimeMillisP50() {
+    return this.frameStatistics.getFrameNanosPercentile(50.0d) / NANOS_IN_MILLISECOND;
+  }
+
+  @Override
+  public double getFrameTimeMillisP95() {
+    return this.frameStatistics.getFrameNanosPercentile(95.0d) / NANOS_IN_MILLISECOND;
+  }
+
+  @Override
+  public double getFrameTimeMillisP99() {
+    return this.frameStatistics.getFrameNanosPercentile(99.0d) / NANOS_IN_MILLISECOND;
+  }
+
+  @Override
+  public double getFrameTimeMillisMax() {
+    return this.frameStatistics.getFrameNanosPercentile(100.0d) / NANOS_IN_MILLISECOND;
+  }
+
+  @Override
+  public long getSpinTimeMillis() {
+    return this.frameStatistics.getTotalSpinNanos() / 1_000_000L;
+  }
+
+  @Override
+  public long getSleepTimeMillis() {
+    return this.frameStatistics.getTotalSleepNanos() / 1_000_000L;
+  }
+
+  @Override
+  public int getAudioBufferFillPercent() {
+    return this.board.getBeeper().getSoundBufferFillPercent();
+  }
+
+  @Override
+  public long getSoundUnderrunCounter() {
+    return this.board.getBeeper().getSoundUnderrunCounter();
+  }
+
+  @Override
+  public int getStreamerQueueDepth() {
+    return this.videoStreamer.getQueueDepth();
+  }
+
+  @Override
+  public long[] getModuleInstructionCounters() {
+    final ZxPolyModule[] modules = this.board.getModules();
+    final long[] result = new long[modules.length];
+    for (int i = 0; i < modules.length; i++) {
+      result[i] = modules[i].getInstructionCounter();
+    }
+    return result;
+  }
+
+  @Override
+  public long getTimeToFirstFrameMillis() {
+    return this.timeToFirstFrameMillis.getAsLong();
+  }
+
+  @Override
+  public int getZxPolyLockstepPercent() {
+    return this.board.getZxPolyLockstepPercent();
+  }
+
+  @Override
+  public int getSpec256ActiveGfxCores() {
+    return this.board.getSpec256ActiveGfxCores();
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.metrics;
+
+/**
+ * JMX view of emulation health, registered as {@value EmulatorMetrics#OBJECT_NAME}.
+ */
+public interface EmulatorMetricsMBean {
+
+  long getEmulatedTiStatesPerSecond();
+
+  long getFrameCounter();
+
+  long getLateFrameCounter();
+
+  double getFrameTimeMillisP50();
+
+  double getFrameTimeMillisP95();
+
+  double getFrameTimeMillisP99();
+
+  double getFrameTimeMillisMax();
+
+  long getSpinTimeMillis();
+
+  long getSleepTimeMillis();
+
+  int getAudioBufferFillPercent();
+
+  long getSoundUnderrunCounter();
+
+  int getStreamerQueueDepth();
+
+  long[] getModuleInstructionCounters();
+
+  long getTimeToFirstFrameMillis();
+
+  int getZxPolyLockstepPercent();
+
+  int getSpec256ActiveGfxCores();
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Statistics of emulated frames. Values are written only by emulation thread and
+ * can be read from any thread, percentiles are calculated over history of last frames.
+ */
+public final class FrameStatistics {
+
+  public static final int HISTORY_SIZE = 256;
+  private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+
+  private final long[] frameNanosHistory = new long[HISTORY_SIZE];
+  private int historyPosition;
+  private volatile int historyFilled;
+
+  private long currentFrameSleepNanos;
+  private long rateWindowStartNanos = -1L;
+  private long rateWindowTiStates;
+
+  private volatile long tiStatesPerSecond;
+  private volatile long frameCounter;
+  private volatile long lateFrameCounter;
+  private volatile long totalSpinNanos;
+  private volatile long totalSleepNanos;
+
+  /**
+   * Add time spent in sleep during waiting for wall clock in current frame.
+   *
+   * @param nanos sleep time in nanoseconds
+   */
+  public void addSleepNanos(final long nanos) {
+    this.currentFrameSleepNanos += nanos;
+  }
+
+  public void onLateFrame() {
+    this.lateFrameCounter = this.lateFrameCounter + 1;
+  }
+
+  /**
+   * Register completed frame.
+   *
+   * @param nowNanos   current value of System.nanoTime()
+   * @param frameNanos wall clock duration of the frame
+   * @param tiStates   executed t-states
+   * @param waitNanos  time spent in waiting for wall clock interrupt, includes sleep time
+   */
+  public void onFrame(final long nowNanos, final long frameNanos, final int tiStates,
+                      final long waitNanos) {
+    this.frameNanosHistory[this.historyPosition] = frameNanos;
+    this.historyPosition = (this.historyPosition + 1) % HISTORY_SIZE;
+    if (this.historyFilled < HISTORY_SIZE) {
+      this.historyFilled = this.historyFilled + 1;
+    }
+
+    final long sleepNanos = Math.min(this.currentFrameSleepNanos, waitNanos);
+    this.currentFrameSleepNanos = 0L;
+    this.totalSleepNanos = this.totalSleepNanos + sleepNanos;
+    this.totalSpinNanos = this.totalSpinNanos + (waitNanos - sleepNanos);
+    this.frameCounter = this.frameCounter + 1;
+
+    if (this.rateWindowStartNanos < 0L) {
+      this.rateWindowStartNanos = nowNanos;
+      this.rateWindowTiStates = 0L;
+    } else {
+      this.rateWindowTiStates += tiStates;
+      final long windowNanos = nowNanos - this.rateWindowStartNanos;
+      if (windowNanos >= RATE_WINDOW_NANOS) {
+        this.tiStatesPerSecond = this.rateWindowTiStates * RATE_WINDOW_NANOS / windowNanos;
+        this.rateWindowStartNanos = nowNanos;
+        this.rateWindowTiStates = 0L;
+      }
+    }
+  }
+
+  /**
+   * Get percentile of frame duration for last frames.
+   *
+   * @param percentile percentile in range 0..100
+   * @return frame duration in nanoseconds, 0 if there is no any frame
+   */
+  public long getFrameNanosPercentile(final double percentile) {
+    final int filled = this.historyFilled;
+    if (filled == 0) {
+      return 0L;
+    }
+    final long[] sorted = Arrays.copyOf(this.frameNanosHistory, filled);
+    Arrays.sort(sorted);
+    final int index = (int) Math.ceil(Math.max(0.0d, Math.min(100.0d, percentile)) / 100.0d * filled) - 1;
+    return sorted[Math.max(0, index)];
+  }
+
+  public long getTiStatesPerSecond() {
+    return this.tiStatesPerSecond;
+  }
+
+  public long getFrameCounter() {
+    return this.frameCounter;
+  }
+
+  public long getLateFrameCounter() {
+    return this.lateFrameCounter;
+  }
+
+  public long getTotalSpinNanos() {
+    return this.totalSpinNanos;
+  }
+
+  public long getTotalSleepNanos() {
+    return this.totalSleepNanos;
+  }
+}
@@ -40,6 +40,10 @@ public abstract class AbstractTcpSingleThreadServer {
     return this.id;
   }
 
+  public int getQueueSize() {
+    return this.buffer.size();
+  }
+
   protected boolean isStopped() {
     return this.stopped;
   }
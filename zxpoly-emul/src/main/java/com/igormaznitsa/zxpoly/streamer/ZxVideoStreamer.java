@@ -38,6 +38,8 @@ public final class ZxVideoStreamer {
   private volatile Beeper beeper;
   private volatile Duration delayBetweenFrameGrab;
   private volatile boolean internalEntitiesStarted;
+  private volatile int frameRateDivider = 1;
+  private int skippedFrames;
   private final Lock locker = new ReentrantLock();
 
   public ZxVideoStreamer(
@@ -81,6 +83,21 @@ public final class ZxVideoStreamer {
     return this.started.get();
   }
 
+  /**
+   * Set divider of frame grab rate, it allows to decrease load without restart of stream.
+   *
+   * @param divider divider of frame rate, 1 for full frame rate
+   */
+  public void setFrameRateDivider(final int divider) {
+    this.frameRateDivider = Math.max(1, divider);
+  }
+
+  public int getQueueDepth() {
+    final TcpWriter video = this.videoWriter;
+    final TcpWriter sound = this.soundWriter;
+    return (video == null ? 0 : video.getQueueSize()) + (sound == null ? 0 : sound.getQueueSize());
+  }
+
   public void stop() {
     if (this.started.compareAndSet(true, false)) {
       LOGGER.info("Stopping");
@@ -248,7 +265,10 @@ public final class ZxVideoStreamer {
     if (this.internalEntitiesStarted) {
       if (this.wallClock.completed()) {
         this.wallClock.next(this.delayBetweenFrameGrab);
-        this.videoWriter.write(this.videoController.grabRgb(this.rgbArray));
+        if (++this.skippedFrames >= this.frameRateDivider) {
+          this.skippedFrames = 0;
+          this.videoWriter.write(this.videoController.grabRgb(this.rgbArray));
+        }
         this.wallClock.next();
       }
     }
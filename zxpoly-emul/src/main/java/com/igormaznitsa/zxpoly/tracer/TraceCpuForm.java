@@ -6,6 +6,7 @@ import com.igormaznitsa.z80.Z80Instruction;
 import com.igormaznitsa.z80.disasm.Z80Disasm;
 import com.igormaznitsa.zxpoly.MainForm;
 import com.igormaznitsa.zxpoly.components.Motherboard;
+import com.igormaznitsa.zxpoly.components.Watchpoints;
 import com.igormaznitsa.zxpoly.components.ZxPolyModule;
 import org.apache.commons.lang3.StringUtils;
 
@@ -416,6 +417,11 @@ public class TraceCpuForm extends JFrame implements MemoryAccessProvider {
     return this.moduleIndex;
   }
 
+  public void onWatchpointHit(final Watchpoints.Hit hit) {
+    this.setTitle("CPU Module#" + this.moduleIndex + " [" + hit + ']');
+    this.refresh();
+  }
+
   public void refresh() {
     final int pc = this.module.getCpu().getPC();
 
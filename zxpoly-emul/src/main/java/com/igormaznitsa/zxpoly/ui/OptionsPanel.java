@@ -77,12 +77,18 @@ public class OptionsPanel extends JTabbedPane {
   private JLabel labelMacroCursorKeys;
   private JLabel labelTimingProfile;
   private JLabel labelTryLessResources;
+  private JLabel labelBootStateCache;
+  private JLabel labelPauseWhenHidden;
+  private JLabel labelJitWarmUp;
   private JLabel labelBorderWidth;
   private JLabel labelEmulateFFport;
   private JCheckBox checkboxActivateLowPassFilter;
   private CustomIntSlider sliderLowPassFilterValue;
   private JCheckBox checkGrabSound;
   private JCheckBox checkTryLessResources;
+  private JCheckBox checkBootStateCache;
+  private JCheckBox checkPauseWhenHidden;
+  private JCheckBox checkJitWarmUp;
   private JCheckBox checkInterlacedScan;
   private JCheckBox checkSoundSchemeACB;
   private JCheckBox checkSyncPaint;
@@ -101,9 +107,13 @@ public class OptionsPanel extends JTabbedPane {
   private JLabel labelSound;
   private JLabel labelRomSource;
   private JLabel labelIntFrame;
+  private JLabel labelRunAheadFrames;
+  private JLabel labelQualityGovernor;
   private JLabel labelFrameRate;
   private JSpinner spinnerFramesPerSec;
   private JSpinner spinnerIntFrame;
+  private JSpinner spinnerRunAheadFrames;
+  private JCheckBox checkQualityGovernor;
   private JSpinner spinnerPort;
   private JTextField textFfmpegPath;
   private JFilePathTextField textCustomRomPath;
@@ -176,6 +186,9 @@ public class OptionsPanel extends JTabbedPane {
     this.checkEmulateFFport.setSelected(data.emulateFFport);
     this.checkInterlacedScan.setSelected(data.interlacedScan);
     this.checkTryLessResources.setSelected(data.tryLessResources);
+    this.checkBootStateCache.setSelected(data.bootStateCache);
+    this.checkPauseWhenHidden.setSelected(data.pauseWhenHidden);
+    this.checkJitWarmUp.setSelected(data.jitWarmUp);
     this.checkSyncPaint.setSelected(data.syncPaint);
     this.checkOldTvFilter.setSelected(data.oldTvFilter);
     this.textCustomRomPath.setText(data.customRomPath);
@@ -189,6 +202,8 @@ public class OptionsPanel extends JTabbedPane {
     this.checkKempstonMouseAllowed.setSelected(data.kempstonMouseAllowed);
     this.spinnerPort.setValue(data.port);
     this.spinnerIntFrame.setValue(data.intPerFrame);
+    this.spinnerRunAheadFrames.setValue(data.runAheadFrames);
+    this.checkQualityGovernor.setSelected(data.qualityGovernor);
     this.textFfmpegPath.setText(data.ffmpegPath);
     this.comboNetAdddr.setSelectedItem(data.inetAddress);
     this.spinnerFramesPerSec.setValue(data.frameRate);
@@ -219,6 +234,9 @@ public class OptionsPanel extends JTabbedPane {
     labelOldTvFilter = new JLabel();
     labelTimingProfile = new JLabel();
     labelTryLessResources = new JLabel();
+    labelBootStateCache = new JLabel();
+    labelPauseWhenHidden = new JLabel();
+    labelJitWarmUp = new JLabel();
     labelBorderWidth = new JLabel();
     checkInterlacedScan = new JCheckBox();
     labelFfMpegPath = new JLabel();
@@ -239,6 +257,10 @@ public class OptionsPanel extends JTabbedPane {
     labelSyncPaint = new JLabel();
     comboRomSource = new JComboBox<>();
     spinnerIntFrame = new JSpinner();
+    labelRunAheadFrames = new JLabel();
+    spinnerRunAheadFrames = new JSpinner();
+    labelQualityGovernor = new JLabel();
+    checkQualityGovernor = new JCheckBox();
     labelCovoxFb = new JLabel();
     checkCovoxFb = new JCheckBox();
     labelUlaPlus = new JLabel();
@@ -257,6 +279,9 @@ public class OptionsPanel extends JTabbedPane {
     checkSyncPaint = new JCheckBox();
     checkOldTvFilter = new JCheckBox();
     checkTryLessResources = new JCheckBox();
+    checkBootStateCache = new JCheckBox();
+    checkPauseWhenHidden = new JCheckBox();
+    checkJitWarmUp = new JCheckBox();
     checkVkbdApart = new JCheckBox();
     comboKeyboardLook = new JComboBox<>(VirtualKeyboardLook.values());
     comboVolumeProfile = new JComboBox<>(VolumeProfile.values());
@@ -406,6 +431,36 @@ public class OptionsPanel extends JTabbedPane {
     gridBagConstraints.anchor = GridBagConstraints.WEST;
     panelScreen.add(checkUlaPlus, gridBagConstraints);
 
+    labelRunAheadFrames.setHorizontalAlignment(RIGHT);
+    labelRunAheadFrames.setText("Run-ahead frames:");
+    gridBagConstraints = new GridBagConstraints();
+    gridBagConstraints.gridx = 0;
+    gridBagConstraints.gridy = 7;
+    gridBagConstraints.fill = GridBagConstraints.HORIZONTAL;
+    panelScreen.add(labelRunAheadFrames, gridBagConstraints);
+
+    spinnerRunAheadFrames.setModel(new javax.swing.SpinnerNumberModel(0, 0, 2, 1));
+    gridBagConstraints = new GridBagConstraints();
+    gridBagConstraints.gridx = 1;
+    gridBagConstraints.gridy = 7;
+    gridBagConstraints.anchor = GridBagConstraints.WEST;
+    panelScreen.add(spinnerRunAheadFrames, gridBagConstraints);
+
+    labelQualityGovernor.setHorizontalAlignment(RIGHT);
+    labelQualityGovernor.setText("Adaptive quality:");
+    gridBagConstraints = new GridBagConstraints();
+    gridBagConstraints.gridx = 0;
+    gridBagConstraints.gridy = 8;
+    gridBagConstraints.fill = GridBagConstraints.HORIZONTAL;
+    panelScreen.add(labelQualityGovernor, gridBagConstraints);
+
+    gridBagConstraints = new GridBagConstraints();
+    gridBagConstraints.gridx = 1;
+    gridBagConstraints.gridy = 8;
+    gridBagConstraints.fill = GridBagConstraints.HORIZONTAL;
+    gridBagConstraints.anchor = GridBagConstraints.WEST;
+    panelScreen.add(checkQualityGovernor, gridBagConstraints);
+
     panelSound.setLayout(new GridBagLayout());
 
     labelTurboSound.setHorizontalAlignment(RIGHT);
@@ -692,6 +747,48 @@ public class OptionsPanel extends JTabbedPane {
     gridBagConstraints.anchor = GridBagConstraints.WEST;
     panelGeneral.add(checkTryLessResources, gridBagConstraints);
 
+    labelBootStateCache.setHorizontalAlignment(RIGHT);
+    labelBootStateCache.setText("Cache boot state:");
+    gridBagConstraints = new GridBagConstraints();
+    gridBagConstraints.gridx = 0;
+    gridBagConstraints.gridy = 9;
+    gridBagConstraints.fill = GridBagConstraints.HORIZONTAL;
+    panelGeneral.add(labelBootStateCache, gridBagConstraints);
+    gridBagConstraints = new GridBagConstraints();
+    gridBagConstraints.gridx = 1;
+    gridBagConstraints.gridy = 9;
+    gridBagConstraints.fill = GridBagConstraints.HORIZONTAL;
+    gridBagConstraints.anchor = GridBagConstraints.WEST;
+    panelGeneral.add(checkBootStateCache, gridBagConstraints);
+
+    labelPauseWhenHidden.setHorizontalAlignment(RIGHT);
+    labelPauseWhenHidden.setText("Pause if minimized:");
+    gridBagConstraints = new GridBagConstraints();
+    gridBagConstraints.gridx = 0;
+    gridBagConstraints.gridy = 10;
+    gridBagConstraints.fill = GridBagConstraints.HORIZONTAL;
+    panelGeneral.add(labelPauseWhenHidden, gridBagConstraints);
+    gridBagConstraints = new GridBagConstraints();
+    gridBagConstraints.gridx = 1;
+    gridBagConstraints.gridy = 10;
+    gridBagConstraints.fill = GridBagConstraints.HORIZONTAL;
+    gridBagConstraints.anchor = GridBagConstraints.WEST;
+    panelGeneral.add(checkPauseWhenHidden, gridBagConstraints);
+
+    labelJitWarmUp.setHorizontalAlignment(RIGHT);
+    labelJitWarmUp.setText("Warm-up on start:");
+    gridBagConstraints = new GridBagConstraints();
+    gridBagConstraints.gridx = 0;
+    gridBagConstraints.gridy = 11;
+    gridBagConstraints.fill = GridBagConstraints.HORIZONTAL;
+    panelGeneral.add(labelJitWarmUp, gridBagConstraints);
+    gridBagConstraints = new GridBagConstraints();
+    gridBagConstraints.gridx = 1;
+    gridBagConstraints.gridy = 11;
+    gridBagConstraints.fill = GridBagConstraints.HORIZONTAL;
+    gridBagConstraints.anchor = GridBagConstraints.WEST;
+    panelGeneral.add(checkJitWarmUp, gridBagConstraints);
+
     final JPanel panelKempston = new JPanel(new GridBagLayout());
     panelKempston.setBorder(createTitledBorder("Kempston joystick"));
 
@@ -820,6 +917,8 @@ public class OptionsPanel extends JTabbedPane {
     public final boolean grabSound;
     public final String activeRom;
     public final int intPerFrame;
+    public final int runAheadFrames;
+    public final boolean qualityGovernor;
     public final int frameRate;
     public final boolean covoxFb;
     public final boolean ulaPlus;
@@ -830,6 +929,9 @@ public class OptionsPanel extends JTabbedPane {
     public final boolean autoCsForCursorKeys;
     public final boolean interlacedScan;
     public final boolean tryLessResources;
+    public final boolean bootStateCache;
+    public final boolean pauseWhenHidden;
+    public final boolean jitWarmUp;
     public final boolean syncPaint;
     public final boolean oldTvFilter;
     public final boolean emulateFFport;
@@ -861,6 +963,9 @@ public class OptionsPanel extends JTabbedPane {
       this.customRomPath = customRomPath == null ? "" : customRomPath;
       this.interlacedScan = AppOptions.getInstance().isInterlacedScan();
       this.tryLessResources = AppOptions.getInstance().isTryLessResources();
+      this.bootStateCache = AppOptions.getInstance().isBootStateCache();
+      this.pauseWhenHidden = AppOptions.getInstance().isPauseWhenHidden();
+      this.jitWarmUp = AppOptions.getInstance().isJitWarmUp();
       this.oldTvFilter = AppOptions.getInstance().isOldColorTvOnStart();
       this.soundSchemeAcb = AppOptions.getInstance().isSoundChannelsACB();
       this.autoCsForCursorKeys = AppOptions.getInstance().getAutoCsForCursorKeys();
@@ -868,6 +973,8 @@ public class OptionsPanel extends JTabbedPane {
       this.vkdApart = AppOptions.getInstance().isVkbdApart();
       this.activeRom = AppOptions.getInstance().getActiveRom();
       this.intPerFrame = AppOptions.getInstance().getIntBetweenFrames();
+      this.runAheadFrames = AppOptions.getInstance().getRunAheadFrames();
+      this.qualityGovernor = AppOptions.getInstance().isQualityGovernor();
       this.port = AppOptions.getInstance().getPort();
       this.volumeProfile = AppOptions.getInstance().getVolumeProfile();
       this.inetAddress = AppOptions.getInstance().getAddress();
@@ -905,6 +1012,9 @@ public class OptionsPanel extends JTabbedPane {
 
       this.interlacedScan = optionsPanel.checkInterlacedScan.isSelected();
       this.tryLessResources = optionsPanel.checkTryLessResources.isSelected();
+      this.bootStateCache = optionsPanel.checkBootStateCache.isSelected();
+      this.pauseWhenHidden = optionsPanel.checkPauseWhenHidden.isSelected();
+      this.jitWarmUp = optionsPanel.checkJitWarmUp.isSelected();
       this.oldTvFilter = optionsPanel.checkOldTvFilter.isSelected();
 
       this.lpfValue = optionsPanel.sliderLowPassFilterValue.getValue();
@@ -918,6 +1028,8 @@ public class OptionsPanel extends JTabbedPane {
       this.vkdApart = optionsPanel.checkVkbdApart.isSelected();
       this.activeRom = rom.getLink();
       this.intPerFrame = (Integer) optionsPanel.spinnerIntFrame.getValue();
+      this.runAheadFrames = (Integer) optionsPanel.spinnerRunAheadFrames.getValue();
+      this.qualityGovernor = optionsPanel.checkQualityGovernor.isSelected();
       this.ffmpegPath = optionsPanel.textFfmpegPath.getText();
       this.port = (Integer) optionsPanel.spinnerPort.getValue();
       this.grabSound = optionsPanel.checkGrabSound.isSelected();
@@ -951,6 +1063,9 @@ public class OptionsPanel extends JTabbedPane {
       AppOptions.getInstance().setBorderWidth(this.borderWidth);
       AppOptions.getInstance().setInterlacedScan(this.interlacedScan);
       AppOptions.getInstance().setTryLessResources(this.tryLessResources);
+      AppOptions.getInstance().setBootStateCache(this.bootStateCache);
+      AppOptions.getInstance().setPauseWhenHidden(this.pauseWhenHidden);
+      AppOptions.getInstance().setJitWarmUp(this.jitWarmUp);
       AppOptions.getInstance().setOldColorTvOnStart(this.oldTvFilter);
       AppOptions.getInstance().setAutoCsForCursorKeys(this.autoCsForCursorKeys);
       AppOptions.getInstance().setCustomRomPath(this.customRomPath);
@@ -963,6 +1078,8 @@ public class OptionsPanel extends JTabbedPane {
       AppOptions.getInstance().setCovoxFb(this.covoxFb);
       AppOptions.getInstance().setUlaPlus(this.ulaPlus);
       AppOptions.getInstance().setIntBetweenFrames(this.intPerFrame);
+      AppOptions.getInstance().setRunAheadFrames(this.runAheadFrames);
+      AppOptions.getInstance().setQualityGovernor(this.qualityGovernor);
       AppOptions.getInstance().setPort(this.port);
       AppOptions.getInstance().setAddress(this.inetAddress);
       AppOptions.getInstance().setFrameRate(this.frameRate);
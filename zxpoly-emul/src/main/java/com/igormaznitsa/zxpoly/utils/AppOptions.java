@@ -753,6 +753,96 @@ public final class AppOptions {
     }
   }
 
+  public int getRunAheadFrames() {
+    this.locker.lock();
+    try {
+      return preferences.getInt(Option.RUN_AHEAD_FRAMES.name(), 0);
+    } finally {
+      this.locker.unlock();
+    }
+  }
+
+  public void setRunAheadFrames(final int value) {
+    this.locker.lock();
+    try {
+      preferences.putInt(Option.RUN_AHEAD_FRAMES.name(), Math.max(0, Math.min(2, value)));
+    } finally {
+      this.locker.unlock();
+    }
+  }
+
+  public boolean isBootStateCache() {
+    this.locker.lock();
+    try {
+      return preferences.getBoolean(Option.BOOT_STATE_CACHE.name(), true);
+    } finally {
+      this.locker.unlock();
+    }
+  }
+
+  public void setBootStateCache(final boolean value) {
+    this.locker.lock();
+    try {
+      preferences.putBoolean(Option.BOOT_STATE_CACHE.name(), value);
+    } finally {
+      this.locker.unlock();
+    }
+  }
+
+  public boolean isJitWarmUp() {
+    this.locker.lock();
+    try {
+      return preferences.getBoolean(Option.JIT_WARM_UP.name(), false);
+    } finally {
+      this.locker.unlock();
+    }
+  }
+
+  public void setJitWarmUp(final boolean value) {
+    this.locker.lock();
+    try {
+      preferences.putBoolean(Option.JIT_WARM_UP.name(), value);
+    } finally {
+      this.locker.unlock();
+    }
+  }
+
+  public boolean isQualityGovernor() {
+    this.locker.lock();
+    try {
+      return preferences.getBoolean(Option.QUALITY_GOVERNOR.name(), false);
+    } finally {
+      this.locker.unlock();
+    }
+  }
+
+  public void setQualityGovernor(final boolean value) {
+    this.locker.lock();
+    try {
+      preferences.putBoolean(Option.QUALITY_GOVERNOR.name(), value);
+    } finally {
+      this.locker.unlock();
+    }
+  }
+
+  public boolean isPauseWhenHidden() {
+    this.locker.lock();
+    try {
+      return preferences.getBoolean(Option.PAUSE_WHEN_HIDDEN.name(), false);
+    } finally {
+      this.locker.unlock();
+    }
+  }
+
+  public void setPauseWhenHidden(final boolean value) {
+    this.locker.lock();
+    try {
+      preferences.putBoolean(Option.PAUSE_WHEN_HIDDEN.name(), value);
+    } finally {
+      this.locker.unlock();
+    }
+  }
+
   public int getCursorJoystickDown() {
     this.locker.lock();
     try {
@@ -1038,6 +1128,10 @@ public final class AppOptions {
     return new File(this.getAppConfigFolder(), "cache");
   }
 
+  public File getBootStateCacheFolder() {
+    return new File(this.getRomCacheFolder(), "boot");
+  }
+
   public enum Option {
     LPF_ACTIVE,
     LPF_VALUE,
@@ -1084,7 +1178,12 @@ public final class AppOptions {
     TRY_LESS_RESOURCES,
     LAST_SNAPSHOT_FOLDER,
     LAST_DISK_FOLDER,
-    LAST_TAP_FOLDER
+    LAST_TAP_FOLDER,
+    RUN_AHEAD_FRAMES,
+    BOOT_STATE_CACHE,
+    PAUSE_WHEN_HIDDEN,
+    QUALITY_GOVERNOR,
+    JIT_WARM_UP
   }
 
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.utils;
+
+import com.igormaznitsa.zxpoly.Version;
+import com.igormaznitsa.zxpoly.components.BoardMode;
+import com.igormaznitsa.zxpoly.components.KeyboardKempstonAndTapeIn;
+import com.igormaznitsa.zxpoly.components.Motherboard;
+import com.igormaznitsa.zxpoly.components.RomData;
+import com.igormaznitsa.zxpoly.components.betadisk.BetaDiscInterface;
+import com.igormaznitsa.zxpoly.components.tapereader.TapeSource;
+import com.igormaznitsa.zxpoly.formats.FormatSZX;
+import com.igormaznitsa.zxpoly.formats.FormatZXP;
+import com.igormaznitsa.zxpoly.formats.Snapshot;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cache of machine states captured after boot of ROM, states are stored on disk and keyed
+ * by ROM hash, board mode, timing profile and emulator version. After reset the cached state is
+ * restored instantly and if there is no cached state then real boot is made and its result is
+ * captured. Boot is processed with frame granularity. Any mismatch or error leads to real boot.
+ * All methods except {@link #requestBoot(RomData)} and {@link #cancel()} must be called from
+ * emulation thread.
+ */
+public final class BootStateCache {
+
+  private static final Logger LOGGER = Logger.getLogger(BootStateCache.class.getName());
+
+  private static final byte[] MAGIC = new byte[] {'Z', 'X', 'B', 'S'};
+  private static final String EXTENSION = ".zxboot";
+
+  /**
+   * Number of frames after reset when boot is considered completed, enough for 128K RAM test.
+   */
+  private static final int BOOT_FRAMES = 200;
+
+  private final File folder;
+  private final AtomicReference<RomData> requestedRom = new AtomicReference<>();
+  private final AtomicBoolean cancelRequested = new AtomicBoolean();
+
+  private Stage stage = Stage.IDLE;
+  private RomData rom;
+  private BoardMode mode;
+  private Snapshot format;
+  private String key;
+  private long captureFrame;
+  private boolean restoreFailed;
+
+  public BootStateCache(final File folder) {
+    this.folder = folder;
+  }
+
+  private static Snapshot findFormat(final BoardMode mode) {
+    switch (mode) {
+      case ZXPOLY:
+        return new FormatZXP();
+      case ZX128:
+        return new FormatSZX();
+      default:
+        return null;
+    }
+  }
+
+  private static String makeRomHash(final RomData rom) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-256").digest(rom.getAsArray());
+      final StringBuilder result = new StringBuilder(digest.length * 2);
+      for (final byte b : digest) {
+        result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return result.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new Error("SHA-256 is not supported", ex);
+    }
+  }
+
+  /**
+   * Notify that board reset has been requested for ROM.
+   *
+   * @param rom ROM to be booted, must not be null
+   */
+  public void requestBoot(final RomData rom) {
+    this.cancelRequested.set(false);
+    this.requestedRom.set(rom);
+  }
+
+  /**
+   * Cancel boot processing, for instance because snapshot is loaded.
+   */
+  public void cancel() {
+    this.requestedRom.set(null);
+    this.cancelRequested.set(true);
+  }
+
+  /**
+   * Process boot state, must be called once per frame at frame boundary.
+   *
+   * @param board board, must not be null
+   */
+  public void onFrame(final Motherboard board) {
+    if (this.stage == Stage.IDLE && this.requestedRom.get() == null) {
+      return;
+    }
+
+    if (this.cancelRequested.getAndSet(false)) {
+      this.stage = Stage.IDLE;
+      return;
+    }
+
+    final RomData requested = this.requestedRom.getAndSet(null);
+    if (requested != null) {
+      this.rom = requested;
+      this.restoreFailed = false;
+      this.stage = Stage.WAIT_RESET;
+    }
+
+    switch (this.stage) {
+      case WAIT_RESET: {
+        if (!board.isResetInProgress()) {
+          this.onResetCompleted(board);
+        }
+      }
+      break;
+      case CAPTURE: {
+        if (!this.isCaptureAllowed(board)) {
+          LOGGER.info("Boot state capture canceled");
+          this.stage = Stage.IDLE;
+        } else if (board.getFrameCounter() >= this.captureFrame) {
+          this.save(board);
+          this.stage = Stage.IDLE;
+        }
+      }
+      break;
+      default:
+        break;
+    }
+  }
+
+  private void onResetCompleted(final Motherboard board) {
+    this.mode = board.getBoardMode();
+    this.format = findFormat(this.mode);
+    if (this.format == null) {
+      this.stage = Stage.IDLE;
+      return;
+    }
+    final String romHash = makeRomHash(this.rom);
+    this.key = romHash + '_' + this.mode.name() + '_' + board.getTimingProfile().name() + '_'
+        + Version.APPLICATION_VERSION;
+
+    if (!this.restoreFailed && this.restore(board, romHash)) {
+      this.stage = Stage.IDLE;
+    } else if (!board.isResetInProgress()) {
+      this.stage = Stage.CAPTURE;
+      this.captureFrame = board.getFrameCounter() + BOOT_FRAMES;
+    }
+  }
+
+  private File makeFile(final String romHash) {
+    return new File(this.folder, romHash.substring(0, 16) + '_' + this.mode.name() + '_'
+        + this.format.getExtension() + EXTENSION);
+  }
+
+  private boolean isCaptureAllowed(final Motherboard board) {
+    if (board.getBoardMode() != this.mode || board.getInputJournal() != null) {
+      return false;
+    }
+    final BetaDiscInterface betaDisk = board.getBetaDiskInterface();
+    if (betaDisk != null && betaDisk.isActive()) {
+      return false;
+    }
+    final KeyboardKempstonAndTapeIn keyboard =
+        board.findIoDevice(KeyboardKempstonAndTapeIn.class);
+    final TapeSource<?> tape = keyboard.getTap();
+    return keyboard.isInputIdle() && (tape == null || !tape.isPlaying());
+  }
+
+  private boolean restore(final Motherboard board, final String romHash) {
+    final File file = this.makeFile(romHash);
+    if (!file.isFile()) {
+      return false;
+    }
+    try {
+      final byte[] data = Files.readAllBytes(file.toPath());
+      final byte[] keyData = this.key.getBytes(StandardCharsets.UTF_8);
+      final int headerLength = MAGIC.length + 2 + keyData.length;
+      if (data.length <= headerLength
+          || !Arrays.equals(MAGIC, 0, MAGIC.length, data, 0, MAGIC.length)
+          || ((data[MAGIC.length] & 0xFF) << 8 | (data[MAGIC.length + 1] & 0xFF)) != keyData.length
+          || !Arrays.equals(keyData, 0, keyData.length, data, MAGIC.length + 2, headerLength)) {
+        LOGGER.info("Boot state mismatch, real boot: " + file.getName());
+        return false;
+      }
+      this.format.loadFromArray(file, board, board.getVideoController(),
+          Arrays.copyOfRange(data, headerLength, data.length));
+      LOGGER.info("Restored boot state: " + file.getName());
+      return true;
+    } catch (Exception ex) {
+      LOGGER.log(Level.WARNING, "Can't restore boot state, real boot: " + file.getName(), ex);
+      if (!file.delete()) {
+        LOGGER.warning("Can't delete boot state file: " + file);
+      }
+      this.restoreFailed = true;
+      board.reset();
+      return false;
+    }
+  }
+
+  private void save(final Motherboard board) {
+    final File file = this.makeFile(makeRomHash(this.rom));
+    try {
+      final byte[] keyData = this.key.getBytes(StandardCharsets.UTF_8);
+      final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256 * 1024);
+      final DataOutputStream out = new DataOutputStream(buffer);
+      out.write(MAGIC);
+      out.writeShort(keyData.length);
+      out.write(keyData);
+      out.write(this.format.saveToArray(board, board.getVideoController()));
+      out.flush();
+
+      if (!this.folder.isDirectory() && !this.folder.mkdirs()) {
+        throw new IOException("Can't create folder: " + this.folder);
+      }
+      Files.write(file.toPath(), buffer.toByteArray());
+      LOGGER.info("Saved boot state: " + file.getName());
+    } catch (Exception ex) {
+      LOGGER.log(Level.WARNING, "Can't save boot state: " + file.getName(), ex);
+    }
+  }
+
+  private enum Stage {
+    IDLE,
+    WAIT_RESET,
+    CAPTURE
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.utils;
+
+import com.igormaznitsa.zxpoly.components.Motherboard;
+import com.igormaznitsa.zxpoly.components.video.VideoController;
+import com.igormaznitsa.zxpoly.components.video.timings.TimingProfile;
+import java.time.Duration;
+import java.util.logging.Logger;
+
+/**
+ * Warm-up of JIT compiler. Emulation of some frames on a scratch board before the first live
+ * frame forces compilation of CPU, memory access and video fill routines, so frame pacing is
+ * stable from the first displayed frame. Duration of warm-up is bounded to keep start short.
+ */
+public final class JitWarmUp {
+
+  public static final int FRAMES = 250;
+  public static final Duration MAX_DURATION = Duration.ofMillis(1500);
+  private static final Logger LOGGER = Logger.getLogger(JitWarmUp.class.getName());
+
+  private JitWarmUp() {
+  }
+
+  /**
+   * Emulate frames on scratch board, board is initialized and reset before start and disposed
+   * after end.
+   *
+   * @param scratchBoard  board to be used for warm-up, must not be shared
+   * @param timingProfile timing profile of the board
+   * @param frames        max number of frames
+   * @param maxDuration   max wall clock duration of warm-up
+   * @return number of emulated frames
+   */
+  public static int run(
+      final Motherboard scratchBoard,
+      final TimingProfile timingProfile,
+      final int frames,
+      final Duration maxDuration
+  ) {
+    final long start = System.nanoTime();
+    final long deadline = start + maxDuration.toNanos();
+    final VideoController video = scratchBoard.getVideoController();
+
+    int frame = 0;
+    try {
+      scratchBoard.findIoDevices().forEach(device -> device.init(true));
+      scratchBoard.reset();
+      while (frame < frames && System.nanoTime() < deadline
+          && !Thread.currentThread().isInterrupted()) {
+        while (scratchBoard.getFrameTiStates() < timingProfile.tstatesFrame) {
+          scratchBoard.step(false, false, false, false, true);
+        }
+        scratchBoard.step(true, true, false, true, true);
+        video.syncUpdateBuffer(0, VideoController.ZXSCREEN_ROWS,
+            VideoController.LineRenderMode.ALL);
+        video.copyWorkScreenToOutputScreen(0, 0, VideoController.ZXSCREEN_COLS,
+            VideoController.ZXSCREEN_ROWS);
+        video.publishOutputScreen();
+        frame++;
+      }
+    } finally {
+      scratchBoard.dispose();
+    }
+    LOGGER.info(String.format("JIT warm-up completed, %d frame(s) in %d ms", frame,
+        (System.nanoTime() - start) / 1_000_000L));
+    return frame;
+  }
+}
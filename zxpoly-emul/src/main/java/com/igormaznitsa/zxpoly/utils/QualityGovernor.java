@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.utils;
+
+/**
+ * Governor of optional rendering features. It counts late frames in windows of frames and
+ * steps down quality one feature per window with sustained overruns, quality is stepped
+ * back up after several windows without late frames. Methods are called from emulation
+ * thread, current level can be read from any thread.
+ */
+public final class QualityGovernor {
+
+  public static final int WINDOW_FRAMES = 50;
+  public static final int STEP_DOWN_LATE_FRAMES = 5;
+  public static final int STEP_UP_CALM_WINDOWS = 5;
+
+  private final boolean enabled;
+  private int windowFrames;
+  private int windowLateFrames;
+  private int calmWindows;
+  private volatile Feature reduced = Feature.NONE;
+
+  public QualityGovernor(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  public void onLateFrame() {
+    this.windowLateFrames++;
+  }
+
+  /**
+   * Register completed frame.
+   *
+   * @return true if level of quality has been changed
+   */
+  public boolean onFrame() {
+    if (!this.enabled || ++this.windowFrames < WINDOW_FRAMES) {
+      return false;
+    }
+    final int late = this.windowLateFrames;
+    this.windowFrames = 0;
+    this.windowLateFrames = 0;
+
+    final Feature current = this.reduced;
+    if (late >= STEP_DOWN_LATE_FRAMES) {
+      this.calmWindows = 0;
+      if (current.ordinal() < Feature.values().length - 1) {
+        this.reduced = Feature.values()[current.ordinal() + 1];
+        return true;
+      }
+    } else if (late == 0) {
+      if (current != Feature.NONE && ++this.calmWindows >= STEP_UP_CALM_WINDOWS) {
+        this.calmWindows = 0;
+        this.reduced = Feature.values()[current.ordinal() - 1];
+        return true;
+      }
+    } else {
+      this.calmWindows = 0;
+    }
+    return false;
+  }
+
+  public void reset() {
+    this.windowFrames = 0;
+    this.windowLateFrames = 0;
+    this.calmWindows = 0;
+    this.reduced = Feature.NONE;
+  }
+
+  /**
+   * Get the last reduced feature, all features with lower ordinal are reduced too.
+   *
+   * @return the last reduced feature, NONE if full quality
+   */
+  public Feature getReduced() {
+    return this.reduced;
+  }
+
+  public boolean isReduced(final Feature feature) {
+    return feature != Feature.NONE && this.reduced.ordinal() >= feature.ordinal();
+  }
+
+  /**
+   * Optional features in order of reduction.
+   */
+  public enum Feature {
+    NONE,
+    TV_FILTERS,
+    /**
+     * Border is filled once per frame instead of rendering by emulation steps.
+     */
+    BORDER_DETAIL,
+    SPEC256_BACKGROUND,
+    ANIMATION_FRAME_RATE,
+    /**
+     * Frame grab rate of streamer is halved. Resolution of stream can't be lowered because it
+     * is fixed by running ffmpeg process and change requires restart which breaks connected
+     * clients, lower grab rate decreases grab and encoding load in the same way.
+     */
+    STREAMER_FRAME_RATE
+  }
+}
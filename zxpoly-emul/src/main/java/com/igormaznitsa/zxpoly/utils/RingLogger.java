@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2014-2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.zxpoly.utils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Allocation-free logging facade for emulation thread. Producer puts preallocated event and
+ * primitive arguments into a ring buffer without locks, records are formatted and sent to
+ * java.util.logging by a background thread. If the buffer is full then records are dropped
+ * and number of lost records is logged later.
+ */
+public final class RingLogger {
+
+  public static final int DEFAULT_CAPACITY = 1024;
+  private static final Duration DRAIN_PERIOD = Duration.ofMillis(50);
+  private static final Logger LOGGER = Logger.getLogger(RingLogger.class.getName());
+  private static final RingLogger INSTANCE = new RingLogger(DEFAULT_CAPACITY).startDrainThread();
+
+  private final int mask;
+  private final Event[] events;
+  private final long[] args;
+  private final Object[] refs;
+  private final AtomicLongArray published;
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong lost = new AtomicLong();
+  private volatile long tail;
+
+  public RingLogger(final int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be power of two: " + capacity);
+    }
+    this.mask = capacity - 1;
+    this.events = new Event[capacity];
+    this.args = new long[capacity * 4];
+    this.refs = new Object[capacity * 2];
+    this.published = new AtomicLongArray(capacity);
+  }
+
+  public static RingLogger getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Make event which message is formatted by {@link String#format(String, Object...)},
+   * arguments are provided in order: four long values and two object references.
+   *
+   * @param logger  target logger
+   * @param level   level of messages
+   * @param pattern format pattern
+   * @return created event
+   */
+  public static Event event(final Logger logger, final Level level, final String pattern) {
+    return new Event(logger, level,
+        (a, b, c, d, ref1, ref2) -> String.format(pattern, a, b, c, d, ref1, ref2));
+  }
+
+  public static Event event(final Logger logger, final Level level,
+                            final MessageFormatter formatter) {
+    return new Event(logger, level, formatter);
+  }
+
+  private RingLogger startDrainThread() {
+    final Thread thread = new Thread(() -> {
+      while (!Thread.currentThread().isInterrupted()) {
+        this.drain();
+        LockSupport.parkNanos(DRAIN_PERIOD.toNanos());
+      }
+    }, "zxp-ring-logger");
+    thread.setDaemon(true);
+    thread.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "zxp-ring-logger-flush"));
+    return this;
+  }
+
+  public void log(final Event event) {
+    this.log(event, 0L, 0L, 0L, 0L, null, null);
+  }
+
+  public void log(final Event event, final long a) {
+    this.log(event, a, 0L, 0L, 0L, null, null);
+  }
+
+  public void log(final Event event, final long a, final long b) {
+    this.log(event, a, b, 0L, 0L, null, null);
+  }
+
+  public void log(final Event event, final long a, final long b, final long c) {
+    this.log(event, a, b, c, 0L, null, null);
+  }
+
+  public void log(final Event event, final long a, final long b, final long c, final long d,
+                  final Object ref1, final Object ref2) {
+    if (!event.logger.isLoggable(event.level)) {
+      return;
+    }
+    long seq;
+    do {
+      seq = this.head.get();
+      if (seq - this.tail > this.mask) {
+        this.lost.incrementAndGet();
+        return;
+      }
+    } while (!this.head.compareAndSet(seq, seq + 1));
+
+    final int index = (int) seq & this.mask;
+    this.events[index] = event;
+    final int argsOffset = index << 2;
+    this.args[argsOffset] = a;
+    this.args[argsOffset + 1] = b;
+    this.args[argsOffset + 2] = c;
+    this.args[argsOffset + 3] = d;
+    this.refs[index << 1] = ref1;
+    this.refs[(index << 1) + 1] = ref2;
+    this.published.lazySet(index, seq + 1);
+  }
+
+  /**
+   * Format and send all published records to their loggers.
+   *
+   * @return number of processed records
+   */
+  public synchronized int drain() {
+    int counter = 0;
+    long position = this.tail;
+    while (true) {
+      final int index = (int) position & this.mask;
+      if (this.published.get(index) != position + 1) {
+        break;
+      }
+      final Event event = this.events[index];
+      final int argsOffset = index << 2;
+      final Object ref1 = this.refs[index << 1];
+      final Object ref2 = this.refs[(index << 1) + 1];
+      String message;
+      try {
+        message = event.formatter.format(this.args[argsOffset], this.args[argsOffset + 1],
+            this.args[argsOffset + 2], this.args[argsOffset + 3], ref1, ref2);
+      } catch (RuntimeException ex) {
+        message = "Can't format log record: " + ex;
+      }
+      this.events[index] = null;
+      this.refs[index << 1] = null;
+      this.refs[(index << 1) + 1] = null;
+      position++;
+      this.tail = position;
+      event.logger.log(event.level, message);
+      counter++;
+    }
+
+    final long lostRecords = this.lost.getAndSet(0L);
+    if (lostRecords > 0L) {
+      LOGGER.warning("Lost " + lostRecords + " log record(s) because of full buffer");
+    }
+    return counter;
+  }
+
+  @FunctionalInterface
+  public interface MessageFormatter {
+    String format(long a, long b, long c, long d, Object ref1, Object ref2);
+  }
+
+  /**
+   * Preallocated log event, it should be created once and kept in a field.
+   */
+  public static final class Event {
+    private final Logger logger;
+    private final Level level;
+    private final MessageFormatter formatter;
+
+    private Event(final Logger logger, final Level level, final MessageFormatter formatter) {
+      this.logger = logger;
+      this.level = level;
+      this.formatter = formatter;
+    }
+  }
+}
@@ -25,13 +25,15 @@ public final class Timer {
     this.timeout = this.start + delay.toNanos();
   }
 
-  public void sleep() {
+  public boolean sleep() {
     if (this.sleepDelay > 0L) {
       final long nanos = this.timeout - System.nanoTime();
       if (nanos > this.sleepDelay) {
         LockSupport.parkNanos(this.sleepDelay);
+        return true;
       }
     }
+    return false;
   }
 
   public void next() {
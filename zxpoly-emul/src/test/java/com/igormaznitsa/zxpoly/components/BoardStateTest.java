@@ -0,0 +1,172 @@
+package com.igormaznitsa.zxpoly.components;
+
+import com.igormaznitsa.z80.Z80;
+import com.igormaznitsa.zxpoly.components.sound.VolumeProfile;
+import com.igormaznitsa.zxpoly.components.video.BorderWidth;
+import com.igormaznitsa.zxpoly.components.video.VirtualKeyboardLook;
+import com.igormaznitsa.zxpoly.components.video.timings.TimingProfile;
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class BoardStateTest extends TestCase {
+
+  // LD HL,#8000; loop: INC (HL); LD A,(HL); OUT (#FE),A; INC HL; SET 7,H; JR loop
+  private static final byte[] PROGRAM = new byte[] {0x21, 0x00, (byte) 0x80, 0x34, 0x7E,
+      (byte) 0xD3, (byte) 0xFE, 0x23, (byte) 0xCB, (byte) 0xFC, 0x18, (byte) 0xF7};
+
+  private static Motherboard makeBoard() throws IOException {
+    final byte[] rom = new byte[0x8000];
+    System.arraycopy(PROGRAM, 0, rom, 0, PROGRAM.length);
+    System.arraycopy(PROGRAM, 0, rom, 0x4000, PROGRAM.length);
+    final Motherboard board = new Motherboard(BorderWidth.FULL, VolumeProfile.LINEAR,
+        TimingProfile.SPECTRUM128, new RomData("test", rom), null, BoardMode.ZX128, false, false,
+        false, false, false, false, VirtualKeyboardLook.DEFAULT.load(), false, false,
+        MachineMemory.allocate());
+    board.findIoDevices().forEach(d -> d.init(true));
+    board.reset();
+    return board;
+  }
+
+  private static Z80[] copyCpus(final Motherboard board) {
+    return Arrays.stream(board.getModules()).map(m -> new Z80(m.getCpu())).toArray(Z80[]::new);
+  }
+
+  private static void assertSameFields(final String path, final Object expected,
+                                       final Object actual) throws IllegalAccessException {
+    if (expected == actual) {
+      // shared objects like listeners of devices
+      return;
+    }
+    if (expected == null || actual == null) {
+      assertSame(path, expected, actual);
+    } else if (expected instanceof Z80) {
+      assertTrue(path, ((Z80) expected).isSameState((Z80) actual));
+    } else if (expected.getClass().isArray()) {
+      assertEquals(path + ".length", Array.getLength(expected), Array.getLength(actual));
+      for (int i = 0; i < Array.getLength(expected); i++) {
+        assertSameFields(path + '[' + i + ']', Array.get(expected, i), Array.get(actual, i));
+      }
+    } else if (expected instanceof Number || expected instanceof Boolean
+        || expected instanceof Character || expected instanceof Enum
+        || expected instanceof String) {
+      assertEquals(path, expected, actual);
+    } else if (!expected.getClass().getName().startsWith("com.igormaznitsa.")) {
+      // library containers like atomics show their content in string form
+      assertEquals(path, String.valueOf(expected), String.valueOf(actual));
+    } else {
+      assertSame(path, expected.getClass(), actual.getClass());
+      for (Class<?> type = expected.getClass(); type != Object.class;
+           type = type.getSuperclass()) {
+        for (final Field field : type.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers())) {
+            continue;
+          }
+          field.setAccessible(true);
+          assertSameFields(path + '.' + field.getName(), field.get(expected),
+              field.get(actual));
+        }
+      }
+    }
+  }
+
+  private static void assertSameSavedState(final BoardState expected, final BoardState actual)
+      throws IllegalAccessException {
+    assertSameFields("deviceStates", expected.deviceStates, actual.deviceStates);
+    assertSameFields("beeperChannels", expected.beeperChannels, actual.beeperChannels);
+    assertSameFields("cpuLoad", expected.cpuLoad, actual.cpuLoad);
+    assertEquals(expected.triggers, actual.triggers);
+    assertEquals(expected.port3D00, actual.port3D00);
+    assertEquals(expected.totalReset, actual.totalReset);
+    assertEquals(expected.resetCounter, actual.resetCounter);
+    assertEquals(expected.intCounter, actual.intCounter);
+    assertEquals(expected.videoFlashState, actual.videoFlashState);
+    assertEquals(expected.localResetForAllModules, actual.localResetForAllModules);
+    assertEquals(expected.statisticCounter, actual.statisticCounter);
+    assertEquals(expected.frameIntTriggered, actual.frameIntTriggered);
+  }
+
+  @Test
+  public void testRestoreAfterSilentFrames() throws Exception {
+    final Motherboard board = makeBoard();
+    board.runFramesSilently(3);
+    for (int i = 0; i < 1000; i++) {
+      board.step(false, false, false, false, true);
+    }
+
+    final BoardState reference = new BoardState(board);
+    board.saveState(reference);
+    final BoardState state = new BoardState(board);
+    board.saveState(state);
+    final byte[] ram = board.getHeapRam().toArray(ValueLayout.JAVA_BYTE);
+    final Z80[] cpus = copyCpus(board);
+    final long frame = board.getFrameCounter();
+    final int tiStates = board.getFrameTiStates();
+
+    board.runFramesSilently(5);
+    assertFalse(Arrays.equals(ram, board.getHeapRam().toArray(ValueLayout.JAVA_BYTE)));
+    assertFalse(cpus[0].isSameState(board.getModules()[0].getCpu()));
+    assertFalse(frame == board.getFrameCounter());
+
+    board.restoreState(state);
+
+    assertTrue(Arrays.equals(ram, board.getHeapRam().toArray(ValueLayout.JAVA_BYTE)));
+    final Z80[] restoredCpus = copyCpus(board);
+    for (int i = 0; i < cpus.length; i++) {
+      assertTrue("CPU" + i, cpus[i].isSameState(restoredCpus[i]));
+    }
+    assertEquals(frame, board.getFrameCounter());
+    assertEquals(tiStates, board.getFrameTiStates());
+    final BoardState restored = new BoardState(board);
+    board.saveState(restored);
+    assertSameSavedState(reference, restored);
+  }
+
+  @Test
+  public void testRepeatedSaveCopiesOnlyDirtyPages() throws Exception {
+    final Motherboard board = makeBoard();
+    board.runFramesSilently(2);
+    final BoardState state = new BoardState(board);
+    board.saveState(state);
+    final int epoch = state.ramEpoch;
+
+    board.runFramesSilently(1);
+
+    final RamDirtyPages dirtyPages = board.getRamDirtyPages();
+    final MemorySegment heap = board.getHeapRam();
+    int dirty = 0;
+    int clean = 0;
+    for (int page = 0; page < dirtyPages.getPageNumber(); page++) {
+      final long offset = (long) page << RamDirtyPages.PAGE_SIZE_SHIFT;
+      if (dirtyPages.isPageDirty(page, epoch)) {
+        dirty++;
+      } else {
+        clean++;
+        // marker must not be overwritten because the page is not copied
+        state.ram.set(ValueLayout.JAVA_BYTE, offset,
+            (byte) ~heap.get(ValueLayout.JAVA_BYTE, offset));
+      }
+    }
+    assertTrue(dirty > 0);
+    assertTrue(clean > dirty);
+
+    board.saveState(state);
+
+    for (int page = 0; page < dirtyPages.getPageNumber(); page++) {
+      final long offset = (long) page << RamDirtyPages.PAGE_SIZE_SHIFT;
+      final long mismatch = MemorySegment.mismatch(heap, offset,
+          offset + RamDirtyPages.PAGE_SIZE, state.ram, offset, offset + RamDirtyPages.PAGE_SIZE);
+      if (dirtyPages.isPageDirty(page, epoch)) {
+        assertEquals("page " + page, -1L, mismatch);
+      } else {
+        assertEquals("page " + page, 0L, mismatch);
+      }
+    }
+  }
+}
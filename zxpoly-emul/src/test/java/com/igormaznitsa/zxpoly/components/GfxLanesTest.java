@@ -0,0 +1,64 @@
+package com.igormaznitsa.zxpoly.components;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Random;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class GfxLanesTest extends TestCase {
+
+  @Test
+  public void testLaneMask() {
+    assertEquals(0L, GfxLanes.laneMask(0));
+    assertEquals(0xFFL, GfxLanes.laneMask(1));
+    assertEquals(0xFF00_0000_0000_FF00L, GfxLanes.laneMask(0b1000_0010));
+    assertEquals(GfxLanes.ALL_LANES, GfxLanes.laneMask(0xFF));
+  }
+
+  @Test
+  public void testReadWriteLanesInCoreOrder() {
+    final byte[] memory = new byte[24];
+    for (int i = 0; i < 8; i++) {
+      memory[8 + i] = (byte) (i + 1);
+    }
+    final long lanes = GfxLanes.read(MemorySegment.ofArray(memory), 8);
+    assertEquals(0x0807_0605_0403_0201L, lanes);
+
+    GfxLanes.write(MemorySegment.ofArray(memory), 16,
+        GfxLanes.replace(lanes, 0xAA, GfxLanes.laneMask(0b0000_0101)));
+    assertEquals((byte) 0xAA, memory[16]);
+    assertEquals(2, memory[17]);
+    assertEquals((byte) 0xAA, memory[18]);
+    assertEquals(8, memory[23]);
+  }
+
+  @Test
+  public void testIsSame() {
+    final long lanes = 0x1122_3344_5566_77AAL;
+    assertTrue(GfxLanes.isSame(lanes, 0xAA, GfxLanes.laneMask(1)));
+    assertFalse(GfxLanes.isSame(lanes, 0xAA, GfxLanes.laneMask(3)));
+    assertTrue(GfxLanes.isSame(GfxLanes.broadcast(0x5A), 0x5A, GfxLanes.ALL_LANES));
+    assertTrue(GfxLanes.isSame(lanes, 0, 0L));
+  }
+
+  @Test
+  public void testTransposeBitsMatchesPlaneDecoding() {
+    final Random rnd = new Random(12345L);
+    final byte[] planes = new byte[8];
+    for (int n = 0; n < 1000; n++) {
+      rnd.nextBytes(planes);
+      long expected = 0L;
+      for (int pixIndex = 0; pixIndex < 8; pixIndex++) {
+        expected <<= 8;
+        final int msk = 1 << (7 - pixIndex);
+        for (int bitIndex = 0; bitIndex < 8; bitIndex++) {
+          if ((planes[bitIndex] & msk) != 0) {
+            expected |= 1 << bitIndex;
+          }
+        }
+      }
+      assertEquals(expected,
+          GfxLanes.transposeBits(GfxLanes.read(MemorySegment.ofArray(planes), 0)));
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.igormaznitsa.zxpoly.components;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class InputEventQueueTest extends TestCase {
+
+  @Test
+  public void testEventsAppliedAtStampedTime() {
+    final InputEventQueue queue = new InputEventQueue();
+    assertFalse(queue.hasPending());
+
+    queue.post(10L, 0, InputJournal.SOURCE_KEYBOARD, 0xFEL);
+    queue.post(10L, 100, InputJournal.SOURCE_KEMPSTON, 0x10L);
+    queue.post(11L, 0, InputJournal.SOURCE_KEYBOARD, 0xFFL);
+    assertTrue(queue.hasPending());
+
+    assertNull(queue.poll(9L, 70000));
+
+    final InputEventQueue.Event first = queue.poll(10L, 0);
+    assertEquals(InputJournal.SOURCE_KEYBOARD, first.getSource());
+    assertEquals(0xFEL, first.getValue());
+    assertNull(queue.poll(10L, 99));
+
+    final InputEventQueue.Event second = queue.poll(10L, 100);
+    assertEquals(InputJournal.SOURCE_KEMPSTON, second.getSource());
+    assertEquals(10L, second.getFrame());
+    assertEquals(100, second.getTiStates());
+
+    assertEquals(0xFFL, queue.poll(12L, 0).getValue());
+    assertFalse(queue.hasPending());
+    assertNull(queue.poll(100L, 0));
+  }
+
+  @Test
+  public void testClear() {
+    final InputEventQueue queue = new InputEventQueue();
+    queue.post(1L, 0, InputJournal.SOURCE_KEYBOARD, 1L);
+    queue.post(2L, 0, InputJournal.SOURCE_KEYBOARD, 2L);
+    queue.clear();
+    assertFalse(queue.hasPending());
+    assertNull(queue.poll(3L, 0));
+  }
+}
@@ -0,0 +1,127 @@
+package com.igormaznitsa.zxpoly.components;
+
+import com.igormaznitsa.zxpoly.components.sound.VolumeProfile;
+import com.igormaznitsa.zxpoly.components.video.BorderWidth;
+import com.igormaznitsa.zxpoly.components.video.VirtualKeyboardLook;
+import com.igormaznitsa.zxpoly.components.video.timings.TimingProfile;
+import java.io.IOException;
+import java.util.Arrays;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class InputJournalTest extends TestCase {
+
+  private static final int KEMPSTON_DOWN = 4;
+  private static final int KEMPSTON_UP = 8;
+
+  private static Motherboard makeBoard() throws IOException {
+    // ROM with infinite loop JR $ at zero address
+    final byte[] rom = new byte[0x8000];
+    rom[0] = 0x18;
+    rom[1] = (byte) 0xFE;
+    rom[0x4000] = 0x18;
+    rom[0x4001] = (byte) 0xFE;
+    final Motherboard board = new Motherboard(BorderWidth.FULL, VolumeProfile.LINEAR,
+        TimingProfile.SPECTRUM128, new RomData("test", rom), null, BoardMode.ZX128, false, false,
+        false, false, false, false, VirtualKeyboardLook.DEFAULT.load(), false, false,
+        MachineMemory.allocate());
+    board.findIoDevices().forEach(d -> d.init(true));
+    return board;
+  }
+
+  private static void runFrame(final Motherboard board) {
+    while (board.getFrameTiStates() < TimingProfile.SPECTRUM128.tstatesFrame) {
+      board.step(false, false, false, false, true);
+    }
+    board.step(true, true, false, true, true);
+  }
+  @Test
+  public void testRecordAndReplay() throws IOException {
+    final InputJournal recorder = InputJournal.makeRecorder();
+    recorder.record(100L, 10, InputJournal.SOURCE_KEYBOARD, 0xFFL);
+    recorder.record(100L, 20, InputJournal.SOURCE_KEYBOARD, 0xFFL);
+    recorder.record(101L, 30, InputJournal.SOURCE_KEMPSTON, 0x10L);
+    recorder.record(105L, 5, InputJournal.SOURCE_KEYBOARD, 0x1234567890L);
+
+    final InputJournal replay = InputJournal.makeReplay(recorder.toByteArray());
+    assertTrue(replay.isReplay());
+    assertEquals(0xFFL, replay.replay(500L, 10, InputJournal.SOURCE_KEYBOARD));
+    assertEquals(0L, replay.replay(500L, 10, InputJournal.SOURCE_KEMPSTON));
+    assertEquals(0L, replay.replay(501L, 29, InputJournal.SOURCE_KEMPSTON));
+    assertEquals(0x10L, replay.replay(501L, 30, InputJournal.SOURCE_KEMPSTON));
+    assertFalse(replay.isCompleted());
+    assertEquals(0xFFL, replay.replay(504L, 70000, InputJournal.SOURCE_KEYBOARD));
+    assertEquals(0x1234567890L, replay.replay(505L, 5, InputJournal.SOURCE_KEYBOARD));
+    assertTrue(replay.isCompleted());
+  }
+
+  @Test
+  public void testReplayStartSnapshotOnMiss() throws IOException {
+    final InputJournal recorder = InputJournal.makeRecorder();
+    recorder.setStartValue(InputJournal.SOURCE_MOUSE_X, 38L);
+    recorder.setStartValue(InputJournal.SOURCE_MOUSE_Y, 93L);
+    recorder.setStartValue(InputJournal.SOURCE_MOUSE_BUTTONS, 7L);
+    recorder.record(10L, 100, InputJournal.SOURCE_MOUSE_X, 38L);
+    recorder.record(10L, 200, InputJournal.SOURCE_MOUSE_X, 40L);
+    recorder.record(12L, 0, InputJournal.SOURCE_MOUSE_BUTTONS, 6L);
+    try {
+      recorder.setStartValue(InputJournal.SOURCE_MOUSE_Y, 0L);
+      fail("Must throw IllegalStateException");
+    } catch (IllegalStateException ex) {
+      // expected
+    }
+
+    final InputJournal replay = InputJournal.makeReplay(recorder.toByteArray());
+    assertEquals(38L, replay.replay(0L, 0, InputJournal.SOURCE_MOUSE_X));
+    assertEquals(93L, replay.replay(0L, 0, InputJournal.SOURCE_MOUSE_Y));
+    assertEquals(7L, replay.replay(0L, 0, InputJournal.SOURCE_MOUSE_BUTTONS));
+    assertEquals(38L, replay.replay(0L, 199, InputJournal.SOURCE_MOUSE_X));
+    assertEquals(40L, replay.replay(0L, 200, InputJournal.SOURCE_MOUSE_X));
+    assertEquals(93L, replay.replay(2L, 0, InputJournal.SOURCE_MOUSE_Y));
+    assertEquals(6L, replay.replay(2L, 0, InputJournal.SOURCE_MOUSE_BUTTONS));
+    assertTrue(replay.isCompleted());
+  }
+
+  @Test
+  public void testBrokenJournal() {
+    final InputJournal recorder = InputJournal.makeRecorder();
+    recorder.record(0L, 1000, InputJournal.SOURCE_MOUSE_X, 1000L);
+    final byte[] data = recorder.toByteArray();
+    try {
+      InputJournal.makeReplay(Arrays.copyOf(data, data.length - 1));
+      fail("Must throw IOException");
+    } catch (IOException ex) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testReplayIgnoresLiveInput() throws IOException {
+    final InputJournal recorder = InputJournal.makeRecorder();
+    recorder.setStartValue(InputJournal.SOURCE_KEYBOARD, KeyboardKempstonAndTapeIn.ZXKEY_NONE);
+    recorder.setStartValue(InputJournal.SOURCE_KEMPSTON, KEMPSTON_UP);
+    // the first record defines start frame of journal
+    recorder.record(0L, 0, InputJournal.SOURCE_MOUSE_X, 1L);
+    recorder.record(3L, 0, InputJournal.SOURCE_KEMPSTON, KEMPSTON_DOWN);
+
+    final Motherboard board = makeBoard();
+    final KeyboardKempstonAndTapeIn keyboard =
+        board.findIoDevice(KeyboardKempstonAndTapeIn.class);
+    final ZxPolyModule module = board.getModules()[0];
+    board.setInputJournal(InputJournal.makeReplay(recorder.toByteArray()));
+
+    keyboard.doKempstonFire(true);
+    runFrame(board);
+    assertEquals(KEMPSTON_UP, keyboard.readIo(module, 0x1F));
+    keyboard.doKempstonLeft();
+    runFrame(board);
+    assertEquals(KEMPSTON_UP, keyboard.readIo(module, 0x1F));
+    runFrame(board);
+    assertEquals(KEMPSTON_DOWN, keyboard.readIo(module, 0x1F));
+    assertNull(board.getInputJournal());
+
+    // live input posted during replay is dropped
+    runFrame(board);
+    assertEquals(KEMPSTON_DOWN, keyboard.readIo(module, 0x1F));
+  }
+}
@@ -0,0 +1,145 @@
+package com.igormaznitsa.zxpoly.components;
+
+import com.igormaznitsa.zxpoly.components.sound.VolumeProfile;
+import com.igormaznitsa.zxpoly.components.video.BorderWidth;
+import com.igormaznitsa.zxpoly.components.video.VirtualKeyboardLook;
+import com.igormaznitsa.zxpoly.components.video.timings.TimingProfile;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class MachineMemoryTest extends TestCase {
+
+  private static Motherboard makeBoard(final MachineMemory memory) throws IOException {
+    // ROM with infinite loop JR $ at zero address
+    final byte[] rom = new byte[0x8000];
+    rom[0] = 0x18;
+    rom[1] = (byte) 0xFE;
+    rom[0x4000] = 0x18;
+    rom[0x4001] = (byte) 0xFE;
+    final Motherboard board = new Motherboard(BorderWidth.FULL, VolumeProfile.LINEAR,
+        TimingProfile.SPECTRUM128, new RomData("test", rom), null, BoardMode.ZX128, false, false,
+        false, false, false, false, VirtualKeyboardLook.DEFAULT.load(), false, false, memory);
+    board.findIoDevices().forEach(d -> d.init(true));
+    return board;
+  }
+
+  private static MachineMemory mapTempFile(final File[] fileHolder) throws IOException {
+    final File file = File.createTempFile("zxpoly", ".mem");
+    file.deleteOnExit();
+    MachineMemory.makeGfxFilePath(file.toPath()).toFile().deleteOnExit();
+    fileHolder[0] = file;
+    return MachineMemory.map(file.toPath());
+  }
+
+  private static ByteBuffer readFile(final File file) throws IOException {
+    return ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  @Test
+  public void testLayoutOfMappedFile() throws IOException {
+    final File[] file = new File[1];
+    mapTempFile(file).force();
+
+    final ByteBuffer buffer = readFile(file[0]);
+    assertEquals(MachineMemory.SIZE, buffer.capacity());
+    assertEquals(MachineMemory.MAGIC, buffer.getInt(0));
+    assertEquals(MachineMemory.VERSION, buffer.getInt(4));
+    assertEquals(0L, buffer.getLong((int) MachineMemory.OFFSET_SEQUENCE));
+
+    final int regions = (int) MachineMemory.OFFSET_REGIONS;
+    assertEquals((int) MachineMemory.HEADER_SIZE, buffer.getInt(regions));
+    assertEquals(MachineMemory.RAM_SIZE, buffer.getInt(regions + 4));
+    assertEquals(0, buffer.getInt(regions + 12));
+    assertEquals(0, buffer.getInt(regions + 20));
+    assertEquals((int) MachineMemory.HEADER_SIZE + MachineMemory.RAM_SIZE,
+        buffer.getInt(regions + 24));
+    assertEquals(MachineMemory.ROM_SIZE, buffer.getInt(regions + 28));
+    assertEquals(MachineMemory.SIZE, MachineMemory.HEADER_SIZE + MachineMemory.RAM_SIZE
+        + MachineMemory.ROM_SIZE);
+    assertEquals(RamDirtyPages.PAGE_SIZE, buffer.getInt((int) MachineMemory.OFFSET_PAGE_SIZE));
+  }
+
+  @Test
+  public void testGfxSegmentIsCreatedOnlyOnDemand() throws IOException {
+    final File[] file = new File[1];
+    final MachineMemory memory = mapTempFile(file);
+    final Motherboard board = makeBoard(memory);
+    board.step(false, false, false, false, true);
+    assertFalse(memory.isGfxCreated());
+    assertFalse(MachineMemory.makeGfxFilePath(file[0].toPath()).toFile().exists());
+
+    board.setBoardMode(BoardMode.SPEC256, true);
+    assertTrue(memory.isGfxCreated());
+    memory.force();
+
+    final ByteBuffer buffer = readFile(file[0]);
+    final int regions = (int) MachineMemory.OFFSET_REGIONS;
+    assertEquals(0, buffer.getInt(regions + 8));
+    assertEquals(ZxPolyModule.GFX_RAM_SIZE, buffer.getInt(regions + 12));
+    assertEquals(ZxPolyModule.GFX_RAM_SIZE, buffer.getInt(regions + 16));
+    assertEquals(ZxPolyModule.GFX_ROM_SIZE, buffer.getInt(regions + 20));
+    assertEquals(MachineMemory.GFX_SIZE,
+        MachineMemory.makeGfxFilePath(file[0].toPath()).toFile().length());
+  }
+
+  @Test
+  public void testBoardMemoryIsBackedBySegment() throws IOException {
+    final File[] file = new File[1];
+    final MachineMemory memory = mapTempFile(file);
+    final Motherboard board = makeBoard(memory);
+    board.writeRam(board.getModules()[1], 0x23456, 0x5A);
+    final ZxPolyModule master = board.getModules()[0];
+    master.makeCopyOfRomToGfxRom();
+    assertSame(memory.getRam(), board.getHeapRam());
+
+    memory.force();
+    final ByteBuffer buffer = readFile(file[0]);
+    final ByteBuffer gfxBuffer =
+        readFile(MachineMemory.makeGfxFilePath(file[0].toPath()).toFile());
+    final int ramOffset = buffer.getInt((int) MachineMemory.OFFSET_REGIONS);
+    final int gfxRomOffset = buffer.getInt((int) MachineMemory.OFFSET_REGIONS + 16);
+    final int romOffset = buffer.getInt((int) MachineMemory.OFFSET_REGIONS + 24);
+
+    assertEquals(0x5A, buffer.get(ramOffset + 0x23456));
+    assertEquals(0x18, buffer.get(romOffset));
+    assertEquals((byte) 0xFE, buffer.get(romOffset + 0x4001));
+    assertEquals(0, buffer.get(romOffset + 0x8000));
+    for (int lane = 0; lane < 8; lane++) {
+      assertEquals((byte) 0xFE, gfxBuffer.get(gfxRomOffset + 8 + lane));
+    }
+  }
+
+  @Test
+  public void testPublishSequenceAndDirtyPages() throws IOException {
+    final File[] file = new File[1];
+    final MachineMemory memory = mapTempFile(file);
+    final Motherboard board = makeBoard(memory);
+    board.getModules()[0].prepareGfxMemory();
+
+    board.step(false, false, false, false, true);
+    assertEquals(1L, memory.getSequence() & 1L);
+    memory.publish(board);
+    final long stableSequence = memory.getSequence();
+    assertEquals(0L, stableSequence & 1L);
+
+    board.writeRam(board.getModules()[0], 0x1234, 0x77);
+    board.getGfxDirtyPages().markWritten(0x8100);
+    memory.publish(board);
+
+    ByteBuffer buffer = readFile(file[0]);
+    assertEquals(stableSequence + 2L, buffer.getLong((int) MachineMemory.OFFSET_SEQUENCE));
+    assertEquals(board.getFrameCounter(), buffer.getLong((int) MachineMemory.OFFSET_FRAME));
+    assertEquals(1L << 0x12, buffer.getLong((int) MachineMemory.OFFSET_RAM_PAGES));
+    assertEquals(1L << 0x01, buffer.getLong((int) MachineMemory.OFFSET_GFX_RAM_PAGES + 16));
+
+    memory.publish(board);
+    buffer = readFile(file[0]);
+    assertEquals(0L, buffer.getLong((int) MachineMemory.OFFSET_RAM_PAGES));
+    assertEquals(0L, buffer.getLong((int) MachineMemory.OFFSET_GFX_RAM_PAGES + 16));
+  }
+}
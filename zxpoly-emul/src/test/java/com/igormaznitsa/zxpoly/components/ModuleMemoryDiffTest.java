@@ -0,0 +1,47 @@
+package com.igormaznitsa.zxpoly.components;
+
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class ModuleMemoryDiffTest extends TestCase {
+  @Test
+  public void testEqualRegions() {
+    final byte[] heap = new byte[0x80000];
+    final int[] offsets = new int[] {0x00000, 0x20000, 0x40000, 0x60000};
+    assertEquals(-1, ModuleMemoryDiff.findFirstDiff(heap, offsets, 0x20000));
+    assertTrue(ModuleMemoryDiff.findDiffRanges(heap, offsets, 0x20000).isEmpty());
+  }
+
+  @Test
+  public void testDiffRanges() {
+    final byte[] heap = new byte[0x80000];
+    final int[] offsets = new int[] {0x00000, 0x20000, 0x40000, 0x60000};
+    heap[0x60000] = 1;
+    heap[0x20010] = 1;
+    heap[0x40011] = 1;
+    heap[0x00012] = 1;
+    heap[0x20012] = 1;
+    heap[0x40012] = 1;
+    heap[0x60012] = 1;
+    heap[0x5FFFF] = 1;
+
+    assertEquals(0, ModuleMemoryDiff.findFirstDiff(heap, offsets, 0x20000));
+
+    final List<ModuleMemoryDiff.Range> ranges =
+        ModuleMemoryDiff.findDiffRanges(heap, offsets, 0x20000);
+    assertEquals(Arrays.asList(
+        new ModuleMemoryDiff.Range(0, 1),
+        new ModuleMemoryDiff.Range(0x10, 2),
+        new ModuleMemoryDiff.Range(0x1FFFF, 1)), ranges);
+    assertEquals(0x11, ranges.get(1).getEnd());
+  }
+
+  @Test
+  public void testLengthTruncatedByHeap() {
+    final byte[] heap = new byte[0x80000];
+    heap[0x7FFFF] = 1;
+    assertEquals(0xFFFF, ModuleMemoryDiff.findFirstDiff(heap, new int[] {0x60000, 0x70000}, 0x20000));
+  }
+}
@@ -0,0 +1,34 @@
+package com.igormaznitsa.zxpoly.components;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class RamDirtyPagesTest extends TestCase {
+  @Test
+  public void testEpochs() {
+    final RamDirtyPages pages = new RamDirtyPages(512 * 1024);
+    assertEquals(2048, pages.getPageNumber());
+
+    final int consumerA = pages.nextEpoch();
+    pages.markWritten(0x4000);
+    pages.markWritten(0x7FFFF);
+
+    assertTrue(pages.isDirty(0x4000, 1, consumerA));
+    assertTrue(pages.isDirty(0x3F00, 0x200, consumerA));
+    assertFalse(pages.isDirty(0x4100, 0x1000, consumerA));
+
+    final long[] bitmap = pages.makeBitmap();
+    assertEquals(2, pages.fillDirtyBitmap(consumerA, bitmap));
+    assertEquals(1L << (0x40 & 63), bitmap[0x40 >>> 6]);
+    assertEquals(1L << 63, bitmap[bitmap.length - 1]);
+
+    final int consumerB = pages.nextEpoch();
+    assertEquals(0, pages.fillDirtyBitmap(consumerB, bitmap));
+    assertEquals(2, pages.fillDirtyBitmap(consumerA, bitmap));
+    assertEquals(2, pages.fillDirtyBitmap(RamDirtyPages.EPOCH_INITIAL, bitmap));
+
+    pages.markWritten(0x4001);
+    assertTrue(pages.isPageDirty(0x40, consumerB));
+    assertFalse(pages.isPageDirty(0x7FF, consumerB));
+  }
+}
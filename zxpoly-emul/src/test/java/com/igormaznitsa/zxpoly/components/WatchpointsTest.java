@@ -0,0 +1,57 @@
+package com.igormaznitsa.zxpoly.components;
+
+import java.util.List;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class WatchpointsTest extends TestCase {
+  @Test
+  public void testHits() {
+    final Watchpoints watchpoints = new Watchpoints(4);
+    assertFalse(watchpoints.isActive());
+
+    watchpoints.setFromText("X #8000\nRW 1:#4000-#40FF // screen\n\nP $FE");
+    assertTrue(watchpoints.isActive());
+
+    watchpoints.checkMemoryRead(0, 0x8000, false, 1, 0x1234);
+    watchpoints.checkMemoryRead(0, 0x4000, false, 1, 0x1234);
+    assertFalse(watchpoints.hasHits());
+
+    watchpoints.checkMemoryRead(3, 0x8000, true, 0xC3, 0x8000);
+    watchpoints.checkMemoryWrite(1, 0x40FF, 0x55, 0x9000);
+    watchpoints.checkMemoryWrite(1, 0x4100, 0x55, 0x9000);
+    watchpoints.checkPort(2, 0xFE, true, 7, 0x9001);
+    watchpoints.checkPort(2, 0x7FFD, true, 7, 0x9001);
+    assertTrue(watchpoints.hasHits());
+
+    final List<Watchpoints.Hit> hits = watchpoints.drainHits();
+    assertEquals(3, hits.size());
+    assertEquals(Watchpoints.KIND_EXECUTE, hits.get(0).getKind());
+    assertEquals(3, hits.get(0).getModule());
+    assertEquals(Watchpoints.KIND_WRITE, hits.get(1).getKind());
+    assertEquals(0x40FF, hits.get(1).getAddress());
+    assertEquals(0x55, hits.get(1).getValue());
+    assertEquals(Watchpoints.KIND_PORT_WRITE, hits.get(2).getKind());
+    assertEquals(0x9001, hits.get(2).getInstructionAddress());
+    assertFalse(watchpoints.hasHits());
+  }
+
+  @Test
+  public void testWrongTextKeepsWatchpoints() {
+    final Watchpoints watchpoints = new Watchpoints(4);
+    watchpoints.setFromText("W #C000");
+    try {
+      watchpoints.setFromText("W #C000\nZ #1000");
+      fail("Must throw IllegalArgumentException");
+    } catch (IllegalArgumentException ex) {
+      assertTrue(ex.getMessage().startsWith("Line 2"));
+    }
+    assertEquals("W #C000", watchpoints.getText());
+    watchpoints.checkMemoryWrite(0, 0xC000, 0, 0);
+    assertTrue(watchpoints.hasHits());
+
+    watchpoints.clear();
+    assertFalse(watchpoints.isActive());
+    assertFalse(watchpoints.hasHits());
+  }
+}
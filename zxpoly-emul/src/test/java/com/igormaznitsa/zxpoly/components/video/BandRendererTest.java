@@ -0,0 +1,48 @@
+package com.igormaznitsa.zxpoly.components.video;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class BandRendererTest extends TestCase {
+
+  @Test
+  public void testEveryLineRenderedOnce() {
+    final BandRenderer renderer = new BandRenderer(4);
+    final AtomicIntegerArray counters = new AtomicIntegerArray(192);
+    renderer.render(0, 192, (from, to) -> {
+      for (int i = from; i < to; i++) {
+        counters.incrementAndGet(i);
+      }
+    });
+    for (int i = 0; i < counters.length(); i++) {
+      assertEquals(1, counters.get(i));
+    }
+  }
+
+  @Test
+  public void testShortRangeRenderedByCaller() {
+    final BandRenderer renderer = new BandRenderer(4);
+    final Thread caller = Thread.currentThread();
+    renderer.render(10, 11, (from, to) -> {
+      assertSame(caller, Thread.currentThread());
+      assertEquals(10, from);
+      assertEquals(11, to);
+    });
+  }
+
+  @Test
+  public void testErrorInBandIsRethrown() {
+    final BandRenderer renderer = new BandRenderer(2);
+    try {
+      renderer.render(0, 64, (from, to) -> {
+        if (from > 0) {
+          throw new IllegalArgumentException("test");
+        }
+      });
+      fail("Must throw exception");
+    } catch (IllegalStateException ex) {
+      assertTrue(ex.getCause() instanceof IllegalArgumentException);
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.igormaznitsa.zxpoly.components.video;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class ScreenDirtyCellsTest extends TestCase {
+
+  private static ScreenDirtyCells makeClean() {
+    final ScreenDirtyCells cells = new ScreenDirtyCells();
+    for (int i = 0; i < ScreenDirtyCells.SCREEN_LINES; i++) {
+      assertEquals(ScreenDirtyCells.ALL_COLUMNS,
+          cells.takeLine(i, VideoController.LineRenderMode.ALL));
+    }
+    return cells;
+  }
+
+  @Test
+  public void testPixelWriteMarksSingleLine() {
+    final ScreenDirtyCells cells = makeClean();
+    // line 9 column 3 of RAM page 5
+    cells.markHeapWrite(0x14000 + 0x0123);
+    for (int i = 0; i < ScreenDirtyCells.SCREEN_LINES; i++) {
+      assertEquals(i == 9 ? 1 << 3 : 0, cells.takeLine(i, VideoController.LineRenderMode.ALL));
+    }
+  }
+
+  @Test
+  public void testAttributeWriteMarksCell() {
+    final ScreenDirtyCells cells = makeClean();
+    // row 1 column 31 of RAM page 7 in the second module
+    cells.markHeapWrite(0x20000 + 0x1C000 + 0x1800 + 32 + 31);
+    for (int i = 0; i < ScreenDirtyCells.SCREEN_LINES; i++) {
+      assertEquals(i >= 8 && i < 16 ? 1 << 31 : 0,
+          cells.takeLine(i, VideoController.LineRenderMode.ALL));
+    }
+  }
+
+  @Test
+  public void testNonScreenWritesIgnored() {
+    final ScreenDirtyCells cells = makeClean();
+    cells.markHeapWrite(0x10000);
+    cells.markHeapWrite(0x14000 + 0x1B00);
+    cells.markHeapWrite(0x18000);
+    for (int i = 0; i < ScreenDirtyCells.SCREEN_LINES; i++) {
+      assertEquals(0, cells.takeLine(i, VideoController.LineRenderMode.ALL));
+    }
+  }
+
+  @Test
+  public void testEvenAndOddRowsTakenSeparately() {
+    final ScreenDirtyCells cells = makeClean();
+    cells.markCell(0, 0);
+    assertEquals(1, cells.takeLine(0, VideoController.LineRenderMode.EVEN));
+    assertEquals(0, cells.takeLine(0, VideoController.LineRenderMode.EVEN));
+    assertEquals(1, cells.takeLine(0, VideoController.LineRenderMode.ODD));
+    assertEquals(0, cells.takeLine(0, VideoController.LineRenderMode.ALL));
+  }
+}
@@ -0,0 +1,74 @@
+package com.igormaznitsa.zxpoly.components.video;
+
+import java.awt.image.BufferedImage;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class ScreenTripleBufferTest extends TestCase {
+
+  @Test
+  public void testPainterKeepsFrontWithoutNewFrame() {
+    final ScreenTripleBuffer buffer = new ScreenTripleBuffer(4, 2, 2);
+    final BufferedImage front = buffer.takeFront();
+    assertSame(front, buffer.takeFront());
+  }
+
+  @Test
+  public void testPainterGetsNewestPublishedFrame() {
+    final ScreenTripleBuffer buffer = new ScreenTripleBuffer(4, 2, 2);
+    buffer.takeFront();
+
+    buffer.getBackData()[0] = 1;
+    buffer.publish();
+    buffer.getBackData()[0] = 2;
+    buffer.publish();
+
+    final BufferedImage front = buffer.takeFront();
+    assertEquals(2, front.getRGB(0, 0) & 0xFF);
+    assertSame(front, buffer.takeFront());
+  }
+
+  @Test
+  public void testProducerNeverWritesFront() {
+    final ScreenTripleBuffer buffer = new ScreenTripleBuffer(4, 2, 2);
+    for (int i = 0; i < 10; i++) {
+      buffer.getBackData()[0] = i;
+      buffer.publish();
+      final BufferedImage front = buffer.takeFront();
+      buffer.getBackData()[0] = 0xFF;
+      if ((i & 1) == 0) {
+        // frame published while painter holds front image
+        buffer.publish();
+        buffer.getBackData()[0] = 0xFF;
+      }
+      assertEquals(i, front.getRGB(0, 0) & 0xFF);
+    }
+  }
+
+  @Test
+  public void testSyncBackCopiesOnlyChangedLines() {
+    final ScreenTripleBuffer buffer = new ScreenTripleBuffer(4, 2, 2);
+    final int[] source = new int[] {1, 1, 1, 1, 2, 2, 2, 2};
+    final long[] versions = new long[] {1L, 1L};
+
+    assertEquals(2, buffer.syncBack(source, versions, 0, 2));
+    assertEquals(0, buffer.syncBack(source, versions, 0, 2));
+    buffer.publish();
+
+    // new back image has not seen any line yet
+    assertEquals(2, buffer.syncBack(source, versions, 0, 2));
+    buffer.publish();
+
+    versions[1] = 2L;
+    source[4] = 3;
+    assertEquals(1, buffer.syncBack(source, versions, 0, 2));
+    buffer.publish();
+    assertEquals(1, buffer.syncBack(source, versions, 0, 2));
+    assertEquals(3, buffer.getBackData()[4]);
+    assertEquals(1, buffer.getBackData()[0]);
+    buffer.publish();
+
+    final BufferedImage front = buffer.takeFront();
+    assertEquals(3, front.getRGB(0, 1) & 0xFF);
+  }
+}
@@ -0,0 +1,90 @@
+package com.igormaznitsa.zxpoly.components.video;
+
+import static com.igormaznitsa.zxpoly.components.video.VideoController.PALETTE_ZXPOLY;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class ZxPixelTablesTest extends TestCase {
+
+  @Test
+  public void testAttributeColors() {
+    // bright, flash, paper 2, ink 5
+    final int attribute = 0b1101_0101;
+    assertEquals(PALETTE_ZXPOLY[13], ZxPixelTables.inkColor(attribute, false));
+    assertEquals(PALETTE_ZXPOLY[10], ZxPixelTables.paperColor(attribute, false));
+    assertEquals(PALETTE_ZXPOLY[10], ZxPixelTables.inkColor(attribute, true));
+    assertEquals(PALETTE_ZXPOLY[13], ZxPixelTables.paperColor(attribute, true));
+    assertEquals(PALETTE_ZXPOLY[5], ZxPixelTables.inkColor(attribute & 0x3F, true));
+  }
+
+  @Test
+  public void testCombinePlanesMatchesBitwiseDecoding() {
+    final int[] samples = {0x00, 0xFF, 0x81, 0x5A, 0xC3, 0x01, 0x80};
+    for (final int v0 : samples) {
+      for (final int v1 : samples) {
+        for (final int v2 : samples) {
+          for (final int v3 : samples) {
+            final int combined = ZxPixelTables.combinePlanes(v0, v1, v2, v3);
+            for (int x = 0; x < 8; x++) {
+              final int mask = 0x80 >>> x;
+              final int expected = ((v3 & mask) == 0 ? 0 : 0x08)
+                  | ((v0 & mask) == 0 ? 0 : 0x04)
+                  | ((v1 & mask) == 0 ? 0 : 0x02)
+                  | ((v2 & mask) == 0 ? 0 : 0x01);
+              assertEquals(expected, (combined >>> (x << 2)) & 0xF);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testExpandPixelsDoublesEveryPixel() {
+    final int[] row = new int[ZxPixelTables.ROW_LENGTH];
+    ZxPixelTables.expandPixels(row, 0b1000_0001, 1, 2);
+    assertEquals(2, row[0]);
+    assertEquals(2, row[1]);
+    assertEquals(1, row[2]);
+    assertEquals(1, row[13]);
+    assertEquals(2, row[14]);
+    assertEquals(2, row[15]);
+  }
+
+  @Test
+  public void testExpandByMasksMatchesBitwiseDecoding() {
+    final int paper = 0xFF102030;
+    final int ink = 0xFFA0B0C0;
+    final int[] row = new int[ZxPixelTables.ROW_LENGTH];
+    for (int pixels = 0; pixels < 256; pixels++) {
+      ZxPixelTables.expandPixels(row, pixels, paper, ink);
+      for (int x = 0; x < 8; x++) {
+        final int expected = (pixels & (0x80 >>> x)) == 0 ? paper : ink;
+        assertEquals(expected, row[x << 1]);
+        assertEquals(expected, row[(x << 1) + 1]);
+      }
+      ZxPixelTables.expandInterleaved(row, pixels, paper, ink, ~pixels, ink, paper);
+      for (int x = 0; x < 8; x++) {
+        final int expected = (pixels & (0x80 >>> x)) == 0 ? paper : ink;
+        assertEquals(expected, row[x << 1]);
+        assertEquals(expected, row[(x << 1) + 1]);
+      }
+    }
+  }
+
+  @Test
+  public void testScratchRowsAreReusedPerThread() throws Exception {
+    final int[][] rows = ZxPixelTables.scratchRows();
+    assertEquals(2, rows.length);
+    assertEquals(ZxPixelTables.ROW_LENGTH, rows[0].length);
+    assertNotSame(rows[0], rows[1]);
+    assertSame(rows, ZxPixelTables.scratchRows());
+
+    final int[][][] otherRows = new int[1][][];
+    final Thread thread = new Thread(() -> otherRows[0] = ZxPixelTables.scratchRows());
+    thread.start();
+    thread.join();
+    assertNotSame(rows, otherRows[0]);
+  }
+}
@@ -0,0 +1,62 @@
+package com.igormaznitsa.zxpoly.metrics;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class FrameStatisticsTest extends TestCase {
+  @Test
+  public void testEmpty() {
+    final FrameStatistics statistics = new FrameStatistics();
+    assertEquals(0L, statistics.getFrameNanosPercentile(50.0d));
+    assertEquals(0L, statistics.getFrameCounter());
+    assertEquals(0L, statistics.getTiStatesPerSecond());
+  }
+
+  @Test
+  public void testPercentiles() {
+    final FrameStatistics statistics = new FrameStatistics();
+    for (int i = 1; i <= 100; i++) {
+      statistics.onFrame(i * 20_000_000L, i * 1000L, 70000, 0L);
+    }
+    assertEquals(100L, statistics.getFrameCounter());
+    assertEquals(50_000L, statistics.getFrameNanosPercentile(50.0d));
+    assertEquals(95_000L, statistics.getFrameNanosPercentile(95.0d));
+    assertEquals(100_000L, statistics.getFrameNanosPercentile(100.0d));
+    assertEquals(1_000L, statistics.getFrameNanosPercentile(0.0d));
+  }
+
+  @Test
+  public void testHistoryIsLimited() {
+    final FrameStatistics statistics = new FrameStatistics();
+    for (int i = 0; i < FrameStatistics.HISTORY_SIZE; i++) {
+      statistics.onFrame(i, 1_000_000L, 0, 0L);
+    }
+    for (int i = 0; i < FrameStatistics.HISTORY_SIZE; i++) {
+      statistics.onFrame(i, 10L, 0, 0L);
+    }
+    assertEquals(10L, statistics.getFrameNanosPercentile(100.0d));
+  }
+
+  @Test
+  public void testTiStatesPerSecond() {
+    final FrameStatistics statistics = new FrameStatistics();
+    for (int i = 0; i <= 50; i++) {
+      statistics.onFrame(i * 20_000_000L, 20_000_000L, 69888, 0L);
+    }
+    assertEquals(69888L * 50L, statistics.getTiStatesPerSecond());
+  }
+
+  @Test
+  public void testSpinAndSleep() {
+    final FrameStatistics statistics = new FrameStatistics();
+    statistics.addSleepNanos(3000L);
+    statistics.onFrame(0L, 20_000L, 100, 5000L);
+    assertEquals(3000L, statistics.getTotalSleepNanos());
+    assertEquals(2000L, statistics.getTotalSpinNanos());
+
+    statistics.addSleepNanos(9000L);
+    statistics.onFrame(1L, 20_000L, 100, 4000L);
+    assertEquals(7000L, statistics.getTotalSleepNanos());
+    assertEquals(2000L, statistics.getTotalSpinNanos());
+  }
+}
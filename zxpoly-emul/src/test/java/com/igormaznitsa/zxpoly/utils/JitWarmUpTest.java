@@ -0,0 +1,42 @@
+package com.igormaznitsa.zxpoly.utils;
+
+import com.igormaznitsa.zxpoly.components.BoardMode;
+import com.igormaznitsa.zxpoly.components.MachineMemory;
+import com.igormaznitsa.zxpoly.components.Motherboard;
+import com.igormaznitsa.zxpoly.components.RomData;
+import com.igormaznitsa.zxpoly.components.sound.VolumeProfile;
+import com.igormaznitsa.zxpoly.components.video.BorderWidth;
+import com.igormaznitsa.zxpoly.components.video.VirtualKeyboardLook;
+import com.igormaznitsa.zxpoly.components.video.timings.TimingProfile;
+import java.io.IOException;
+import java.time.Duration;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class JitWarmUpTest extends TestCase {
+
+  private static Motherboard makeBoard(final TimingProfile timingProfile) throws IOException {
+    // ROM with infinite loop JR $ at zero address
+    final byte[] rom = new byte[0x8000];
+    rom[0] = 0x18;
+    rom[1] = (byte) 0xFE;
+    rom[0x4000] = 0x18;
+    rom[0x4001] = (byte) 0xFE;
+    return new Motherboard(BorderWidth.FULL, VolumeProfile.LINEAR, timingProfile,
+        new RomData("test", rom), null, BoardMode.ZX128, false, false, false, false, false,
+        false, VirtualKeyboardLook.DEFAULT.load(), false, false, MachineMemory.allocate());
+  }
+
+  @Test
+  public void testRunEmulatesRequestedFrames() throws IOException {
+    final Motherboard board = makeBoard(TimingProfile.SPECTRUM128);
+    assertEquals(3, JitWarmUp.run(board, TimingProfile.SPECTRUM128, 3, Duration.ofSeconds(30)));
+    assertTrue(board.getFrameCounter() > 0L);
+  }
+
+  @Test
+  public void testRunStopsAtDeadline() throws IOException {
+    final Motherboard board = makeBoard(TimingProfile.PENTAGON128);
+    assertEquals(0, JitWarmUp.run(board, TimingProfile.PENTAGON128, 1000, Duration.ZERO));
+  }
+}
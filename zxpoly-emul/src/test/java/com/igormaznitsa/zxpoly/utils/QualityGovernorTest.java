@@ -0,0 +1,65 @@
+package com.igormaznitsa.zxpoly.utils;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class QualityGovernorTest extends TestCase {
+
+  private static boolean runWindow(final QualityGovernor governor, final int lateFrames) {
+    boolean changed = false;
+    for (int i = 0; i < QualityGovernor.WINDOW_FRAMES; i++) {
+      if (i < lateFrames) {
+        governor.onLateFrame();
+      }
+      changed |= governor.onFrame();
+    }
+    return changed;
+  }
+
+  @Test
+  public void testDisabled() {
+    final QualityGovernor governor = new QualityGovernor(false);
+    assertFalse(runWindow(governor, QualityGovernor.WINDOW_FRAMES));
+    assertEquals(QualityGovernor.Feature.NONE, governor.getReduced());
+  }
+
+  @Test
+  public void testStepDownInOrder() {
+    final QualityGovernor governor = new QualityGovernor(true);
+    for (int i = 1; i < QualityGovernor.Feature.values().length; i++) {
+      assertTrue(runWindow(governor, QualityGovernor.STEP_DOWN_LATE_FRAMES));
+      assertEquals(QualityGovernor.Feature.values()[i], governor.getReduced());
+    }
+    assertFalse(runWindow(governor, QualityGovernor.WINDOW_FRAMES));
+    assertTrue(governor.isReduced(QualityGovernor.Feature.TV_FILTERS));
+    assertTrue(governor.isReduced(QualityGovernor.Feature.STREAMER_FRAME_RATE));
+  }
+
+  @Test
+  public void testSporadicLateFramesIgnored() {
+    final QualityGovernor governor = new QualityGovernor(true);
+    for (int i = 0; i < 10; i++) {
+      assertFalse(runWindow(governor, QualityGovernor.STEP_DOWN_LATE_FRAMES - 1));
+    }
+    assertEquals(QualityGovernor.Feature.NONE, governor.getReduced());
+    assertFalse(governor.isReduced(QualityGovernor.Feature.NONE));
+  }
+
+  @Test
+  public void testStepUpAfterCalmWindows() {
+    final QualityGovernor governor = new QualityGovernor(true);
+    runWindow(governor, QualityGovernor.STEP_DOWN_LATE_FRAMES);
+    runWindow(governor, QualityGovernor.STEP_DOWN_LATE_FRAMES);
+    assertEquals(QualityGovernor.Feature.BORDER_DETAIL, governor.getReduced());
+
+    for (int i = 0; i < QualityGovernor.STEP_UP_CALM_WINDOWS - 1; i++) {
+      assertFalse(runWindow(governor, 0));
+    }
+    runWindow(governor, 1);
+    for (int i = 0; i < QualityGovernor.STEP_UP_CALM_WINDOWS - 1; i++) {
+      assertFalse(runWindow(governor, 0));
+    }
+    assertTrue(runWindow(governor, 0));
+    assertEquals(QualityGovernor.Feature.TV_FILTERS, governor.getReduced());
+  }
+}
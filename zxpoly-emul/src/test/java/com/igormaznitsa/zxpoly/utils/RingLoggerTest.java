@@ -0,0 +1,92 @@
+package com.igormaznitsa.zxpoly.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class RingLoggerTest extends TestCase {
+
+  private static Logger makeLogger(final List<String> messages) {
+    final Logger logger = Logger.getAnonymousLogger();
+    logger.setUseParentHandlers(false);
+    logger.setLevel(Level.ALL);
+    logger.addHandler(new Handler() {
+      @Override
+      public void publish(final LogRecord record) {
+        messages.add(record.getLevel() + ":" + record.getMessage());
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+    return logger;
+  }
+
+  @Test
+  public void testFormatOnDrain() {
+    final List<String> messages = new ArrayList<>();
+    final Logger logger = makeLogger(messages);
+    final RingLogger ringLogger = new RingLogger(8);
+    final RingLogger.Event event = RingLogger.event(logger, Level.INFO, "value=%d, hex=#%02X");
+    final RingLogger.Event refEvent = RingLogger.event(logger, Level.WARNING,
+        (a, b, c, d, ref1, ref2) -> ref1 + "/" + ref2 + "/" + a);
+
+    ringLogger.log(event, 10, 255);
+    ringLogger.log(refEvent, 3L, 0L, 0L, 0L, "first", "second");
+    assertTrue(messages.isEmpty());
+
+    assertEquals(2, ringLogger.drain());
+    assertEquals(List.of("INFO:value=10, hex=#FF", "WARNING:first/second/3"), messages);
+    assertEquals(0, ringLogger.drain());
+  }
+
+  @Test
+  public void testNotLoggableLevelIgnored() {
+    final List<String> messages = new ArrayList<>();
+    final Logger logger = makeLogger(messages);
+    logger.setLevel(Level.INFO);
+    final RingLogger ringLogger = new RingLogger(8);
+    ringLogger.log(RingLogger.event(logger, Level.FINE, "fine"));
+    assertEquals(0, ringLogger.drain());
+    assertTrue(messages.isEmpty());
+  }
+
+  @Test
+  public void testOverflowDropsRecords() {
+    final List<String> messages = new ArrayList<>();
+    final Logger logger = makeLogger(messages);
+    final RingLogger ringLogger = new RingLogger(4);
+    final RingLogger.Event event = RingLogger.event(logger, Level.INFO, "%d");
+    for (int i = 0; i < 10; i++) {
+      ringLogger.log(event, i);
+    }
+    assertEquals(4, ringLogger.drain());
+    assertEquals(List.of("INFO:0", "INFO:1", "INFO:2", "INFO:3"), messages);
+
+    for (int i = 0; i < 6; i++) {
+      ringLogger.log(event, 100 + i);
+    }
+    assertEquals(4, ringLogger.drain());
+    assertEquals("INFO:103", messages.get(messages.size() - 1));
+  }
+
+  @Test
+  public void testWrongCapacity() {
+    try {
+      new RingLogger(6);
+      fail("Must throw IAE");
+    } catch (IllegalArgumentException ex) {
+      // expected
+    }
+  }
+}
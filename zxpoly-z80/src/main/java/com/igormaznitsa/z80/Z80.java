@@ -57,6 +57,12 @@ public final class Z80 {
   public static final int SIGNAL_OUT_nM1 = 1;
   public static final int SIGNAL_OUT_nHALT = 2;
   public static final int SIGNAL_OUT_ALL_INACTIVE = SIGNAL_OUT_nHALT | SIGNAL_OUT_nM1;
+  /**
+   * Decoded instruction value which means that CPU must decode fetched instruction itself.
+   *
+   * @see #decodeShared(int)
+   */
+  public static final int DECODED_NONE = -1;
 
   // if the flag is true then it makes green z80bltst.tap v5.0 2022-01-11 by Ped7g
   // but in the same time FUSE Z80 tests are red for block commands
@@ -88,6 +94,39 @@ public final class Z80 {
   private static final int FLAG_SZC = FLAG_SZ | FLAG_C;
   private static final int FLAG_HC = FLAG_H | FLAG_C;
 
+  private static final int SHARED_NOP = 1;
+  private static final int SHARED_EX_AF_AF = 2;
+  private static final int SHARED_ADD_HL_RR = 3;
+  private static final int SHARED_INC_RR = 4;
+  private static final int SHARED_DEC_RR = 5;
+  private static final int SHARED_INC_R = 6;
+  private static final int SHARED_DEC_R = 7;
+  private static final int SHARED_RLCA = 8;
+  private static final int SHARED_RRCA = 9;
+  private static final int SHARED_RLA = 10;
+  private static final int SHARED_RRA = 11;
+  private static final int SHARED_DAA = 12;
+  private static final int SHARED_CPL = 13;
+  private static final int SHARED_SCF = 14;
+  private static final int SHARED_CCF = 15;
+  private static final int SHARED_LD_R_R = 16;
+  private static final int SHARED_ALU_A_R = 17;
+  private static final int SHARED_EXX = 18;
+  private static final int SHARED_EX_DE_HL = 19;
+  private static final int SHARED_DI = 20;
+  private static final int SHARED_EI = 21;
+  private static final int SHARED_LD_SP_HL = 22;
+  private static final int[] SHARED_DECODE_TABLE = makeSharedDecodeTable();
+
+  private static final long LANES_LOW_BITS = 0x0101_0101_0101_0101L;
+  private static final long LANES_HIGH_BITS = 0x8080_8080_8080_8080L;
+  private static final long LANES_LOW_7BITS = 0x7F7F_7F7F_7F7F_7F7FL;
+  private static final long LANES_FLAG_SYX = LANES_LOW_BITS * FLAG_SYX;
+  private static final long LANES_FLAG_XY = LANES_LOW_BITS * FLAG_XY;
+  private static final long LANES_FLAG_H = LANES_LOW_BITS * FLAG_H;
+  private static final long LANES_FLAG_HN = LANES_LOW_BITS * (FLAG_H | FLAG_N);
+  private static final long LANES_FLAG_SZPVC = LANES_LOW_BITS * (FLAG_SZPV | FLAG_C);
+
   static {
     // fill tables SZYX and SZYXP
     FTABLE_SZYX = new byte[0x100];
@@ -202,6 +241,92 @@ public final class Z80 {
     return (cmndByte >>> 3) & 1;
   }
 
+  private static int[] makeSharedDecodeTable() {
+    final int[] result = new int[0x100];
+    for (int opcode = 0; opcode < 0x100; opcode++) {
+      final int y = extractY(opcode);
+      final int z = extractZ(opcode);
+      final int p = extractP(opcode);
+      int handler = 0;
+      int arg1 = 0;
+      int arg2 = 0;
+      switch (extractX(opcode)) {
+        case 0: {
+          if (z == 0 && y < 2) {
+            handler = y == 0 ? SHARED_NOP : SHARED_EX_AF_AF;
+          } else if (z == 1 && extractQ(opcode) == 1) {
+            handler = SHARED_ADD_HL_RR;
+            arg1 = p;
+          } else if (z == 3) {
+            handler = extractQ(opcode) == 0 ? SHARED_INC_RR : SHARED_DEC_RR;
+            arg1 = p;
+          } else if ((z == 4 || z == 5) && y != 6) {
+            handler = z == 4 ? SHARED_INC_R : SHARED_DEC_R;
+            arg1 = y;
+          } else if (z == 7) {
+            handler = SHARED_RLCA + y;
+          }
+        }
+        break;
+        case 1: {
+          // (HL) operands and HALT are not shared
+          if (y != 6 && z != 6) {
+            handler = SHARED_LD_R_R;
+            arg1 = y;
+            arg2 = z;
+          }
+        }
+        break;
+        case 2: {
+          if (z != 6) {
+            handler = SHARED_ALU_A_R;
+            arg1 = y;
+            arg2 = z;
+          }
+        }
+        break;
+        default: {
+          switch (opcode) {
+            case 0xD9:
+              handler = SHARED_EXX;
+              break;
+            case 0xEB:
+              handler = SHARED_EX_DE_HL;
+              break;
+            case 0xF3:
+              handler = SHARED_DI;
+              break;
+            case 0xF9:
+              handler = SHARED_LD_SP_HL;
+              break;
+            case 0xFB:
+              handler = SHARED_EI;
+              break;
+            default:
+              break;
+          }
+        }
+        break;
+      }
+      result[opcode] =
+          handler == 0 ? DECODED_NONE : opcode | (handler << 8) | (arg1 << 16) | (arg2 << 24);
+    }
+    return result;
+  }
+
+  /**
+   * Decode unprefixed instruction once to be executed by several CPUs which fetch the same
+   * opcode. Only instructions which work with registers and don't access memory and ports
+   * are decoded, for other ones the CPU must decode instruction itself.
+   *
+   * @param opcode opcode byte of instruction
+   * @return decoded instruction or {@link #DECODED_NONE}
+   * @see #step(int, int, int)
+   */
+  public static int decodeShared(final int opcode) {
+    return SHARED_DECODE_TABLE[opcode & 0xFF];
+  }
+
   /**
    * Parse string with id of registers and prepare bit vector for it.
    * main set: <b>A,F,B,C,D,E,H,L,1(F without C)</b>
@@ -247,6 +372,8 @@ public final class Z80 {
   public Z80 fillByState(final Z80 sourceCpu) {
     this.memptr = sourceCpu.memptr;
     this.prefix = sourceCpu.prefix;
+    this.internalRegQ = sourceCpu.internalRegQ;
+    this.internalRegLastQ = sourceCpu.internalRegLastQ;
     this.resetCycle = sourceCpu.resetCycle;
     this.iff1 = sourceCpu.iff1;
     this.iff2 = sourceCpu.iff2;
@@ -1032,6 +1159,219 @@ public final class Z80 {
    * otherwise
    */
   public boolean step(final int ctx, final int incomingSignals) {
+    return this.step(ctx, incomingSignals, DECODED_NONE);
+  }
+
+  /**
+   * Check that CPUs can make step as byte lanes of one CPU, i.e. they have the same control
+   * state, don't process prefix and the step can't be interrupted. Lanes can differ only by
+   * data in registers.
+   *
+   * @param cpus            CPUs, index of CPU in the array is its lane index, max 8 lanes
+   * @param laneMask        bit mask of lanes to be checked
+   * @param incomingSignals external signal states of the step, the same for all lanes
+   * @return true if step can be made over lanes, false otherwise
+   * @see #applyLaneStep(Z80[], int, Z80, boolean)
+   */
+  public static boolean isLaneStepAllowed(final Z80[] cpus, final int laneMask,
+                                          final int incomingSignals) {
+    final int requiredSignals = SIGNAL_IN_nNMI | SIGNAL_IN_nRESET | SIGNAL_IN_nWAIT;
+    if (laneMask == 0 || (incomingSignals & requiredSignals) != requiredSignals) {
+      return false;
+    }
+    final Z80 first = cpus[Integer.numberOfTrailingZeros(laneMask)];
+    if (first.prefix != 0 || first.nmiTrigger
+        || (first.iff1 && (incomingSignals & SIGNAL_IN_nINT) == 0)) {
+      return false;
+    }
+    int mask = laneMask & (laneMask - 1);
+    while (mask != 0) {
+      final Z80 cpu = cpus[Integer.numberOfTrailingZeros(mask)];
+      mask &= mask - 1;
+      if (cpu.prefix != 0
+          || cpu.nmiTrigger
+          || cpu.regPC != first.regPC
+          || cpu.regR != first.regR
+          || cpu.iff1 != first.iff1
+          || cpu.outSignals != first.outSignals) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Apply instruction executed by leader CPU to other lanes. Leader must make its step before
+   * the call, lanes must be checked by {@link #isLaneStepAllowed(Z80[], int, int)} together with
+   * leader before the step. Instruction is fetched only by leader so instruction bytes must be the
+   * same for all lanes. Register moves, logic operations and CPL are executed over register
+   * values of all lanes packed into 64-bit words, control state of lanes is copied from leader.
+   *
+   * @param cpus       CPUs, index of CPU in the array is its lane index, max 8 lanes
+   * @param laneMask   bit mask of lanes to be processed, leader must not be included
+   * @param leader     CPU which has made step
+   * @param plainLogic true if bus doesn't post-process results of AND, OR and XOR
+   * @return true if step is applied to all lanes, false if instruction can't be executed over
+   * lanes and state of lane CPUs is not changed, they must make step themselves
+   */
+  public static boolean applyLaneStep(final Z80[] cpus, final int laneMask, final Z80 leader,
+                                      final boolean plainLogic) {
+    if (leader.prefix != 0) {
+      return false;
+    }
+    final int opcode = leader.lastM1InstructionByte;
+    final int y = extractY(opcode);
+    final int z = extractZ(opcode);
+
+    final long result;
+    final long flags;
+    final boolean flagsChanged;
+    final int targetReg;
+
+    switch (extractX(opcode)) {
+      case 0: {
+        if (opcode == 0x00) {
+          // NOP
+          result = 0L;
+          flags = 0L;
+          flagsChanged = false;
+          targetReg = REG_UNKNOWN;
+        } else if (opcode == 0x2F) {
+          // CPL
+          result = ~gatherLanes(cpus, laneMask, REG_A);
+          flags = (gatherLanes(cpus, laneMask, REG_F) & LANES_FLAG_SZPVC)
+              | (result & LANES_FLAG_XY) | LANES_FLAG_HN;
+          flagsChanged = true;
+          targetReg = REG_A;
+        } else if (z == 6 && y != 6) {
+          // LD r,n
+          result = LANES_LOW_BITS * (leader.lastInstructionByte & 0xFF);
+          flags = 0L;
+          flagsChanged = false;
+          targetReg = laneReg(y);
+        } else {
+          return false;
+        }
+      }
+      break;
+      case 1: {
+        if (y == 6 || z == 6) {
+          return false;
+        }
+        // LD r,r'
+        result = gatherLanes(cpus, laneMask, laneReg(z));
+        flags = 0L;
+        flagsChanged = false;
+        targetReg = laneReg(y);
+      }
+      break;
+      case 2: {
+        if (z == 6 || y < 4 || y == 7 || !plainLogic) {
+          return false;
+        }
+        // AND r, XOR r, OR r
+        result = laneLogic(y, gatherLanes(cpus, laneMask, REG_A),
+            gatherLanes(cpus, laneMask, laneReg(z)));
+        flags = laneLogicFlags(y, result);
+        flagsChanged = true;
+        targetReg = REG_A;
+      }
+      break;
+      default: {
+        if (z != 6 || y < 4 || y == 7 || !plainLogic) {
+          return false;
+        }
+        // AND n, XOR n, OR n
+        result = laneLogic(y, gatherLanes(cpus, laneMask, REG_A),
+            LANES_LOW_BITS * (leader.lastInstructionByte & 0xFF));
+        flags = laneLogicFlags(y, result);
+        flagsChanged = true;
+        targetReg = REG_A;
+      }
+      break;
+    }
+
+    int mask = laneMask;
+    while (mask != 0) {
+      final int lane = Integer.numberOfTrailingZeros(mask);
+      mask &= mask - 1;
+      final Z80 cpu = cpus[lane];
+      final int shift = lane << 3;
+      if (targetReg != REG_UNKNOWN) {
+        cpu.regSet[targetReg] = (byte) (result >>> shift);
+      }
+      cpu.internalRegLastQ = cpu.internalRegQ;
+      if (flagsChanged) {
+        final byte f = (byte) (flags >>> shift);
+        cpu.regSet[REG_F] = f;
+        cpu.internalRegQ = f;
+      } else {
+        cpu.internalRegQ = 0;
+      }
+      cpu.regPC = leader.regPC;
+      cpu.regR = leader.regR;
+      cpu.tiStates = leader.tiStates;
+      cpu.outSignals = leader.outSignals;
+      cpu.prevInSignals = leader.prevInSignals;
+      cpu.lastM1InstructionByte = leader.lastM1InstructionByte;
+      cpu.lastInstructionByte = leader.lastInstructionByte;
+      cpu.stepAllowsInterruption = leader.stepAllowsInterruption;
+      cpu.nmiTrigger = leader.nmiTrigger;
+    }
+    return true;
+  }
+
+  private static int laneReg(final int r) {
+    return r == 7 ? REG_A : REG_B + r;
+  }
+
+  private static long gatherLanes(final Z80[] cpus, final int laneMask, final int reg) {
+    long result = 0L;
+    int mask = laneMask;
+    while (mask != 0) {
+      final int lane = Integer.numberOfTrailingZeros(mask);
+      mask &= mask - 1;
+      result |= (cpus[lane].regSet[reg] & 0xFFL) << (lane << 3);
+    }
+    return result;
+  }
+
+  private static long laneLogic(final int op, final long a, final long value) {
+    switch (op) {
+      case 4:
+        return a & value;
+      case 5:
+        return a ^ value;
+      default:
+        return a | value;
+    }
+  }
+
+  private static long laneLogicFlags(final int op, final long result) {
+    // the lowest bit of every lane becomes parity of the lane
+    long parity = result ^ (result >>> 4);
+    parity ^= parity >>> 2;
+    parity ^= parity >>> 1;
+    // the highest bit of every lane is set if the lane is zero
+    final long zero = ~(((result & LANES_LOW_7BITS) + LANES_LOW_7BITS) | result) & LANES_HIGH_BITS;
+    final long flags = (result & LANES_FLAG_SYX)
+        | (zero >>> (7 - FLAG_Z_SHIFT))
+        | ((~parity & LANES_LOW_BITS) << FLAG_PV_SHIFT);
+    return op == 4 ? flags | LANES_FLAG_H : flags;
+  }
+
+  /**
+   * Process one step with instruction decoded in advance. The decoded instruction is executed
+   * only if there is no prefix in processing and the fetched opcode is the decoded one,
+   * otherwise the fetched instruction is decoded as usual.
+   *
+   * @param ctx                context of method call, will be propagated to all sub-calls
+   * @param incomingSignals    external signal states to be processes during the step.
+   * @param decodedInstruction instruction decoded by {@link #decodeShared(int)}
+   * @return false if there is not any instruction under processing, true
+   * otherwise
+   */
+  public boolean step(final int ctx, final int incomingSignals, final int decodedInstruction) {
     this.nmiTrigger =
         this.nmiTrigger || isHiLoFront(this.prevInSignals, incomingSignals, SIGNAL_IN_nNMI);
 
@@ -1057,7 +1397,18 @@ public final class Z80 {
         final boolean incomingInterrupt =
             this.nmiTrigger || (this.iff1 && (incomingSignals & SIGNAL_IN_nINT) == 0);
 
-        if (_step(ctx, readInstrOrPrefix(ctx, true), incomingInterrupt)) {
+        final int commandByte = readInstrOrPrefix(ctx, true);
+        final boolean completed;
+        if (decodedInstruction != DECODED_NONE && this.prefix == 0
+            && commandByte == (decodedInstruction & 0xFF)) {
+          this.lastInstructionByte = commandByte;
+          _stepDecoded(ctx, decodedInstruction);
+          completed = true;
+        } else {
+          completed = _step(ctx, commandByte, incomingInterrupt);
+        }
+
+        if (completed) {
           // Command completed
           this.prefix = 0;
           result = false;
@@ -1513,6 +1864,82 @@ public final class Z80 {
     return commandCompleted;
   }
 
+  private void _stepDecoded(final int ctx, final int decodedInstruction) {
+    final int arg1 = (decodedInstruction >>> 16) & 0xFF;
+    final int arg2 = decodedInstruction >>> 24;
+    switch ((decodedInstruction >>> 8) & 0xFF) {
+      case SHARED_NOP:
+        doNOP();
+        break;
+      case SHARED_EX_AF_AF:
+        doEX_AF_AF();
+        break;
+      case SHARED_ADD_HL_RR:
+        doADD_HL_RegPair(arg1);
+        break;
+      case SHARED_INC_RR:
+        doINCRegPair(arg1);
+        break;
+      case SHARED_DEC_RR:
+        doDECRegPair(arg1);
+        break;
+      case SHARED_INC_R:
+        doINCReg(ctx, arg1);
+        break;
+      case SHARED_DEC_R:
+        doDECReg(ctx, arg1);
+        break;
+      case SHARED_RLCA:
+        doRLCA();
+        break;
+      case SHARED_RRCA:
+        doRRCA();
+        break;
+      case SHARED_RLA:
+        doRLA();
+        break;
+      case SHARED_RRA:
+        doRRA();
+        break;
+      case SHARED_DAA:
+        doDAA();
+        break;
+      case SHARED_CPL:
+        doCPL();
+        break;
+      case SHARED_SCF:
+        doSCF();
+        break;
+      case SHARED_CCF:
+        doCCF();
+        break;
+      case SHARED_LD_R_R:
+        doLDRegByReg(ctx, arg1, arg2);
+        break;
+      case SHARED_ALU_A_R:
+        doALU_A_Reg(ctx, arg1, arg2);
+        break;
+      case SHARED_EXX:
+        doEXX();
+        break;
+      case SHARED_EX_DE_HL:
+        doEX_DE_HL();
+        break;
+      case SHARED_DI:
+        doDI();
+        break;
+      case SHARED_EI:
+        doEI();
+        break;
+      case SHARED_LD_SP_HL:
+        doLD_SP_HL(ctx);
+        break;
+      default:
+        throw new Error("Unexpected decoded instruction [0x"
+            + Integer.toHexString(decodedInstruction).toUpperCase(Locale.ENGLISH) + ']');
+    }
+  }
+
   private void doNONI() {
     this.prefix = 0;
     this.stepAllowsInterruption = false;
@@ -2914,6 +3341,41 @@ public final class Z80 {
     return this.regSP == other.regSP;
   }
 
+  /**
+   * Check that two CPU have the same full internal state, so that execution of the same
+   * instruction stream on them provides the same result. T-states of the last step and bus are
+   * not compared.
+   *
+   * @param other CPU to be compared, must not be null
+   * @return true if whole internal state is the same, false otherwise
+   * @see #fillByState(Z80)
+   */
+  public boolean isSameState(final Z80 other) {
+    return this.regPC == other.regPC
+        && this.regSP == other.regSP
+        && this.regIX == other.regIX
+        && this.regIY == other.regIY
+        && Arrays.equals(this.regSet, other.regSet)
+        && Arrays.equals(this.altRegSet, other.altRegSet)
+        && this.memptr == other.memptr
+        && this.internalRegQ == other.internalRegQ
+        && this.internalRegLastQ == other.internalRegLastQ
+        && this.prefix == other.prefix
+        && this.cbDisplacementByte == other.cbDisplacementByte
+        && this.outSignals == other.outSignals
+        && this.prevInSignals == other.prevInSignals
+        && this.nmiTrigger == other.nmiTrigger
+        && this.stepAllowsInterruption == other.stepAllowsInterruption
+        && this.resetCycle == other.resetCycle
+        && this.iff1 == other.iff1
+        && this.iff2 == other.iff2
+        && this.im == other.im
+        && this.regI == other.regI
+        && this.regR == other.regR
+        && this.lastM1InstructionByte == other.lastM1InstructionByte
+        && this.lastInstructionByte == other.lastInstructionByte;
+  }
+
   private void doLDD(final int ctx) {
     int hl = _readPtr(ctx, REGPAIR_HL, this.getRegisterPair(REGPAIR_HL));
     int de = _readPtr(ctx, REGPAIR_DE, this.getRegisterPair(REGPAIR_DE));
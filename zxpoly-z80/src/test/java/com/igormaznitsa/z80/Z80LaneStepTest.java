@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.z80;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class Z80LaneStepTest {
+
+  private static final int LANES = 8;
+  private static final int START_PC = 0x8000;
+  private static final int SCF = 0x37;
+
+  private static Z80[] makeLanes(final Random rnd, final int... code) {
+    final Z80 template = new Z80(new TestBus(0xFF, START_PC, code));
+    template.setRegister(Z80.REG_SP, 0xC000);
+    template.setRegister(Z80.REG_PC, START_PC);
+    template.setRegister(Z80.REG_R, rnd.nextInt(0x100));
+    final Z80[] result = new Z80[LANES];
+    for (int i = 0; i < LANES; i++) {
+      // lanes differ only by data in registers
+      result[i] = new Z80(new TestBus(0xFF, START_PC, code)).fillByState(template);
+      for (int reg = Z80.REG_A; reg <= Z80.REG_L; reg++) {
+        result[i].setRegister(reg, rnd.nextInt(0x100), false);
+        result[i].setRegister(reg, rnd.nextInt(0x100), true);
+      }
+    }
+    return result;
+  }
+
+  private static Z80[] copyLanes(final Z80[] lanes, final int... code) {
+    final Z80[] result = new Z80[lanes.length];
+    for (int i = 0; i < lanes.length; i++) {
+      result[i] = new Z80(new TestBus(0xFF, START_PC, code)).fillByState(lanes[i]);
+    }
+    return result;
+  }
+
+  private static boolean isLaneInstruction(final int opcode) {
+    final int x = opcode >>> 6;
+    final int y = (opcode >>> 3) & 7;
+    final int z = opcode & 7;
+    switch (x) {
+      case 0:
+        return opcode == 0x00 || opcode == 0x2F || (z == 6 && y != 6);
+      case 1:
+        return y != 6 && z != 6;
+      case 2:
+        return z != 6 && y >= 4 && y <= 6;
+      default:
+        return z == 6 && y >= 4 && y <= 6;
+    }
+  }
+
+  private static void assertSameState(final String message, final Z80 expected,
+                                      final Z80 actual) {
+    for (int reg = Z80.REG_A; reg <= Z80.REG_R; reg++) {
+      assertEquals(message + " reg " + reg, expected.getRegister(reg, false),
+          actual.getRegister(reg, false));
+      assertEquals(message + " alt.reg " + reg, expected.getRegister(reg, true),
+          actual.getRegister(reg, true));
+    }
+    assertEquals(message + " memptr", expected.getMemPtr(), actual.getMemPtr());
+    assertEquals(message + " iff1", expected.isIFF1(), actual.isIFF1());
+    assertEquals(message + " prefix", expected.getPrefixInProcessing(),
+        actual.getPrefixInProcessing());
+    assertEquals(message + " state", expected.getState(), actual.getState());
+    assertEquals(message + " tstates", expected.getStepTstates(), actual.getStepTstates());
+    assertEquals(message + " last byte", expected.getLastInstructionByte(),
+        actual.getLastInstructionByte());
+    assertEquals(message + " last M1 byte", expected.getLastM1InstructionByte(),
+        actual.getLastM1InstructionByte());
+  }
+
+  @Test
+  public void testLaneStepMatchesIndependentSteps() {
+    final Random rnd = new Random(42L);
+    for (int opcode = 0; opcode < 0x100; opcode++) {
+      for (int n = 0; n < 16; n++) {
+        // SCF after instruction shows internal Q register
+        final int[] code = new int[] {opcode, SCF, SCF, SCF, SCF};
+        final Z80[] expected = makeLanes(rnd, code);
+        final Z80[] actual = copyLanes(expected, code);
+        final int leader = rnd.nextInt(LANES);
+        final int laneMask = (rnd.nextInt(0x100) | (1 << leader)) & ~(1 << leader);
+
+        for (int i = 0; i < LANES; i++) {
+          expected[i].step(i + 1, Z80.SIGNAL_IN_ALL_INACTIVE);
+        }
+
+        assertTrue(Z80.isLaneStepAllowed(actual, laneMask | (1 << leader),
+            Z80.SIGNAL_IN_ALL_INACTIVE));
+        actual[leader].step(leader + 1, Z80.SIGNAL_IN_ALL_INACTIVE);
+        final boolean applied = Z80.applyLaneStep(actual, laneMask, actual[leader], true);
+        assertEquals(String.format("#%02X", opcode), isLaneInstruction(opcode), applied);
+        for (int i = 0; i < LANES; i++) {
+          if (i != leader && (!applied || (laneMask & (1 << i)) == 0)) {
+            actual[i].step(i + 1, Z80.SIGNAL_IN_ALL_INACTIVE);
+          }
+        }
+
+        for (int step = 0; step < 2; step++) {
+          for (int i = 0; i < LANES; i++) {
+            assertSameState(String.format("#%02X lane %d step %d", opcode, i, step),
+                expected[i], actual[i]);
+          }
+          for (int i = 0; i < LANES; i++) {
+            expected[i].step(i + 1, Z80.SIGNAL_IN_ALL_INACTIVE);
+            actual[i].step(i + 1, Z80.SIGNAL_IN_ALL_INACTIVE);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testLogicNotAppliedIfPostProcessed() {
+    final Random rnd = new Random(7L);
+    for (final int opcode : new int[] {0xA0, 0xA9, 0xB2, 0xE6, 0xEE, 0xF6}) {
+      final Z80[] lanes = makeLanes(rnd, opcode, 0x55);
+      final int[] before = new int[LANES];
+      for (int i = 0; i < LANES; i++) {
+        before[i] = lanes[i].getRegisterPair(Z80.REGPAIR_AF);
+      }
+      lanes[0].step(1, Z80.SIGNAL_IN_ALL_INACTIVE);
+      assertFalse(Z80.applyLaneStep(lanes, 0xFE, lanes[0], false));
+      for (int i = 1; i < LANES; i++) {
+        assertEquals(before[i], lanes[i].getRegisterPair(Z80.REGPAIR_AF));
+        assertEquals(START_PC, lanes[i].getPC());
+      }
+    }
+  }
+
+  @Test
+  public void testLaneStepNotAllowed() {
+    final Random rnd = new Random(11L);
+    Z80[] lanes = makeLanes(rnd, 0x00);
+    assertTrue(Z80.isLaneStepAllowed(lanes, 0xFF, Z80.SIGNAL_IN_ALL_INACTIVE));
+    assertFalse(Z80.isLaneStepAllowed(lanes, 0xFF,
+        Z80.SIGNAL_IN_ALL_INACTIVE & ~Z80.SIGNAL_IN_nNMI));
+    assertFalse(Z80.isLaneStepAllowed(lanes, 0xFF,
+        Z80.SIGNAL_IN_ALL_INACTIVE & ~Z80.SIGNAL_IN_nWAIT));
+
+    lanes[3].setRegister(Z80.REG_PC, START_PC + 1);
+    assertFalse(Z80.isLaneStepAllowed(lanes, 0xFF, Z80.SIGNAL_IN_ALL_INACTIVE));
+    assertTrue(Z80.isLaneStepAllowed(lanes, 0xF7, Z80.SIGNAL_IN_ALL_INACTIVE));
+
+    lanes = makeLanes(rnd, 0x00);
+    for (final Z80 lane : lanes) {
+      lane.setIFF(true, true);
+    }
+    assertTrue(Z80.isLaneStepAllowed(lanes, 0xFF, Z80.SIGNAL_IN_ALL_INACTIVE));
+    assertFalse(Z80.isLaneStepAllowed(lanes, 0xFF,
+        Z80.SIGNAL_IN_ALL_INACTIVE & ~Z80.SIGNAL_IN_nINT));
+
+    lanes = makeLanes(rnd, 0xCB, 0x00);
+    lanes[0].step(1, Z80.SIGNAL_IN_ALL_INACTIVE);
+    assertFalse(Z80.isLaneStepAllowed(lanes, 0xFF, Z80.SIGNAL_IN_ALL_INACTIVE));
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.z80;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Manual benchmark of shared decode of lockstep ZX-Poly modules against independent steps, it
+ * repeats work of the board: checks of PC and prefix of all CPUs and read of opcode.
+ */
+@Ignore
+public class Z80SharedDecodeSpeedTest {
+
+  private static final int CPUS = 4;
+  private static final int STEPS = 20_000_000;
+  private static final int ROUNDS = 5;
+
+  // LD B,0; loop: LD A,B; ADD A,C; LD C,A; INC DE; DEC HL; XOR D; AND E; OR H; LD D,A; INC L;
+  // DJNZ loop; JR 0
+  private static final int[] LOCKSTEP_LOOP = new int[] {0x06, 0x00, 0x78, 0x81, 0x4F, 0x13, 0x2B,
+      0xAA, 0xA3, 0xB4, 0x57, 0x2C, 0x10, 0xF4, 0x18, 0xF0};
+
+  private static Z80[] makeCpus(final TestBus[] buses) {
+    final Z80[] result = new Z80[CPUS];
+    for (int i = 0; i < CPUS; i++) {
+      result[i] = new Z80(buses[i]);
+      result[i].setRegister(Z80.REG_SP, 0xFFF0);
+      result[i].setRegister(Z80.REG_C, i * 17);
+    }
+    return result;
+  }
+
+  private static TestBus[] makeBuses(final int[] code) {
+    final TestBus[] result = new TestBus[CPUS];
+    for (int i = 0; i < CPUS; i++) {
+      result[i] = new TestBus(0xFF, 0, code);
+    }
+    return result;
+  }
+
+  private static long runPlain(final TestBus[] buses) {
+    final Z80[] cpus = makeCpus(buses);
+    long tiStates = 0L;
+    for (int s = 0; s < STEPS; s++) {
+      for (int i = 0; i < CPUS; i++) {
+        cpus[i].step(i + 1, Z80.SIGNAL_IN_ALL_INACTIVE);
+        tiStates += cpus[i].getStepTstates();
+      }
+    }
+    return tiStates;
+  }
+
+  private static long runShared(final TestBus[] buses) {
+    final Z80[] cpus = makeCpus(buses);
+    long tiStates = 0L;
+    for (int s = 0; s < STEPS; s++) {
+      int decoded = Z80.DECODED_NONE;
+      final int pc = cpus[0].getPC();
+      boolean lockstep = cpus[0].getPrefixInProcessing() == 0;
+      for (int i = 1; lockstep && i < CPUS; i++) {
+        lockstep = cpus[i].getPC() == pc && cpus[i].getPrefixInProcessing() == 0;
+      }
+      if (lockstep) {
+        decoded = Z80.decodeShared(buses[0].readMemory(cpus[0], 1, pc, false, false) & 0xFF);
+      }
+      for (int i = 0; i < CPUS; i++) {
+        cpus[i].step(i + 1, Z80.SIGNAL_IN_ALL_INACTIVE, decoded);
+        tiStates += cpus[i].getStepTstates();
+      }
+    }
+    return tiStates;
+  }
+
+  private static void compare(final String name, final int[] code) {
+    long sink = 0L;
+    for (int i = 0; i < 3; i++) {
+      sink += runPlain(makeBuses(code));
+      sink += runShared(makeBuses(code));
+    }
+    long bestPlain = Long.MAX_VALUE;
+    long bestShared = Long.MAX_VALUE;
+    for (int i = 0; i < ROUNDS; i++) {
+      long start = System.nanoTime();
+      sink += runPlain(makeBuses(code));
+      bestPlain = Math.min(bestPlain, System.nanoTime() - start);
+      start = System.nanoTime();
+      sink += runShared(makeBuses(code));
+      bestShared = Math.min(bestShared, System.nanoTime() - start);
+    }
+    System.out.printf("%s: independent %.1f ns, shared decode %.1f ns per step of %d CPUs (%d)%n",
+        name, bestPlain / (double) STEPS, bestShared / (double) STEPS, CPUS, sink & 1);
+    assertTrue(name + ": shared decode must not be slower",
+        bestShared <= bestPlain + bestPlain / 10);
+  }
+
+  @Test
+  public void testLockstepLoop() {
+    compare("lockstep loop", LOCKSTEP_LOOP);
+  }
+
+  @Test
+  public void testRandomCode() {
+    final Random rnd = new Random(8962L);
+    final int[] code = new int[0x10000];
+    for (int i = 0; i < code.length; i++) {
+      int value = rnd.nextInt(0x100);
+      while (value == 0x76) {
+        value = rnd.nextInt(0x100);
+      }
+      code[i] = value;
+    }
+    compare("random code", code);
+  }
+}
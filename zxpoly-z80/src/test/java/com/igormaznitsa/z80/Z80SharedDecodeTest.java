@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2019 Igor Maznitsa
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.igormaznitsa.z80;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class Z80SharedDecodeTest {
+
+  private static final int MODULES = 4;
+  private static final int START_PC = 0x8000;
+
+  private static Z80 makeCpu(final Random rnd, final int... code) {
+    final TestBus bus = new TestBus(0xFF, START_PC, code);
+    final Z80 cpu = new Z80(bus);
+    for (int reg = Z80.REG_A; reg <= Z80.REG_L; reg++) {
+      cpu.setRegister(reg, rnd.nextInt(0x100), false);
+      cpu.setRegister(reg, rnd.nextInt(0x100), true);
+    }
+    cpu.setRegister(Z80.REG_IX, rnd.nextInt(0x10000));
+    cpu.setRegister(Z80.REG_IY, rnd.nextInt(0x10000));
+    cpu.setRegister(Z80.REG_SP, 0xC000 + rnd.nextInt(0x1000));
+    cpu.setRegister(Z80.REG_PC, START_PC);
+    cpu.setIFF(true, true);
+    cpu.setIM(1);
+    return cpu;
+  }
+
+  private static void assertSameState(final String message, final Z80 expected,
+                                      final Z80 actual) {
+    for (int reg = Z80.REG_A; reg <= Z80.REG_R; reg++) {
+      assertEquals(message + " reg " + reg, expected.getRegister(reg, false),
+          actual.getRegister(reg, false));
+      assertEquals(message + " alt.reg " + reg, expected.getRegister(reg, true),
+          actual.getRegister(reg, true));
+    }
+    assertEquals(message + " memptr", expected.getMemPtr(), actual.getMemPtr());
+    assertEquals(message + " iff1", expected.isIFF1(), actual.isIFF1());
+    assertEquals(message + " iff2", expected.isIFF2(), actual.isIFF2());
+    assertEquals(message + " prefix", expected.getPrefixInProcessing(),
+        actual.getPrefixInProcessing());
+    assertEquals(message + " state", expected.getState(), actual.getState());
+    assertEquals(message + " tstates", expected.getStepTstates(), actual.getStepTstates());
+    assertEquals(message + " last byte", expected.getLastInstructionByte(),
+        actual.getLastInstructionByte());
+    assertEquals(message + " last M1 byte", expected.getLastM1InstructionByte(),
+        actual.getLastM1InstructionByte());
+  }
+
+  private static void assertSharedStepMatchesIndependent(final Random rnd, final int signals,
+                                                         final int... code) {
+    final Z80[] independent = new Z80[MODULES];
+    final Z80[] shared = new Z80[MODULES];
+    for (int i = 0; i < MODULES; i++) {
+      // every module has its own registers and memory
+      independent[i] = makeCpu(rnd, code);
+      shared[i] = new Z80(new TestBus(0xFF, START_PC, code)).fillByState(independent[i]);
+    }
+
+    final int decoded = Z80.decodeShared(code[0]);
+    for (int step = 0; step < 2; step++) {
+      for (int i = 0; i < MODULES; i++) {
+        final int incomingSignals = step == 0 ? Z80.SIGNAL_IN_ALL_INACTIVE : signals;
+        independent[i].step(i, incomingSignals);
+        shared[i].step(i, incomingSignals, step == 0 ? decoded : Z80.DECODED_NONE);
+        assertSameState(String.format("#%02X module %d step %d", code[0], i, step),
+            independent[i], shared[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testSharedDecodeMatchesIndependentSteps() {
+    final Random rnd = new Random(3141592L);
+    for (int opcode = 0; opcode < 0x100; opcode++) {
+      for (int n = 0; n < 16; n++) {
+        assertSharedStepMatchesIndependent(rnd, Z80.SIGNAL_IN_ALL_INACTIVE, opcode, 0x00, 0x00,
+            0x00);
+        assertSharedStepMatchesIndependent(rnd,
+            Z80.SIGNAL_IN_ALL_INACTIVE & ~Z80.SIGNAL_IN_nINT, opcode, 0x00, 0x00, 0x00);
+      }
+    }
+  }
+
+  @Test
+  public void testDecodedOnlyRegisterInstructions() {
+    assertNotEquals(Z80.DECODED_NONE, Z80.decodeShared(0x00));
+    assertNotEquals(Z80.DECODED_NONE, Z80.decodeShared(0x41));
+    assertNotEquals(Z80.DECODED_NONE, Z80.decodeShared(0x87));
+    assertNotEquals(Z80.DECODED_NONE, Z80.decodeShared(0xD9));
+    assertEquals(Z80.DECODED_NONE, Z80.decodeShared(0x76));
+    assertEquals(Z80.DECODED_NONE, Z80.decodeShared(0x7E));
+    assertEquals(Z80.DECODED_NONE, Z80.decodeShared(0x86));
+    assertEquals(Z80.DECODED_NONE, Z80.decodeShared(0xCB));
+    assertEquals(Z80.DECODED_NONE, Z80.decodeShared(0xDD));
+    assertEquals(Z80.DECODED_NONE, Z80.decodeShared(0xC3));
+    assertEquals(Z80.DECODED_NONE, Z80.decodeShared(0xD3));
+  }
+
+  @Test
+  public void testFallbackIfFetchedByteDiffers() {
+    final Random rnd = new Random(2718281L);
+    final Z80 expected = makeCpu(rnd, 0x3C);
+    final Z80 actual = new Z80(new TestBus(0xFF, START_PC, 0x3C)).fillByState(expected);
+    // decoded for DEC A but memory contains INC A
+    expected.step(0, Z80.SIGNAL_IN_ALL_INACTIVE);
+    actual.step(0, Z80.SIGNAL_IN_ALL_INACTIVE, Z80.decodeShared(0x3D));
+    assertSameState("fetched byte differs", expected, actual);
+  }
+
+  @Test
+  public void testFallbackIfPrefixInProcessing() {
+    final Random rnd = new Random(1618033L);
+    // LD IXH,B after DD prefix
+    final Z80 expected = makeCpu(rnd, 0xDD, 0x60);
+    final Z80 actual = new Z80(new TestBus(0xFF, START_PC, 0xDD, 0x60)).fillByState(expected);
+    expected.step(0, Z80.SIGNAL_IN_ALL_INACTIVE);
+    actual.step(0, Z80.SIGNAL_IN_ALL_INACTIVE);
+    expected.step(0, Z80.SIGNAL_IN_ALL_INACTIVE);
+    actual.step(0, Z80.SIGNAL_IN_ALL_INACTIVE, Z80.decodeShared(0x60));
+    assertSameState("prefix in processing", expected, actual);
+  }
+}
@@ -139,6 +139,21 @@ public class Z80Test extends AbstractZ80Test {
     assertTrue(cpu.getLeft().compareState(new Z80(cpu.getLeft()), false));
   }
 
+  @Test
+  public void testIsSameStateWithClonedCPU() {
+    final Z80State state = new Z80State();
+    state.A = 12;
+    state.C = 15;
+    final Z80 cpu = executeCommand(state, 0x79).getLeft();
+    final Z80 clone = new Z80(cpu);
+    assertTrue(cpu.isSameState(clone));
+    clone.setMemPtr(cpu.getMemPtr() + 1);
+    assertFalse(cpu.isSameState(clone));
+    assertTrue(cpu.isSameState(clone.fillByState(cpu)));
+    clone.setRegister(Z80.REG_A, 13, true);
+    assertFalse(cpu.isSameState(clone));
+  }
+
   @Test
   public void testCommand_LD_A_C() {
     final Z80State state = new Z80State();